@@ -8,6 +8,8 @@ import java.util.concurrent.Callable;
 import info.jab.cli.command.DeleteEmailsCommand;
 import info.jab.cli.command.ListEmailsCommand;
 import info.jab.cli.command.ListFoldersCommand;
+import info.jab.cli.command.MoveEmailsCommand;
+import info.jab.cli.command.WatchCommand;
 import info.jab.email.EmailClient;
 import info.jab.email.EmailClientBuilder;
 import info.jab.email.EmailConfig;
@@ -17,7 +19,7 @@ import info.jab.email.EmailConfig;
  */
 @Command(
         name = "email-cli",
-        description = "Email CLI tool for listing folders, emails, filtering, and deleting",
+        description = "Email CLI tool for listing folders, emails, filtering, moving, deleting and watching",
         mixinStandardHelpOptions = true,
         usageHelpAutoWidth = true
 )
@@ -26,6 +28,9 @@ public class EmailCli implements Callable<Integer> {
     private final ListFoldersCommand listFoldersCommand;
     private final ListEmailsCommand listEmailsCommand;
     private final DeleteEmailsCommand deleteEmailsCommand;
+    private final MoveEmailsCommand moveEmailsCommand;
+    private final WatchCommand watchCommand;
+    private final EmailClient emailClient;
 
     /**
      * Constructor that accepts EmailConfig and creates EmailClient, then injects it into commands.
@@ -39,11 +44,15 @@ public class EmailCli implements Callable<Integer> {
                 .smtpPort(config.getSmtpPort())
                 .user(config.getUser())
                 .password(config.getPassword())
+                .envelopeCacheDirectory(config.getCacheDirectory())
                 .build();
 
         this.listFoldersCommand = new ListFoldersCommand(emailClient);
         this.listEmailsCommand = new ListEmailsCommand(emailClient);
         this.deleteEmailsCommand = new DeleteEmailsCommand(emailClient);
+        this.moveEmailsCommand = new MoveEmailsCommand(emailClient);
+        this.watchCommand = new WatchCommand(emailClient);
+        this.emailClient = emailClient;
     }
 
     /**
@@ -52,11 +61,18 @@ public class EmailCli implements Callable<Integer> {
      * @param listFoldersCommand the list-folders command instance (if null, uses annotation-based command)
      * @param listEmailsCommand the list-emails command instance (if null, uses annotation-based command)
      * @param deleteEmailsCommand the delete-emails command instance (if null, uses annotation-based command)
+     * @param moveEmailsCommand the move-emails command instance (if null, uses annotation-based command)
+     * @param watchCommand the watch command instance (if null, uses annotation-based command)
      */
-    public EmailCli(ListFoldersCommand listFoldersCommand, ListEmailsCommand listEmailsCommand, DeleteEmailsCommand deleteEmailsCommand) {
+    public EmailCli(ListFoldersCommand listFoldersCommand, ListEmailsCommand listEmailsCommand,
+                    DeleteEmailsCommand deleteEmailsCommand, MoveEmailsCommand moveEmailsCommand,
+                    WatchCommand watchCommand) {
         this.listFoldersCommand = listFoldersCommand;
         this.listEmailsCommand = listEmailsCommand;
         this.deleteEmailsCommand = deleteEmailsCommand;
+        this.moveEmailsCommand = moveEmailsCommand;
+        this.watchCommand = watchCommand;
+        this.emailClient = null;
     }
 
     @Override
@@ -70,9 +86,19 @@ public class EmailCli implements Callable<Integer> {
         EmailCli cli = new EmailCli(EmailConfig.load());
         CommandLine cmd = createCommandLine(cli);
         int exitCode = cmd.execute(args);
+        cli.close();
         System.exit(exitCode);
     }
 
+    /**
+     * Closes the EmailClient created from configuration, logging out of pooled connections.
+     */
+    void close() {
+        if (emailClient != null) {
+            emailClient.close();
+        }
+    }
+
     /**
      * Creates a CommandLine instance with proper subcommand registration.
      * If custom commands are provided, they are used; otherwise, annotation-based commands are used.
@@ -93,6 +119,12 @@ public class EmailCli implements Callable<Integer> {
         if (cli.deleteEmailsCommand != null) {
             commandLine.addSubcommand("delete-emails", cli.deleteEmailsCommand);
         }
+        if (cli.moveEmailsCommand != null) {
+            commandLine.addSubcommand("move-emails", cli.moveEmailsCommand);
+        }
+        if (cli.watchCommand != null) {
+            commandLine.addSubcommand("watch", cli.watchCommand);
+        }
 
         return commandLine;
     }
@@ -5,6 +5,7 @@ import info.jab.email.EmailClientBuilder;
 import info.jab.email.EmailConfig;
 import info.jab.email.EmailSearch;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
 import java.util.concurrent.Callable;
@@ -27,6 +28,19 @@ public class DeleteEmailsCommand extends EmailFilterCommand implements Callable<
     )
     private String folder = "INBOX";
 
+    @Option(
+            names = {"--chunk-size"},
+            description = "Number of emails to delete per server round trip (default: ${DEFAULT-VALUE})",
+            defaultValue = "" + EmailClient.DEFAULT_BATCH_CHUNK_SIZE
+    )
+    private int chunkSize = EmailClient.DEFAULT_BATCH_CHUNK_SIZE;
+
+    @Option(
+            names = {"--dry-run"},
+            description = "Only report how many emails would be deleted, without fetching or deleting any"
+    )
+    private boolean dryRun;
+
     /**
      * Constructor for dependency injection.
      *
@@ -43,16 +57,30 @@ public class DeleteEmailsCommand extends EmailFilterCommand implements Callable<
 
             EmailSearch search = buildSearchTerm();
 
-            if (search == null) {
+            if (search == null || search.build() == null) {
                 System.err.println("Error: At least one filter option must be specified to prevent accidental deletion of all emails.");
                 System.err.println("Use --help to see available filter options.");
                 return 1;
             }
 
-            boolean deleted = client.deleteEmails(folder, search.build());
+            if (explain) {
+                return printPlan(client, folder, search, false);
+            }
+
+            if (dryRun) {
+                int matching = client.count(folder, search.build());
+                System.out.println("Dry run: " + matching + " emails would be deleted from folder: " + folder);
+                return 0;
+            }
+
+            int deleted = client.deleteEmails(folder, search.build(), chunkSize, (processed, total) -> {
+                if (total > chunkSize) {
+                    System.err.println("Deleted " + processed + " of " + total + " emails");
+                }
+            });
 
-            if (deleted) {
-                System.out.println("Emails deleted successfully from folder: " + folder);
+            if (deleted > 0) {
+                System.out.println("Emails deleted successfully from folder: " + folder + " (" + deleted + " emails)");
                 return 0;
             } else {
                 System.out.println("No emails found matching the criteria in folder: " + folder);
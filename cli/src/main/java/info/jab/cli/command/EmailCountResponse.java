@@ -0,0 +1,12 @@
+package info.jab.cli.command;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Response model for the number of emails matching a search, without the emails themselves.
+ */
+public record EmailCountResponse(
+    @JsonProperty("folder") String folder,
+    @JsonProperty("count") int count
+) {
+}
@@ -1,11 +1,15 @@
 package info.jab.cli.command;
 
+import info.jab.email.EmailClient;
 import info.jab.email.EmailSearch;
+import info.jab.email.ImapCapability;
+import info.jab.email.SearchPlan;
 import picocli.CommandLine.Option;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.List;
 
 /**
  * Base class for email commands that support filtering.
@@ -79,8 +83,26 @@ public abstract class EmailFilterCommand {
     )
     protected String sentBefore;
 
+    @Option(
+            names = {"--query"},
+            description = "Filter with a query sent as a single server search, combined with the other filters by AND, "
+                    + "e.g. '(from:alice OR from:bob) AND NOT is:read AND received:2024-01-01..2024-03-31 AND size>1M'. "
+                    + "Fields: from, to, cc, bcc, subject, body (field:text), is:read, is:unread, "
+                    + "received and sent (:date, :from..to, >, >=, <, <= with yyyy-MM-dd), size (>, >=, <, <= with K, M or G)"
+    )
+    protected String query;
+
+    @Option(
+            names = {"--explain"},
+            description = "Show how the search would execute (IMAP SEARCH command, server and local criteria, "
+                    + "capabilities and cost estimate) without running it"
+    )
+    protected boolean explain;
+
     /**
-     * Builds a search term from the filter options.
+     * Builds a search term from the filter options and the {@code --query} expression. The combined
+     * search is optimized, so contradictory filters such as {@code --read --unread} give a search
+     * that matches nothing and is answered without contacting the server.
      *
      * @return the EmailSearch instance, or null if no filters are specified
      */
@@ -141,7 +163,48 @@ public abstract class EmailFilterCommand {
             }
         }
 
-        return search;
+        if (query != null && !query.isBlank()) {
+            search = combineSearch(search, SearchQuery.parse(query));
+        }
+
+        return search != null ? search.optimize() : null;
+    }
+
+    /**
+     * Prints how the search would execute in a folder, without running it.
+     *
+     * @param client the EmailClient to read the capabilities and folder status with
+     * @param folder the folder the search would run in
+     * @param search the search, or null for all emails
+     * @param clientFallback whether the command falls back to matching on the client when the
+     *                       server cannot run the search, instead of failing
+     * @return the exit code
+     */
+    protected int printPlan(EmailClient client, String folder, EmailSearch search, boolean clientFallback) {
+        SearchPlan plan = client.explain(folder, search != null ? search.build() : null);
+        System.out.println("Search plan for folder: " + folder);
+        System.out.println("  Execution: " + plan.execution());
+        if (plan.imapSearch() != null) {
+            System.out.println("  IMAP command: " + plan.imapSearch());
+        }
+        printCriteria("Server criteria", plan.serverCriteria());
+        printCriteria("Local criteria", plan.localCriteria());
+        System.out.println("  Capabilities used: " + (plan.capabilities().isEmpty() ? "none"
+                : String.join(", ", plan.capabilities().stream().map(ImapCapability::atom).toList())));
+        System.out.println("  Cost estimate: " + plan.costEstimate());
+        if (plan.execution() == SearchPlan.Execution.CLIENT && !clientFallback) {
+            System.out.println("  Note: this command fails instead of matching on the client when the server cannot run the search");
+        }
+        return 0;
+    }
+
+    private static void printCriteria(String label, List<String> criteria) {
+        if (criteria.isEmpty()) {
+            System.out.println("  " + label + ": none");
+            return;
+        }
+        System.out.println("  " + label + ":");
+        criteria.forEach(criterion -> System.out.println("    " + criterion));
     }
 
     /**
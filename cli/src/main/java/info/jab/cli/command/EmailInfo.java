@@ -1,6 +1,9 @@
 package info.jab.cli.command;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import info.jab.email.EmailSummary;
+import info.jab.email.FolderEmail;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -14,19 +17,46 @@ public record EmailInfo(
     @JsonProperty("index") int index,
     @JsonProperty("from") String from,
     @JsonProperty("subject") String subject,
-    @JsonProperty("sentDate") String sentDate
+    @JsonProperty("sentDate") String sentDate,
+    @JsonProperty("uid") @JsonInclude(JsonInclude.Include.NON_NULL) Long uid,
+    @JsonProperty("folder") @JsonInclude(JsonInclude.Include.NON_NULL) String folder
 ) {
+    public EmailInfo(int index, String from, String subject, String sentDate, Long uid) {
+        this(index, from, subject, sentDate, uid, null);
+    }
+
     /**
      * Factory method to create EmailInfo from a Message with date conversion.
      */
     public static EmailInfo fromMessage(int index, String from, String subject, Date sentDate) {
         String formattedDate = null;
         if (sentDate != null) {
-            Instant instant = sentDate.toInstant();
-            ZonedDateTime zonedDateTime = instant.atZone(ZoneId.systemDefault());
-            formattedDate = zonedDateTime.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+            formattedDate = formatDate(sentDate.toInstant());
         }
-        return new EmailInfo(index, from, subject, formattedDate);
+        return new EmailInfo(index, from, subject, formattedDate, null);
+    }
+
+    /**
+     * Factory method to create EmailInfo from an EmailSummary, including its UID.
+     */
+    public static EmailInfo fromSummary(int index, EmailSummary summary) {
+        String fromStr = summary.from() != null ? summary.from() : "Unknown";
+        String subjectStr = summary.subject() != null && !summary.subject().isBlank() ? summary.subject() : "(No Subject)";
+        String formattedDate = summary.sentDate() != null ? formatDate(summary.sentDate()) : null;
+        Long uid = summary.uid() > 0 ? summary.uid() : null;
+        return new EmailInfo(index, fromStr, subjectStr, formattedDate, uid);
     }
-}
 
+    /**
+     * Factory method to create EmailInfo from an email found by a multi-folder search, including its folder.
+     */
+    public static EmailInfo fromFolderEmail(int index, FolderEmail folderEmail) {
+        EmailInfo info = fromSummary(index, folderEmail.email());
+        return new EmailInfo(info.index(), info.from(), info.subject(), info.sentDate(), info.uid(), folderEmail.folder());
+    }
+
+    static String formatDate(Instant instant) {
+        ZonedDateTime zonedDateTime = instant.atZone(ZoneId.systemDefault());
+        return zonedDateTime.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
+}
@@ -0,0 +1,121 @@
+package info.jab.cli.command;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Writes emails as compact JSON while they are read, instead of building the whole response first.
+ * In NDJSON mode every email is one object on its own line. In document mode the emails are
+ * streamed into the array of a single object with the fields of {@link EmailListResponse},
+ * where the count follows the array since it is only known at the end.
+ */
+final class EmailJsonStreamWriter implements Closeable {
+
+    /**
+     * Emails written between flushes, matching the chunks the envelopes are fetched in.
+     */
+    private static final int FLUSH_INTERVAL = 500;
+
+    private final JsonGenerator generator;
+    private final boolean ndjson;
+    private int count;
+
+    private EmailJsonStreamWriter(OutputStream out, boolean ndjson) throws IOException {
+        this.generator = new ObjectMapper().getFactory().createGenerator(out, JsonEncoding.UTF8);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Lines are separated explicitly, without the space Jackson puts between root values
+        this.generator.setRootValueSeparator(null);
+        this.ndjson = ndjson;
+    }
+
+    /**
+     * Creates a writer of one JSON object per line.
+     */
+    static EmailJsonStreamWriter ndjson(OutputStream out) throws IOException {
+        return new EmailJsonStreamWriter(out, true);
+    }
+
+    /**
+     * Creates a writer of a single JSON document, writing its head right away.
+     */
+    static EmailJsonStreamWriter document(OutputStream out, String folder) throws IOException {
+        return document(out, folder, false);
+    }
+
+    /**
+     * Creates a writer of a single JSON document, indented like the non-streaming output if requested.
+     */
+    static EmailJsonStreamWriter document(OutputStream out, String folder, boolean indent) throws IOException {
+        EmailJsonStreamWriter writer = new EmailJsonStreamWriter(out, false);
+        if (indent) {
+            writer.generator.useDefaultPrettyPrinter();
+        }
+        writer.generator.writeStartObject();
+        writer.generator.writeStringField("folder", folder);
+        writer.generator.writeArrayFieldStart("emails");
+        return writer;
+    }
+
+    void write(EmailInfo email) throws IOException {
+        writeEmail(email);
+    }
+
+    /**
+     * Writes an email given as an ordered map of its fields, such as those selected with {@code --fields}.
+     */
+    void write(Map<String, Object> email) throws IOException {
+        writeEmail(email);
+    }
+
+    private void writeEmail(Object email) throws IOException {
+        generator.writeObject(email);
+        if (ndjson) {
+            generator.writeRaw('\n');
+        }
+        if (++count % FLUSH_INTERVAL == 0) {
+            generator.flush();
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * Completes the output after the last email. Not called when listing failed, so a document
+     * cut short by an error stays invalid JSON instead of looking complete.
+     *
+     * @param uidValidity the UIDVALIDITY of a page, or null
+     * @param nextCursor the cursor of the next page, or null
+     * @param errors the folders that could not be searched, or null
+     */
+    void finish(Long uidValidity, Long nextCursor, Map<String, String> errors) throws IOException {
+        if (!ndjson) {
+            generator.writeEndArray();
+            generator.writeNumberField("count", count);
+            if (uidValidity != null) {
+                generator.writeNumberField("uidValidity", uidValidity);
+            }
+            if (nextCursor != null) {
+                generator.writeNumberField("nextCursor", nextCursor);
+            }
+            if (errors != null && !errors.isEmpty()) {
+                generator.writeObjectField("errors", errors);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.flush();
+    }
+}
@@ -1,15 +1,28 @@
 package info.jab.cli.command;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Response model for email list output.
+ * The paging fields are only present when the list was requested page by page, and the
+ * errors only when a search over several folders could not search some of them.
  */
 public record EmailListResponse(
     @JsonProperty("folder") String folder,
     @JsonProperty("count") int count,
-    @JsonProperty("emails") List<EmailInfo> emails
+    @JsonProperty("emails") List<EmailInfo> emails,
+    @JsonProperty("uidValidity") @JsonInclude(JsonInclude.Include.NON_NULL) Long uidValidity,
+    @JsonProperty("nextCursor") @JsonInclude(JsonInclude.Include.NON_NULL) Long nextCursor,
+    @JsonProperty("errors") @JsonInclude(JsonInclude.Include.NON_EMPTY) Map<String, String> errors
 ) {
-}
+    public EmailListResponse(String folder, int count, List<EmailInfo> emails) {
+        this(folder, count, emails, null, null);
+    }
 
+    public EmailListResponse(String folder, int count, List<EmailInfo> emails, Long uidValidity, Long nextCursor) {
+        this(folder, count, emails, uidValidity, nextCursor, null);
+    }
+}
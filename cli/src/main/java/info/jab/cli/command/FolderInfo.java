@@ -0,0 +1,23 @@
+package info.jab.cli.command;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import info.jab.email.FolderStatus;
+
+/**
+ * Folder information model for JSON output.
+ * The size is only present when the server reports it.
+ */
+public record FolderInfo(
+    @JsonProperty("name") String name,
+    @JsonProperty("messages") int messages,
+    @JsonProperty("unseen") int unseen,
+    @JsonProperty("size") @JsonInclude(JsonInclude.Include.NON_NULL) Long size
+) {
+    /**
+     * Factory method to create FolderInfo from a FolderStatus.
+     */
+    public static FolderInfo fromStatus(FolderStatus status) {
+        return new FolderInfo(status.folder(), status.messages(), status.unseen(), status.hasSize() ? status.size() : null);
+    }
+}
@@ -0,0 +1,13 @@
+package info.jab.cli.command;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * Response model for folder list output with message counts.
+ */
+public record FolderListResponse(
+    @JsonProperty("count") int count,
+    @JsonProperty("folders") List<FolderInfo> folders
+) {
+}
@@ -3,20 +3,41 @@ package info.jab.cli.command;
 import info.jab.email.EmailClient;
 import info.jab.email.EmailClientBuilder;
 import info.jab.email.EmailConfig;
+import info.jab.email.EmailPage;
+import info.jab.email.EmailResult;
 import info.jab.email.EmailSearch;
+import info.jab.email.EmailSort;
+import info.jab.email.EmailSummary;
+import info.jab.email.FieldProjection;
+import info.jab.email.FolderEmail;
+import info.jab.email.MultiFolderResult;
+import info.jab.email.PageRequest;
+import info.jab.email.ProjectedEmail;
+import info.jab.email.SortKey;
+import info.jab.email.UidOrder;
 import jakarta.mail.Message;
+import jakarta.mail.search.SearchTerm;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
+import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
 
 /**
  * Command to list emails in a folder with optional filtering.
@@ -27,6 +48,9 @@ import java.util.concurrent.Callable;
 )
 public class ListEmailsCommand extends EmailFilterCommand implements Callable<Integer> {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final String ALL_FOLDERS = "*";
+
     private final EmailClient emailClient;
 
     @Parameters(
@@ -51,14 +75,166 @@ public class ListEmailsCommand extends EmailFilterCommand implements Callable<In
     )
     private boolean text;
 
+    @Option(
+            names = {"--ndjson"},
+            description = "Output one compact JSON object per email and line, written while the emails are read"
+    )
+    private boolean ndjson;
+
+    @Option(
+            names = {"--compact"},
+            description = "Output a single compact JSON document, streaming the emails instead of building it in memory"
+    )
+    private boolean compact;
+
+    @Option(
+            names = {"--limit"},
+            description = "Return at most this many emails, paging by UID (pages default to 50 emails)"
+    )
+    private Integer limit;
+
+    @Option(
+            names = {"--after-uid"},
+            description = "Continue after this UID cursor, e.g. the nextCursor of a previous page"
+    )
+    private Long afterUid;
+
+    @Option(
+            names = {"--all-folders"},
+            description = "Search all folders in parallel instead of one folder, merging the results by date"
+    )
+    private boolean allFolders;
+
+    @Option(
+            names = {"--newest-first"},
+            description = "Page from the newest email (highest UID) backwards"
+    )
+    private boolean newestFirst;
+
+    @Option(
+            names = {"--fields"},
+            description = "Comma-separated fields to output, fetching only these from the server: "
+                    + "uid, message-id, from, to, cc, subject, date, received-date, flags, size, header:<name>"
+    )
+    private String fields;
+
+    @Option(
+            names = {"--count"},
+            description = "Only output the number of matching emails, without fetching any of them"
+    )
+    private boolean count;
+
+    @Option(
+            names = {"--sort"},
+            description = "Sort by date, arrival, from, subject or size, on the server when it supports SORT; "
+                    + "with --limit only the first emails are fetched"
+    )
+    private String sort;
+
+    @Option(
+            names = {"--reverse"},
+            description = "Reverse the --sort order, e.g. --sort arrival --reverse --limit 20 for the 20 newest emails"
+    )
+    private boolean reverse;
+
     @Override
     public Integer call() {
+        if ((text ? 1 : 0) + (ndjson ? 1 : 0) + (compact ? 1 : 0) > 1) {
+            System.err.println("Error: --text, --ndjson and --compact cannot be combined");
+            return 1;
+        }
         try {
             EmailClient client = getEmailClient();
 
             EmailSearch search = buildSearchTerm();
 
-            List<Message> messages = client.listEmails(folder, search != null ? search.build() : null);
+            if (explain) {
+                if (allFolders) {
+                    System.err.println("Error: --explain cannot be combined with --all-folders");
+                    return 1;
+                }
+                // Counts, pages and server-side sorts cannot fall back to matching on the client
+                return printPlan(client, folder, search, !(count || sort != null || isPaged()));
+            }
+
+            if (count) {
+                if (allFolders || isPaged() || fields != null || sort != null || reverse) {
+                    System.err.println("Error: --count cannot be combined with --all-folders, --limit, --after-uid, --newest-first, --fields, --sort or --reverse");
+                    return 1;
+                }
+                int matching = client.count(folder, search != null ? search.build() : null);
+                if (text) {
+                    System.out.println(matching);
+                } else {
+                    ObjectMapper objectMapper = new ObjectMapper();
+                    if (!ndjson && !compact) {
+                        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+                    }
+                    System.out.println(objectMapper.writeValueAsString(new EmailCountResponse(folder, matching)));
+                }
+                return 0;
+            }
+
+            if (sort != null) {
+                if (allFolders || afterUid != null || newestFirst || fields != null) {
+                    System.err.println("Error: --sort cannot be combined with --all-folders, --after-uid, --newest-first or --fields");
+                    return 1;
+                }
+                List<EmailSummary> emails = client.listEmails(folder, search != null ? search.build() : null,
+                        new EmailSort(sortKey(), reverse), limit != null ? limit : Integer.MAX_VALUE);
+                outputSorted(emails);
+                return 0;
+            }
+            if (reverse) {
+                System.err.println("Error: --reverse requires --sort");
+                return 1;
+            }
+
+            if (fields != null) {
+                if (allFolders || isPaged()) {
+                    System.err.println("Error: --fields cannot be combined with --all-folders, --limit, --after-uid or --newest-first");
+                    return 1;
+                }
+                return outputFields(client, search != null ? search.build() : null, FieldProjection.parse(fields));
+            }
+
+            if (allFolders && isPaged()) {
+                System.err.println("Error: --all-folders cannot be combined with --limit, --after-uid or --newest-first");
+                return 1;
+            }
+
+            if (ndjson || compact) {
+                return outputStreaming(client, search != null ? search.build() : null);
+            }
+
+            if (allFolders) {
+                MultiFolderResult result = client.searchFolders(ALL_FOLDERS, search != null ? search.build() : null);
+                if (text) {
+                    outputAllFoldersText(result);
+                } else {
+                    outputAllFoldersJson(result);
+                }
+                result.failures().forEach((failedFolder, e) ->
+                        System.err.println("Error searching folder " + failedFolder + ": " + e.getMessage()));
+                return result.isComplete() ? 0 : 1;
+            }
+
+            if (isPaged()) {
+                EmailPage page = client.listEmails(folder, search != null ? search.build() : null, pageRequest());
+                if (text) {
+                    outputPageText(page, folder);
+                } else {
+                    outputPageJson(page, folder);
+                }
+                return 0;
+            }
+
+            EmailResult<Message> result = client.listEmailsResult(folder, search != null ? search.build() : null);
+            if (result.isFailed()) {
+                System.err.println("Error listing emails: " + result.error().getMessage());
+                return 1;
+            }
+            List<Message> messages = result.items();
 
             if (messages.isEmpty()) {
                 if (text) {
@@ -79,6 +255,9 @@ public class ListEmailsCommand extends EmailFilterCommand implements Callable<In
             }
 
             return 0;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
         } catch (Exception e) {
             System.err.println("Error listing emails: " + e.getMessage());
             e.printStackTrace();
@@ -191,6 +370,181 @@ public class ListEmailsCommand extends EmailFilterCommand implements Callable<In
         }
     }
 
+    /**
+     * Writes the emails as NDJSON or a compact document. A folder is streamed chunk by chunk as
+     * its envelopes are fetched; pages and multi-folder results are written as they come back.
+     */
+    private int outputStreaming(EmailClient client, SearchTerm searchTerm) throws IOException {
+        if (allFolders) {
+            MultiFolderResult result = client.searchFolders(ALL_FOLDERS, searchTerm);
+            Map<String, String> errors = new LinkedHashMap<>();
+            result.failures().forEach((failedFolder, e) -> errors.put(failedFolder, e.getMessage()));
+            try (EmailJsonStreamWriter writer = openWriter(ALL_FOLDERS)) {
+                for (int i = 0; i < result.emails().size(); i++) {
+                    writer.write(EmailInfo.fromFolderEmail(i + 1, result.emails().get(i)));
+                }
+                writer.finish(null, null, errors);
+            }
+            result.failures().forEach((failedFolder, e) ->
+                    System.err.println("Error searching folder " + failedFolder + ": " + e.getMessage()));
+            return result.isComplete() ? 0 : 1;
+        }
+
+        if (isPaged()) {
+            EmailPage page = client.listEmails(folder, searchTerm, pageRequest());
+            try (EmailJsonStreamWriter writer = openWriter(folder)) {
+                for (int i = 0; i < page.emails().size(); i++) {
+                    writer.write(EmailInfo.fromSummary(i + 1, page.emails().get(i)));
+                }
+                writer.finish(page.uidValidity(), page.nextCursor(), null);
+            }
+            if (ndjson && page.hasNext()) {
+                System.err.println("Next page: --after-uid " + page.nextCursor());
+            }
+            return 0;
+        }
+
+        try (Stream<EmailSummary> emails = client.streamEmails(folder, searchTerm);
+             EmailJsonStreamWriter writer = openWriter(folder)) {
+            Iterator<EmailSummary> iterator = emails.iterator();
+            while (iterator.hasNext()) {
+                writer.write(EmailInfo.fromSummary(writer.count() + 1, iterator.next()));
+            }
+            writer.finish(null, null, null);
+        }
+        return 0;
+    }
+
+    /**
+     * Streams the selected fields of each email, fetching only the FETCH items they are read from.
+     */
+    private int outputFields(EmailClient client, SearchTerm searchTerm, FieldProjection projection) throws IOException {
+        try (Stream<ProjectedEmail> emails = client.streamEmails(folder, searchTerm, projection)) {
+            Iterator<ProjectedEmail> iterator = emails.iterator();
+            if (text) {
+                System.out.println(ProjectedEmailInfo.header(projection));
+                int index = 0;
+                while (iterator.hasNext()) {
+                    System.out.println(ProjectedEmailInfo.toLine(++index, iterator.next(), projection));
+                }
+                return 0;
+            }
+            try (EmailJsonStreamWriter writer = ndjson ? EmailJsonStreamWriter.ndjson(System.out)
+                    : EmailJsonStreamWriter.document(System.out, folder, !compact)) {
+                while (iterator.hasNext()) {
+                    writer.write(ProjectedEmailInfo.toMap(writer.count() + 1, iterator.next(), projection));
+                }
+                writer.finish(null, null, null);
+            }
+        }
+        return 0;
+    }
+
+    private SortKey sortKey() {
+        try {
+            return SortKey.valueOf(sort.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid --sort value '" + sort + "'. Use date, arrival, from, subject or size.");
+        }
+    }
+
+    private void outputSorted(List<EmailSummary> emails) throws Exception {
+        if (text) {
+            printSummaries("Emails in folder '" + folder + "' (" + emails.size() + "):", emails);
+            return;
+        }
+        if (ndjson || compact) {
+            try (EmailJsonStreamWriter writer = openWriter(folder)) {
+                for (int i = 0; i < emails.size(); i++) {
+                    writer.write(EmailInfo.fromSummary(i + 1, emails.get(i)));
+                }
+                writer.finish(null, null, null);
+            }
+            return;
+        }
+        List<EmailInfo> emailInfos = emailInfos(emails, EmailInfo::fromSummary);
+        printJson(new EmailListResponse(folder, emailInfos.size(), emailInfos));
+    }
+
+    private EmailJsonStreamWriter openWriter(String folder) throws IOException {
+        return ndjson ? EmailJsonStreamWriter.ndjson(System.out) : EmailJsonStreamWriter.document(System.out, folder);
+    }
+
+    private PageRequest pageRequest() {
+        return new PageRequest(
+                limit != null ? limit : DEFAULT_PAGE_SIZE,
+                afterUid != null ? afterUid : 0,
+                newestFirst ? UidOrder.DESCENDING : UidOrder.ASCENDING);
+    }
+
+    private boolean isPaged() {
+        return limit != null || afterUid != null || newestFirst;
+    }
+
+    private void outputPageText(EmailPage page, String folder) {
+        printSummaries("Emails in folder '" + folder + "' (" + page.emails().size() + "):", page.emails());
+        if (page.hasNext()) {
+            System.out.println();
+            System.out.println("Next page: --after-uid " + page.nextCursor());
+        }
+    }
+
+    private void outputPageJson(EmailPage page, String folder) throws Exception {
+        List<EmailInfo> emailInfos = emailInfos(page.emails(), EmailInfo::fromSummary);
+        printJson(new EmailListResponse(folder, emailInfos.size(), emailInfos, page.uidValidity(), page.nextCursor()));
+    }
+
+    private void outputAllFoldersText(MultiFolderResult result) {
+        printSummaries("Emails in all folders (" + result.emails().size() + "):", result.emails(), true);
+    }
+
+    private void outputAllFoldersJson(MultiFolderResult result) throws Exception {
+        List<EmailInfo> emailInfos = emailInfos(result.emails(), EmailInfo::fromFolderEmail);
+        Map<String, String> errors = new LinkedHashMap<>();
+        result.failures().forEach((failedFolder, e) -> errors.put(failedFolder, e.getMessage()));
+        printJson(new EmailListResponse(ALL_FOLDERS, emailInfos.size(), emailInfos, null, null, errors));
+    }
+
+    private void printSummaries(String header, List<EmailSummary> emails) {
+        printSummaries(header, emails.stream().map(email -> new FolderEmail(folder, email)).toList(), false);
+    }
+
+    /**
+     * Prints a header and one numbered line per email, which shows the UID of the email or,
+     * for emails of several folders, its folder.
+     */
+    private static void printSummaries(String header, List<FolderEmail> emails, boolean acrossFolders) {
+        System.out.println(header);
+        System.out.println();
+
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+        for (int i = 0; i < emails.size(); i++) {
+            FolderEmail folderEmail = emails.get(i);
+            EmailSummary email = folderEmail.email();
+            String fromStr = email.from() != null ? email.from() : "Unknown";
+            String subjectStr = email.subject() != null && !email.subject().isBlank() ? email.subject() : "(No Subject)";
+            Instant date = acrossFolders ? folderEmail.date() : email.sentDate();
+            String location = acrossFolders ? folderEmail.folder() + ":" : "(uid " + email.uid() + ")";
+            System.out.printf("%d. [%s] %s %s - %s%n", i + 1, dateFormat.format(date != null ? Date.from(date) : new Date()),
+                    location, fromStr, subjectStr);
+        }
+    }
+
+    private static <T> List<EmailInfo> emailInfos(List<T> emails, BiFunction<Integer, T, EmailInfo> toInfo) {
+        List<EmailInfo> emailInfos = new ArrayList<>();
+        for (int i = 0; i < emails.size(); i++) {
+            emailInfos.add(toInfo.apply(i + 1, emails.get(i)));
+        }
+        return emailInfos;
+    }
+
+    private static void printJson(EmailListResponse response) throws JsonProcessingException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(objectMapper.writeValueAsString(response));
+    }
+
     private EmailClient getEmailClient() {
         if (emailClient != null) {
             return emailClient;
@@ -3,13 +3,19 @@ package info.jab.cli.command;
 import info.jab.email.EmailClient;
 import info.jab.email.EmailClientBuilder;
 import info.jab.email.EmailConfig;
+import info.jab.email.EmailResult;
+import info.jab.email.FolderStatus;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import java.util.List;
 import java.util.concurrent.Callable;
 
 /**
- * Command to list all folders in the email store.
+ * Command to list all folders in the email store, optionally with their message counts.
  */
 @Command(
         name = "list-folders",
@@ -17,8 +23,22 @@ import java.util.concurrent.Callable;
 )
 public class ListFoldersCommand implements Callable<Integer> {
 
+    private static final String ALL_FOLDERS = "*";
+
     private final EmailClient emailClient;
 
+    @Option(
+            names = {"--status"},
+            description = "Show message, unseen and size counts per folder"
+    )
+    private boolean status;
+
+    @Option(
+            names = {"--json"},
+            description = "Output folders with their counts in JSON format"
+    )
+    private boolean json;
+
     /**
      * Constructor for dependency injection.
      *
@@ -33,7 +53,22 @@ public class ListFoldersCommand implements Callable<Integer> {
         try {
             EmailClient client = getEmailClient();
 
-            List<String> folders = client.listFolders();
+            if (status || json) {
+                List<FolderStatus> statuses = client.folderStatuses(ALL_FOLDERS);
+                if (json) {
+                    outputStatusJson(statuses);
+                } else {
+                    outputStatusText(statuses);
+                }
+                return 0;
+            }
+
+            EmailResult<String> result = client.listFoldersResult();
+            if (result.isFailed()) {
+                System.err.println("Error listing folders: " + result.error().getMessage());
+                return 1;
+            }
+            List<String> folders = result.items();
 
             if (folders.isEmpty()) {
                 System.out.println("No folders found.");
@@ -53,6 +88,26 @@ public class ListFoldersCommand implements Callable<Integer> {
         }
     }
 
+    private void outputStatusText(List<FolderStatus> statuses) {
+        if (statuses.isEmpty()) {
+            System.out.println("No folders found.");
+            return;
+        }
+        System.out.println("Folders:");
+        for (FolderStatus folderStatus : statuses) {
+            String size = folderStatus.hasSize() ? ", " + folderStatus.size() + " bytes" : "";
+            System.out.printf("  - %s (%d messages, %d unseen%s)%n",
+                    folderStatus.folder(), folderStatus.messages(), folderStatus.unseen(), size);
+        }
+    }
+
+    private void outputStatusJson(List<FolderStatus> statuses) throws Exception {
+        List<FolderInfo> folderInfos = statuses.stream().map(FolderInfo::fromStatus).toList();
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(objectMapper.writeValueAsString(new FolderListResponse(folderInfos.size(), folderInfos)));
+    }
+
     private EmailClient getEmailClient() {
         if (emailClient != null) {
             return emailClient;
@@ -0,0 +1,113 @@
+package info.jab.cli.command;
+
+import info.jab.email.BatchProgressListener;
+import info.jab.email.EmailClient;
+import info.jab.email.EmailClientBuilder;
+import info.jab.email.EmailConfig;
+import info.jab.email.EmailSearch;
+import jakarta.mail.search.SearchTerm;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Command to move or copy emails matching the filter options to another folder.
+ */
+@Command(
+        name = "move-emails",
+        description = "Move emails in a folder matching the specified criteria to another folder"
+)
+public class MoveEmailsCommand extends EmailFilterCommand implements Callable<Integer> {
+
+    private final EmailClient emailClient;
+
+    @Parameters(
+            index = "0",
+            description = "Folder name to move emails from (e.g., INBOX)",
+            defaultValue = "INBOX"
+    )
+    private String folder = "INBOX";
+
+    @Option(
+            names = {"--target"},
+            description = "Folder to move the emails to (e.g., Archive)",
+            required = true
+    )
+    private String target;
+
+    @Option(
+            names = {"--copy"},
+            description = "Copy the emails instead of moving them, keeping them in the source folder"
+    )
+    private boolean copy;
+
+    @Option(
+            names = {"--chunk-size"},
+            description = "Number of emails to move per server round trip (default: ${DEFAULT-VALUE})",
+            defaultValue = "" + EmailClient.DEFAULT_BATCH_CHUNK_SIZE
+    )
+    private int chunkSize = EmailClient.DEFAULT_BATCH_CHUNK_SIZE;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param emailClient the EmailClient to use (if null, will load from config)
+     */
+    public MoveEmailsCommand(EmailClient emailClient) {
+        this.emailClient = emailClient;
+    }
+
+    @Override
+    public Integer call() {
+        try {
+            EmailClient client = getEmailClient();
+
+            EmailSearch search = buildSearchTerm();
+            if (explain) {
+                return printPlan(client, folder, search, false);
+            }
+            SearchTerm searchTerm = search != null ? search.build() : null;
+            String verb = copy ? "copied" : "moved";
+            BatchProgressListener progress = (processed, total) -> {
+                if (total > chunkSize) {
+                    System.err.println((copy ? "Copied " : "Moved ") + processed + " of " + total + " emails");
+                }
+            };
+
+            int transferred = copy
+                    ? client.copyEmails(folder, searchTerm, target, chunkSize, progress)
+                    : client.moveEmails(folder, searchTerm, target, chunkSize, progress);
+
+            if (transferred > 0) {
+                System.out.println("Emails " + verb + " successfully from folder: " + folder + " to " + target
+                        + " (" + transferred + " emails)");
+            } else {
+                System.out.println("No emails found matching the criteria in folder: " + folder);
+            }
+            return 0;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } catch (Exception e) {
+            System.err.println("Error " + (copy ? "copying" : "moving") + " emails: " + e.getMessage());
+            e.printStackTrace();
+            return 1;
+        }
+    }
+
+    private EmailClient getEmailClient() {
+        if (emailClient != null) {
+            return emailClient;
+        }
+        EmailConfig config = EmailConfig.load();
+        return EmailClientBuilder.builder()
+                .hostname(config.getHostname())
+                .imapPort(config.getImapPort())
+                .smtpPort(config.getSmtpPort())
+                .user(config.getUser())
+                .password(config.getPassword())
+                .build();
+    }
+}
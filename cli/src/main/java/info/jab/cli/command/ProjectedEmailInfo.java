@@ -0,0 +1,96 @@
+package info.jab.cli.command;
+
+import info.jab.email.EmailField;
+import info.jab.email.EmailFlag;
+import info.jab.email.EmailSummary;
+import info.jab.email.FieldProjection;
+import info.jab.email.ProjectedEmail;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Output model of an email listed with {@code --fields}: the index followed by the selected
+ * fields in the order they were selected, and the selected header fields under {@code headers}.
+ */
+final class ProjectedEmailInfo {
+
+    private ProjectedEmailInfo() {
+    }
+
+    /**
+     * Converts a projected email to an ordered map for JSON output.
+     */
+    static Map<String, Object> toMap(int index, ProjectedEmail email, FieldProjection projection) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("index", index);
+        for (EmailField field : projection.fields()) {
+            fields.put(jsonName(field), value(email.summary(), field));
+        }
+        if (!projection.headers().isEmpty()) {
+            fields.put("headers", email.headers());
+        }
+        return fields;
+    }
+
+    /**
+     * Formats a projected email as one line of tab-separated values, in the order of {@link #header}.
+     */
+    static String toLine(int index, ProjectedEmail email, FieldProjection projection) {
+        List<String> values = new ArrayList<>();
+        values.add(String.valueOf(index));
+        for (EmailField field : projection.fields()) {
+            Object value = value(email.summary(), field);
+            values.add(value instanceof List<?> list ? String.join(",", list.stream().map(item -> String.valueOf(item)).toList())
+                    : value != null ? String.valueOf(value) : "");
+        }
+        for (String header : projection.headers()) {
+            String value = email.header(header);
+            values.add(value != null ? value.replaceAll("\\s+", " ") : "");
+        }
+        return String.join("\t", values);
+    }
+
+    /**
+     * Formats the names of the selected fields as a tab-separated header line.
+     */
+    static String header(FieldProjection projection) {
+        List<String> names = new ArrayList<>();
+        names.add("index");
+        projection.fields().forEach(field -> names.add(field.fieldName()));
+        projection.headers().forEach(header -> names.add("header:" + header));
+        return String.join("\t", names);
+    }
+
+    private static String jsonName(EmailField field) {
+        return switch (field) {
+            case UID -> "uid";
+            case MESSAGE_ID -> "messageId";
+            case FROM -> "from";
+            case TO -> "to";
+            case CC -> "cc";
+            case SUBJECT -> "subject";
+            case SENT_DATE -> "sentDate";
+            case RECEIVED_DATE -> "receivedDate";
+            case FLAGS -> "flags";
+            case SIZE -> "size";
+        };
+    }
+
+    private static Object value(EmailSummary summary, EmailField field) {
+        return switch (field) {
+            case UID -> summary.uid() > 0 ? summary.uid() : null;
+            case MESSAGE_ID -> summary.messageId();
+            case FROM -> summary.from();
+            case TO -> summary.to();
+            case CC -> summary.cc();
+            case SUBJECT -> summary.subject();
+            case SENT_DATE -> summary.sentDate() != null ? EmailInfo.formatDate(summary.sentDate()) : null;
+            case RECEIVED_DATE -> summary.receivedDate() != null ? EmailInfo.formatDate(summary.receivedDate()) : null;
+            case FLAGS -> summary.flags().stream().map(EmailFlag::name).toList();
+            case SIZE -> summary.size() >= 0 ? summary.size() : null;
+        };
+    }
+}
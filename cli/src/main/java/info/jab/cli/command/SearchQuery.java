@@ -0,0 +1,294 @@
+package info.jab.cli.command;
+
+import info.jab.email.EmailSearch;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Parser of the {@code --query} language into {@link EmailSearch} combinators, so a whole
+ * expression is sent to the server as a single SEARCH.
+ *
+ * <pre>
+ * query     := or
+ * or        := and ("OR" and)*
+ * and       := not (["AND"] not)*
+ * not       := "NOT" not | "(" or ")" | condition
+ * condition := field ":" value | "received" op date | "sent" op date | "size" op size
+ * </pre>
+ *
+ * <p>Text fields are {@code from}, {@code to}, {@code cc}, {@code bcc}, {@code subject} and
+ * {@code body}; values with spaces are quoted, as in {@code subject:"weekly report"}.
+ * {@code is:read} and {@code is:unread} select by the SEEN flag. Dates are {@code yyyy-MM-dd}
+ * days, either compared with {@code >, >=, <, <=} or given as {@code received:2024-01-01},
+ * an inclusive range {@code received:2024-01-01..2024-03-31} or an open one such as
+ * {@code sent:..2023-12-31}. Sizes are compared with the same operators and take an optional
+ * {@code K}, {@code M} or {@code G} suffix, as in {@code size>1M}. Keywords are case-insensitive
+ * and adjacent conditions are combined with AND.
+ */
+final class SearchQuery {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final List<Token> tokens;
+    private int position;
+
+    private SearchQuery(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Parses a query.
+     *
+     * @param query the query, e.g. {@code (from:alice OR from:bob) AND NOT is:read AND size>100K}
+     * @return the search the query describes
+     * @throws IllegalArgumentException if the query is not valid, with the position of the error
+     */
+    static EmailSearch parse(String query) {
+        SearchQuery parser = new SearchQuery(tokenize(query));
+        if (parser.tokens.isEmpty()) {
+            throw new IllegalArgumentException("Invalid query: the query is empty");
+        }
+        EmailSearch search = parser.parseOr();
+        if (parser.position < parser.tokens.size()) {
+            Token token = parser.tokens.get(parser.position);
+            throw error(token.offset(), "unexpected '" + token.text() + "'");
+        }
+        return search;
+    }
+
+    private EmailSearch parseOr() {
+        EmailSearch search = parseAnd();
+        while (isKeyword(peek(), "OR")) {
+            position++;
+            search = search.or(parseAnd());
+        }
+        return search;
+    }
+
+    private EmailSearch parseAnd() {
+        EmailSearch search = parseNot();
+        while (peek() != null && peek().kind() != Kind.CLOSE && !isKeyword(peek(), "OR")) {
+            if (isKeyword(peek(), "AND")) {
+                position++;
+            }
+            search = search.and(parseNot());
+        }
+        return search;
+    }
+
+    private EmailSearch parseNot() {
+        Token token = peek();
+        if (token == null) {
+            int end = tokens.getLast().offset() + tokens.getLast().text().length();
+            throw error(end, "the query ends where a condition is expected");
+        }
+        position++;
+        if (isKeyword(token, "NOT")) {
+            return parseNot().not();
+        }
+        if (token.kind() == Kind.OPEN) {
+            EmailSearch search = parseOr();
+            Token close = peek();
+            if (close == null || close.kind() != Kind.CLOSE) {
+                throw error(token.offset(), "unbalanced '('");
+            }
+            position++;
+            return search;
+        }
+        if (token.kind() == Kind.CLOSE || isKeyword(token, "AND") || isKeyword(token, "OR")) {
+            throw error(token.offset(), "expected a condition but got '" + token.text() + "'");
+        }
+        return condition(token);
+    }
+
+    private Token peek() {
+        return position < tokens.size() ? tokens.get(position) : null;
+    }
+
+    private static boolean isKeyword(Token token, String keyword) {
+        return token != null && token.kind() == Kind.WORD && !token.quoted() && token.text().equalsIgnoreCase(keyword);
+    }
+
+    private static EmailSearch condition(Token token) {
+        String text = token.text();
+        int fieldEnd = 0;
+        while (fieldEnd < text.length() && Character.isLetter(text.charAt(fieldEnd))) {
+            fieldEnd++;
+        }
+        String field = text.substring(0, fieldEnd).toLowerCase(Locale.ROOT);
+        String rest = text.substring(fieldEnd);
+        String operator = rest.startsWith(">=") || rest.startsWith("<=") ? rest.substring(0, 2)
+                : !rest.isEmpty() && ":<>".indexOf(rest.charAt(0)) >= 0 ? rest.substring(0, 1) : null;
+        if (field.isEmpty() || operator == null) {
+            throw error(token.offset(), "expected field:value but got '" + text + "'");
+        }
+        String value = rest.substring(operator.length());
+        if (value.isEmpty()) {
+            throw error(token.offset(), "missing value for '" + field + "'");
+        }
+        return switch (field) {
+            case "from" -> text(token, field, operator, value, EmailSearch::from);
+            case "to" -> text(token, field, operator, value, EmailSearch::to);
+            case "cc" -> text(token, field, operator, value, EmailSearch::cc);
+            case "bcc" -> text(token, field, operator, value, EmailSearch::bcc);
+            case "subject" -> text(token, field, operator, value, EmailSearch::subjectContains);
+            case "body" -> text(token, field, operator, value, EmailSearch::bodyContains);
+            case "is" -> seen(token, operator, value);
+            case "received" -> date(token, operator, value, EmailSearch::receivedAfter, EmailSearch::receivedBefore);
+            case "sent" -> date(token, operator, value, EmailSearch::sentAfter, EmailSearch::sentBefore);
+            case "size" -> size(token, operator, value);
+            default -> throw error(token.offset(), "unknown field '" + field + "'");
+        };
+    }
+
+    private static EmailSearch text(Token token, String field, String operator, String value,
+                                    Function<String, EmailSearch> factory) {
+        if (!operator.equals(":")) {
+            throw error(token.offset(), "'" + field + "' only supports ':', e.g. " + field + ":text");
+        }
+        return factory.apply(value);
+    }
+
+    private static EmailSearch seen(Token token, String operator, String value) {
+        if (operator.equals(":") && value.equalsIgnoreCase("read")) {
+            return EmailSearch.read();
+        }
+        if (operator.equals(":") && value.equalsIgnoreCase("unread")) {
+            return EmailSearch.unread();
+        }
+        throw error(token.offset(), "expected is:read or is:unread but got '" + token.text() + "'");
+    }
+
+    private static EmailSearch date(Token token, String operator, String value,
+                                    Function<LocalDate, EmailSearch> onOrAfter, Function<LocalDate, EmailSearch> onOrBefore) {
+        if (operator.equals(":")) {
+            int range = value.indexOf("..");
+            if (range < 0) {
+                LocalDate day = parseDate(token, value);
+                return onOrAfter.apply(day).and(onOrBefore.apply(day));
+            }
+            String first = value.substring(0, range);
+            String last = value.substring(range + 2);
+            if (first.isEmpty() && last.isEmpty()) {
+                throw error(token.offset(), "a date range needs at least one end, e.g. 2024-01-01..2024-03-31");
+            }
+            EmailSearch lower = first.isEmpty() ? null : onOrAfter.apply(parseDate(token, first));
+            EmailSearch upper = last.isEmpty() ? null : onOrBefore.apply(parseDate(token, last));
+            return lower == null ? upper : upper == null ? lower : lower.and(upper);
+        }
+        LocalDate date = parseDate(token, value);
+        return switch (operator) {
+            case ">" -> onOrAfter.apply(date.plusDays(1));
+            case ">=" -> onOrAfter.apply(date);
+            case "<" -> onOrBefore.apply(date.minusDays(1));
+            default -> onOrBefore.apply(date);
+        };
+    }
+
+    /**
+     * Builds a size condition from the LARGER and SMALLER keys of IMAP SEARCH, the only size
+     * comparisons a server evaluates; inclusive bounds are sent as their negation.
+     */
+    private static EmailSearch size(Token token, String operator, String value) {
+        int bytes = parseSize(token, value);
+        return switch (operator) {
+            case ">" -> EmailSearch.largerThan(bytes);
+            case ">=" -> EmailSearch.smallerThan(bytes).not();
+            case "<" -> EmailSearch.smallerThan(bytes);
+            case "<=" -> EmailSearch.largerThan(bytes).not();
+            default -> throw error(token.offset(), "'size' needs one of >, >=, < or <=, e.g. size>1M");
+        };
+    }
+
+    private static LocalDate parseDate(Token token, String value) {
+        try {
+            return LocalDate.parse(value, DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw error(token.offset(), "invalid date '" + value + "', use yyyy-MM-dd");
+        }
+    }
+
+    private static int parseSize(Token token, String value) {
+        String number = value.toUpperCase(Locale.ROOT);
+        if (number.endsWith("B")) {
+            number = number.substring(0, number.length() - 1);
+        }
+        long unit = 1;
+        if (number.endsWith("K")) {
+            unit = 1024;
+        } else if (number.endsWith("M")) {
+            unit = 1024 * 1024;
+        } else if (number.endsWith("G")) {
+            unit = 1024 * 1024 * 1024;
+        }
+        if (unit > 1) {
+            number = number.substring(0, number.length() - 1);
+        }
+        long amount;
+        try {
+            amount = Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            throw error(token.offset(), "invalid size '" + value + "', use bytes or a K, M or G suffix, e.g. 500K");
+        }
+        if (amount < 0 || amount > (Integer.MAX_VALUE - 1) / unit) {
+            throw error(token.offset(), "size '" + value + "' is out of range");
+        }
+        return (int) (amount * unit);
+    }
+
+    private static List<Token> tokenize(String query) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(new Token(c == '(' ? Kind.OPEN : Kind.CLOSE, String.valueOf(c), i, false));
+                i++;
+            } else {
+                int start = i;
+                boolean quoted = false;
+                StringBuilder word = new StringBuilder();
+                while (i < query.length()) {
+                    c = query.charAt(i);
+                    if (c == '"') {
+                        int end = query.indexOf('"', i + 1);
+                        if (end < 0) {
+                            throw error(i, "unterminated quote");
+                        }
+                        word.append(query, i + 1, end);
+                        quoted = true;
+                        i = end + 1;
+                    } else if (Character.isWhitespace(c) || c == '(' || c == ')') {
+                        break;
+                    } else {
+                        word.append(c);
+                        i++;
+                    }
+                }
+                tokens.add(new Token(Kind.WORD, word.toString(), start, quoted));
+            }
+        }
+        return tokens;
+    }
+
+    private static IllegalArgumentException error(int offset, String message) {
+        return new IllegalArgumentException("Invalid query at position " + (offset + 1) + ": " + message);
+    }
+
+    private enum Kind {
+        OPEN,
+        CLOSE,
+        WORD
+    }
+
+    private record Token(Kind kind, String text, int offset, boolean quoted) {
+    }
+}
@@ -0,0 +1,119 @@
+package info.jab.cli.command;
+
+import info.jab.email.EmailClient;
+import info.jab.email.EmailClientBuilder;
+import info.jab.email.EmailConfig;
+import info.jab.email.FolderWatcher;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Command to watch a folder with IMAP IDLE, streaming one JSON event per line for each
+ * email that arrives in or is expunged from it.
+ */
+@Command(
+        name = "watch",
+        description = "Watch a folder for new and expunged emails, printing one JSON event per line"
+)
+public class WatchCommand implements Callable<Integer> {
+
+    private static final long CHECK_INTERVAL_MILLIS = 200;
+
+    private final EmailClient emailClient;
+
+    @Parameters(
+            index = "0",
+            description = "Folder name to watch (e.g., INBOX)",
+            defaultValue = "INBOX"
+    )
+    private String folder = "INBOX";
+
+    @Option(
+            names = {"--max-events"},
+            description = "Stop after printing this many events"
+    )
+    private Integer maxEvents;
+
+    @Option(
+            names = {"--timeout"},
+            description = "Stop after watching for this many seconds"
+    )
+    private Long timeoutSeconds;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param emailClient the EmailClient to use (if null, will load from config)
+     */
+    public WatchCommand(EmailClient emailClient) {
+        this.emailClient = emailClient;
+    }
+
+    @Override
+    public Integer call() {
+        if (maxEvents != null && maxEvents < 1) {
+            System.err.println("Error: --max-events must be at least 1");
+            return 1;
+        }
+        try {
+            EmailClient client = getEmailClient();
+            ObjectMapper objectMapper = new ObjectMapper();
+            AtomicInteger printed = new AtomicInteger();
+            CountDownLatch limitReached = new CountDownLatch(1);
+
+            try (FolderWatcher watcher = client.watchFolder(folder, event -> {
+                try {
+                    System.out.println(objectMapper.writeValueAsString(WatchEvent.fromEvent(event)));
+                    System.out.flush();
+                } catch (JsonProcessingException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (maxEvents != null && printed.incrementAndGet() >= maxEvents) {
+                    limitReached.countDown();
+                }
+            })) {
+                System.err.println("Watching folder " + folder + ", press Ctrl+C to stop");
+                long deadline = timeoutSeconds != null ? System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds) : Long.MAX_VALUE;
+                while (watcher.isRunning() && System.nanoTime() < deadline
+                        && !limitReached.await(CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    // Events are printed by the watcher thread
+                }
+                if (watcher.failure() != null) {
+                    System.err.println("Error watching folder: " + watcher.failure().getMessage());
+                    return 1;
+                }
+            }
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } catch (Exception e) {
+            System.err.println("Error watching folder: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private EmailClient getEmailClient() {
+        if (emailClient != null) {
+            return emailClient;
+        }
+        EmailConfig config = EmailConfig.load();
+        return EmailClientBuilder.builder()
+                .hostname(config.getHostname())
+                .imapPort(config.getImapPort())
+                .smtpPort(config.getSmtpPort())
+                .user(config.getUser())
+                .password(config.getPassword())
+                .build();
+    }
+}
@@ -0,0 +1,32 @@
+package info.jab.cli.command;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import info.jab.email.FolderEvent;
+
+/**
+ * Folder event model for NDJSON output, one event per line.
+ * The envelope fields are only present when the envelope of the message is known.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record WatchEvent(
+    @JsonProperty("event") String event,
+    @JsonProperty("folder") String folder,
+    @JsonProperty("uidValidity") long uidValidity,
+    @JsonProperty("uid") long uid,
+    @JsonProperty("from") String from,
+    @JsonProperty("subject") String subject,
+    @JsonProperty("sentDate") String sentDate
+) {
+    /**
+     * Factory method to create a WatchEvent from a FolderEvent.
+     */
+    public static WatchEvent fromEvent(FolderEvent event) {
+        String type = event.type() == FolderEvent.Type.NEW_MESSAGE ? "new" : "expunged";
+        if (event.email() == null) {
+            return new WatchEvent(type, event.folder(), event.uidValidity(), event.uid(), null, null, null);
+        }
+        EmailInfo info = EmailInfo.fromSummary(0, event.email());
+        return new WatchEvent(type, event.folder(), event.uidValidity(), event.uid(), info.from(), info.subject(), info.sentDate());
+    }
+}
@@ -3,6 +3,8 @@ package info.jab.cli;
 import info.jab.cli.command.DeleteEmailsCommand;
 import info.jab.cli.command.ListEmailsCommand;
 import info.jab.cli.command.ListFoldersCommand;
+import info.jab.cli.command.MoveEmailsCommand;
+import info.jab.cli.command.WatchCommand;
 import info.jab.email.EmailConfig;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -40,6 +42,12 @@ class EmailCliTest {
     @Mock
     private DeleteEmailsCommand mockDeleteEmailsCommand;
 
+    @Mock
+    private MoveEmailsCommand mockMoveEmailsCommand;
+
+    @Mock
+    private WatchCommand mockWatchCommand;
+
     private EmailCli emailCliWithMocks;
     private final ByteArrayOutputStream outputStreamCaptor = new ByteArrayOutputStream();
     private final ByteArrayOutputStream errorStreamCaptor = new ByteArrayOutputStream();
@@ -50,7 +58,7 @@ class EmailCliTest {
     void setUp() {
         System.setOut(new PrintStream(outputStreamCaptor));
         System.setErr(new PrintStream(errorStreamCaptor));
-        emailCliWithMocks = new EmailCli(mockListFoldersCommand, mockListEmailsCommand, mockDeleteEmailsCommand);
+        emailCliWithMocks = new EmailCli(mockListFoldersCommand, mockListEmailsCommand, mockDeleteEmailsCommand, mockMoveEmailsCommand, mockWatchCommand);
     }
 
     @AfterEach
@@ -108,6 +116,21 @@ class EmailCliTest {
             verify(mockDeleteEmailsCommand, times(1)).call();
         }
 
+        @Test
+        @DisplayName("Should execute move-emails command successfully")
+        void shouldExecuteMoveEmailsCommand() throws Exception {
+            // Given
+            CommandLine commandLine = EmailCli.createCommandLine(emailCliWithMocks);
+            when(mockMoveEmailsCommand.call()).thenReturn(0);
+
+            // When
+            int exitCode = commandLine.execute("move-emails", "INBOX", "--target", "Archive");
+
+            // Then
+            assertThat(exitCode).isZero();
+            verify(mockMoveEmailsCommand, times(1)).call();
+        }
+
         @Test
         @DisplayName("Should return non-zero exit code for invalid command")
         void shouldReturnNonZeroExitCodeForInvalidCommand() {
@@ -130,7 +153,7 @@ class EmailCliTest {
         @DisplayName("Should show usage when no subcommand is provided")
         void shouldShowUsageWhenNoSubcommandProvided() throws Exception {
             // Given
-            EmailCli cli = new EmailCli(null, null, null);
+            EmailCli cli = new EmailCli(null, null, null, null, null);
 
             // When
             int exitCode = cli.call();
@@ -168,7 +191,7 @@ class EmailCliTest {
         @DisplayName("Should create CommandLine when all commands are null")
         void shouldCreateCommandLineWithAllNullCommands() {
             // Given
-            EmailCli cli = new EmailCli(null, null, null);
+            EmailCli cli = new EmailCli(null, null, null, null, null);
 
             // When
             CommandLine commandLine = EmailCli.createCommandLine(cli);
@@ -182,7 +205,7 @@ class EmailCliTest {
         @DisplayName("Should create CommandLine and register commands when some are null")
         void shouldCreateCommandLineWithPartialNullCommands() {
             // Given
-            EmailCli cli = new EmailCli(mockListFoldersCommand, null, mockDeleteEmailsCommand);
+            EmailCli cli = new EmailCli(mockListFoldersCommand, null, mockDeleteEmailsCommand, null, null);
 
             // When
             CommandLine commandLine = EmailCli.createCommandLine(cli);
@@ -190,14 +213,14 @@ class EmailCliTest {
             // Then
             assertThat(commandLine).isNotNull();
             assertThat(commandLine.getSubcommands()).containsKeys("list-folders", "delete-emails");
-            assertThat(commandLine.getSubcommands()).doesNotContainKey("list-emails");
+            assertThat(commandLine.getSubcommands()).doesNotContainKeys("list-emails", "move-emails", "watch");
         }
 
         @Test
         @DisplayName("Should create CommandLine and register all commands when all are provided")
         void shouldCreateCommandLineWithAllCommands() {
             // Given
-            EmailCli cli = new EmailCli(mockListFoldersCommand, mockListEmailsCommand, mockDeleteEmailsCommand);
+            EmailCli cli = new EmailCli(mockListFoldersCommand, mockListEmailsCommand, mockDeleteEmailsCommand, mockMoveEmailsCommand, mockWatchCommand);
 
             // When
             CommandLine commandLine = EmailCli.createCommandLine(cli);
@@ -205,8 +228,8 @@ class EmailCliTest {
             // Then
             assertThat(commandLine).isNotNull();
             assertThat(commandLine.getSubcommands())
-                    .containsKeys("list-folders", "list-emails", "delete-emails")
-                    .hasSize(3);
+                    .containsKeys("list-folders", "list-emails", "delete-emails", "move-emails", "watch")
+                    .hasSize(5);
         }
     }
 
@@ -228,8 +251,8 @@ class EmailCliTest {
             CommandLine commandLine = EmailCli.createCommandLine(cli);
             assertThat(commandLine).isNotNull();
             assertThat(commandLine.getSubcommands())
-                    .containsKeys("list-folders", "list-emails", "delete-emails")
-                    .hasSize(3);
+                    .containsKeys("list-folders", "list-emails", "delete-emails", "move-emails", "watch")
+                    .hasSize(5);
         }
 
         @Test
@@ -244,8 +267,8 @@ class EmailCliTest {
 
             // Then - verify all commands are registered
             assertThat(commandLine.getSubcommands())
-                    .containsKeys("list-folders", "list-emails", "delete-emails")
-                    .hasSize(3);
+                    .containsKeys("list-folders", "list-emails", "delete-emails", "move-emails", "watch")
+                    .hasSize(5);
 
             // Verify command help can be accessed (without executing the command)
             CommandLine listFoldersSubcommand = commandLine.getSubcommands().get("list-folders");
@@ -257,14 +280,14 @@ class EmailCliTest {
         @DisplayName("Should create EmailCli with dependency injection constructor")
         void shouldCreateEmailCliWithDependencyInjection() {
             // Given & When
-            EmailCli cli = new EmailCli(mockListFoldersCommand, mockListEmailsCommand, mockDeleteEmailsCommand);
+            EmailCli cli = new EmailCli(mockListFoldersCommand, mockListEmailsCommand, mockDeleteEmailsCommand, mockMoveEmailsCommand, mockWatchCommand);
 
             // Then
             assertThat(cli).isNotNull();
             CommandLine commandLine = EmailCli.createCommandLine(cli);
             assertThat(commandLine).isNotNull();
             assertThat(commandLine.getSubcommands())
-                    .containsKeys("list-folders", "list-emails", "delete-emails");
+                    .containsKeys("list-folders", "list-emails", "delete-emails", "move-emails", "watch");
         }
     }
 }
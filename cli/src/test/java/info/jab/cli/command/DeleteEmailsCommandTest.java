@@ -1,6 +1,8 @@
 package info.jab.cli.command;
 
+import info.jab.email.BatchProgressListener;
 import info.jab.email.EmailClient;
+import info.jab.email.SearchPlan;
 import jakarta.mail.search.SearchTerm;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,9 +15,12 @@ import picocli.CommandLine;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
@@ -56,14 +61,14 @@ class DeleteEmailsCommandTest {
     @Test
     void shouldDeleteEmailsSuccessfully() throws Exception {
         // Given
-        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class))).thenReturn(true);
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any())).thenReturn(3);
 
         // When
         int exitCode = commandLine.execute("INBOX", "--from", "test@example.com");
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class));
+        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any());
         String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).contains("Emails deleted successfully from folder: INBOX");
     }
@@ -71,18 +76,40 @@ class DeleteEmailsCommandTest {
     @Test
     void shouldHandleNoEmailsFound() throws Exception {
         // Given
-        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class))).thenReturn(false);
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any())).thenReturn(0);
 
         // When
         int exitCode = commandLine.execute("INBOX", "--from", "test@example.com");
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class));
+        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any());
         String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).contains("No emails found matching the criteria in folder: INBOX");
     }
 
+    @Test
+    void shouldDeleteInChunksAndReportProgress() throws Exception {
+        // Given
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), eq(2), any())).thenAnswer(invocation -> {
+            BatchProgressListener progress = invocation.getArgument(3);
+            progress.onProgress(2, 3);
+            progress.onProgress(3, 3);
+            return 3;
+        });
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--from", "test@example.com", "--chunk-size", "2");
+
+        // Then
+        assertThat(exitCode).isZero();
+        assertThat(errorStreamCaptor.toString(StandardCharsets.UTF_8))
+                .contains("Deleted 2 of 3 emails")
+                .contains("Deleted 3 of 3 emails");
+        assertThat(outputStreamCaptor.toString(StandardCharsets.UTF_8))
+                .contains("Emails deleted successfully from folder: INBOX (3 emails)");
+    }
+
     @Test
     void shouldRejectDeletionWithoutFilters() throws Exception {
         // Given/When
@@ -90,7 +117,7 @@ class DeleteEmailsCommandTest {
 
         // Then
         assertThat(exitCode).isEqualTo(1);
-        verify(mockEmailClient, never()).deleteEmails(anyString(), any(SearchTerm.class));
+        verify(mockEmailClient, never()).deleteEmails(anyString(), any(SearchTerm.class), anyInt(), any());
         String output = errorStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).contains("Error: At least one filter option must be specified");
     }
@@ -98,7 +125,7 @@ class DeleteEmailsCommandTest {
     @Test
     void shouldHandleExceptionWhenDeletingEmails() throws Exception {
         // Given
-        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class)))
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any()))
             .thenThrow(new RuntimeException("Connection failed"));
 
         // When
@@ -106,7 +133,7 @@ class DeleteEmailsCommandTest {
 
         // Then
         assertThat(exitCode).isEqualTo(1);
-        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class));
+        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any());
         String output = errorStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).contains("Error deleting emails");
         assertThat(output).contains("Connection failed");
@@ -115,7 +142,7 @@ class DeleteEmailsCommandTest {
     @Test
     void shouldHandleIllegalArgumentException() throws Exception {
         // Given
-        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class)))
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any()))
             .thenThrow(new IllegalArgumentException("Invalid search term"));
 
         // When
@@ -123,7 +150,7 @@ class DeleteEmailsCommandTest {
 
         // Then
         assertThat(exitCode).isEqualTo(1);
-        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class));
+        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any());
         String output = errorStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).contains("Error: Invalid search term");
     }
@@ -131,144 +158,144 @@ class DeleteEmailsCommandTest {
     @Test
     void shouldAcceptSubjectFilter() throws Exception {
         // Given
-        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class))).thenReturn(true);
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any())).thenReturn(3);
 
         // When
         int exitCode = commandLine.execute("INBOX", "--subject", "Important");
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class));
+        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any());
     }
 
     @Test
     void shouldAcceptUnreadFilter() throws Exception {
         // Given
-        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class))).thenReturn(true);
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any())).thenReturn(3);
 
         // When
         int exitCode = commandLine.execute("INBOX", "--unread");
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class));
+        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any());
     }
 
     @Test
     void shouldAcceptReadFilter() throws Exception {
         // Given
-        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class))).thenReturn(true);
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any())).thenReturn(3);
 
         // When
         int exitCode = commandLine.execute("INBOX", "--read");
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class));
+        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any());
     }
 
     @Test
     void shouldAcceptBodyFilter() throws Exception {
         // Given
-        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class))).thenReturn(true);
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any())).thenReturn(3);
 
         // When
         int exitCode = commandLine.execute("INBOX", "--body", "urgent");
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class));
+        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any());
     }
 
     @Test
     void shouldAcceptToFilter() throws Exception {
         // Given
-        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class))).thenReturn(true);
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any())).thenReturn(3);
 
         // When
         int exitCode = commandLine.execute("INBOX", "--to", "recipient@example.com");
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class));
+        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any());
     }
 
     @Test
     void shouldAcceptCcFilter() throws Exception {
         // Given
-        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class))).thenReturn(true);
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any())).thenReturn(3);
 
         // When
         int exitCode = commandLine.execute("INBOX", "--cc", "cc@example.com");
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class));
+        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any());
     }
 
     @Test
     void shouldAcceptReceivedAfterFilter() throws Exception {
         // Given
-        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class))).thenReturn(true);
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any())).thenReturn(3);
 
         // When
         int exitCode = commandLine.execute("INBOX", "--received-after", "2024-01-01");
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class));
+        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any());
     }
 
     @Test
     void shouldAcceptReceivedBeforeFilter() throws Exception {
         // Given
-        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class))).thenReturn(true);
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any())).thenReturn(3);
 
         // When
         int exitCode = commandLine.execute("INBOX", "--received-before", "2024-12-31");
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class));
+        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any());
     }
 
     @Test
     void shouldAcceptSentAfterFilter() throws Exception {
         // Given
-        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class))).thenReturn(true);
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any())).thenReturn(3);
 
         // When
         int exitCode = commandLine.execute("INBOX", "--sent-after", "2024-01-01");
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class));
+        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any());
     }
 
     @Test
     void shouldAcceptSentBeforeFilter() throws Exception {
         // Given
-        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class))).thenReturn(true);
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any())).thenReturn(3);
 
         // When
         int exitCode = commandLine.execute("INBOX", "--sent-before", "2024-12-31");
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class));
+        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any());
     }
 
     @Test
     void shouldAcceptMultipleFilters() throws Exception {
         // Given
-        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class))).thenReturn(true);
+        when(mockEmailClient.deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any())).thenReturn(3);
 
         // When
         int exitCode = commandLine.execute("INBOX", "--unread", "--from", "test@example.com", "--subject", "Important");
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class));
+        verify(mockEmailClient, times(1)).deleteEmails(eq("INBOX"), any(SearchTerm.class), anyInt(), any());
     }
 
     @Test
@@ -278,7 +305,7 @@ class DeleteEmailsCommandTest {
 
         // Then
         assertThat(exitCode).isEqualTo(1);
-        verify(mockEmailClient, never()).deleteEmails(anyString(), any(SearchTerm.class));
+        verify(mockEmailClient, never()).deleteEmails(anyString(), any(SearchTerm.class), anyInt(), any());
         String output = errorStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).contains("Invalid date format");
     }
@@ -290,7 +317,7 @@ class DeleteEmailsCommandTest {
 
         // Then
         assertThat(exitCode).isEqualTo(1);
-        verify(mockEmailClient, never()).deleteEmails(anyString(), any(SearchTerm.class));
+        verify(mockEmailClient, never()).deleteEmails(anyString(), any(SearchTerm.class), anyInt(), any());
         String output = errorStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).contains("Invalid date format");
     }
@@ -302,7 +329,7 @@ class DeleteEmailsCommandTest {
 
         // Then
         assertThat(exitCode).isEqualTo(1);
-        verify(mockEmailClient, never()).deleteEmails(anyString(), any(SearchTerm.class));
+        verify(mockEmailClient, never()).deleteEmails(anyString(), any(SearchTerm.class), anyInt(), any());
         String output = errorStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).contains("Invalid date format");
     }
@@ -314,8 +341,43 @@ class DeleteEmailsCommandTest {
 
         // Then
         assertThat(exitCode).isEqualTo(1);
-        verify(mockEmailClient, never()).deleteEmails(anyString(), any(SearchTerm.class));
+        verify(mockEmailClient, never()).deleteEmails(anyString(), any(SearchTerm.class), anyInt(), any());
         String output = errorStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).contains("Invalid date format");
     }
+
+    @Test
+    void shouldOnlyCountEmailsInDryRun() {
+        // Given
+        when(mockEmailClient.count(eq("INBOX"), any(SearchTerm.class))).thenReturn(42);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--received-before", "2024-01-01", "--dry-run");
+
+        // Then
+        assertThat(exitCode).isZero();
+        verify(mockEmailClient, never()).deleteEmails(anyString(), any(SearchTerm.class), anyInt(), any());
+        String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
+        assertThat(output).contains("Dry run: 42 emails would be deleted from folder: INBOX");
+    }
+
+    @Test
+    void shouldExplainSearchWithoutDeleting() {
+        // Given
+        when(mockEmailClient.explain(eq("INBOX"), any(SearchTerm.class))).thenReturn(new SearchPlan(
+                SearchPlan.Execution.CLIENT, null, List.of(), List.of("SIZE >= 1000 (IMAP SEARCH only has LARGER and SMALLER)"),
+                Set.of(), false, 500, -1));
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--from", "test@example.com", "--explain");
+
+        // Then
+        assertThat(exitCode).isZero();
+        verify(mockEmailClient, never()).deleteEmails(anyString(), any(SearchTerm.class), anyInt(), any());
+        String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
+        assertThat(output).contains("Execution: CLIENT")
+                .contains("SIZE >= 1000 (IMAP SEARCH only has LARGER and SMALLER)")
+                .contains("501 round trips")
+                .contains("fails instead of matching on the client");
+    }
 }
@@ -1,7 +1,9 @@
 package info.jab.cli.command;
 
 import info.jab.email.EmailClient;
+import info.jab.email.EmailResult;
 import info.jab.email.EmailSearch;
+import info.jab.email.ServerCapabilities;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
@@ -35,7 +37,7 @@ class EmailFilterCommandTest {
     void shouldBuildSearchTermWithUnreadFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -50,7 +52,7 @@ class EmailFilterCommandTest {
     void shouldBuildSearchTermWithReadFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -65,7 +67,7 @@ class EmailFilterCommandTest {
     void shouldBuildSearchTermWithFromFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -80,7 +82,7 @@ class EmailFilterCommandTest {
     void shouldBuildSearchTermWithSubjectFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -95,7 +97,7 @@ class EmailFilterCommandTest {
     void shouldBuildSearchTermWithBodyFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -110,7 +112,7 @@ class EmailFilterCommandTest {
     void shouldBuildSearchTermWithToFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -125,7 +127,7 @@ class EmailFilterCommandTest {
     void shouldBuildSearchTermWithCcFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -140,7 +142,7 @@ class EmailFilterCommandTest {
     void shouldBuildSearchTermWithReceivedAfterFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -155,7 +157,7 @@ class EmailFilterCommandTest {
     void shouldBuildSearchTermWithReceivedBeforeFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -170,7 +172,7 @@ class EmailFilterCommandTest {
     void shouldBuildSearchTermWithSentAfterFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -185,7 +187,7 @@ class EmailFilterCommandTest {
     void shouldBuildSearchTermWithSentBeforeFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -200,7 +202,7 @@ class EmailFilterCommandTest {
     void shouldReturnNullWhenNoFiltersSpecified() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -215,7 +217,7 @@ class EmailFilterCommandTest {
     void shouldIgnoreBlankFromFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -230,7 +232,7 @@ class EmailFilterCommandTest {
     void shouldIgnoreBlankSubjectFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -245,7 +247,7 @@ class EmailFilterCommandTest {
     void shouldIgnoreBlankBodyFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -260,7 +262,7 @@ class EmailFilterCommandTest {
     void shouldIgnoreBlankToFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -275,7 +277,7 @@ class EmailFilterCommandTest {
     void shouldIgnoreBlankCcFilter() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -290,7 +292,7 @@ class EmailFilterCommandTest {
     void shouldCombineMultipleFilters() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -301,6 +303,60 @@ class EmailFilterCommandTest {
         assertThat(search).isNotNull();
     }
 
+    @Test
+    void shouldOptimizeContradictoryFiltersToNoMatch() throws Exception {
+        // Given
+        ListEmailsCommand command = createCommand();
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        commandLine.execute("INBOX", "--read", "--unread");
+        EmailSearch search = command.buildSearchTerm();
+
+        // Then
+        assertThat(search).isNotNull();
+        assertThat(search.matchesNothing()).isTrue();
+    }
+
+    @Test
+    void shouldCombineQueryWithFilterOptionsIntoOneSearch() throws Exception {
+        // Given
+        ListEmailsCommand command = createCommand();
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        commandLine.execute("INBOX", "--unread", "--query", "from:alice@example.com OR from:bob@example.com");
+        EmailSearch search = command.buildSearchTerm();
+
+        // Then
+        assertThat(search.explain(ServerCapabilities.NONE).imapSearch())
+                .isEqualTo("SEARCH UNSEEN OR FROM \"alice@example.com\" FROM \"bob@example.com\"");
+    }
+
+    @Test
+    void shouldHandleInvalidQuery() throws Exception {
+        // Given
+        ListEmailsCommand command = createCommand();
+        ByteArrayOutputStream errorStreamCaptor = new ByteArrayOutputStream();
+        PrintStream originalErr = System.err;
+        System.setErr(new PrintStream(errorStreamCaptor));
+        CommandLine commandLine = new CommandLine(command);
+
+        try {
+            // When
+            int exitCode = commandLine.execute("INBOX", "--query", "from:alice AND (subject:report");
+
+            // Then
+            assertThat(exitCode).isEqualTo(1);
+            String errorOutput = errorStreamCaptor.toString(StandardCharsets.UTF_8);
+            assertThat(errorOutput.strip()).isEqualTo("Error: Invalid query at position 16: unbalanced '('");
+        } finally {
+            System.setErr(originalErr);
+        }
+    }
+
     @Test
     void shouldHandleInvalidReceivedAfterDate() throws Exception {
         // Given
@@ -393,7 +449,7 @@ class EmailFilterCommandTest {
     void shouldIgnoreBlankReceivedAfterDate() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -408,7 +464,7 @@ class EmailFilterCommandTest {
     void shouldIgnoreBlankReceivedBeforeDate() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -423,7 +479,7 @@ class EmailFilterCommandTest {
     void shouldIgnoreBlankSentAfterDate() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -438,7 +494,7 @@ class EmailFilterCommandTest {
     void shouldIgnoreBlankSentBeforeDate() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -453,7 +509,7 @@ class EmailFilterCommandTest {
     void shouldCombineAllFilters() throws Exception {
         // Given
         ListEmailsCommand command = createCommand();
-        when(mockEmailClient.listEmails(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
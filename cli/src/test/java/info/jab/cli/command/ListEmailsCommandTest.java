@@ -1,6 +1,22 @@
 package info.jab.cli.command;
 
 import info.jab.email.EmailClient;
+import info.jab.email.EmailException;
+import info.jab.email.EmailPage;
+import info.jab.email.EmailResult;
+import info.jab.email.EmailSort;
+import info.jab.email.EmailFlag;
+import info.jab.email.EmailSummary;
+import info.jab.email.FieldProjection;
+import info.jab.email.FolderEmail;
+import info.jab.email.MultiFolderResult;
+import info.jab.email.PageRequest;
+import info.jab.email.ProjectedEmail;
+import info.jab.email.SearchPlan;
+import info.jab.email.SortKey;
+import info.jab.email.UidOrder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.mail.Address;
 import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
@@ -19,12 +35,19 @@ import picocli.CommandLine;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.eq;
@@ -83,7 +106,7 @@ class ListEmailsCommandTest {
     void shouldListEmailsSuccessfullyInJsonFormat() throws Exception {
         // Given
         List<Message> messages = Arrays.asList(mockMessage1, mockMessage2);
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(messages);
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(messages));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -91,7 +114,7 @@ class ListEmailsCommandTest {
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).listEmails(eq("INBOX"), isNull());
+        verify(mockEmailClient, times(1)).listEmailsResult(eq("INBOX"), isNull());
         String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).contains("\"folder\"");
         assertThat(output).contains("\"INBOX\"");
@@ -103,7 +126,7 @@ class ListEmailsCommandTest {
     void shouldListEmailsSuccessfullyInTextFormat() throws Exception {
         // Given
         List<Message> messages = Arrays.asList(mockMessage1, mockMessage2);
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(messages);
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(messages));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -111,7 +134,7 @@ class ListEmailsCommandTest {
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).listEmails(eq("INBOX"), isNull());
+        verify(mockEmailClient, times(1)).listEmailsResult(eq("INBOX"), isNull());
         String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).contains("Emails in folder 'INBOX'");
         assertThat(output).contains("Test Subject 1");
@@ -121,7 +144,7 @@ class ListEmailsCommandTest {
     @Test
     void shouldHandleEmptyEmailList() throws Exception {
         // Given
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -129,7 +152,7 @@ class ListEmailsCommandTest {
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).listEmails(eq("INBOX"), isNull());
+        verify(mockEmailClient, times(1)).listEmailsResult(eq("INBOX"), isNull());
         String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
         // Empty list outputs JSON format by default
         assertThat(output).contains("\"folder\"");
@@ -140,7 +163,7 @@ class ListEmailsCommandTest {
     @Test
     void shouldHandleEmptyEmailListWithTextFormat() throws Exception {
         // Given
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -155,7 +178,7 @@ class ListEmailsCommandTest {
     @Test
     void shouldHandleExceptionWhenListingEmails() throws Exception {
         // Given
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenThrow(new RuntimeException("Connection failed"));
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenThrow(new RuntimeException("Connection failed"));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -163,12 +186,30 @@ class ListEmailsCommandTest {
 
         // Then
         assertThat(exitCode).isEqualTo(1);
-        verify(mockEmailClient, times(1)).listEmails(eq("INBOX"), isNull());
+        verify(mockEmailClient, times(1)).listEmailsResult(eq("INBOX"), isNull());
         String output = errorStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).contains("Error listing emails");
         assertThat(output).contains("Connection failed");
     }
 
+    @Test
+    void shouldFailInsteadOfReportingNoEmailsWhenListingFailed() throws Exception {
+        // Given
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull()))
+                .thenReturn(EmailResult.failed(new EmailException("Connection refused")));
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--text");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(outputStreamCaptor.toString(StandardCharsets.UTF_8)).doesNotContain("No emails found");
+        assertThat(errorStreamCaptor.toString(StandardCharsets.UTF_8))
+                .contains("Error listing emails")
+                .contains("Connection refused");
+    }
+
     @Test
     void shouldHandleMessageWithNullFrom() throws Exception {
         // Given
@@ -176,7 +217,7 @@ class ListEmailsCommandTest {
         when(mockMessage1.getSubject()).thenReturn("Test Subject");
         when(mockMessage1.getSentDate()).thenReturn(new Date());
         List<Message> messages = Collections.singletonList(mockMessage1);
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(messages);
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(messages));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -193,7 +234,7 @@ class ListEmailsCommandTest {
         // Given
         when(mockMessage1.getSubject()).thenReturn(null);
         List<Message> messages = Collections.singletonList(mockMessage1);
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(messages);
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(messages));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -210,7 +251,7 @@ class ListEmailsCommandTest {
         // Given
         when(mockMessage1.getSentDate()).thenReturn(null);
         List<Message> messages = Collections.singletonList(mockMessage1);
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(messages);
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(messages));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -227,7 +268,7 @@ class ListEmailsCommandTest {
         // Given
         when(mockMessage1.getFrom()).thenReturn(new Address[0]);
         List<Message> messages = Collections.singletonList(mockMessage1);
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(messages);
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(messages));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -244,7 +285,7 @@ class ListEmailsCommandTest {
         // Given
         when(mockMessage1.getSubject()).thenReturn("   ");
         List<Message> messages = Collections.singletonList(mockMessage1);
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(messages);
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(messages));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -261,7 +302,7 @@ class ListEmailsCommandTest {
         // Given
         when(mockMessage1.getFrom()).thenThrow(new MessagingException("Error"));
         List<Message> messages = Collections.singletonList(mockMessage1);
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(messages);
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(messages));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -278,7 +319,7 @@ class ListEmailsCommandTest {
         // Given
         when(mockMessage1.getSubject()).thenThrow(new MessagingException("Error"));
         List<Message> messages = Collections.singletonList(mockMessage1);
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(messages);
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(messages));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -295,7 +336,7 @@ class ListEmailsCommandTest {
         // Given
         when(mockMessage1.getSentDate()).thenThrow(new MessagingException("Error"));
         List<Message> messages = Collections.singletonList(mockMessage1);
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(messages);
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(messages));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -312,7 +353,7 @@ class ListEmailsCommandTest {
         // Given - Message that throws exception from getFrom(), which is caught by inner try-catch
         when(mockMessage1.getFrom()).thenThrow(new RuntimeException("Unexpected error"));
         List<Message> messages = Collections.singletonList(mockMessage1);
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(messages);
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(messages));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -329,7 +370,7 @@ class ListEmailsCommandTest {
     @Test
     void shouldHandleEmptyListWithSearchCriteria() throws Exception {
         // Given
-        when(mockEmailClient.listEmails(eq("INBOX"), ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), ArgumentMatchers.any())).thenReturn(EmailResult.of(Collections.emptyList()));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -346,7 +387,7 @@ class ListEmailsCommandTest {
         // Given
         when(mockMessage1.getFrom()).thenReturn(null);
         List<Message> messages = Collections.singletonList(mockMessage1);
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(messages);
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(messages));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -363,7 +404,7 @@ class ListEmailsCommandTest {
         // Given
         when(mockMessage1.getSubject()).thenReturn(null);
         List<Message> messages = Collections.singletonList(mockMessage1);
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(messages);
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(messages));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -382,7 +423,7 @@ class ListEmailsCommandTest {
         // This test verifies the code handles null sentDate gracefully by using current date
         when(mockMessage1.getSentDate()).thenReturn(null);
         List<Message> messages = Collections.singletonList(mockMessage1);
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(messages);
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(messages));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -401,7 +442,7 @@ class ListEmailsCommandTest {
         // Given
         when(mockMessage1.getFrom()).thenThrow(new RuntimeException("Error"));
         List<Message> messages = Collections.singletonList(mockMessage1);
-        when(mockEmailClient.listEmails(eq("INBOX"), isNull())).thenReturn(messages);
+        when(mockEmailClient.listEmailsResult(eq("INBOX"), isNull())).thenReturn(EmailResult.of(messages));
         CommandLine commandLine = new CommandLine(command);
 
         // When
@@ -413,4 +454,364 @@ class ListEmailsCommandTest {
         String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).isNotEmpty();
     }
+
+    @Test
+    void shouldListPageInJsonFormatWithNextCursor() throws Exception {
+        // Given
+        EmailPage page = new EmailPage(List.of(summary(101, "First"), summary(102, "Second")), 7L, 102L);
+        when(mockEmailClient.listEmails(eq("INBOX"), isNull(), any(PageRequest.class))).thenReturn(page);
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--limit", "2", "--after-uid", "100");
+
+        // Then
+        assertThat(exitCode).isZero();
+        verify(mockEmailClient).listEmails(eq("INBOX"), isNull(), eq(new PageRequest(2, 100, UidOrder.ASCENDING)));
+        verify(mockEmailClient, never()).listEmailsResult(anyFolder(), any());
+        String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
+        assertThat(output).contains("\"nextCursor\" : 102");
+        assertThat(output).contains("\"uidValidity\" : 7");
+        assertThat(output).contains("\"uid\" : 101");
+        assertThat(output).contains("First");
+    }
+
+    @Test
+    void shouldListNewestFirstWithDefaultPageSize() throws Exception {
+        // Given
+        EmailPage page = new EmailPage(List.of(summary(9, "Newest")), 7L, null);
+        when(mockEmailClient.listEmails(eq("INBOX"), isNull(), any(PageRequest.class))).thenReturn(page);
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--newest-first", "--text");
+
+        // Then
+        assertThat(exitCode).isZero();
+        verify(mockEmailClient).listEmails(eq("INBOX"), isNull(), eq(new PageRequest(50, 0, UidOrder.DESCENDING)));
+        String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
+        assertThat(output).contains("(uid 9)");
+        assertThat(output).contains("Newest");
+        assertThat(output).doesNotContain("Next page");
+    }
+
+    @Test
+    void shouldPrintNextPageHintInTextFormat() throws Exception {
+        // Given
+        EmailPage page = new EmailPage(List.of(summary(5, "Subject")), 7L, 5L);
+        when(mockEmailClient.listEmails(eq("INBOX"), isNull(), any(PageRequest.class))).thenReturn(page);
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--limit", "1", "--text");
+
+        // Then
+        assertThat(exitCode).isZero();
+        String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
+        assertThat(output).contains("Next page: --after-uid 5");
+    }
+
+    @Test
+    void shouldRejectInvalidLimit() throws Exception {
+        // Given
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--limit", "0");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errorStreamCaptor.toString(StandardCharsets.UTF_8)).contains("Page limit must be at least 1");
+    }
+
+    @Test
+    void shouldSearchAllFoldersAndReportFailures() throws Exception {
+        // Given
+        MultiFolderResult result = new MultiFolderResult(
+                List.of(new FolderEmail("INBOX", summary(3, "Inbox mail")), new FolderEmail("Archive", summary(8, "Archived mail"))),
+                Map.of("Broken", new EmailException("Folder not found")));
+        when(mockEmailClient.searchFolders(eq("*"), isNull())).thenReturn(result);
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("--all-folders");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        verify(mockEmailClient, never()).listEmailsResult(anyFolder(), any());
+        String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
+        assertThat(output).contains("\"folder\" : \"Archive\"");
+        assertThat(output).contains("Inbox mail");
+        assertThat(output).contains("\"Broken\" : \"Folder not found\"");
+        assertThat(errorStreamCaptor.toString(StandardCharsets.UTF_8)).contains("Error searching folder Broken: Folder not found");
+    }
+
+    @Test
+    void shouldSearchAllFoldersInTextFormat() throws Exception {
+        // Given
+        MultiFolderResult result = new MultiFolderResult(List.of(new FolderEmail("Sent", summary(4, "Sent mail"))), Map.of());
+        when(mockEmailClient.searchFolders(eq("*"), any())).thenReturn(result);
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("--all-folders", "--from", "sender", "--text");
+
+        // Then
+        assertThat(exitCode).isZero();
+        String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
+        assertThat(output).contains("Emails in all folders (1):");
+        assertThat(output).contains("Sent: sender@example.com - Sent mail");
+    }
+
+    @Test
+    void shouldStreamOneCompactJsonObjectPerLineInNdjsonMode() throws Exception {
+        // Given
+        AtomicBoolean streamClosed = new AtomicBoolean();
+        when(mockEmailClient.streamEmails(eq("INBOX"), isNull()))
+                .thenReturn(Stream.of(summary(3, "First"), summary(5, "Second")).onClose(() -> streamClosed.set(true)));
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--ndjson");
+
+        // Then
+        assertThat(exitCode).isZero();
+        verify(mockEmailClient, never()).listEmailsResult(anyFolder(), any());
+        assertThat(streamClosed).isTrue();
+        String[] lines = outputStreamCaptor.toString(StandardCharsets.UTF_8).split("\\R");
+        assertThat(lines).hasSize(2);
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertThat(objectMapper.readTree(lines[0]).get("subject").asText()).isEqualTo("First");
+        assertThat(objectMapper.readTree(lines[1]).get("uid").asLong()).isEqualTo(5);
+        assertThat(objectMapper.readTree(lines[1]).get("index").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldStreamEmailsIntoSingleCompactDocument() throws Exception {
+        // Given
+        when(mockEmailClient.streamEmails(eq("INBOX"), any()))
+                .thenReturn(Stream.of(summary(3, "First"), summary(5, "Second")));
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--compact", "--subject", "report");
+
+        // Then
+        assertThat(exitCode).isZero();
+        String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
+        assertThat(output.strip()).doesNotContain("\n");
+        JsonNode document = new ObjectMapper().readTree(output);
+        assertThat(document.get("folder").asText()).isEqualTo("INBOX");
+        assertThat(document.get("count").asInt()).isEqualTo(2);
+        assertThat(document.get("emails")).hasSize(2);
+        assertThat(document.get("emails").get(1).get("subject").asText()).isEqualTo("Second");
+    }
+
+    @Test
+    void shouldWritePageCursorIntoCompactDocument() throws Exception {
+        // Given
+        EmailPage page = new EmailPage(List.of(summary(3, "First")), 77L, 3L);
+        when(mockEmailClient.listEmails(eq("INBOX"), isNull(), any(PageRequest.class))).thenReturn(page);
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--limit", "1", "--compact");
+
+        // Then
+        assertThat(exitCode).isZero();
+        JsonNode document = new ObjectMapper().readTree(outputStreamCaptor.toString(StandardCharsets.UTF_8));
+        assertThat(document.get("count").asInt()).isEqualTo(1);
+        assertThat(document.get("uidValidity").asLong()).isEqualTo(77);
+        assertThat(document.get("nextCursor").asLong()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldRejectCombinedOutputFormats() {
+        // Given
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--ndjson", "--text");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        verify(mockEmailClient, never()).streamEmails(anyFolder(), any());
+        assertThat(errorStreamCaptor.toString(StandardCharsets.UTF_8)).contains("cannot be combined");
+    }
+
+    @Test
+    void shouldStreamOnlySelectedFields() throws Exception {
+        // Given
+        FieldProjection projection = FieldProjection.parse("flags,size,header:List-Id");
+        ProjectedEmail email = new ProjectedEmail(
+                new EmailSummary(-1, 1, null, null, null, null, null, null, null, 2048, Set.of(EmailFlag.SEEN)),
+                Map.of("List-Id", "<news.example.com>"));
+        when(mockEmailClient.streamEmails(eq("INBOX"), isNull(), eq(projection))).thenReturn(Stream.of(email));
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--fields", "flags,size,header:List-Id", "--ndjson");
+
+        // Then
+        assertThat(exitCode).isZero();
+        verify(mockEmailClient, never()).streamEmails(anyFolder(), any());
+        JsonNode line = new ObjectMapper().readTree(outputStreamCaptor.toString(StandardCharsets.UTF_8));
+        assertThat(line.get("size").asLong()).isEqualTo(2048);
+        assertThat(line.get("flags").get(0).asText()).isEqualTo("SEEN");
+        assertThat(line.get("headers").get("List-Id").asText()).isEqualTo("<news.example.com>");
+        assertThat(line.has("from")).isFalse();
+    }
+
+    @Test
+    void shouldPrintSelectedFieldsAsTabSeparatedText() throws Exception {
+        // Given
+        ProjectedEmail email = new ProjectedEmail(summary(7, "Weekly"), Map.of());
+        when(mockEmailClient.streamEmails(eq("INBOX"), isNull(), any(FieldProjection.class))).thenReturn(Stream.of(email));
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--fields", "uid,subject", "--text");
+
+        // Then
+        assertThat(exitCode).isZero();
+        String[] lines = outputStreamCaptor.toString(StandardCharsets.UTF_8).split("\\R");
+        assertThat(lines).containsExactly("index\tuid\tsubject", "1\t7\tWeekly");
+    }
+
+    @Test
+    void shouldRejectFieldsWithPaging() {
+        // Given
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--fields", "uid", "--limit", "10");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errorStreamCaptor.toString(StandardCharsets.UTF_8)).contains("--fields cannot be combined");
+    }
+
+    @Test
+    void shouldRejectAllFoldersWithPaging() {
+        // Given
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("--all-folders", "--limit", "10");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errorStreamCaptor.toString(StandardCharsets.UTF_8).strip())
+                .isEqualTo("Error: --all-folders cannot be combined with --limit, --after-uid or --newest-first");
+        verifyNoInteractions(mockEmailClient);
+    }
+
+    @Test
+    void shouldOutputOnlyCountWithoutListingEmails() throws Exception {
+        // Given
+        when(mockEmailClient.count(eq("INBOX"), any())).thenReturn(12);
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--unread", "--count");
+
+        // Then
+        assertThat(exitCode).isZero();
+        verify(mockEmailClient, never()).listEmailsResult(anyFolder(), any());
+        verify(mockEmailClient, never()).streamEmails(anyFolder(), any());
+        JsonNode document = new ObjectMapper().readTree(outputStreamCaptor.toString(StandardCharsets.UTF_8));
+        assertThat(document.get("folder").asText()).isEqualTo("INBOX");
+        assertThat(document.get("count").asInt()).isEqualTo(12);
+    }
+
+    @Test
+    void shouldOutputBareCountInTextFormat() throws Exception {
+        // Given
+        when(mockEmailClient.count(eq("INBOX"), isNull())).thenReturn(3);
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--count", "--text");
+
+        // Then
+        assertThat(exitCode).isZero();
+        assertThat(outputStreamCaptor.toString(StandardCharsets.UTF_8).strip()).isEqualTo("3");
+    }
+
+    @Test
+    void shouldRejectCountWithSort() {
+        // Given
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--count", "--sort", "date", "--reverse");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errorStreamCaptor.toString(StandardCharsets.UTF_8).strip()).isEqualTo(
+                "Error: --count cannot be combined with --all-folders, --limit, --after-uid, --newest-first, --fields, --sort or --reverse");
+        verifyNoInteractions(mockEmailClient);
+    }
+
+    @Test
+    void shouldListNewestEmailsWithServerSort() throws Exception {
+        // Given
+        when(mockEmailClient.listEmails(eq("INBOX"), isNull(), eq(new EmailSort(SortKey.ARRIVAL, true)), eq(20)))
+                .thenReturn(List.of(summary(9, "Newest"), summary(8, "Older")));
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--sort", "arrival", "--reverse", "--limit", "20");
+
+        // Then
+        assertThat(exitCode).isZero();
+        verify(mockEmailClient, never()).listEmails(anyFolder(), any(), any(PageRequest.class));
+        JsonNode document = new ObjectMapper().readTree(outputStreamCaptor.toString(StandardCharsets.UTF_8));
+        assertThat(document.get("count").asInt()).isEqualTo(2);
+        assertThat(document.get("emails").get(0).get("subject").asText()).isEqualTo("Newest");
+    }
+
+    @Test
+    void shouldRejectReverseWithoutSort() {
+        // Given
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--reverse");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errorStreamCaptor.toString(StandardCharsets.UTF_8)).contains("--reverse requires --sort");
+    }
+
+    @Test
+    void shouldExplainServerSearchWithoutListing() {
+        // Given
+        when(mockEmailClient.explain(eq("INBOX"), any())).thenReturn(new SearchPlan(SearchPlan.Execution.SERVER,
+                "SEARCH UNSEEN FROM \"boss@example.com\"", List.of("UNSEEN", "FROM \"boss@example.com\""), List.of(),
+                Set.of(), false, 1200, -1));
+        CommandLine commandLine = new CommandLine(command);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--unread", "--from", "boss@example.com", "--explain");
+
+        // Then
+        assertThat(exitCode).isZero();
+        verify(mockEmailClient, never()).listEmailsResult(anyFolder(), any());
+        String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
+        assertThat(output).contains("Execution: SERVER")
+                .contains("IMAP command: SEARCH UNSEEN FROM \"boss@example.com\"")
+                .contains("Local criteria: none")
+                .contains("Capabilities used: none")
+                .contains("the server scans 1200 messages");
+    }
+
+    private static String anyFolder() {
+        return ArgumentMatchers.anyString();
+    }
+
+    private static EmailSummary summary(long uid, String subject) {
+        return new EmailSummary(uid, (int) uid, null, "sender@example.com", List.of(), List.of(), subject,
+                Instant.parse("2025-01-01T10:00:00Z"), null, 100, null);
+    }
 }
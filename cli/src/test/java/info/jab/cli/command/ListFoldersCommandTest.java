@@ -1,12 +1,16 @@
 package info.jab.cli.command;
 
 import info.jab.email.EmailClient;
+import info.jab.email.EmailException;
+import info.jab.email.EmailResult;
+import info.jab.email.FolderStatus;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import picocli.CommandLine;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
@@ -16,6 +20,7 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -52,14 +57,14 @@ class ListFoldersCommandTest {
     void shouldListFoldersSuccessfully() throws Exception {
         // Given
         List<String> folders = Arrays.asList("INBOX", "Sent", "Drafts", "Trash");
-        when(mockEmailClient.listFolders()).thenReturn(folders);
+        when(mockEmailClient.listFoldersResult()).thenReturn(EmailResult.of(folders));
 
         // When
         int exitCode = command.call();
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).listFolders();
+        verify(mockEmailClient, times(1)).listFoldersResult();
         String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).contains("Folders:");
         assertThat(output).contains("- INBOX");
@@ -71,14 +76,14 @@ class ListFoldersCommandTest {
     @Test
     void shouldHandleEmptyFolderList() throws Exception {
         // Given
-        when(mockEmailClient.listFolders()).thenReturn(Collections.emptyList());
+        when(mockEmailClient.listFoldersResult()).thenReturn(EmailResult.of(Collections.emptyList()));
 
         // When
         int exitCode = command.call();
 
         // Then
         assertThat(exitCode).isZero();
-        verify(mockEmailClient, times(1)).listFolders();
+        verify(mockEmailClient, times(1)).listFoldersResult();
         String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).contains("No folders found.");
     }
@@ -86,16 +91,68 @@ class ListFoldersCommandTest {
     @Test
     void shouldHandleExceptionWhenListingFolders() throws Exception {
         // Given
-        when(mockEmailClient.listFolders()).thenThrow(new RuntimeException("Connection failed"));
+        when(mockEmailClient.listFoldersResult()).thenThrow(new RuntimeException("Connection failed"));
 
         // When
         int exitCode = command.call();
 
         // Then
         assertThat(exitCode).isEqualTo(1);
-        verify(mockEmailClient, times(1)).listFolders();
+        verify(mockEmailClient, times(1)).listFoldersResult();
         String output = errorStreamCaptor.toString(StandardCharsets.UTF_8);
         assertThat(output).contains("Error listing folders");
         assertThat(output).contains("Connection failed");
     }
+
+    @Test
+    void shouldFailInsteadOfReportingNoFoldersWhenListingFailed() throws Exception {
+        // Given
+        when(mockEmailClient.listFoldersResult()).thenReturn(EmailResult.failed(new EmailException("Connection refused")));
+
+        // When
+        int exitCode = command.call();
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(outputStreamCaptor.toString(StandardCharsets.UTF_8)).doesNotContain("No folders found.");
+        assertThat(errorStreamCaptor.toString(StandardCharsets.UTF_8))
+                .contains("Error listing folders")
+                .contains("Connection refused");
+    }
+
+    @Test
+    void shouldListFolderStatusInJson() throws Exception {
+        // Given
+        when(mockEmailClient.folderStatuses("*")).thenReturn(List.of(
+                new FolderStatus("INBOX", 12, 3, 40960, 13, 1),
+                new FolderStatus("Sent", 5, 0, -1, 6, 1)));
+
+        // When
+        int exitCode = new CommandLine(command).execute("--json");
+
+        // Then
+        assertThat(exitCode).isZero();
+        verify(mockEmailClient, never()).listFoldersResult();
+        String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
+        assertThat(output).contains("\"count\" : 2");
+        assertThat(output).contains("\"name\" : \"INBOX\"");
+        assertThat(output).contains("\"messages\" : 12");
+        assertThat(output).contains("\"unseen\" : 3");
+        assertThat(output).contains("\"size\" : 40960");
+        assertThat(output).containsOnlyOnce("\"size\"");
+    }
+
+    @Test
+    void shouldListFolderStatusInText() throws Exception {
+        // Given
+        when(mockEmailClient.folderStatuses("*")).thenReturn(List.of(new FolderStatus("INBOX", 12, 3, -1, 13, 1)));
+
+        // When
+        int exitCode = new CommandLine(command).execute("--status");
+
+        // Then
+        assertThat(exitCode).isZero();
+        String output = outputStreamCaptor.toString(StandardCharsets.UTF_8);
+        assertThat(output).contains("- INBOX (12 messages, 3 unseen)");
+    }
 }
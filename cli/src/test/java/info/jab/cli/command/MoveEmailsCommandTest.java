@@ -0,0 +1,159 @@
+package info.jab.cli.command;
+
+import info.jab.email.BatchProgressListener;
+import info.jab.email.EmailClient;
+import jakarta.mail.search.SearchTerm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import picocli.CommandLine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for MoveEmailsCommand.
+ */
+@ExtendWith(MockitoExtension.class)
+class MoveEmailsCommandTest {
+
+    @Mock
+    private EmailClient mockEmailClient;
+
+    private CommandLine commandLine;
+    private final ByteArrayOutputStream outputStreamCaptor = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream errorStreamCaptor = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+    private final PrintStream originalErr = System.err;
+
+    @BeforeEach
+    void setUp() {
+        System.setOut(new PrintStream(outputStreamCaptor));
+        System.setErr(new PrintStream(errorStreamCaptor));
+        commandLine = new CommandLine(new MoveEmailsCommand(mockEmailClient));
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+
+    @Test
+    void shouldMoveMatchingEmails() {
+        // Given
+        when(mockEmailClient.moveEmails(eq("INBOX"), any(SearchTerm.class), eq("Archive"), anyInt(), any())).thenReturn(4);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--from", "test@example.com", "--target", "Archive");
+
+        // Then
+        assertThat(exitCode).isZero();
+        verify(mockEmailClient, never()).copyEmails(anyString(), any(), anyString(), anyInt(), any());
+        assertThat(outputStreamCaptor.toString(StandardCharsets.UTF_8))
+                .contains("Emails moved successfully from folder: INBOX to Archive (4 emails)");
+    }
+
+    @Test
+    void shouldMoveAllEmailsWhenNoFilterIsGiven() {
+        // Given
+        when(mockEmailClient.moveEmails(eq("INBOX"), isNull(), eq("Archive"), anyInt(), any())).thenReturn(2);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--target", "Archive");
+
+        // Then
+        assertThat(exitCode).isZero();
+        assertThat(outputStreamCaptor.toString(StandardCharsets.UTF_8)).contains("(2 emails)");
+    }
+
+    @Test
+    void shouldCopyEmailsWhenCopyOptionIsGiven() {
+        // Given
+        when(mockEmailClient.copyEmails(eq("INBOX"), any(SearchTerm.class), eq("Archive"), anyInt(), any())).thenReturn(1);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--unread", "--target", "Archive", "--copy");
+
+        // Then
+        assertThat(exitCode).isZero();
+        verify(mockEmailClient, never()).moveEmails(anyString(), any(), anyString(), anyInt(), any());
+        assertThat(outputStreamCaptor.toString(StandardCharsets.UTF_8))
+                .contains("Emails copied successfully from folder: INBOX to Archive (1 emails)");
+    }
+
+    @Test
+    void shouldMoveInChunksAndReportProgress() {
+        // Given
+        when(mockEmailClient.moveEmails(eq("INBOX"), any(SearchTerm.class), eq("Archive"), eq(2), any())).thenAnswer(invocation -> {
+            BatchProgressListener progress = invocation.getArgument(4);
+            progress.onProgress(2, 3);
+            progress.onProgress(3, 3);
+            return 3;
+        });
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--from", "test@example.com", "--target", "Archive", "--chunk-size", "2");
+
+        // Then
+        assertThat(exitCode).isZero();
+        assertThat(errorStreamCaptor.toString(StandardCharsets.UTF_8))
+                .contains("Moved 2 of 3 emails")
+                .contains("Moved 3 of 3 emails");
+    }
+
+    @Test
+    void shouldReportWhenNoEmailsMatch() {
+        // Given
+        when(mockEmailClient.moveEmails(eq("INBOX"), any(SearchTerm.class), eq("Archive"), anyInt(), any())).thenReturn(0);
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--from", "nobody@example.com", "--target", "Archive");
+
+        // Then
+        assertThat(exitCode).isZero();
+        assertThat(outputStreamCaptor.toString(StandardCharsets.UTF_8))
+                .contains("No emails found matching the criteria in folder: INBOX");
+    }
+
+    @Test
+    void shouldRequireTargetFolder() {
+        // Given/When
+        int exitCode = commandLine.execute("INBOX", "--from", "test@example.com");
+
+        // Then
+        assertThat(exitCode).isNotZero();
+        verify(mockEmailClient, never()).moveEmails(anyString(), any(), anyString(), anyInt(), any());
+        assertThat(errorStreamCaptor.toString(StandardCharsets.UTF_8)).contains("--target");
+    }
+
+    @Test
+    void shouldHandleExceptionWhenMovingEmails() {
+        // Given
+        when(mockEmailClient.moveEmails(eq("INBOX"), any(SearchTerm.class), eq("Missing"), anyInt(), any()))
+                .thenThrow(new RuntimeException("Missing not found"));
+
+        // When
+        int exitCode = commandLine.execute("INBOX", "--from", "test@example.com", "--target", "Missing");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errorStreamCaptor.toString(StandardCharsets.UTF_8))
+                .contains("Error moving emails")
+                .contains("Missing not found");
+    }
+}
@@ -0,0 +1,97 @@
+package info.jab.cli.command;
+
+import info.jab.email.EmailSearch;
+import info.jab.email.SearchPlan;
+import info.jab.email.ServerCapabilities;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for SearchQuery.
+ */
+class SearchQueryTest {
+
+    @Test
+    void shouldParseOrIntoSingleServerSearch() {
+        // When
+        String command = imapSearch("from:alice@example.com OR from:bob@example.com");
+
+        // Then
+        assertThat(command).isEqualTo("SEARCH OR FROM \"alice@example.com\" FROM \"bob@example.com\"");
+    }
+
+    @Test
+    void shouldBindAndTighterThanOrAndHonourParentheses() {
+        // When
+        String withoutParentheses = imapSearch("is:unread from:alice or subject:report");
+        String withParentheses = imapSearch("is:unread AND (from:alice OR subject:report)");
+
+        // Then
+        assertThat(withoutParentheses).isEqualTo("SEARCH OR (UNSEEN FROM \"alice\") SUBJECT \"report\"");
+        assertThat(withParentheses).isEqualTo("SEARCH UNSEEN OR FROM \"alice\" SUBJECT \"report\"");
+    }
+
+    @Test
+    void shouldNegateConditionsAndKeepQuotedValues() {
+        // When
+        String command = imapSearch("NOT subject:\"weekly report\" AND NOT from:\"OR\"");
+
+        // Then
+        assertThat(command).isEqualTo("SEARCH NOT SUBJECT \"weekly report\" NOT FROM \"OR\"");
+    }
+
+    @Test
+    void shouldParseDateRangesAndComparisons() {
+        // When
+        EmailSearch range = SearchQuery.parse("received:2024-01-01..2024-03-31");
+        EmailSearch after = SearchQuery.parse("sent>2024-01-01");
+
+        // Then
+        assertThat(range.build()).isEqualTo(EmailSearch.receivedAfter(LocalDate.of(2024, 1, 1))
+                .and(EmailSearch.receivedBefore(LocalDate.of(2024, 3, 31))).build());
+        assertThat(after.build()).isEqualTo(EmailSearch.sentAfter(LocalDate.of(2024, 1, 2)).build());
+    }
+
+    @Test
+    void shouldParseSizesWithServerSideOperators() {
+        // When
+        String larger = imapSearch("size>1M");
+        String atMost = imapSearch("size<=500K");
+
+        // Then
+        assertThat(larger).isEqualTo("SEARCH LARGER 1048576");
+        assertThat(atMost).isEqualTo("SEARCH NOT LARGER 512000");
+    }
+
+    @Test
+    void shouldRejectInvalidQueriesWithPosition() {
+        assertThatThrownBy(() -> SearchQuery.parse("from:alice OR"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("ends where a condition is expected");
+        assertThatThrownBy(() -> SearchQuery.parse("(from:alice"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("unbalanced '('");
+        assertThatThrownBy(() -> SearchQuery.parse("from:alice color:red"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("position 12")
+                .hasMessageContaining("unknown field 'color'");
+        assertThatThrownBy(() -> SearchQuery.parse("received>yesterday"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("invalid date");
+        assertThatThrownBy(() -> SearchQuery.parse("size:10K"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SearchQuery.parse("subject:\"open"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("unterminated quote");
+    }
+
+    private static String imapSearch(String query) {
+        SearchPlan plan = SearchQuery.parse(query).optimize().explain(ServerCapabilities.NONE);
+        assertThat(plan.execution()).isEqualTo(SearchPlan.Execution.SERVER);
+        return plan.imapSearch();
+    }
+}
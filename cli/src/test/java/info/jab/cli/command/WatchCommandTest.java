@@ -0,0 +1,145 @@
+package info.jab.cli.command;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import info.jab.email.EmailClient;
+import info.jab.email.EmailException;
+import info.jab.email.EmailSummary;
+import info.jab.email.FolderEvent;
+import info.jab.email.FolderEventListener;
+import info.jab.email.FolderWatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import picocli.CommandLine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for WatchCommand.
+ */
+@ExtendWith(MockitoExtension.class)
+class WatchCommandTest {
+
+    @Mock
+    private EmailClient mockEmailClient;
+
+    @Mock
+    private FolderWatcher mockWatcher;
+
+    private final ByteArrayOutputStream outputStreamCaptor = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream errorStreamCaptor = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+    private final PrintStream originalErr = System.err;
+
+    @BeforeEach
+    void setUp() {
+        System.setOut(new PrintStream(outputStreamCaptor));
+        System.setErr(new PrintStream(errorStreamCaptor));
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+
+    private void watcherReporting(String folder, FolderEvent... events) {
+        when(mockEmailClient.watchFolder(eq(folder), any())).thenAnswer(invocation -> {
+            FolderEventListener listener = invocation.getArgument(1);
+            for (FolderEvent event : events) {
+                listener.onEvent(event);
+            }
+            return mockWatcher;
+        });
+    }
+
+    @Test
+    void shouldPrintOneJsonEventPerLine() throws Exception {
+        // Given
+        EmailSummary email = new EmailSummary(42, 7, "<42@example.com>", "Boss <boss@example.com>", List.of(), List.of(),
+                "Report", Instant.parse("2025-01-15T10:00:00Z"), null, 512, Set.of());
+        watcherReporting("INBOX",
+                new FolderEvent(FolderEvent.Type.NEW_MESSAGE, "INBOX", 99, 42, email),
+                new FolderEvent(FolderEvent.Type.EXPUNGED, "INBOX", 99, 17, null));
+        when(mockWatcher.isRunning()).thenReturn(true);
+
+        // When
+        int exitCode = new CommandLine(new WatchCommand(mockEmailClient)).execute("INBOX", "--max-events", "2");
+
+        // Then
+        assertThat(exitCode).isZero();
+        verify(mockWatcher).close();
+        String[] lines = outputStreamCaptor.toString(StandardCharsets.UTF_8).split("\\R");
+        assertThat(lines).hasSize(2);
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode added = objectMapper.readTree(lines[0]);
+        assertThat(added.get("event").asText()).isEqualTo("new");
+        assertThat(added.get("folder").asText()).isEqualTo("INBOX");
+        assertThat(added.get("uidValidity").asLong()).isEqualTo(99);
+        assertThat(added.get("uid").asLong()).isEqualTo(42);
+        assertThat(added.get("from").asText()).isEqualTo("Boss <boss@example.com>");
+        assertThat(added.get("subject").asText()).isEqualTo("Report");
+        JsonNode expunged = objectMapper.readTree(lines[1]);
+        assertThat(expunged.get("event").asText()).isEqualTo("expunged");
+        assertThat(expunged.get("uid").asLong()).isEqualTo(17);
+        assertThat(expunged.has("subject")).isFalse();
+    }
+
+    @Test
+    void shouldReturnErrorWhenWatcherStopsWithFailure() {
+        // Given
+        watcherReporting("Archive");
+        when(mockWatcher.isRunning()).thenReturn(false);
+        when(mockWatcher.failure()).thenReturn(new EmailException("Error watching folder Archive: Archive not found"));
+
+        // When
+        int exitCode = new CommandLine(new WatchCommand(mockEmailClient)).execute("Archive");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(outputStreamCaptor.toString(StandardCharsets.UTF_8)).isEmpty();
+        assertThat(errorStreamCaptor.toString(StandardCharsets.UTF_8)).contains("Error watching folder: Error watching folder Archive: Archive not found");
+    }
+
+    @Test
+    void shouldStopWhenTimeoutElapses() {
+        // Given
+        watcherReporting("INBOX");
+        when(mockWatcher.isRunning()).thenReturn(true);
+
+        // When
+        int exitCode = new CommandLine(new WatchCommand(mockEmailClient)).execute("--timeout", "0");
+
+        // Then
+        assertThat(exitCode).isZero();
+        verify(mockWatcher).close();
+        assertThat(outputStreamCaptor.toString(StandardCharsets.UTF_8)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectMaxEventsBelowOne() {
+        // When
+        int exitCode = new CommandLine(new WatchCommand(mockEmailClient)).execute("--max-events", "0");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        verify(mockEmailClient, never()).watchFolder(any(), any());
+        assertThat(errorStreamCaptor.toString(StandardCharsets.UTF_8)).contains("--max-events must be at least 1");
+    }
+}
@@ -0,0 +1,21 @@
+package info.jab.email;
+
+/**
+ * Receives progress of a bulk operation that is sent to the server in chunks.
+ */
+@FunctionalInterface
+public interface BatchProgressListener {
+
+    /**
+     * A listener that ignores progress.
+     */
+    BatchProgressListener NONE = (processed, total) -> { };
+
+    /**
+     * Called after each chunk has been processed by the server.
+     *
+     * @param processed the number of messages processed so far
+     * @param total the number of messages the operation applies to
+     */
+    void onProgress(int processed, int total);
+}
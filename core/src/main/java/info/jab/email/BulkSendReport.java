@@ -0,0 +1,78 @@
+package info.jab.email;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The results of a bulk send together with its throughput and latency.
+ *
+ * @param results the result of each email, in the order the emails were given
+ * @param elapsed the wall-clock time of the whole send, from the first connect to the last reply
+ * @param connections the number of SMTP connections the emails were sent over
+ */
+public record BulkSendReport(List<SendResult> results, Duration elapsed, int connections) {
+
+    public BulkSendReport {
+        results = List.copyOf(results);
+        Objects.requireNonNull(elapsed, "elapsed");
+    }
+
+    /**
+     * Gets the number of emails the server accepted.
+     *
+     * @return the number of sent emails
+     */
+    public int sentCount() {
+        return (int) results.stream().filter(SendResult::isSent).count();
+    }
+
+    /**
+     * Gets the number of emails that were not sent.
+     *
+     * @return the number of failed emails
+     */
+    public int failedCount() {
+        return results.size() - sentCount();
+    }
+
+    /**
+     * Gets the number of sent emails per second of wall-clock time.
+     *
+     * @return the throughput, or 0 if nothing was sent
+     */
+    public double throughputPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos > 0 ? sentCount() * 1_000_000_000.0 / nanos : 0;
+    }
+
+    /**
+     * Gets a percentile of the latency of the sent emails, using the nearest-rank method.
+     *
+     * @param percentile the percentile, between 0 (exclusive) and 100 (inclusive)
+     * @return the latency at the percentile, or zero if nothing was sent
+     */
+    public Duration latencyPercentile(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be in (0, 100], but got: " + percentile);
+        }
+        long[] latencies = results.stream().filter(SendResult::isSent)
+                .mapToLong(result -> result.latency().toNanos()).sorted().toArray();
+        if (latencies.length == 0) {
+            return Duration.ZERO;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * latencies.length);
+        return Duration.ofNanos(latencies[Math.max(rank, 1) - 1]);
+    }
+
+    /**
+     * Summarizes the report in one line, for logs and command output.
+     *
+     * @return the summary
+     */
+    public String summary() {
+        return String.format("Sent %d of %d emails over %d connections in %d ms (%.1f/s), latency p50 %d ms, p95 %d ms, max %d ms",
+                sentCount(), results.size(), connections, elapsed.toMillis(), throughputPerSecond(),
+                latencyPercentile(50).toMillis(), latencyPercentile(95).toMillis(), latencyPercentile(100).toMillis());
+    }
+}
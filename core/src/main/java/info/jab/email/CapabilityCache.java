@@ -0,0 +1,199 @@
+package info.jab.email;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of the capabilities a server grants each account, so they are discovered once and then
+ * consulted to plan operations. Entries are keyed by user as well as server, since the CAPABILITY
+ * response after login may differ per user. They are kept in memory and, when a directory is
+ * given, in one small file per account so later processes can plan without connecting. Entries
+ * older than the TTL are discovered again, as are those of a server that rejected a command they
+ * promised.
+ */
+public class CapabilityCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CapabilityCache.class);
+
+    /**
+     * Default time discovered capabilities are trusted.
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofHours(24);
+
+    private static final String FILE_EXTENSION = ".caps";
+
+    private final Path directory;
+    private final Duration ttl;
+    private final Clock clock;
+    private final Map<String, ServerCapabilities> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a cache kept in memory only.
+     *
+     * @param ttl how long discovered capabilities are trusted
+     */
+    public CapabilityCache(Duration ttl) {
+        this(null, ttl);
+    }
+
+    /**
+     * Creates a cache that also keeps its entries in the given directory, created on first write.
+     *
+     * @param directory the cache directory, or null to keep entries in memory only
+     * @param ttl how long discovered capabilities are trusted
+     */
+    public CapabilityCache(Path directory, Duration ttl) {
+        this(directory, ttl, Clock.systemUTC());
+    }
+
+    CapabilityCache(Path directory, Duration ttl, Clock clock) {
+        if (ttl == null || ttl.isNegative()) {
+            throw new IllegalArgumentException("Capability TTL must not be negative, but got: " + ttl);
+        }
+        this.directory = directory;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the directory the entries are kept in.
+     *
+     * @return the cache directory, or null if entries are kept in memory only
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the cached capabilities of an account, reading them from disk if they are not in memory.
+     *
+     * @param account the user and server, for example user@host:port
+     * @return the capabilities, or null if they are unknown or expired
+     */
+    public ServerCapabilities get(String account) {
+        Instant now = clock.instant();
+        ServerCapabilities capabilities = entries.get(account);
+        if (capabilities == null && directory != null) {
+            capabilities = read(account);
+            if (capabilities != null) {
+                entries.put(account, capabilities);
+            }
+        }
+        if (capabilities != null && capabilities.isExpired(ttl, now)) {
+            logger.debug("Cached capabilities of {} expired", account);
+            entries.remove(account, capabilities);
+            return null;
+        }
+        return capabilities;
+    }
+
+    /**
+     * Stores the capabilities discovered for an account.
+     *
+     * @param account the user and server
+     * @param capabilities the discovered capabilities
+     */
+    public void put(String account, ServerCapabilities capabilities) {
+        entries.put(account, capabilities);
+        if (directory != null) {
+            write(account, capabilities);
+        }
+    }
+
+    /**
+     * Forgets the capabilities of an account, so they are discovered again on next use.
+     *
+     * @param account the user and server
+     */
+    public void invalidate(String account) {
+        entries.remove(account);
+        if (directory != null) {
+            try {
+                Files.deleteIfExists(file(account));
+            } catch (IOException e) {
+                logger.warn("Error deleting cached capabilities of {}: {}", account, e.getMessage());
+            }
+        }
+    }
+
+    private ServerCapabilities read(String account) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file(account), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Error reading cached capabilities of {}: {}", account, e.getMessage());
+            return null;
+        }
+        if (!account.equals(properties.getProperty("account"))) {
+            return null;
+        }
+        try {
+            EnumSet<ImapCapability> supported = EnumSet.noneOf(ImapCapability.class);
+            String names = properties.getProperty("capabilities", "");
+            for (String name : names.split(",")) {
+                if (!name.isBlank()) {
+                    supported.add(ImapCapability.valueOf(name.strip()));
+                }
+            }
+            Instant discoveredAt = Instant.ofEpochMilli(Long.parseLong(properties.getProperty("discoveredAt")));
+            return new ServerCapabilities(supported, discoveredAt);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring invalid cached capabilities of {}: {}", account, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(String account, ServerCapabilities capabilities) {
+        Properties properties = new Properties();
+        properties.setProperty("account", account);
+        properties.setProperty("discoveredAt", Long.toString(capabilities.discoveredAt().toEpochMilli()));
+        properties.setProperty("capabilities", capabilities.supported().stream()
+                .map(ImapCapability::name).collect(Collectors.joining(",")));
+        try {
+            Files.createDirectories(directory);
+            Path file = file(account);
+            Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.warn("Error writing cached capabilities of {}: {}", account, e.getMessage());
+        }
+    }
+
+    private Path file(String account) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(account.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest, 0, 16) + FILE_EXTENSION);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package info.jab.email;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fails store operations fast while the server is down, instead of letting each of them wait
+ * for its own connection attempts to time out.
+ *
+ * <p>The breaker opens after a number of consecutive connection failures. While open every
+ * operation is rejected right away; once the open duration has passed, a single trial operation
+ * is let through. Its success closes the breaker again and its failure keeps it open for another
+ * open duration. Thread-safe.
+ */
+public final class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    /**
+     * Default number of consecutive failures that open the breaker.
+     */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    /**
+     * Default time the breaker stays open before a trial operation is let through.
+     */
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+    /**
+     * The states of the breaker.
+     */
+    public enum State {
+        /** Operations run normally. */
+        CLOSED,
+        /** Operations are rejected without contacting the server. */
+        OPEN,
+        /** One trial operation is running; others are rejected until it completes. */
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final LongSupplier nanoClock;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    /**
+     * Creates a closed breaker.
+     *
+     * @param failureThreshold how many consecutive failures open the breaker
+     * @param openDuration how long the breaker stays open before a trial operation is let through
+     */
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Failure threshold must be at least 1, but got: " + failureThreshold);
+        }
+        if (openDuration == null || openDuration.isNegative()) {
+            throw new IllegalArgumentException("Open duration must not be negative");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Gets the current state, moving from open to half-open once the open duration has passed.
+     *
+     * @return the state
+     */
+    public synchronized State state() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openDuration.toNanos()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Checks whether an operation may run now, letting a single trial through after the open duration.
+     *
+     * @return true if the operation may run, false if it must fail fast
+     */
+    synchronized boolean tryAcquire() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> {
+                if (nanoClock.getAsLong() - openedAt < openDuration.toNanos()) {
+                    yield false;
+                }
+                state = State.HALF_OPEN;
+                logger.info("Circuit breaker half-open, letting a trial operation through");
+                yield true;
+            }
+            case HALF_OPEN -> false;
+        };
+    }
+
+    /**
+     * Gets how long the breaker stays open from now.
+     *
+     * @return the remaining open time, or zero if it is not open
+     */
+    synchronized Duration remainingOpen() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, openDuration.toNanos() - (nanoClock.getAsLong() - openedAt)));
+    }
+
+    /**
+     * Records an operation that reached the server, closing the breaker.
+     */
+    synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("Circuit breaker closed, server is reachable again");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * Records a connection failure, opening the breaker at the threshold or when a trial failed.
+     */
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = nanoClock.getAsLong();
+            logger.warn("Circuit breaker opened after {} consecutive failures, failing fast for {} ms",
+                    consecutiveFailures, openDuration.toMillis());
+        }
+    }
+
+    /**
+     * Records an operation that ended without showing whether the server is reachable, such as one
+     * that was interrupted, so a trial it was running for does not block the breaker forever.
+     */
+    synchronized void onAbandoned() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+            openedAt = nanoClock.getAsLong() - openDuration.toNanos();
+        }
+    }
+}
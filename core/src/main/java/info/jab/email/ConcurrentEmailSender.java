@@ -0,0 +1,202 @@
+package info.jab.email;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends emails over a pool of SMTP connections, each driven by its own virtual thread.
+ *
+ * <p>The caller's thread feeds a bounded queue, so a lazily produced batch is never held in
+ * memory as a whole; it blocks while all connections are busy. Every connection is opened and
+ * authenticated once and then reused with RSET between messages, as in
+ * {@link EmailSender#sendAll(Iterable)}. Connections that cannot be opened leave the pool; once
+ * none is left the remaining emails fail without further attempts.
+ *
+ * <p>Jakarta Mail waits for the reply to MAIL FROM, RCPT TO and DATA before sending the next
+ * command even when the server advertises ESMTP PIPELINING, so round trips are overlapped across
+ * connections instead of within one.
+ *
+ * <p>The {@link SendRateLimiter} of the sender caps the number of connections at its
+ * {@link SendRateLimits#maxConnections()}, and while the server is throttling it lets fewer of
+ * them send at the same time; the others stay open and idle until the limit ramps back up.
+ */
+public class ConcurrentEmailSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrentEmailSender.class);
+
+    /**
+     * Default number of SMTP connections.
+     */
+    public static final int DEFAULT_CONNECTIONS = 4;
+
+    private static final long POLL_MILLIS = 50;
+
+    private final EmailSender sender;
+    private final int connections;
+    private final int queueCapacity;
+
+    /**
+     * Creates a sender with a queue holding two emails per connection.
+     *
+     * @param sender the sender whose SMTP server and credentials are used
+     * @param connections the number of SMTP connections to send over in parallel
+     */
+    public ConcurrentEmailSender(EmailSender sender, int connections) {
+        this(sender, connections, connections * 2);
+    }
+
+    /**
+     * Creates a sender.
+     *
+     * @param sender the sender whose SMTP server and credentials are used
+     * @param connections the number of SMTP connections to send over in parallel
+     * @param queueCapacity how many emails may wait for a free connection before the caller blocks
+     */
+    public ConcurrentEmailSender(EmailSender sender, int connections, int queueCapacity) {
+        if (connections < 1) {
+            throw new IllegalArgumentException("Connections must be at least 1, but got: " + connections);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least 1, but got: " + queueCapacity);
+        }
+        this.sender = sender;
+        this.connections = connections;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Sends emails over the connection pool. A failed email does not stop the others.
+     *
+     * @param emails the emails to send, consumed in order on the calling thread
+     * @return the result of each email in the order given, with throughput and latency
+     * @throws EmailException if the calling thread is interrupted; the connections are closed
+     */
+    public BulkSendReport sendAll(Iterable<EmailMessage> emails) {
+        long start = System.nanoTime();
+        int workers = Math.min(connections, sender.rateLimiter().limits().maxConnections());
+        Batch batch = new Batch(new ArrayBlockingQueue<>(queueCapacity), workers);
+        int count = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < workers; i++) {
+                executor.submit(() -> work(batch));
+            }
+            try {
+                for (EmailMessage email : emails) {
+                    batch.offer(new Task(count++, email));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                throw new EmailException("Interrupted while sending emails", e);
+            } finally {
+                batch.producing = false;
+            }
+        }
+        batch.failQueued();
+
+        List<SendResult> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(batch.results.get(i));
+        }
+        BulkSendReport report = new BulkSendReport(results, Duration.ofNanos(System.nanoTime() - start), workers);
+        logger.info(report.summary());
+        return report;
+    }
+
+    private void work(Batch batch) {
+        try (SmtpConnection connection = sender.newConnection()) {
+            String failure = sender.open(connection);
+            if (failure != null) {
+                batch.leave(failure);
+                return;
+            }
+            if (batch.pipeliningChecked.compareAndSet(false, true) && connection.supportsExtension("PIPELINING")) {
+                logger.info("SMTP server advertises PIPELINING, but Jakarta Mail does not pipeline commands; "
+                        + "overlapping round trips over {} connections instead", batch.connections);
+            }
+            while (true) {
+                if (!connection.isOpen() && (failure = sender.open(connection)) != null) {
+                    batch.leave(failure);
+                    return;
+                }
+                Task task = batch.queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (task == null) {
+                    if (!batch.producing) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.results.put(task.index(), sender.send(connection, task.email()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Task(int index, EmailMessage email) { }
+
+    /**
+     * The state shared by the caller's thread and the connection threads of one bulk send.
+     */
+    private static final class Batch {
+
+        final BlockingQueue<Task> queue;
+        final int connections;
+        final Map<Integer, SendResult> results = new ConcurrentHashMap<>();
+        final AtomicInteger liveConnections;
+        final AtomicBoolean pipeliningChecked = new AtomicBoolean();
+        volatile boolean producing = true;
+        volatile String connectFailure;
+
+        Batch(BlockingQueue<Task> queue, int connections) {
+            this.queue = queue;
+            this.connections = connections;
+            this.liveConnections = new AtomicInteger(connections);
+        }
+
+        /**
+         * Queues a task, or fails it right away once no connection is left to send it.
+         */
+        void offer(Task task) throws InterruptedException {
+            while (liveConnections.get() > 0) {
+                if (queue.offer(task, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+            fail(task);
+        }
+
+        void leave(String failure) {
+            connectFailure = failure;
+            if (liveConnections.decrementAndGet() == 0) {
+                failQueued();
+            }
+        }
+
+        /**
+         * Fails the tasks left in the queue after the last connection left the pool.
+         */
+        void failQueued() {
+            Task task;
+            while ((task = queue.poll()) != null) {
+                fail(task);
+            }
+        }
+
+        private void fail(Task task) {
+            results.put(task.index(), SendResult.failed(task.email(), connectFailure, Duration.ZERO));
+        }
+    }
+}
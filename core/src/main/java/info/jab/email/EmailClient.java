@@ -3,20 +3,51 @@ package info.jab.email;
 import jakarta.mail.Message;
 import jakarta.mail.search.SearchTerm;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Interface for email client operations.
  * Provides methods for listing and sending emails.
+ * Store connections are pooled between calls; close the client to release them.
  */
-public interface EmailClient {
+public interface EmailClient extends AutoCloseable {
+
+    /**
+     * Default number of envelopes fetched per server round trip when streaming emails.
+     */
+    int DEFAULT_FETCH_CHUNK_SIZE = 500;
+
+    /**
+     * Default number of UIDs sent per command by bulk operations such as deletion.
+     */
+    int DEFAULT_BATCH_CHUNK_SIZE = 1000;
+
+    /**
+     * Gets the IMAP extensions the server supports. They are discovered once per user and server
+     * and cached, in memory and optionally on disk, for as long as the capability TTL allows.
+     * Every operation consults them to pick its cheapest command and falls back when one is missing.
+     *
+     * @return the capabilities of the server, or {@link ServerCapabilities#NONE} for POP3
+     * @throws EmailException if they are not cached and the server cannot be reached
+     */
+    ServerCapabilities capabilities();
 
     /**
      * Lists all folders in the email store.
      *
      * @return a list of folder names, or an empty list if there is an error accessing the email store
+     * @see #listFoldersResult()
      */
     List<String> listFolders();
 
+    /**
+     * Lists all folders in the email store, telling a store without folders apart from one that
+     * could not be read. Connection failures are retried and fail fast while the server is down.
+     *
+     * @return the folder names with an OK or EMPTY status, or the error with a FAILED status
+     */
+    EmailResult<String> listFoldersResult();
+
     /**
      * Lists emails in the specified folder matching the given search term.
      * Uses server-side filtering for efficient querying.
@@ -25,9 +56,228 @@ public interface EmailClient {
      * @param folder the folder name to list emails from
      * @param searchTerm the search term for filtering, or null to list all emails
      * @return a list of filtered messages, or an empty list if there is an error
+     * @see #listEmailsResult(String, SearchTerm)
      */
     List<Message> listEmails(String folder, SearchTerm searchTerm);
 
+    /**
+     * Lists emails in the specified folder matching the given search term, telling a folder
+     * without matches apart from one that could not be searched. Connection failures are retried
+     * and fail fast while the server is down.
+     *
+     * @param folder the folder name to list emails from
+     * @param searchTerm the search term for filtering, or null to list all emails
+     * @return the messages with an OK or EMPTY status, or the error with a FAILED status
+     */
+    EmailResult<Message> listEmailsResult(String folder, SearchTerm searchTerm);
+
+    /**
+     * Counts the emails in the specified folder matching the given search term, without fetching
+     * any message data. Unfiltered and unread-only counts come from the folder status; other
+     * searches run as {@code SEARCH RETURN (COUNT)} on servers with ESEARCH (RFC 4731), or as a
+     * UID SEARCH whose UIDs are counted. Connection failures are retried.
+     *
+     * @param folder the folder name to count emails in
+     * @param searchTerm the search term for filtering, or null to count all emails
+     * @return the number of matching emails
+     * @throws EmailException if the folder cannot be read or searched
+     */
+    int count(String folder, SearchTerm searchTerm);
+
+    /**
+     * Explains how a search of a folder would execute, without running it: the IMAP SEARCH
+     * command sent to the server, the criteria evaluated on the server and on the client, the
+     * server extensions used and a cost estimate. Only the folder status is read, for the estimate.
+     *
+     * @param folder the folder the search would run in
+     * @param searchTerm the search term, or null for all emails
+     * @return the plan of the search
+     * @throws EmailException if the folder does not exist or the server cannot be reached
+     * @see EmailSearch#explain(ServerCapabilities)
+     */
+    SearchPlan explain(String folder, SearchTerm searchTerm);
+
+    /**
+     * Lists one page of emails in the specified folder using IMAP UID cursor pagination.
+     * Only the UIDs of the matching messages are searched for on the server; envelopes are
+     * fetched for the emails of the returned page alone.
+     *
+     * <p>Pass the {@link EmailPage#nextCursor()} of a page to {@link PageRequest#after} to read the
+     * next one. Cursors stay valid as long as the folder's {@link EmailPage#uidValidity()} does not change.
+     *
+     * <p>When the client has an envelope cache, cached envelopes are served from disk with their
+     * current flags and only the missing ones are fetched from the server.
+     *
+     * @param folder the folder name to list emails from
+     * @param searchTerm the search term for filtering, or null to list all emails
+     * @param pageRequest the page size, cursor and direction
+     * @return the requested page
+     * @throws EmailException if the folder cannot be read or does not support UIDs
+     */
+    EmailPage listEmails(String folder, SearchTerm searchTerm, PageRequest pageRequest);
+
+    /**
+     * Lists the first emails of the specified folder in a sort order, for example the 20 newest.
+     * Envelopes are fetched for the returned emails alone.
+     *
+     * <p>Servers with SORT (RFC 5256) sort the matching emails themselves. On other servers the
+     * newest or oldest emails by arrival are read from the end or start of the folder by sequence
+     * number, while the other keys are sorted on the client after fetching all matching envelopes.
+     *
+     * @param folder the folder name to list emails from
+     * @param searchTerm the search term for filtering, or null to list all emails
+     * @param sort the sort key and direction
+     * @param limit the maximum number of emails to return
+     * @return the first emails in the sort order
+     * @throws EmailException if the folder cannot be read or searched
+     */
+    List<EmailSummary> listEmails(String folder, SearchTerm searchTerm, EmailSort sort, int limit);
+
+    /**
+     * Streams the envelopes of the emails in the specified folder matching the given search term.
+     * Envelopes are fetched in chunks as the stream is consumed, so the first results arrive
+     * before the whole folder has been read and only one chunk is held in memory.
+     *
+     * <p>The folder and its pooled connection stay open until the stream is closed, so callers
+     * should use try-with-resources.
+     *
+     * @param folder the folder name to stream emails from
+     * @param searchTerm the search term for filtering, or null to stream all emails
+     * @param chunkSize how many envelopes to fetch per server round trip
+     * @return a stream of email summaries that must be closed after use
+     * @throws EmailException if the folder cannot be opened, or while consuming if a chunk cannot be fetched
+     */
+    Stream<EmailSummary> streamEmails(String folder, SearchTerm searchTerm, int chunkSize);
+
+    /**
+     * Streams only the selected fields of the emails in the specified folder matching the given
+     * search term. The FETCH sent for each chunk asks for exactly the items the fields are read
+     * from, so selecting flags, size or a header field does not download whole envelopes.
+     *
+     * <p>The folder and its pooled connection stay open until the stream is closed, so callers
+     * should use try-with-resources.
+     *
+     * @param folder the folder name to stream emails from
+     * @param searchTerm the search term for filtering, or null to stream all emails
+     * @param fields the fields to fetch for each email
+     * @param chunkSize how many emails to fetch per server round trip
+     * @return a stream of projected emails that must be closed after use
+     * @throws EmailException if the folder cannot be opened, or while consuming if a chunk cannot be fetched
+     */
+    Stream<ProjectedEmail> streamEmails(String folder, SearchTerm searchTerm, FieldProjection fields, int chunkSize);
+
+    /**
+     * Searches several folders in parallel and merges the results by date. Folders are searched
+     * on virtual threads, at most as many at a time as the connection pool allows.
+     *
+     * <p>A folder that cannot be searched does not fail the others: its error is reported in
+     * {@link MultiFolderResult#failures()}. If the calling thread is interrupted, the remaining
+     * searches are cancelled and reported as failures.
+     *
+     * @param folders the full names of the folders to search
+     * @param searchTerm the search term for filtering, or null for all emails
+     * @return the emails found with the folder each is in, and the folders that failed
+     */
+    MultiFolderResult searchFolders(List<String> folders, SearchTerm searchTerm);
+
+    /**
+     * Searches all folders matching a LIST pattern in parallel, for example {@code *} for all
+     * folders or {@code Archive/*} for a subtree.
+     *
+     * @param folderPattern the LIST pattern; {@code *} matches across hierarchy levels, {@code %} within one
+     * @param searchTerm the search term for filtering, or null for all emails
+     * @return the emails found with the folder each is in, and the folders that failed
+     * @throws EmailException if the folders cannot be listed
+     * @see #searchFolders(List, SearchTerm)
+     */
+    MultiFolderResult searchFolders(String folderPattern, SearchTerm searchTerm);
+
+    /**
+     * Reads the message, unseen and size counts of all folders matching a LIST pattern.
+     *
+     * <p>Servers with LIST-STATUS (RFC 5819) answer in a single round trip. Other servers get
+     * one LIST and then a STATUS command per folder, sent in parallel over the pooled connections.
+     * Sizes are only known on servers with STATUS=SIZE (RFC 8438).
+     *
+     * @param folderPattern the LIST pattern, for example {@code *} for all folders
+     * @return the status of each selectable folder, in the order the server lists them
+     * @throws EmailException if the folders cannot be listed or the status of any of them cannot be read
+     */
+    List<FolderStatus> folderStatuses(String folderPattern);
+
+    /**
+     * Fetches what changed in a folder since a previous sync: the envelopes of new messages,
+     * changed flags and the UIDs of expunged messages. The cost depends on the number of changes
+     * when the server supports CONDSTORE or QRESYNC; other servers are diffed by UID and flags.
+     *
+     * <p>Pass the {@link FolderChanges#state()} of the result to the next call for the same folder.
+     * If the folder UIDVALIDITY changed, the previous state is discarded and all envelopes are returned.
+     *
+     * @param folder the folder name to sync
+     * @param previous the state returned by the previous sync of this folder, or null for a first sync
+     * @return the changes and the new state
+     * @throws EmailException if the folder cannot be read or does not support UIDs
+     * @see FolderSyncEngine
+     */
+    FolderChanges syncFolder(String folder, FolderSyncState previous);
+
+    /**
+     * Searches a synced folder locally, evaluating the search over the cached envelopes of the
+     * messages in the sync state instead of sending it to the server. Flags are taken from the
+     * state, so the result reflects the folder as of that sync. Envelopes missing from the cache
+     * are fetched once and cached.
+     *
+     * <p>Dates are compared to the millisecond, while IMAP servers compare them by day.
+     *
+     * @param state the state returned by the latest sync of the folder
+     * @param search the search to evaluate, which must only use envelope fields and flags
+     * @return the matching emails in ascending UID order
+     * @throws EmailException if the envelope cache is disabled, the search cannot be evaluated
+     *         locally or missing envelopes cannot be fetched
+     * @see EnvelopePredicate#isLocal(SearchTerm)
+     */
+    List<EmailSummary> searchLocal(FolderSyncState state, EmailSearch search);
+
+    /**
+     * Starts watching a folder over a dedicated connection held in IMAP IDLE, reporting each
+     * message that arrives in or is expunged from the folder to the listener. The watcher
+     * reconnects after a lost connection and is closed together with the client.
+     *
+     * @param folder the folder name to watch
+     * @param listener receives the changes on the watcher thread
+     * @return the running watcher; close it to stop watching
+     * @throws EmailException if the port does not belong to a supported store protocol
+     * @see FolderWatcher
+     */
+    FolderWatcher watchFolder(String folder, FolderEventListener listener);
+
+    /**
+     * Streams the envelopes of the emails in the specified folder using the default chunk size.
+     *
+     * @param folder the folder name to stream emails from
+     * @param searchTerm the search term for filtering, or null to stream all emails
+     * @return a stream of email summaries that must be closed after use
+     * @throws EmailException if the folder cannot be opened, or while consuming if a chunk cannot be fetched
+     * @see #streamEmails(String, SearchTerm, int)
+     */
+    default Stream<EmailSummary> streamEmails(String folder, SearchTerm searchTerm) {
+        return streamEmails(folder, searchTerm, DEFAULT_FETCH_CHUNK_SIZE);
+    }
+
+    /**
+     * Streams only the selected fields of the emails in the specified folder using the default chunk size.
+     *
+     * @param folder the folder name to stream emails from
+     * @param searchTerm the search term for filtering, or null to stream all emails
+     * @param fields the fields to fetch for each email
+     * @return a stream of projected emails that must be closed after use
+     * @throws EmailException if the folder cannot be opened, or while consuming if a chunk cannot be fetched
+     * @see #streamEmails(String, SearchTerm, FieldProjection, int)
+     */
+    default Stream<ProjectedEmail> streamEmails(String folder, SearchTerm searchTerm, FieldProjection fields) {
+        return streamEmails(folder, searchTerm, fields, DEFAULT_FETCH_CHUNK_SIZE);
+    }
+
     /**
      * Sends an email.
      *
@@ -36,6 +286,26 @@ public interface EmailClient {
      */
     boolean send(EmailMessage email);
 
+    /**
+     * Sends emails over one authenticated SMTP connection, instead of connecting and
+     * authenticating for every email. A failed email does not stop the others.
+     *
+     * @param emails the emails to send, consumed in order
+     * @return the result of each email, in the same order
+     */
+    List<SendResult> sendAll(Iterable<EmailMessage> emails);
+
+    /**
+     * Sends emails over a pool of SMTP connections in parallel, each connection reused across
+     * emails. A failed email does not stop the others.
+     *
+     * @param emails the emails to send, consumed in order
+     * @param connections the number of SMTP connections to send over
+     * @return the result of each email in the order given, with throughput and latency
+     * @see ConcurrentEmailSender
+     */
+    BulkSendReport sendAll(Iterable<EmailMessage> emails, int connections);
+
     /**
      * Deletes emails from the specified folder matching the given search term.
      * Uses server-side filtering for efficient querying and bulk deletion.
@@ -43,6 +313,84 @@ public interface EmailClient {
      * @param folder the folder name containing the emails
      * @param searchTerm the search term for filtering emails to delete
      * @return true if emails were deleted successfully, false otherwise
+     * @see #deleteEmails(String, SearchTerm, int, BatchProgressListener)
      */
     boolean deleteEmails(String folder, SearchTerm searchTerm);
+
+    /**
+     * Deletes the emails matching a search term in chunks of UIDs. Each chunk is flagged with a
+     * single {@code UID STORE} of compressed UID ranges and, on servers with UIDPLUS, removed with
+     * {@code UID EXPUNGE} of just those UIDs, so messages other clients marked as deleted are kept.
+     *
+     * @param folder the folder name containing the emails
+     * @param searchTerm the search term for filtering emails to delete
+     * @param chunkSize how many emails to delete per server round trip
+     * @param progress receives the number of deleted emails after each chunk
+     * @return the number of emails deleted
+     * @throws EmailException if the folder cannot be read or a command fails
+     */
+    int deleteEmails(String folder, SearchTerm searchTerm, int chunkSize, BatchProgressListener progress);
+
+    /**
+     * Moves the emails matching a search term to another folder, using the default chunk size.
+     *
+     * @param folder the folder name containing the emails
+     * @param searchTerm the search term for filtering emails to move, or null for all emails
+     * @param targetFolder the folder to move the emails to, which must exist
+     * @return the number of emails moved
+     * @throws EmailException if a folder cannot be read or a command fails
+     * @see #moveEmails(String, SearchTerm, String, int, BatchProgressListener)
+     */
+    default int moveEmails(String folder, SearchTerm searchTerm, String targetFolder) {
+        return moveEmails(folder, searchTerm, targetFolder, DEFAULT_BATCH_CHUNK_SIZE, BatchProgressListener.NONE);
+    }
+
+    /**
+     * Moves the emails matching a search term to another folder in chunks of UIDs. On servers with
+     * the MOVE capability (RFC 6851) each chunk costs a single {@code UID MOVE} of compressed UID
+     * ranges; other servers get a {@code UID COPY} followed by a chunked delete.
+     *
+     * @param folder the folder name containing the emails
+     * @param searchTerm the search term for filtering emails to move, or null for all emails
+     * @param targetFolder the folder to move the emails to, which must exist
+     * @param chunkSize how many emails to move per server round trip
+     * @param progress receives the number of moved emails after each chunk
+     * @return the number of emails moved
+     * @throws EmailException if a folder cannot be read or a command fails
+     */
+    int moveEmails(String folder, SearchTerm searchTerm, String targetFolder, int chunkSize, BatchProgressListener progress);
+
+    /**
+     * Copies the emails matching a search term to another folder, using the default chunk size.
+     *
+     * @param folder the folder name containing the emails
+     * @param searchTerm the search term for filtering emails to copy, or null for all emails
+     * @param targetFolder the folder to copy the emails to, which must exist
+     * @return the number of emails copied
+     * @throws EmailException if a folder cannot be read or a command fails
+     * @see #copyEmails(String, SearchTerm, String, int, BatchProgressListener)
+     */
+    default int copyEmails(String folder, SearchTerm searchTerm, String targetFolder) {
+        return copyEmails(folder, searchTerm, targetFolder, DEFAULT_BATCH_CHUNK_SIZE, BatchProgressListener.NONE);
+    }
+
+    /**
+     * Copies the emails matching a search term to another folder in chunks of UIDs, each chunk
+     * costing a single {@code UID COPY} of compressed UID ranges.
+     *
+     * @param folder the folder name containing the emails
+     * @param searchTerm the search term for filtering emails to copy, or null for all emails
+     * @param targetFolder the folder to copy the emails to, which must exist
+     * @param chunkSize how many emails to copy per server round trip
+     * @param progress receives the number of copied emails after each chunk
+     * @return the number of emails copied
+     * @throws EmailException if a folder cannot be read or a command fails
+     */
+    int copyEmails(String folder, SearchTerm searchTerm, String targetFolder, int chunkSize, BatchProgressListener progress);
+
+    /**
+     * Releases the pooled server connections held by this client.
+     */
+    @Override
+    void close();
 }
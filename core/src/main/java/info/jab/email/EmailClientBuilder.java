@@ -1,5 +1,8 @@
 package info.jab.email;
 
+import java.nio.file.Path;
+import java.time.Duration;
+
 /**
  * Builder for creating EmailClient instances.
  * Provides a fluent API for configuring and constructing EmailClientImpl objects.
@@ -10,6 +13,16 @@ public final class EmailClientBuilder {
     private Integer smtpPort;
     private String user;
     private String password;
+    private int poolSize = EmailStoreConnectionPool.DEFAULT_MAX_CONNECTIONS;
+    private Duration poolIdleTtl = EmailStoreConnectionPool.DEFAULT_IDLE_TTL;
+    private Duration poolWaitTimeout = EmailStoreConnectionPool.DEFAULT_WAIT_TIMEOUT;
+    private Path envelopeCacheDirectory;
+    private SendRateLimits sendRateLimits = SendRateLimits.UNLIMITED;
+    private RetryPolicy retryPolicy = RetryPolicy.DEFAULTS;
+    private int circuitBreakerThreshold = CircuitBreaker.DEFAULT_FAILURE_THRESHOLD;
+    private Duration circuitBreakerOpenDuration = CircuitBreaker.DEFAULT_OPEN_DURATION;
+    private Path capabilityCacheDirectory;
+    private Duration capabilityTtl = CapabilityCache.DEFAULT_TTL;
 
     private EmailClientBuilder() {
         // Private constructor to enforce use of builder pattern
@@ -79,6 +92,116 @@ public final class EmailClientBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum number of pooled store connections.
+     * Defaults to {@value EmailStoreConnectionPool#DEFAULT_MAX_CONNECTIONS}.
+     *
+     * @param poolSize the maximum number of concurrent store connections
+     * @return this builder instance for method chaining
+     */
+    public EmailClientBuilder poolSize(int poolSize) {
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    /**
+     * Sets how long an unused store connection is kept open in the pool.
+     * Defaults to 5 minutes.
+     *
+     * @param poolIdleTtl the idle time after which pooled connections are closed
+     * @return this builder instance for method chaining
+     */
+    public EmailClientBuilder poolIdleTtl(Duration poolIdleTtl) {
+        this.poolIdleTtl = poolIdleTtl;
+        return this;
+    }
+
+    /**
+     * Sets how long an operation waits for a free store connection when the pool is exhausted.
+     * Defaults to 30 seconds.
+     *
+     * @param poolWaitTimeout the maximum time to wait for a pooled connection
+     * @return this builder instance for method chaining
+     */
+    public EmailClientBuilder poolWaitTimeout(Duration poolWaitTimeout) {
+        this.poolWaitTimeout = poolWaitTimeout;
+        return this;
+    }
+
+    /**
+     * Enables the on-disk envelope cache used by paged listing, keeping its files in the given directory.
+     * Disabled by default.
+     *
+     * @param envelopeCacheDirectory the cache directory, or null to disable the cache
+     * @return this builder instance for method chaining
+     */
+    public EmailClientBuilder envelopeCacheDirectory(Path envelopeCacheDirectory) {
+        this.envelopeCacheDirectory = envelopeCacheDirectory;
+        return this;
+    }
+
+    /**
+     * Sets the limits outbound emails are paced to, usually those of the mail provider.
+     * Defaults to {@link SendRateLimits#UNLIMITED}.
+     *
+     * @param sendRateLimits the messages rate, recipients rate and maximum connections for sending
+     * @return this builder instance for method chaining
+     */
+    public EmailClientBuilder sendRateLimits(SendRateLimits sendRateLimits) {
+        this.sendRateLimits = sendRateLimits;
+        return this;
+    }
+
+    /**
+     * Sets how store operations are retried when the connection to the server fails, and their deadline.
+     * Defaults to {@link RetryPolicy#DEFAULTS}.
+     *
+     * @param retryPolicy the attempts, backoff, jitter and operation timeout
+     * @return this builder instance for method chaining
+     */
+    public EmailClientBuilder retryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Sets when store operations start failing fast because the server is down.
+     * Defaults to {@value CircuitBreaker#DEFAULT_FAILURE_THRESHOLD} failures and 30 seconds.
+     *
+     * @param failureThreshold how many consecutive connection failures open the circuit breaker
+     * @param openDuration how long operations fail fast before a trial operation is let through
+     * @return this builder instance for method chaining
+     */
+    public EmailClientBuilder circuitBreaker(int failureThreshold, Duration openDuration) {
+        this.circuitBreakerThreshold = failureThreshold;
+        this.circuitBreakerOpenDuration = openDuration;
+        return this;
+    }
+
+    /**
+     * Keeps the discovered server capabilities in the given directory as well as in memory,
+     * so later clients plan their commands without discovering them again. Memory only by default.
+     *
+     * @param capabilityCacheDirectory the cache directory, or null to keep capabilities in memory only
+     * @return this builder instance for method chaining
+     */
+    public EmailClientBuilder capabilityCacheDirectory(Path capabilityCacheDirectory) {
+        this.capabilityCacheDirectory = capabilityCacheDirectory;
+        return this;
+    }
+
+    /**
+     * Sets how long discovered server capabilities are trusted before they are discovered again.
+     * Defaults to 24 hours.
+     *
+     * @param capabilityTtl the capability time to live
+     * @return this builder instance for method chaining
+     */
+    public EmailClientBuilder capabilityTtl(Duration capabilityTtl) {
+        this.capabilityTtl = capabilityTtl;
+        return this;
+    }
+
     /**
      * Builds and returns an EmailClient instance.
      * Validates that all required fields are set before creating the instance.
@@ -88,7 +211,12 @@ public final class EmailClientBuilder {
      */
     public EmailClient build() {
         validateRequiredFields();
-        return new EmailClientImpl(hostname, imapPort, smtpPort, user, password);
+        EmailStoreConnectionPool connectionPool = new EmailStoreConnectionPool(poolSize, poolIdleTtl, poolWaitTimeout);
+        EnvelopeCache envelopeCache = envelopeCacheDirectory != null ? new EnvelopeCache(envelopeCacheDirectory) : null;
+        CircuitBreaker circuitBreaker = new CircuitBreaker(circuitBreakerThreshold, circuitBreakerOpenDuration);
+        CapabilityCache capabilityCache = new CapabilityCache(capabilityCacheDirectory, capabilityTtl);
+        return new EmailClientImpl(hostname, imapPort, smtpPort, user, password, connectionPool, envelopeCache,
+                sendRateLimits, retryPolicy, circuitBreaker, capabilityCache);
     }
 
     private void validateRequiredFields() {
@@ -107,6 +235,27 @@ public final class EmailClientBuilder {
         if (password == null || password.isBlank()) {
             throw new IllegalStateException("Password is required");
         }
+        if (poolSize < 1) {
+            throw new IllegalStateException("Pool size must be at least 1");
+        }
+        if (poolIdleTtl == null || poolIdleTtl.isNegative() || poolIdleTtl.isZero()) {
+            throw new IllegalStateException("Pool idle TTL must be positive");
+        }
+        if (poolWaitTimeout == null || poolWaitTimeout.isNegative()) {
+            throw new IllegalStateException("Pool wait timeout must not be negative");
+        }
+        if (sendRateLimits == null) {
+            throw new IllegalStateException("Send rate limits are required");
+        }
+        if (retryPolicy == null) {
+            throw new IllegalStateException("Retry policy is required");
+        }
+        if (circuitBreakerThreshold < 1) {
+            throw new IllegalStateException("Circuit breaker threshold must be at least 1");
+        }
+        if (circuitBreakerOpenDuration == null || circuitBreakerOpenDuration.isNegative()) {
+            throw new IllegalStateException("Circuit breaker open duration must not be negative");
+        }
     }
 }
 
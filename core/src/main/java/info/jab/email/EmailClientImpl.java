@@ -1,12 +1,32 @@
 package info.jab.email;
 
-import jakarta.mail.Flags;
+import com.sun.mail.iap.BadCommandException;
 import jakarta.mail.Folder;
 import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
 import jakarta.mail.search.SearchTerm;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +39,14 @@ public class EmailClientImpl implements EmailClient {
     private final int smtpPort;
     private final String user;
     private final String password;
+    private final EmailStoreConnectionPool connectionPool;
+    private final EnvelopeCache envelopeCache;
+    private final SendRateLimits sendRateLimits;
+    private final ResilientExecutor resilience;
+    private final CapabilityCache capabilityCache;
+    private final Set<FolderWatcher> watchers = ConcurrentHashMap.newKeySet();
+    private volatile ProtocolConfiguration protocolConfig;
+    private EmailSender emailSender;
 
     /**
      * Package-private constructor. Use EmailClientBuilder to create instances.
@@ -28,69 +56,402 @@ public class EmailClientImpl implements EmailClient {
      * @param smtpPort the SMTP port for sending emails
      * @param user the username for authentication
      * @param password the password for authentication
+     * @param connectionPool the pool that store connections are borrowed from
+     * @param envelopeCache the on-disk envelope cache for paged listing, or null to disable it
+     * @param sendRateLimits the limits every send of this client is paced to
+     * @param retryPolicy how store operations are retried when the connection fails
+     * @param circuitBreaker the breaker that fails store operations fast while the server is down
+     * @param capabilityCache the cache of server capabilities that operations are planned with
      */
-    EmailClientImpl(String hostname, int imapPort, int smtpPort, String user, String password) {
+    EmailClientImpl(String hostname, int imapPort, int smtpPort, String user, String password,
+                    EmailStoreConnectionPool connectionPool, EnvelopeCache envelopeCache, SendRateLimits sendRateLimits,
+                    RetryPolicy retryPolicy, CircuitBreaker circuitBreaker, CapabilityCache capabilityCache) {
         this.hostname = hostname;
         this.imapPort = imapPort;
         this.smtpPort = smtpPort;
         this.user = user;
         this.password = password;
+        this.connectionPool = connectionPool;
+        this.envelopeCache = envelopeCache;
+        this.sendRateLimits = sendRateLimits;
+        this.resilience = new ResilientExecutor(retryPolicy, circuitBreaker);
+        this.capabilityCache = capabilityCache;
+    }
+
+    @Override
+    public ServerCapabilities capabilities() {
+        ServerCapabilities capabilities = capabilityCache.get(account());
+        if (capabilities != null) {
+            return capabilities;
+        }
+        try {
+            return withConnection("reading the capabilities of " + endpoint(), this::capabilities);
+        } catch (IllegalArgumentException | MessagingException e) {
+            throw new EmailException("Error reading the capabilities of " + endpoint() + ": " + e.getMessage(), e);
+        }
     }
 
     @Override
     public List<String> listFolders() {
-        List<String> folderNames = new ArrayList<>();
+        return listFoldersResult().items();
+    }
 
+    @Override
+    public EmailResult<String> listFoldersResult() {
         try {
-            ProtocolConfiguration protocolConfig = ProtocolConfiguration.fromPort(imapPort);
-            try (EmailStoreConnection connection = new EmailStoreConnection(hostname, imapPort, user, password, protocolConfig)) {
+            List<String> folderNames = withConnection("listing folders", connection -> {
                 Folder[] folders = connection.getFolders();
                 logger.info("Total folders found: {}", folders.length);
+                List<String> names = new ArrayList<>();
                 for (Folder folder : folders) {
                     String folderName = folder.getFullName();
-                    folderNames.add(folderName);
+                    names.add(folderName);
                     logger.info("  - {} ({})", folderName, folder.getType() == Folder.HOLDS_MESSAGES ? "messages" : "container");
                 }
-            }
+                return names;
+            });
+            return EmailResult.of(folderNames);
         } catch (IllegalArgumentException | MessagingException e) {
             logger.error("Error listing folders: {}", e.getMessage(), e);
-            return folderNames;
+            return EmailResult.failed(new EmailException("Error listing folders: " + e.getMessage(), e));
         }
-
-        return folderNames;
     }
 
     @Override
     public List<Message> listEmails(String folder, SearchTerm searchTerm) {
-        List<Message> messageList = new ArrayList<>();
+        return listEmailsResult(folder, searchTerm).items();
+    }
+
+    @Override
+    public EmailResult<Message> listEmailsResult(String folder, SearchTerm searchTerm) {
+        if (NoMatchTerm.matchesNothing(searchTerm)) {
+            logger.info("Search criteria for {} cannot match any email, skipping the server", folder);
+            return EmailResult.of(List.of());
+        }
 
         try {
-            ProtocolConfiguration protocolConfig = ProtocolConfiguration.fromPort(imapPort);
-            try (EmailStoreConnection connection = new EmailStoreConnection(hostname, imapPort, user, password, protocolConfig)) {
-                Message[] messages = connection.searchMessages(folder, searchTerm);
-                if (searchTerm == null) {
-                    logger.info("Total emails in {}: {}", folder, messages.length);
-                } else {
-                    logger.info("Total emails matching search criteria in {}: {}", folder, messages.length);
-                }
-                for (Message message : messages) {
-                    messageList.add(message);
-                }
+            Message[] messages = withConnection("listing emails from folder " + folder,
+                    connection -> connection.searchMessages(folder, searchTerm));
+            if (searchTerm == null) {
+                logger.info("Total emails in {}: {}", folder, messages.length);
+            } else {
+                logger.info("Total emails matching search criteria in {}: {}", folder, messages.length);
             }
+            return EmailResult.of(List.of(messages));
         } catch (IllegalArgumentException | MessagingException e) {
             logger.error("Error listing emails from folder {}: {}", folder, e.getMessage(), e);
-            return messageList;
+            return EmailResult.failed(new EmailException("Error listing emails from folder " + folder + ": " + e.getMessage(), e));
+        }
+    }
+
+    @Override
+    public int count(String folder, SearchTerm searchTerm) {
+        if (NoMatchTerm.matchesNothing(searchTerm)) {
+            logger.info("Search criteria for {} cannot match any email, skipping the server", folder);
+            return 0;
+        }
+        try {
+            int count = withCapabilities("counting emails in folder " + folder,
+                    (connection, capabilities) -> connection.countMessages(folder, searchTerm, capabilities));
+            logger.info("Counted {} emails {}in {}", count, searchTerm != null ? "matching search criteria " : "", folder);
+            return count;
+        } catch (IllegalArgumentException | MessagingException e) {
+            throw new EmailException("Error counting emails in folder " + folder + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public SearchPlan explain(String folder, SearchTerm searchTerm) {
+        try {
+            SearchPlan plan = withCapabilities("explaining search of folder " + folder,
+                    (connection, capabilities) -> connection.explain(folder, searchTerm, capabilities));
+            logger.info("Search of {} would run {}: {}", folder, plan.execution(), plan.costEstimate());
+            return plan;
+        } catch (IllegalArgumentException | MessagingException e) {
+            throw new EmailException("Error explaining search of folder " + folder + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public EmailPage listEmails(String folder, SearchTerm searchTerm, PageRequest pageRequest) {
+        try {
+            EmailPage page = withConnection("listing page of emails from folder " + folder,
+                    connection -> connection.listPage(folder, searchTerm, pageRequest, envelopeCache, account()));
+            logger.info("Listed {} emails from {} (limit {}, cursor {}, {})", page.emails().size(), folder,
+                    pageRequest.limit(), pageRequest.cursor(), pageRequest.order());
+            return page;
+        } catch (IllegalArgumentException | MessagingException e) {
+            throw new EmailException("Error listing page of emails from folder " + folder + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<EmailSummary> listEmails(String folder, SearchTerm searchTerm, EmailSort sort, int limit) {
+        Objects.requireNonNull(sort, "sort");
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1, but got: " + limit);
+        }
+        if (NoMatchTerm.matchesNothing(searchTerm)) {
+            logger.info("Search criteria for {} cannot match any email, skipping the server", folder);
+            return List.of();
+        }
+        try {
+            List<EmailSummary> emails = withCapabilities("listing sorted emails from folder " + folder,
+                    (connection, capabilities) -> connection.listSorted(folder, searchTerm, sort, limit,
+                            DEFAULT_FETCH_CHUNK_SIZE, capabilities));
+            logger.info("Listed {} emails from {} sorted by {}{} (limit {})", emails.size(), folder,
+                    sort.key(), sort.reverse() ? " reversed" : "", limit);
+            return emails;
+        } catch (IllegalArgumentException | MessagingException e) {
+            throw new EmailException("Error listing sorted emails from folder " + folder + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public MultiFolderResult searchFolders(String folderPattern, SearchTerm searchTerm) {
+        List<String> folders;
+        try {
+            folders = withConnection("listing folders matching " + folderPattern,
+                    connection -> connection.listFolderNames(folderPattern));
+        } catch (IllegalArgumentException | MessagingException e) {
+            throw new EmailException("Error listing folders matching " + folderPattern + ": " + e.getMessage(), e);
         }
+        return searchFolders(folders, searchTerm);
+    }
+
+    @Override
+    public MultiFolderResult searchFolders(List<String> folders, SearchTerm searchTerm) {
+        if (NoMatchTerm.matchesNothing(searchTerm)) {
+            logger.info("Search criteria cannot match any email, skipping {} folders", folders.size());
+            return new MultiFolderResult(List.of(), Map.of());
+        }
+        Map<String, EmailException> failures = new LinkedHashMap<>();
+        Map<String, List<EmailSummary>> results = forEachFolder(folders, "searching folder",
+                (connection, folder) -> connection.searchEnvelopes(folder, searchTerm), failures);
+        List<FolderEmail> emails = new ArrayList<>();
+        results.forEach((folder, summaries) -> summaries.forEach(email -> emails.add(new FolderEmail(folder, email))));
+        emails.sort(Comparator.comparing(FolderEmail::date, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(FolderEmail::folder)
+                .thenComparingLong(folderEmail -> folderEmail.email().uid()));
+        logger.info("Searched {} folders: {} emails found, {} folders failed", results.size() + failures.size(),
+                emails.size(), failures.size());
+        return new MultiFolderResult(emails, failures);
+    }
+
+    @Override
+    public List<FolderStatus> folderStatuses(String folderPattern) {
+        List<String> folders;
+        try {
+            List<FolderStatus> statuses = withCapabilities("listing the status of folders matching " + folderPattern,
+                    (connection, capabilities) -> connection.listStatus(folderPattern, capabilities));
+            if (statuses != null) {
+                logger.info("Read the status of {} folders with LIST-STATUS", statuses.size());
+                return statuses;
+            }
+            folders = withConnection("listing folders matching " + folderPattern,
+                    connection -> connection.listFolderNames(folderPattern));
+        } catch (IllegalArgumentException | MessagingException e) {
+            throw new EmailException("Error listing folders matching " + folderPattern + ": " + e.getMessage(), e);
+        }
+        Map<String, EmailException> failures = new LinkedHashMap<>();
+        Map<String, FolderStatus> statuses = forEachFolder(folders, "reading the status of folder",
+                (connection, folder) -> connection.folderStatus(folder, capabilities(connection)), failures);
+        if (!failures.isEmpty()) {
+            Iterator<EmailException> errors = failures.values().iterator();
+            EmailException first = errors.next();
+            EmailException failure = new EmailException("Error reading the status of " + failures.size() + " folders ("
+                    + String.join(", ", failures.keySet()) + "): " + first.getMessage(), first);
+            errors.forEachRemaining(failure::addSuppressed);
+            throw failure;
+        }
+        logger.info("Read the status of {} folders with parallel STATUS commands", statuses.size());
+        return List.copyOf(statuses.values());
+    }
+
+    /**
+     * An operation on one folder over a pooled connection.
+     */
+    @FunctionalInterface
+    private interface FolderOperation<T> {
+        T apply(EmailStoreConnection connection, String folder) throws MessagingException;
+    }
+
+    /**
+     * Runs an operation on each folder in parallel on virtual threads, each with its own pooled
+     * connection and at most as many at a time as the pool allows, so none times out waiting for
+     * a connection. If the calling thread is interrupted, the remaining operations are cancelled.
+     *
+     * @param folders the folders, duplicates are only processed once
+     * @param action what the operation does, for error messages, for example "searching folder"
+     * @param operation the operation
+     * @param failures receives the error of each folder that failed or was cancelled
+     * @return the result of each folder that succeeded, in folder order
+     */
+    private <T> Map<String, T> forEachFolder(Collection<String> folders, String action, FolderOperation<T> operation,
+                                             Map<String, EmailException> failures) {
+        Semaphore slots = new Semaphore(connectionPool.getMaxConnections());
+        Map<String, Future<T>> tasks = new LinkedHashMap<>();
+        Map<String, T> results = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String folder : new LinkedHashSet<>(folders)) {
+                tasks.put(folder, executor.submit(() -> {
+                    slots.acquire();
+                    try {
+                        return withConnection(action + " " + folder, connection -> operation.apply(connection, folder));
+                    } catch (IllegalArgumentException | MessagingException e) {
+                        throw new EmailException("Error " + action + " " + folder + ": " + e.getMessage(), e);
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+            for (Map.Entry<String, Future<T>> task : tasks.entrySet()) {
+                String folder = task.getKey();
+                try {
+                    results.put(folder, task.getValue().get());
+                } catch (ExecutionException e) {
+                    failures.put(folder, e.getCause() instanceof EmailException emailException ? emailException
+                            : new EmailException("Error " + action + " " + folder + ": " + e.getCause().getMessage(), e.getCause()));
+                } catch (CancellationException e) {
+                    failures.put(folder, new EmailException("Cancelled " + action + " " + folder, e));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    tasks.values().forEach(future -> future.cancel(true));
+                    failures.put(folder, new EmailException("Cancelled " + action + " " + folder, e));
+                }
+            }
+        }
+        failures.forEach((folder, e) -> logger.warn("{}", e.getMessage()));
+        return results;
+    }
+
+    @Override
+    public FolderChanges syncFolder(String folder, FolderSyncState previous) {
+        try {
+            FolderChanges changes = withCapabilities("syncing folder " + folder,
+                    (connection, capabilities) -> connection.syncFolder(folder, previous, DEFAULT_FETCH_CHUNK_SIZE, capabilities));
+            cacheAdded(folder, changes);
+            return changes;
+        } catch (IllegalArgumentException | MessagingException e) {
+            throw new EmailException("Error syncing folder " + folder + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void cacheAdded(String folder, FolderChanges changes) {
+        if (envelopeCache == null || changes.added().isEmpty()) {
+            return;
+        }
+        try {
+            envelopeCache.folder(account(), folder, changes.state().uidValidity()).append(changes.added());
+        } catch (IOException e) {
+            logger.warn("Error writing envelope cache for {}: {}", folder, e.getMessage());
+        }
+    }
+
+    @Override
+    public List<EmailSummary> searchLocal(FolderSyncState state, EmailSearch search) {
+        if (envelopeCache == null) {
+            throw new EmailException("Local search requires the envelope cache, which is disabled");
+        }
+        String folder = state.folder();
+        EnvelopePredicate predicate;
+        try {
+            predicate = search.toPredicate();
+            if (predicate == EnvelopePredicate.NONE) {
+                return List.of();
+            }
+        } catch (IllegalArgumentException e) {
+            throw new EmailException("Search cannot be evaluated locally: " + e.getMessage(), e);
+        }
+        try {
+            EnvelopeCacheFile cacheFile = envelopeCache.folder(account(), folder, state.uidValidity());
+            EnvelopeCacheFile.LocalMatches matches = cacheFile.search(predicate, state);
+            if (matches.missing().length > 0) {
+                logger.info("Fetching {} envelopes of {} missing from the cache", matches.missing().length, folder);
+                long[] missing = matches.missing();
+                cacheFile.append(withConnection("fetching envelopes of folder " + folder,
+                        connection -> connection.fetchEnvelopes(folder, state.uidValidity(), missing, DEFAULT_FETCH_CHUNK_SIZE)));
+                matches = cacheFile.search(predicate, state);
+            }
+            List<EmailSummary> emails = new ArrayList<>(matches.matches().length);
+            for (long uid : matches.matches()) {
+                EmailSummary cached = cacheFile.get(uid);
+                emails.add(new EmailSummary(uid, cached.messageNumber(), cached.messageId(), cached.from(),
+                        cached.to(), cached.cc(), cached.subject(), cached.sentDate(), cached.receivedDate(),
+                        cached.size(), state.flags(uid)));
+            }
+            logger.info("Local search of {} matched {} of {} emails", folder, emails.size(), state.messageCount());
+            return emails;
+        } catch (IOException | IllegalArgumentException | MessagingException e) {
+            throw new EmailException("Error searching folder " + folder + " locally: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public FolderWatcher watchFolder(String folder, FolderEventListener listener) {
+        FolderWatcher watcher;
+        try {
+            watcher = new FolderWatcher(hostname, imapPort, user, password, protocolConfig(), folder, listener,
+                    resilience.policy(), FolderWatcher.DEFAULT_REIDLE_INTERVAL, FolderWatcher.DEFAULT_POLL_INTERVAL);
+        } catch (IllegalArgumentException e) {
+            throw new EmailException("Error watching folder " + folder + ": " + e.getMessage(), e);
+        }
+        watchers.removeIf(running -> !running.isRunning());
+        watchers.add(watcher);
+        return watcher.start();
+    }
+
+    @Override
+    public Stream<EmailSummary> streamEmails(String folder, SearchTerm searchTerm, int chunkSize) {
+        return stream(folder, searchTerm, chunkSize,
+                connection -> connection.openEnvelopeIterator(folder, searchTerm, chunkSize));
+    }
+
+    @Override
+    public Stream<ProjectedEmail> streamEmails(String folder, SearchTerm searchTerm, FieldProjection fields, int chunkSize) {
+        Objects.requireNonNull(fields, "fields");
+        return stream(folder, searchTerm, chunkSize,
+                connection -> connection.openProjectionIterator(folder, searchTerm, fields, chunkSize));
+    }
 
-        return messageList;
+    /**
+     * Streams the iterator opened on a pooled connection, which is returned when the stream is closed.
+     */
+    private <T> Stream<T> stream(String folder, SearchTerm searchTerm, int chunkSize,
+                                 StoreOperation<EnvelopeIterator<T>> openIterator) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1, but got: " + chunkSize);
+        }
+        if (NoMatchTerm.matchesNothing(searchTerm)) {
+            logger.info("Search criteria for {} cannot match any email, skipping the server", folder);
+            return Stream.empty();
+        }
+        EmailStoreConnectionPool.Lease lease;
+        try {
+            lease = connect("connecting to stream emails from folder " + folder);
+        } catch (IllegalArgumentException | MessagingException e) {
+            throw new EmailException("Error connecting to stream emails from folder " + folder + ": " + e.getMessage(), e);
+        }
+        try {
+            EnvelopeIterator<T> iterator = openIterator.apply(lease.connection());
+            logger.info("Streaming {} emails from {} in chunks of {}", iterator.size(), folder, chunkSize);
+            Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(
+                    iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+            return StreamSupport.stream(spliterator, false).onClose(() -> {
+                iterator.close();
+                lease.close();
+            });
+        } catch (MessagingException | RuntimeException e) {
+            lease.close();
+            throw new EmailException("Error streaming emails from folder " + folder + ": " + e.getMessage(), e);
+        }
     }
 
     @Override
     public boolean send(EmailMessage email) {
         logger.info("Sending email to: {}, Subject: {}", email.to(), email.subject());
         try {
-            EmailSender sender = new EmailSender(hostname, smtpPort, user, password);
-            sender.send(email);
+            emailSender().send(email);
             logger.info("Email sent successfully to: {}", email.to());
             return true;
         } catch (MessagingException e) {
@@ -99,41 +460,257 @@ public class EmailClientImpl implements EmailClient {
         }
     }
 
+    @Override
+    public List<SendResult> sendAll(Iterable<EmailMessage> emails) {
+        return emailSender().sendAll(emails);
+    }
+
+    @Override
+    public BulkSendReport sendAll(Iterable<EmailMessage> emails, int connections) {
+        return new ConcurrentEmailSender(emailSender(), connections).sendAll(emails);
+    }
+
+    /**
+     * Gets the sender shared by all sends of this client, creating its SMTP session on first use.
+     * Sharing it means single, bulk and concurrent sends are paced by the same rate limiter.
+     */
+    private synchronized EmailSender emailSender() {
+        if (emailSender == null) {
+            emailSender = new EmailSender(hostname, smtpPort, user, password, new SendRateLimiter(sendRateLimits));
+        }
+        return emailSender;
+    }
+
     @Override
     public boolean deleteEmails(String folder, SearchTerm searchTerm) {
+        try {
+            return deleteEmails(folder, searchTerm, DEFAULT_BATCH_CHUNK_SIZE, BatchProgressListener.NONE) > 0;
+        } catch (EmailException e) {
+            logger.error(e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public int deleteEmails(String folder, SearchTerm searchTerm, int chunkSize, BatchProgressListener progress) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1, but got: " + chunkSize);
+        }
         logger.info("Deleting emails from folder: {} matching search criteria", folder);
+        if (NoMatchTerm.matchesNothing(searchTerm)) {
+            logger.info("No emails found matching search criteria");
+            return 0;
+        }
         try {
-            ProtocolConfiguration protocolConfig = ProtocolConfiguration.fromPort(imapPort);
-            try (EmailStoreConnection connection = new EmailStoreConnection(hostname, imapPort, user, password, protocolConfig)) {
-                Folder emailFolder = connection.getStore().getFolder(folder);
-                emailFolder.open(Folder.READ_WRITE);
-                try {
-                    // Search for messages matching the search term
-                    Message[] messagesToDelete = emailFolder.search(searchTerm);
-                    logger.info("Found {} emails matching search criteria in folder {}", messagesToDelete.length, folder);
+            int deleted = withConnectionOnce("deleting emails from folder " + folder, connection ->
+                    forgetCapabilitiesOnRejection(() -> connection.deleteMessages(folder, searchTerm, chunkSize,
+                            progress, capabilities(connection))));
+            logger.info("Successfully deleted {} emails from folder {}", deleted, folder);
+            return deleted;
+        } catch (IllegalArgumentException | MessagingException e) {
+            throw new EmailException("Error deleting emails from folder " + folder + ": " + e.getMessage(), e);
+        }
+    }
 
-                    if (messagesToDelete.length == 0) {
-                        logger.info("No emails found matching search criteria");
-                        return false;
-                    }
+    @Override
+    public int moveEmails(String folder, SearchTerm searchTerm, String targetFolder, int chunkSize,
+                          BatchProgressListener progress) {
+        return transferEmails(folder, searchTerm, targetFolder, true, chunkSize, progress);
+    }
+
+    @Override
+    public int copyEmails(String folder, SearchTerm searchTerm, String targetFolder, int chunkSize,
+                          BatchProgressListener progress) {
+        return transferEmails(folder, searchTerm, targetFolder, false, chunkSize, progress);
+    }
+
+    private int transferEmails(String folder, SearchTerm searchTerm, String targetFolder, boolean move,
+                               int chunkSize, BatchProgressListener progress) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1, but got: " + chunkSize);
+        }
+        String action = move ? "moving" : "copying";
+        logger.info("{} emails from folder {} to {} matching search criteria", move ? "Moving" : "Copying", folder, targetFolder);
+        if (NoMatchTerm.matchesNothing(searchTerm)) {
+            logger.info("No emails found matching search criteria");
+            return 0;
+        }
+        try {
+            int transferred = withConnectionOnce(action + " emails from folder " + folder, connection ->
+                    forgetCapabilitiesOnRejection(() -> connection.transferMessages(folder, searchTerm, targetFolder,
+                            move, chunkSize, progress, capabilities(connection))));
+            logger.info("Finished {} {} emails from folder {} to {}", action, transferred, folder, targetFolder);
+            return transferred;
+        } catch (IllegalArgumentException | MessagingException e) {
+            throw new EmailException("Error " + action + " emails from folder " + folder + " to " + targetFolder
+                    + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        watchers.forEach(FolderWatcher::close);
+        watchers.clear();
+        connectionPool.close();
+        if (envelopeCache != null) {
+            envelopeCache.close();
+        }
+    }
 
-                    // Mark all matching messages as deleted
-                    for (Message message : messagesToDelete) {
-                        message.setFlag(Flags.Flag.DELETED, true);
+    private String account() {
+        return user + "@" + hostname + ":" + imapPort;
+    }
+
+    private String endpoint() {
+        return hostname + ":" + imapPort;
+    }
+
+    /**
+     * Gets the capabilities of the server from the cache, or discovers them from a connection,
+     * which remembers the CAPABILITY response of its login.
+     */
+    private ServerCapabilities capabilities(EmailStoreConnection connection) throws MessagingException {
+        ServerCapabilities capabilities = capabilityCache.get(account());
+        if (capabilities == null) {
+            capabilities = connection.capabilities();
+            capabilityCache.put(account(), capabilities);
+            logger.info("Discovered capabilities of {}: {}", account(), capabilities.supported());
+        }
+        return capabilities;
+    }
+
+    /**
+     * An operation over a pooled connection that picks its commands from the server capabilities.
+     */
+    @FunctionalInterface
+    private interface CapabilityOperation<T> {
+        T apply(EmailStoreConnection connection, ServerCapabilities capabilities) throws MessagingException;
+    }
+
+    /**
+     * Runs a read-only operation planned with the cached capabilities. When the server rejects a
+     * command the capabilities promised, for example after an upgrade changed them, they are
+     * discovered again from the connection and the operation runs once more with the fallback they select.
+     */
+    private <T> T withCapabilities(String action, CapabilityOperation<T> operation) throws MessagingException {
+        return withConnection(action, connection -> {
+            ServerCapabilities capabilities = capabilities(connection);
+            try {
+                return operation.apply(connection, capabilities);
+            } catch (MessagingException e) {
+                if (!isRejectedCommand(e)) {
+                    throw e;
+                }
+                capabilityCache.invalidate(account());
+                ServerCapabilities current = capabilities(connection);
+                if (current.supported().equals(capabilities.supported())) {
+                    throw e;
+                }
+                logger.warn("Server rejected a command while {}, retrying with its current capabilities {}",
+                        action, current.supported());
+                return operation.apply(connection, current);
+            }
+        });
+    }
+
+    /**
+     * Runs an operation that changes the mailbox, forgetting the cached capabilities when the
+     * server rejects a command they promised. It is not run again, since part of it may have been done.
+     */
+    private <T> T forgetCapabilitiesOnRejection(StoreCommand<T> command) throws MessagingException {
+        try {
+            return command.run();
+        } catch (MessagingException e) {
+            if (isRejectedCommand(e)) {
+                capabilityCache.invalidate(account());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A command run on an already borrowed connection.
+     */
+    @FunctionalInterface
+    private interface StoreCommand<T> {
+        T run() throws MessagingException;
+    }
+
+    private static boolean isRejectedCommand(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BadCommandException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An operation over a pooled connection. Only read-only ones can safely run again on a new connection.
+     */
+    @FunctionalInterface
+    private interface StoreOperation<T> {
+        T apply(EmailStoreConnection connection) throws MessagingException;
+    }
+
+    /**
+     * Runs a read-only operation on a pooled connection, retrying it on a new connection when the
+     * connection fails. A failed connection is not returned to the pool.
+     */
+    private <T> T withConnection(String action, StoreOperation<T> operation) throws MessagingException {
+        return resilience.execute(action, () -> {
+            try (EmailStoreConnectionPool.Lease lease = borrowConnection()) {
+                try {
+                    return operation.apply(lease.connection());
+                } catch (MessagingException e) {
+                    if (ResilientExecutor.isConnectionFailure(e)) {
+                        lease.invalidate();
                     }
+                    throw e;
+                }
+            }
+        });
+    }
 
-                    // Expunge to permanently remove all deleted messages
-                    emailFolder.expunge();
-                    logger.info("Successfully deleted {} emails from folder {}", messagesToDelete.length, folder);
-                    return true;
-                } finally {
-                    emailFolder.close(false);
+    /**
+     * Runs an operation that changes the mailbox on a pooled connection. Only the connect is
+     * retried, and a failed connection is not returned to the pool.
+     */
+    private <T> T withConnectionOnce(String action, StoreOperation<T> operation) throws MessagingException {
+        try (EmailStoreConnectionPool.Lease lease = connect(action)) {
+            try {
+                return operation.apply(lease.connection());
+            } catch (MessagingException e) {
+                if (ResilientExecutor.isConnectionFailure(e)) {
+                    lease.invalidate();
                 }
+                throw e;
             }
-        } catch (IllegalArgumentException | MessagingException e) {
-            logger.error("Error deleting emails from folder {}: {}", folder, e.getMessage(), e);
-            return false;
         }
     }
-}
 
+    /**
+     * Borrows a pooled connection, retrying only the connect: operations that change the mailbox
+     * run once, since a retry after a dropped connection could repeat part of their work.
+     */
+    private EmailStoreConnectionPool.Lease connect(String action) throws MessagingException {
+        return resilience.execute(action, this::borrowConnection);
+    }
+
+    private EmailStoreConnectionPool.Lease borrowConnection() throws MessagingException {
+        return connectionPool.borrow(hostname, imapPort, user, password, protocolConfig());
+    }
+
+    /**
+     * Gets the protocol configuration of the store port, resolved on first use so an unsupported
+     * port fails the operation rather than the construction of the client.
+     */
+    private ProtocolConfiguration protocolConfig() {
+        ProtocolConfiguration config = protocolConfig;
+        if (config == null) {
+            config = ProtocolConfiguration.fromPort(imapPort).withTimeout(resilience.policy().operationTimeout());
+            protocolConfig = config;
+        }
+        return config;
+    }
+}
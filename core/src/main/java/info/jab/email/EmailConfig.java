@@ -2,6 +2,7 @@ package info.jab.email;
 
 import io.github.cdimascio.dotenv.Dotenv;
 import io.github.cdimascio.dotenv.DotenvException;
+import java.nio.file.Path;
 
 /**
  * Configuration class for reading email settings from .env files.
@@ -13,19 +14,27 @@ public class EmailConfig {
     private static final String ENV_SMTP_PORT = "EMAIL_SMTP_PORT";
     private static final String ENV_USER = "EMAIL_USER";
     private static final String ENV_PASSWORD = "EMAIL_PASSWORD";
+    private static final String ENV_CACHE_DIR = "EMAIL_CACHE_DIR";
+    private static final String CACHE_DISABLED = "off";
 
     private final String hostname;
     private final int imapPort;
     private final int smtpPort;
     private final String user;
     private final String password;
+    private final Path cacheDirectory;
 
     private EmailConfig(String hostname, int imapPort, int smtpPort, String user, String password) {
+        this(hostname, imapPort, smtpPort, user, password, null);
+    }
+
+    private EmailConfig(String hostname, int imapPort, int smtpPort, String user, String password, Path cacheDirectory) {
         this.hostname = hostname;
         this.imapPort = imapPort;
         this.smtpPort = smtpPort;
         this.user = user;
         this.password = password;
+        this.cacheDirectory = cacheDirectory;
     }
 
     /**
@@ -82,8 +91,20 @@ public class EmailConfig {
         int smtpPort = getRequiredIntEnv(dotenv, ENV_SMTP_PORT);
         String user = getRequiredEnv(dotenv, ENV_USER);
         String password = getRequiredEnv(dotenv, ENV_PASSWORD);
+        Path cacheDirectory = cacheDirectory(dotenv.get(ENV_CACHE_DIR));
 
-        return new EmailConfig(hostname, imapPort, smtpPort, user, password);
+        return new EmailConfig(hostname, imapPort, smtpPort, user, password, cacheDirectory);
+    }
+
+    /**
+     * Resolves the envelope cache directory: the configured path, or none when not set or set to
+     * "off", so envelopes are only written to disk when the user opts in.
+     */
+    static Path cacheDirectory(String value) {
+        if (value == null || value.isBlank() || CACHE_DISABLED.equalsIgnoreCase(value.trim())) {
+            return null;
+        }
+        return Path.of(value.trim());
     }
 
     private static String getRequiredEnv(Dotenv dotenv, String key) {
@@ -123,5 +144,14 @@ public class EmailConfig {
     public String getPassword() {
         return password;
     }
+
+    /**
+     * Gets the directory of the on-disk envelope cache, set with EMAIL_CACHE_DIR.
+     *
+     * @return the cache directory, or null if EMAIL_CACHE_DIR is not set and nothing is cached
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
 }
 
@@ -0,0 +1,16 @@
+package info.jab.email;
+
+/**
+ * Unchecked exception for email operations that cannot report failures through their return value,
+ * such as errors raised while a stream of messages is being consumed.
+ */
+public class EmailException extends RuntimeException {
+
+    public EmailException(String message) {
+        super(message);
+    }
+
+    public EmailException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,63 @@
+package info.jab.email;
+
+import jakarta.mail.FetchProfile;
+import jakarta.mail.UIDFolder;
+
+/**
+ * Fields of an email that can be selected for output, each with the FETCH item it is read from.
+ * Selecting only some of them lets the server send just those items instead of whole envelopes.
+ */
+public enum EmailField {
+    UID("uid", UIDFolder.FetchProfileItem.UID),
+    MESSAGE_ID("message-id", FetchProfile.Item.ENVELOPE),
+    FROM("from", FetchProfile.Item.ENVELOPE),
+    TO("to", FetchProfile.Item.ENVELOPE),
+    CC("cc", FetchProfile.Item.ENVELOPE),
+    SUBJECT("subject", FetchProfile.Item.ENVELOPE),
+    SENT_DATE("date", FetchProfile.Item.ENVELOPE),
+    RECEIVED_DATE("received-date", FetchProfile.Item.ENVELOPE),
+    FLAGS("flags", FetchProfile.Item.FLAGS),
+    SIZE("size", FetchProfile.Item.SIZE);
+
+    private final String fieldName;
+    private final FetchProfile.Item fetchItem;
+
+    EmailField(String fieldName, FetchProfile.Item fetchItem) {
+        this.fieldName = fieldName;
+        this.fetchItem = fetchItem;
+    }
+
+    /**
+     * Gets the name the field is selected and printed by, for example {@code received-date}.
+     *
+     * @return the field name
+     */
+    public String fieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Gets the FETCH item the field is read from: ENVELOPE, FLAGS, RFC822.SIZE or UID.
+     *
+     * @return the fetch profile item
+     */
+    public FetchProfile.Item fetchItem() {
+        return fetchItem;
+    }
+
+    /**
+     * Finds a field by its name, ignoring case.
+     *
+     * @param name the field name, for example {@code subject}
+     * @return the matching field
+     * @throws IllegalArgumentException if no field has that name
+     */
+    public static EmailField of(String name) {
+        for (EmailField field : values()) {
+            if (field.fieldName.equalsIgnoreCase(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown email field: " + name);
+    }
+}
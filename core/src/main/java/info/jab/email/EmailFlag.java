@@ -0,0 +1,103 @@
+package info.jab.email;
+
+import jakarta.mail.Flags;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * System flags an email can carry, mirroring {@link Flags.Flag} as an enum
+ * so flag sets can be stored compactly and checked without allocation.
+ */
+public enum EmailFlag {
+    ANSWERED(Flags.Flag.ANSWERED),
+    DELETED(Flags.Flag.DELETED),
+    DRAFT(Flags.Flag.DRAFT),
+    FLAGGED(Flags.Flag.FLAGGED),
+    RECENT(Flags.Flag.RECENT),
+    SEEN(Flags.Flag.SEEN);
+
+    private final Flags.Flag flag;
+
+    EmailFlag(Flags.Flag flag) {
+        this.flag = flag;
+    }
+
+    public Flags.Flag getFlag() {
+        return flag;
+    }
+
+    /**
+     * Converts JavaMail flags to the system flags they contain. User flags are ignored.
+     *
+     * @param flags the JavaMail flags, may be null
+     * @return the system flags that are set
+     */
+    public static Set<EmailFlag> fromFlags(Flags flags) {
+        EnumSet<EmailFlag> result = EnumSet.noneOf(EmailFlag.class);
+        if (flags != null) {
+            for (EmailFlag emailFlag : values()) {
+                if (flags.contains(emailFlag.flag)) {
+                    result.add(emailFlag);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the enum constant for a JavaMail system flag.
+     *
+     * @param flag the JavaMail system flag
+     * @return the matching EmailFlag
+     * @throws IllegalArgumentException if the flag is not a known system flag
+     */
+    public static EmailFlag of(Flags.Flag flag) {
+        for (EmailFlag emailFlag : values()) {
+            if (emailFlag.flag == flag) {
+                return emailFlag;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported system flag: " + flag);
+    }
+
+    /**
+     * Gets the bit that represents this flag in a {@link #toBits(Set) flag bitmask}.
+     *
+     * @return the bit for this flag
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Packs a set of flags into a bitmask, one bit per flag.
+     *
+     * @param flags the flags, may be null
+     * @return the bitmask
+     */
+    public static int toBits(Set<EmailFlag> flags) {
+        int bits = 0;
+        if (flags != null) {
+            for (EmailFlag emailFlag : flags) {
+                bits |= emailFlag.bit();
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Unpacks a bitmask created by {@link #toBits(Set)}.
+     *
+     * @param bits the bitmask
+     * @return the flags that are set
+     */
+    public static Set<EmailFlag> fromBits(int bits) {
+        EnumSet<EmailFlag> result = EnumSet.noneOf(EmailFlag.class);
+        for (EmailFlag emailFlag : values()) {
+            if ((bits & emailFlag.bit()) != 0) {
+                result.add(emailFlag);
+            }
+        }
+        return result;
+    }
+}
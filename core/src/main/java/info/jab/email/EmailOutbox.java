@@ -0,0 +1,376 @@
+package info.jab.email;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Crash-safe outbox: emails are written to an on-disk journal when enqueued and delivered in the
+ * background, so a process that dies mid-batch resumes where it stopped on the next open.
+ *
+ * <p>Enqueueing appends to the journal without waiting for the disk; a background thread forces
+ * the journal to disk every {@link OutboxSettings#syncInterval()}, so many enqueues share one
+ * fsync. Callers that cannot afford losing the last interval call {@link #sync()}.
+ *
+ * <p>A single delivery thread sends the emails in enqueue order over one reused SMTP connection,
+ * retrying failures with exponential backoff until {@link OutboxSettings#maxAttempts()}. Every
+ * email gets a Message-ID when it is enqueued; it is sent with that Message-ID on every attempt,
+ * and its delivery is journaled and forced to disk before the next email is sent. An email whose
+ * delivery was journaled is never sent again after a restart. An email that was accepted by the
+ * server just before a crash, before its delivery reached the journal, is sent once more with
+ * the same Message-ID, which lets receivers discard the duplicate.
+ */
+public class EmailOutbox implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutbox.class);
+
+    private static final String JOURNAL_FILE = "outbox.journal";
+    private static final long IDLE_MILLIS = 1000;
+    private static final long COMPACT_THRESHOLD_BYTES = 1024 * 1024;
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration JOURNAL_RETRY_DELAY = Duration.ofSeconds(5);
+
+    private final EmailSender sender;
+    private final OutboxSettings settings;
+    private final OutboxJournal journal;
+    private final Map<String, OutboxJournal.Entry> pending;
+    private final DelayQueue<Delivery> queue = new DelayQueue<>();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final Thread deliveryThread;
+    private final Thread syncThread;
+    private volatile boolean running = true;
+    private volatile Exception deliveryFailure;
+
+    /**
+     * Starts delivering the pending emails of an open journal.
+     */
+    EmailOutbox(EmailSender sender, OutboxSettings settings, OutboxJournal journal,
+                        Map<String, OutboxJournal.Entry> pending) {
+        this.sender = sender;
+        this.settings = settings;
+        this.journal = journal;
+        this.pending = pending;
+        long due = System.nanoTime();
+        for (OutboxJournal.Entry entry : pending.values()) {
+            // Distinct due times keep the enqueue order, which the delay queue does not preserve for ties
+            queue.add(new Delivery(entry, due++));
+        }
+        this.deliveryThread = Thread.ofVirtual().name("email-outbox-delivery").start(this::deliverLoop);
+        this.syncThread = Thread.ofVirtual().name("email-outbox-sync").start(this::syncLoop);
+    }
+
+    /**
+     * Opens the outbox in a directory with the default settings and resumes delivery of the
+     * emails that were pending when it was last closed or the process died.
+     *
+     * @param directory the directory holding the journal, created if missing
+     * @param sender the sender whose SMTP server and credentials are used
+     * @return the open outbox
+     * @throws EmailException if the journal cannot be opened
+     */
+    public static EmailOutbox open(Path directory, EmailSender sender) {
+        return open(directory, sender, OutboxSettings.DEFAULTS);
+    }
+
+    /**
+     * Opens the outbox in a directory and resumes delivery of the emails that were pending when
+     * it was last closed or the process died.
+     *
+     * @param directory the directory holding the journal, created if missing
+     * @param sender the sender whose SMTP server and credentials are used
+     * @param settings the fsync interval and retry policy
+     * @return the open outbox
+     * @throws EmailException if the journal cannot be opened
+     */
+    public static EmailOutbox open(Path directory, EmailSender sender, OutboxSettings settings) {
+        Path path = directory.resolve(JOURNAL_FILE);
+        try {
+            Map<String, OutboxJournal.Entry> pending = new LinkedHashMap<>();
+            OutboxJournal journal = OutboxJournal.open(path, pending);
+            if (journal.doneOnOpen() > 0) {
+                try {
+                    journal.compact(pending.values());
+                } catch (IOException e) {
+                    // A failed compaction leaves the journal as it was, so it is tried again later
+                    logger.warn("Error compacting outbox journal {}: {}", path, e.getMessage());
+                }
+            }
+            if (!pending.isEmpty()) {
+                logger.info("Resuming delivery of {} pending emails from {}", pending.size(), path);
+            }
+            return new EmailOutbox(sender, settings, journal, pending);
+        } catch (IOException e) {
+            throw new EmailException("Error opening outbox journal " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Enqueues an email for delivery. The email is written to the journal but not yet forced to disk.
+     *
+     * @param email the email to send
+     * @return the Message-ID the email will be sent with
+     * @throws EmailException if the outbox is closed, its delivery stopped on an unexpected error,
+     *         or the journal cannot be written
+     */
+    public String enqueue(EmailMessage email) {
+        OutboxJournal.Entry entry = new OutboxJournal.Entry(sender.newMessageId(), email, Instant.now());
+        synchronized (pending) {
+            if (!running) {
+                throw new EmailException("Outbox is closed");
+            }
+            Exception failure = deliveryFailure;
+            if (failure != null) {
+                throw new EmailException("Outbox delivery stopped: " + failure.getMessage(), failure);
+            }
+            try {
+                journal.appendEnqueued(entry);
+            } catch (IOException e) {
+                throw new EmailException("Error writing outbox journal: " + e.getMessage(), e);
+            }
+            pending.put(entry.messageId(), entry);
+        }
+        queue.add(new Delivery(entry, System.nanoTime()));
+        return entry.messageId();
+    }
+
+    /**
+     * Forces all enqueued emails to disk now instead of at the next sync interval.
+     *
+     * @throws EmailException if the journal cannot be synced
+     */
+    public void sync() {
+        try {
+            journal.sync();
+        } catch (IOException e) {
+            throw new EmailException("Error syncing outbox journal: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the number of emails that were neither delivered nor given up on yet.
+     *
+     * @return the number of pending emails
+     */
+    public int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Gets the number of emails delivered since the outbox was opened.
+     *
+     * @return the number of sent emails
+     */
+    public long sentCount() {
+        return sentCount.get();
+    }
+
+    /**
+     * Gets the number of emails given up on since the outbox was opened.
+     *
+     * @return the number of failed emails
+     */
+    public long failedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Waits until no email is pending.
+     *
+     * @param timeout how long to wait at most
+     * @return true if no email is pending, false if the timeout elapsed first or delivery stopped
+     *         on an unexpected error
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public boolean awaitDelivery(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (pending) {
+            while (!pending.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || deliveryFailure != null) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(pending, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Stops delivery after the email in flight, if any, and closes the journal. Pending emails
+     * stay in the journal and are delivered after the next open.
+     */
+    @Override
+    public void close() {
+        synchronized (pending) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        // Neither thread is interrupted: that would close the journal channel if it is in the middle of a write
+        try {
+            if (!deliveryThread.join(CLOSE_TIMEOUT)) {
+                logger.warn("Outbox delivery did not stop within {}, interrupting it", CLOSE_TIMEOUT);
+                deliveryThread.interrupt();
+                deliveryThread.join();
+            }
+            syncThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.warn("Error closing outbox journal: {}", e.getMessage());
+        }
+    }
+
+    private void deliverLoop() {
+        try (SmtpConnection connection = sender.newConnection()) {
+            while (running) {
+                Delivery delivery = queue.poll(IDLE_MILLIS, TimeUnit.MILLISECONDS);
+                if (delivery == null) {
+                    // Do not keep an idle connection open until the server times it out
+                    connection.close();
+                    compactIfIdle();
+                    continue;
+                }
+                deliver(connection, delivery);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Outbox delivery stopped: {}", e.getMessage(), e);
+            // Callers must not keep enqueueing or waiting for emails that no thread delivers
+            synchronized (pending) {
+                deliveryFailure = e;
+                pending.notifyAll();
+            }
+        }
+    }
+
+    private void deliver(SmtpConnection connection, Delivery delivery) {
+        OutboxJournal.Entry entry = delivery.entry;
+        // An outcome that could not be journaled is journaled again without sending the email again
+        boolean sending = delivery.result == null;
+        SendResult result = sending ? sender.send(connection, entry.email(), entry.messageId()) : delivery.result;
+        int attempts = sending ? delivery.attempts + 1 : delivery.attempts;
+        try {
+            if (result.isSent()) {
+                journal.appendSent(entry.messageId());
+                journal.sync();
+                sentCount.incrementAndGet();
+                done(entry);
+            } else if (attempts >= settings.maxAttempts()) {
+                if (sending) {
+                    logger.error("Giving up on email {} to {} after {} attempts: {}", entry.messageId(),
+                            entry.email().to(), attempts, result.error());
+                }
+                journal.appendFailed(entry.messageId(), result.error());
+                journal.sync();
+                failedCount.incrementAndGet();
+                done(entry);
+            } else {
+                Duration delay = settings.retryDelay(attempts);
+                logger.warn("Delivery of email {} failed (attempt {} of {}), retrying in {} ms: {}", entry.messageId(),
+                        attempts, settings.maxAttempts(), delay.toMillis(), result.error());
+                queue.add(new Delivery(entry, System.nanoTime() + delay.toNanos(), attempts));
+            }
+        } catch (IOException e) {
+            // Replay ignores a repeated outcome record, so retrying after a partial write is safe
+            logger.error("Error journaling delivery of email {}, retrying in {} ms: {}", entry.messageId(),
+                    JOURNAL_RETRY_DELAY.toMillis(), e.getMessage());
+            queue.add(new Delivery(entry, System.nanoTime() + JOURNAL_RETRY_DELAY.toNanos(), attempts, result));
+        }
+    }
+
+    private void done(OutboxJournal.Entry entry) {
+        synchronized (pending) {
+            pending.remove(entry.messageId());
+            if (pending.isEmpty()) {
+                pending.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Rewrites a large journal once nothing is pending, so it does not grow without bound.
+     */
+    private void compactIfIdle() throws IOException {
+        synchronized (pending) {
+            if (pending.isEmpty() && running && journal.size() > COMPACT_THRESHOLD_BYTES) {
+                try {
+                    journal.compact(pending.values());
+                } catch (IOException e) {
+                    // The journal is left as it was, so delivery goes on and compaction is tried again
+                    logger.warn("Error compacting outbox journal: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void syncLoop() {
+        long intervalNanos = settings.syncInterval().toNanos();
+        while (running) {
+            LockSupport.parkNanos(intervalNanos);
+            try {
+                journal.sync();
+            } catch (IOException e) {
+                logger.error("Error syncing outbox journal: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * An email waiting in the delivery queue until its next attempt is due.
+     */
+    private static final class Delivery implements Delayed {
+
+        private final OutboxJournal.Entry entry;
+        private final long dueNanos;
+        private final int attempts;
+        private final SendResult result;
+
+        Delivery(OutboxJournal.Entry entry, long dueNanos) {
+            this(entry, dueNanos, 0);
+        }
+
+        Delivery(OutboxJournal.Entry entry, long dueNanos, int attempts) {
+            this(entry, dueNanos, attempts, null);
+        }
+
+        /**
+         * Creates a delivery that only journals the given outcome of an earlier attempt.
+         */
+        Delivery(OutboxJournal.Entry entry, long dueNanos, int attempts, SendResult result) {
+            this.entry = entry;
+            this.dueNanos = dueNanos;
+            this.attempts = attempts;
+            this.result = result;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((Delivery) other).dueNanos);
+        }
+    }
+}
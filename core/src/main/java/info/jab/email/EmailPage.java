@@ -0,0 +1,26 @@
+package info.jab.email;
+
+import java.util.List;
+
+/**
+ * One page of emails returned by UID-cursor pagination.
+ *
+ * @param emails the emails in the page, in the requested order
+ * @param uidValidity the UIDVALIDITY of the folder; cursors are only valid while it does not change
+ * @param nextCursor the cursor for the next page, or null if this is the last page
+ */
+public record EmailPage(List<EmailSummary> emails, long uidValidity, Long nextCursor) {
+
+    public EmailPage {
+        emails = emails == null ? List.of() : List.copyOf(emails);
+    }
+
+    /**
+     * Checks whether more emails follow this page.
+     *
+     * @return true if there is a next page
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,82 @@
+package info.jab.email;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Result of a listing that tells an empty result apart from a failed one.
+ *
+ * @param status whether the listing found items, found none or failed
+ * @param items the items found, empty if the listing found none or failed
+ * @param error why the listing failed, or null if it did not
+ * @param <T> the type of the items
+ */
+public record EmailResult<T>(Status status, List<T> items, EmailException error) {
+
+    /**
+     * The outcome of a listing.
+     */
+    public enum Status {
+        /** The listing found at least one item. */
+        OK,
+        /** The listing succeeded but found nothing. */
+        EMPTY,
+        /** The listing failed; nothing is known about the items. */
+        FAILED
+    }
+
+    public EmailResult {
+        Objects.requireNonNull(status, "status");
+        items = items == null ? List.of() : List.copyOf(items);
+        if ((status == Status.FAILED) != (error != null)) {
+            throw new IllegalArgumentException("A result has an error if and only if it failed");
+        }
+        if (status == Status.OK && items.isEmpty() || status != Status.OK && !items.isEmpty()) {
+            throw new IllegalArgumentException("Status " + status + " does not match " + items.size() + " items");
+        }
+    }
+
+    /**
+     * Creates the result of a listing that succeeded.
+     *
+     * @param items the items found
+     * @param <T> the type of the items
+     * @return an OK result, or an EMPTY one if there are no items
+     */
+    public static <T> EmailResult<T> of(List<T> items) {
+        return new EmailResult<>(items.isEmpty() ? Status.EMPTY : Status.OK, items, null);
+    }
+
+    /**
+     * Creates the result of a listing that failed.
+     *
+     * @param error why the listing failed
+     * @param <T> the type of the items
+     * @return a FAILED result
+     */
+    public static <T> EmailResult<T> failed(EmailException error) {
+        return new EmailResult<>(Status.FAILED, List.of(), Objects.requireNonNull(error, "error"));
+    }
+
+    /**
+     * Checks whether the listing failed.
+     *
+     * @return true if the status is FAILED
+     */
+    public boolean isFailed() {
+        return status == Status.FAILED;
+    }
+
+    /**
+     * Gets the items, throwing the error if the listing failed.
+     *
+     * @return the items found
+     * @throws EmailException if the listing failed
+     */
+    public List<T> orElseThrow() {
+        if (error != null) {
+            throw error;
+        }
+        return items;
+    }
+}
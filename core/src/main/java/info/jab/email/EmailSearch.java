@@ -14,6 +14,7 @@ import jakarta.mail.search.RecipientStringTerm;
 import jakarta.mail.search.AndTerm;
 import jakarta.mail.search.OrTerm;
 import jakarta.mail.search.NotTerm;
+import jakarta.mail.search.SizeTerm;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.Date;
@@ -175,6 +176,35 @@ public interface EmailSearch {
         return () -> new RecipientStringTerm(Message.RecipientType.BCC, recipient);
     }
 
+    /**
+     * Creates a search for emails larger than the specified size.
+     *
+     * @param bytes the size in bytes the emails must exceed
+     * @return an EmailSearch for emails larger than the size
+     */
+    static EmailSearch largerThan(int bytes) {
+        return () -> new SizeTerm(ComparisonTerm.GT, bytes);
+    }
+
+    /**
+     * Creates a search for emails smaller than the specified size.
+     *
+     * @param bytes the size in bytes the emails must stay below
+     * @return an EmailSearch for emails smaller than the size
+     */
+    static EmailSearch smallerThan(int bytes) {
+        return () -> new SizeTerm(ComparisonTerm.LT, bytes);
+    }
+
+    /**
+     * Creates a search that matches no email. Clients answer it without contacting the server.
+     *
+     * @return an EmailSearch that matches nothing
+     */
+    static EmailSearch none() {
+        return () -> NoMatchTerm.INSTANCE;
+    }
+
     // Composition methods
 
     /**
@@ -208,6 +238,56 @@ public interface EmailSearch {
         return () -> new NotTerm(this.build());
     }
 
+    /**
+     * Rewrites this search into an equivalent, simpler one: nested AND and OR terms are
+     * flattened, duplicates removed, flag conditions merged and date and size bounds narrowed
+     * to a single range. A search that contradicts itself, such as {@code read().and(unread())},
+     * becomes {@link #none()}, and one that matches everything builds to null.
+     *
+     * <p>The search is built once, so the result does not follow later changes of the operands.
+     *
+     * @return the optimized search
+     */
+    default EmailSearch optimize() {
+        SearchTerm optimized = SearchTermOptimizer.optimize(build());
+        return () -> optimized;
+    }
+
+    /**
+     * Checks whether this search matches no email at all, so it needs no server round trip.
+     *
+     * @return true if this search builds to a {@link NoMatchTerm}
+     */
+    default boolean matchesNothing() {
+        return NoMatchTerm.matchesNothing(build());
+    }
+
+    /**
+     * Compiles this search into a predicate that is evaluated locally on envelope data,
+     * for example over envelopes cached on disk, without a server round trip.
+     *
+     * @return the local predicate for this search
+     * @throws IllegalArgumentException if the search needs data outside the envelope, such as the body
+     * @see EnvelopePredicate#isLocal(SearchTerm)
+     */
+    default EnvelopePredicate toPredicate() {
+        return EnvelopePredicate.compile(build());
+    }
+
+    /**
+     * Explains how this search would execute on an IMAP server with the given capabilities,
+     * without connecting: the SEARCH command, which criteria run on the server and which on the
+     * client, and a cost estimate. A single criterion that IMAP SEARCH cannot express makes Jakarta
+     * Mail fetch every message and match the whole search on the client.
+     *
+     * @param capabilities the capabilities of the server, for example {@link EmailClient#capabilities()}
+     * @return the plan of this search
+     * @see EmailClient#explain(String, SearchTerm)
+     */
+    default SearchPlan explain(ServerCapabilities capabilities) {
+        return SearchPlan.of(build(), capabilities);
+    }
+
     /**
      * Convenience method to convert this EmailSearch to a SearchTerm.
      *
@@ -1,11 +1,16 @@
 package info.jab.email;
 
+import jakarta.mail.Address;
 import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
 import jakarta.mail.Session;
 import jakarta.mail.Transport;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,23 +22,184 @@ public class EmailSender {
     private final int smtpPort;
     private final String user;
     private final Session session;
+    private final SendRateLimiter rateLimiter;
 
     public EmailSender(String hostname, int smtpPort, String user, String password) {
+        this(hostname, smtpPort, user, password, SendRateLimiter.unlimited());
+    }
+
+    /**
+     * Creates a sender whose single, bulk and concurrent sends are all paced by one rate limiter.
+     *
+     * @param hostname the SMTP server hostname
+     * @param smtpPort the SMTP port
+     * @param user the username, also used as the sender address
+     * @param password the password
+     * @param rateLimiter the limiter every email waits for before it is sent
+     */
+    public EmailSender(String hostname, int smtpPort, String user, String password, SendRateLimiter rateLimiter) {
         this.hostname = hostname;
         this.smtpPort = smtpPort;
         this.user = user;
-        this.session = SessionFactory.createSmtpSession(hostname, smtpPort, user, password);
+        this.session = SessionFactory.smtpSession(hostname, smtpPort, user, password);
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Gets the rate limiter that paces the emails of this sender.
+     *
+     * @return the rate limiter
+     */
+    public SendRateLimiter rateLimiter() {
+        return rateLimiter;
     }
 
     public void send(EmailMessage email) throws MessagingException {
-        MimeMessage message = new MimeMessage(session);
+        MimeMessage message = toMimeMessage(email);
+
+        logger.debug("Sending email to: {}, Subject: {}, SMTP server: {}:{}", email.to(), email.subject(), hostname, smtpPort);
+        acquire(message);
+        try {
+            Transport.send(message);
+            rateLimiter.onSuccess();
+        } catch (MessagingException e) {
+            onFailure(e);
+            throw e;
+        } finally {
+            rateLimiter.release();
+        }
+        logger.info("Email sent successfully to: {}", email.to());
+    }
+
+    /**
+     * Sends emails over a single authenticated SMTP connection, with RSET between messages and a
+     * reconnect when the server drops the connection. A failed email does not stop the others,
+     * but once a new connection cannot be established the remaining emails fail without further
+     * attempts.
+     *
+     * @param emails the emails to send, consumed in order
+     * @return the result of each email, in the same order
+     */
+    public List<SendResult> sendAll(Iterable<EmailMessage> emails) {
+        List<SendResult> results = new ArrayList<>();
+        String connectFailure = null;
+        try (SmtpConnection connection = newConnection()) {
+            for (EmailMessage email : emails) {
+                if (connectFailure == null && !connection.isOpen()) {
+                    connectFailure = open(connection);
+                }
+                results.add(connectFailure != null
+                        ? SendResult.failed(email, connectFailure, Duration.ZERO)
+                        : send(connection, email));
+            }
+        }
+        long sent = results.stream().filter(SendResult::isSent).count();
+        logger.info("Sent {} of {} emails over SMTP server {}:{}", sent, results.size(), hostname, smtpPort);
+        return results;
+    }
+
+    /**
+     * Creates a connection to the SMTP server of this sender, opened on first use.
+     */
+    SmtpConnection newConnection() {
+        return new SmtpConnection(session);
+    }
+
+    /**
+     * Opens a connection, returning why it could not be opened, or null if it was.
+     */
+    String open(SmtpConnection connection) {
+        try {
+            connection.open();
+            return null;
+        } catch (MessagingException e) {
+            logger.error("Cannot connect to SMTP server {}:{}: {}", hostname, smtpPort, e.getMessage());
+            return "Cannot connect to SMTP server: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Sends one email over a connection that stays open for the next one.
+     */
+    SendResult send(SmtpConnection connection, EmailMessage email) {
+        return send(connection, email, null);
+    }
+
+    /**
+     * Sends one email with a fixed Message-ID, so every retry of it carries the same one.
+     */
+    SendResult send(SmtpConnection connection, EmailMessage email, String messageId) {
+        MimeMessage message;
+        try {
+            message = toMimeMessage(email, messageId);
+            message.saveChanges();
+            acquire(message);
+        } catch (MessagingException e) {
+            logger.warn("Error sending email to {}: {}", email.to(), e.getMessage());
+            return SendResult.failed(email, e.getMessage(), Duration.ZERO);
+        }
+        // Latency is measured from after the rate limit wait, so it only covers the SMTP transaction
+        long start = System.nanoTime();
+        try {
+            connection.send(message);
+            rateLimiter.onSuccess();
+            logger.debug("Email sent successfully to: {}", email.to());
+            return SendResult.sent(email, Duration.ofNanos(System.nanoTime() - start));
+        } catch (MessagingException e) {
+            onFailure(e);
+            logger.warn("Error sending email to {}: {}", email.to(), e.getMessage());
+            return SendResult.failed(email, e.getMessage(), Duration.ofNanos(System.nanoTime() - start));
+        } finally {
+            rateLimiter.release();
+        }
+    }
+
+    /**
+     * Waits for the rate limiter to let a message with its recipients through.
+     */
+    private void acquire(MimeMessage message) throws MessagingException {
+        Address[] recipients = message.getAllRecipients();
+        try {
+            rateLimiter.acquire(recipients != null ? recipients.length : 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for the send rate limit", e);
+        }
+    }
+
+    /**
+     * Backs the rate limiter off when the server rejected an email with a transient 4xx reply.
+     */
+    private void onFailure(MessagingException e) {
+        if (SmtpConnection.isTransientFailure(e)) {
+            rateLimiter.onThrottled();
+        }
+    }
+
+    /**
+     * Generates a Message-ID in the domain of the sender address.
+     */
+    String newMessageId() {
+        int at = user.lastIndexOf('@');
+        String domain = at >= 0 && at < user.length() - 1 ? user.substring(at + 1) : hostname;
+        return "<" + UUID.randomUUID() + "@" + domain + ">";
+    }
+
+    private MimeMessage toMimeMessage(EmailMessage email) throws MessagingException {
+        return toMimeMessage(email, null);
+    }
+
+    private MimeMessage toMimeMessage(EmailMessage email, String messageId) throws MessagingException {
+        MimeMessage message = messageId == null ? new MimeMessage(session) : new MimeMessage(session) {
+            @Override
+            protected void updateMessageID() throws MessagingException {
+                setHeader("Message-ID", messageId);
+            }
+        };
         message.setFrom(new InternetAddress(user));
         message.setRecipient(Message.RecipientType.TO, new InternetAddress(email.to()));
         message.setSubject(email.subject());
         message.setText(email.body());
-
-        logger.debug("Sending email to: {}, Subject: {}, SMTP server: {}:{}", email.to(), email.subject(), hostname, smtpPort);
-        Transport.send(message);
-        logger.info("Email sent successfully to: {}", email.to());
+        return message;
     }
 }
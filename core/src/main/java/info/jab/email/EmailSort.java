@@ -0,0 +1,109 @@
+package info.jab.email;
+
+import com.sun.mail.imap.SortTerm;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Order to list emails in: a sort key, optionally reversed. Ties are broken by arrival order,
+ * as IMAP SORT does.
+ *
+ * @param key the key to sort by
+ * @param reverse whether to sort from the highest key down, for example newest first
+ */
+public record EmailSort(SortKey key, boolean reverse) {
+
+    private static final Pattern SUBJECT_PREFIX = Pattern.compile("^((re|fwd?)(\\[\\d+])?:\\s*)+", Pattern.CASE_INSENSITIVE);
+
+    public EmailSort {
+        if (key == null) {
+            throw new IllegalArgumentException("Sort key must not be null");
+        }
+    }
+
+    /**
+     * Creates an ascending sort by a key.
+     *
+     * @param key the key to sort by
+     * @return the sort
+     */
+    public static EmailSort by(SortKey key) {
+        return new EmailSort(key, false);
+    }
+
+    /**
+     * Creates a sort that puts the newest emails first, by arrival.
+     *
+     * @return the sort
+     */
+    public static EmailSort newestFirst() {
+        return new EmailSort(SortKey.ARRIVAL, true);
+    }
+
+    /**
+     * Gets the same sort in the opposite direction.
+     *
+     * @return the reversed sort
+     */
+    public EmailSort reversed() {
+        return new EmailSort(key, !reverse);
+    }
+
+    /**
+     * Gets the criteria of an IMAP SORT command for this sort.
+     *
+     * @return the sort criteria
+     */
+    SortTerm[] toSortTerms() {
+        return reverse ? new SortTerm[] {SortTerm.REVERSE, key.sortTerm()} : new SortTerm[] {key.sortTerm()};
+    }
+
+    /**
+     * Gets a comparator that sorts envelopes the way a server with SORT would, for servers without it.
+     *
+     * @return the comparator
+     */
+    Comparator<EmailSummary> comparator() {
+        Comparator<EmailSummary> byKey = switch (key) {
+            case DATE -> Comparator.comparing(EmailSort::date, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case ARRIVAL -> Comparator.comparingInt(EmailSummary::messageNumber);
+            case FROM -> Comparator.comparing((EmailSummary email) -> mailbox(email.from()), Comparator.nullsFirst(Comparator.naturalOrder()));
+            case SUBJECT -> Comparator.comparing((EmailSummary email) -> baseSubject(email.subject()), Comparator.nullsFirst(Comparator.naturalOrder()));
+            case SIZE -> Comparator.comparingLong(EmailSummary::size);
+        };
+        return (reverse ? byKey.reversed() : byKey).thenComparingInt(EmailSummary::messageNumber);
+    }
+
+    private static Instant date(EmailSummary email) {
+        return email.sentDate() != null ? email.sentDate() : email.receivedDate();
+    }
+
+    /**
+     * Gets the mailbox of the first sender, the part of its address before the {@code @}, which is
+     * what IMAP SORT compares for FROM (RFC 5256). Text that is not an address is compared as it is.
+     */
+    private static String mailbox(String from) {
+        if (from == null) {
+            return null;
+        }
+        try {
+            InternetAddress[] addresses = InternetAddress.parseHeader(from, false);
+            if (addresses.length > 0 && addresses[0].getAddress() != null) {
+                String address = addresses[0].getAddress();
+                int at = address.lastIndexOf('@');
+                return (at >= 0 ? address.substring(0, at) : address).toLowerCase(Locale.ROOT);
+            }
+        } catch (AddressException e) {
+            // Fall through to the raw text
+        }
+        return from.toLowerCase(Locale.ROOT);
+    }
+
+    private static String baseSubject(String subject) {
+        return subject != null ? SUBJECT_PREFIX.matcher(subject.strip()).replaceFirst("").toLowerCase(Locale.ROOT) : null;
+    }
+}
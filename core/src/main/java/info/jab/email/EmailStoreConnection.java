@@ -1,13 +1,25 @@
 package info.jab.email;
 
+import com.sun.mail.imap.IMAPFolder;
+import jakarta.mail.FolderNotFoundException;
 import jakarta.mail.MessagingException;
 import jakarta.mail.Store;
 import jakarta.mail.Folder;
 import jakarta.mail.Session;
 import jakarta.mail.Message;
 import jakarta.mail.FetchProfile;
+import jakarta.mail.Flags;
+import jakarta.mail.UIDFolder;
+import jakarta.mail.search.FlagTerm;
 import jakarta.mail.search.SearchTerm;
 import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,7 +30,7 @@ public class EmailStoreConnection implements Closeable {
     private final Store store;
 
     public EmailStoreConnection(String hostname, int imapPort, String user, String password, ProtocolConfiguration protocolConfig) throws MessagingException {
-        Session session = SessionFactory.createStoreSession(hostname, imapPort, user, password, protocolConfig);
+        Session session = SessionFactory.storeSession(hostname, imapPort, user, password, protocolConfig);
         this.store = session.getStore(protocolConfig.getProtocol().getValue());
 
         logger.debug("Connecting with explicit configuration:");
@@ -47,6 +59,16 @@ public class EmailStoreConnection implements Closeable {
         }
     }
 
+    /**
+     * Package-private constructor wrapping an already connected Store.
+     * Used by tests that need a connection without a live server.
+     *
+     * @param store the connected Store instance
+     */
+    EmailStoreConnection(Store store) {
+        this.store = store;
+    }
+
     public Message[] getMessages(String folderName) throws MessagingException {
         Folder folder = store.getFolder(folderName);
         folder.open(Folder.READ_ONLY);
@@ -88,6 +110,537 @@ public class EmailStoreConnection implements Closeable {
         }
     }
 
+    /**
+     * Opens a folder and returns an iterator that fetches the envelopes of the matching
+     * messages in chunks while it is consumed. The folder stays open until the iterator is closed.
+     *
+     * @param folderName the folder to read
+     * @param searchTerm the search term for filtering, or null for all messages
+     * @param chunkSize how many envelopes to fetch per server round trip
+     * @return an iterator over the matching envelopes
+     * @throws MessagingException if the folder cannot be opened or searched
+     */
+    EnvelopeIterator<EmailSummary> openEnvelopeIterator(String folderName, SearchTerm searchTerm, int chunkSize) throws MessagingException {
+        Folder folder = store.getFolder(folderName);
+        folder.open(Folder.READ_ONLY);
+        try {
+            return EnvelopeIterator.envelopes(folder, search(folder, searchTerm), chunkSize);
+        } catch (MessagingException | RuntimeException e) {
+            folder.close(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a folder and returns an iterator that fetches only the selected fields of the matching
+     * messages in chunks while it is consumed. The folder stays open until the iterator is closed.
+     *
+     * @param folderName the folder to read
+     * @param searchTerm the search term for filtering, or null for all messages
+     * @param projection the fields to fetch
+     * @param chunkSize how many messages to fetch per server round trip
+     * @return an iterator over the projected messages
+     * @throws MessagingException if the folder cannot be opened or searched
+     */
+    EnvelopeIterator<ProjectedEmail> openProjectionIterator(String folderName, SearchTerm searchTerm,
+                                                            FieldProjection projection, int chunkSize) throws MessagingException {
+        Folder folder = store.getFolder(folderName);
+        folder.open(Folder.READ_ONLY);
+        try {
+            return EnvelopeIterator.projected(folder, search(folder, searchTerm), chunkSize, projection);
+        } catch (MessagingException | RuntimeException e) {
+            folder.close(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Searches an open folder, returning null for an unfiltered search so the folder is read by sequence number.
+     */
+    private static Message[] search(Folder folder, SearchTerm searchTerm) throws MessagingException {
+        return NoMatchTerm.matchesNothing(searchTerm) ? new Message[0]
+                : searchTerm != null ? folder.search(searchTerm) : null;
+    }
+
+    /**
+     * Counts the messages matching a search term without fetching any message data. Unfiltered
+     * and unread-only counts are read from the folder status; other searches run as
+     * {@code SEARCH RETURN (COUNT)} on servers with ESEARCH, or as a UID SEARCH whose UIDs are counted.
+     * Stores other than IMAP can only search on the client, which downloads the messages.
+     *
+     * @param folderName the folder to count in
+     * @param searchTerm the search term for filtering, or null to count all messages
+     * @param capabilities the capabilities of the server
+     * @return the number of matching messages
+     * @throws MessagingException if the folder cannot be read or the search fails
+     */
+    int countMessages(String folderName, SearchTerm searchTerm, ServerCapabilities capabilities) throws MessagingException {
+        Folder folder = store.getFolder(folderName);
+        boolean unreadOnly = isUnreadOnly(searchTerm);
+        if (folder instanceof IMAPFolder && (searchTerm == null || unreadOnly)) {
+            // A closed IMAP folder answers both counts with a STATUS command
+            return unreadOnly ? folder.getUnreadMessageCount() : folder.getMessageCount();
+        }
+        folder.open(Folder.READ_ONLY);
+        try {
+            if (searchTerm == null) {
+                return folder.getMessageCount();
+            }
+            if (unreadOnly) {
+                return folder.getUnreadMessageCount();
+            }
+            if (folder instanceof IMAPFolder imapFolder && capabilities.has(ImapCapability.ESEARCH)) {
+                return ImapCommands.searchCount(imapFolder, searchTerm);
+            }
+            if (folder instanceof IMAPFolder) {
+                return ImapCommands.uidSearch(folder, searchTerm, 1, UIDFolder.MAXUID).length;
+            }
+            return folder.search(searchTerm).length;
+        } finally {
+            folder.close(false);
+        }
+    }
+
+    private static boolean isUnreadOnly(SearchTerm searchTerm) {
+        return searchTerm instanceof FlagTerm flagTerm && !flagTerm.getTestSet()
+                && flagTerm.getFlags().equals(new Flags(Flags.Flag.SEEN));
+    }
+
+    /**
+     * Reads one page of a folder using UID cursor pagination. Only the UIDs of the matching
+     * messages are searched for; envelopes are fetched for the messages of the page alone.
+     *
+     * @param folderName the folder to read
+     * @param searchTerm the search term for filtering, or null for all messages
+     * @param pageRequest the page size, cursor and direction
+     * @return the page of emails with the cursor for the next page
+     * @throws MessagingException if the folder cannot be read or does not support UIDs
+     */
+    EmailPage listPage(String folderName, SearchTerm searchTerm, PageRequest pageRequest) throws MessagingException {
+        return listPage(folderName, searchTerm, pageRequest, null, null);
+    }
+
+    /**
+     * Reads one page of a folder, serving envelopes from a cache when possible. Only the envelopes
+     * missing from the cache are fetched, and then appended to it; for cached envelopes only the
+     * current flags are fetched.
+     *
+     * @param folderName the folder to read
+     * @param searchTerm the search term for filtering, or null for all messages
+     * @param pageRequest the page size, cursor and direction
+     * @param envelopeCache the cache to read through, or null to fetch all envelopes
+     * @param account the account the cache entries belong to
+     * @return the page of emails with the cursor for the next page
+     * @throws MessagingException if the folder cannot be read or does not support UIDs
+     */
+    EmailPage listPage(String folderName, SearchTerm searchTerm, PageRequest pageRequest,
+                       EnvelopeCache envelopeCache, String account) throws MessagingException {
+        Folder folder = store.getFolder(folderName);
+        folder.open(Folder.READ_ONLY);
+        try {
+            UIDFolder uidFolder = ImapCommands.requireUids(folder, "UID paging");
+            boolean ascending = pageRequest.order() == UidOrder.ASCENDING;
+            long[] candidates = ascending
+                    ? ImapCommands.uidSearch(folder, searchTerm, pageRequest.cursor() + 1, UIDFolder.MAXUID)
+                    : ImapCommands.uidSearch(folder, searchTerm, 1,
+                            pageRequest.cursor() == 0 ? UIDFolder.MAXUID : pageRequest.cursor() - 1);
+
+            int pageSize = Math.min(pageRequest.limit(), candidates.length);
+            long[] pageUids = new long[pageSize];
+            for (int i = 0; i < pageSize; i++) {
+                pageUids[i] = ascending ? candidates[i] : candidates[candidates.length - 1 - i];
+            }
+            Message[] messages = uidFolder.getMessagesByUID(pageUids);
+            List<EmailSummary> emails = envelopeCache != null
+                    ? readThroughCache(folder, messages, pageUids, openCacheFile(envelopeCache, account, folderName, uidFolder))
+                    : EnvelopeIterator.readEnvelopes(folder, messages);
+            Long nextCursor = candidates.length > pageSize ? pageUids[pageSize - 1] : null;
+            logger.debug("Page of {} emails from {} ({} candidates, next cursor {})", emails.size(), folderName, candidates.length, nextCursor);
+            return new EmailPage(emails, uidFolder.getUIDValidity(), nextCursor);
+        } finally {
+            folder.close(false);
+        }
+    }
+
+    private static EnvelopeCacheFile openCacheFile(EnvelopeCache envelopeCache, String account, String folderName,
+                                                   UIDFolder uidFolder) throws MessagingException {
+        try {
+            return envelopeCache.folder(account, folderName, uidFolder.getUIDValidity());
+        } catch (IOException e) {
+            logger.warn("Envelope cache unavailable for {}: {}", folderName, e.getMessage());
+            return null;
+        }
+    }
+
+    private static List<EmailSummary> readThroughCache(Folder folder, Message[] messages, long[] uids,
+                                                       EnvelopeCacheFile cacheFile) throws MessagingException {
+        if (cacheFile == null) {
+            return EnvelopeIterator.readEnvelopes(folder, messages);
+        }
+        Map<Long, EmailSummary> cached = new HashMap<>();
+        List<Message> missing = new ArrayList<>();
+        List<Message> hits = new ArrayList<>();
+        try {
+            for (int i = 0; i < messages.length; i++) {
+                EmailSummary summary = messages[i] != null ? cacheFile.get(uids[i]) : null;
+                if (summary != null) {
+                    cached.put(uids[i], summary);
+                    hits.add(messages[i]);
+                } else if (messages[i] != null) {
+                    missing.add(messages[i]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Error reading envelope cache, fetching from server: {}", e.getMessage());
+            return EnvelopeIterator.readEnvelopes(folder, messages);
+        }
+
+        Map<Long, EmailSummary> byUid = new HashMap<>();
+        if (!hits.isEmpty()) {
+            Message[] hitMessages = hits.toArray(Message[]::new);
+            FetchProfile flagsProfile = new FetchProfile();
+            flagsProfile.add(FetchProfile.Item.FLAGS);
+            folder.fetch(hitMessages, flagsProfile);
+            for (int i = 0; i < hitMessages.length; i++) {
+                if (!hitMessages[i].isExpunged()) {
+                    long uid = ((UIDFolder) folder).getUID(hitMessages[i]);
+                    EmailSummary summary = cached.get(uid);
+                    byUid.put(uid, new EmailSummary(uid, hitMessages[i].getMessageNumber(), summary.messageId(),
+                            summary.from(), summary.to(), summary.cc(), summary.subject(), summary.sentDate(),
+                            summary.receivedDate(), summary.size(), EmailFlag.fromFlags(hitMessages[i].getFlags())));
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<EmailSummary> fetched = EnvelopeIterator.readEnvelopes(folder, missing.toArray(Message[]::new));
+            fetched.forEach(summary -> byUid.put(summary.uid(), summary));
+            try {
+                cacheFile.append(fetched);
+            } catch (IOException e) {
+                logger.warn("Error writing envelope cache: {}", e.getMessage());
+            }
+        }
+        logger.debug("Envelope cache: {} hits, {} fetched", hits.size(), missing.size());
+
+        List<EmailSummary> emails = new ArrayList<>(uids.length);
+        for (long uid : uids) {
+            EmailSummary summary = byUid.get(uid);
+            if (summary != null) {
+                emails.add(summary);
+            }
+        }
+        return emails;
+    }
+
+    /**
+     * Reads the first emails of a folder in a sort order, fetching envelopes for those emails alone.
+     *
+     * <p>Servers with SORT (RFC 5256) sort the matching messages themselves. Without SORT, arrival
+     * order is the order of message sequence numbers, so the newest or oldest emails are taken
+     * from the ends of the folder or of the search result. Other keys are sorted on the client,
+     * which needs the envelopes of all matching messages.
+     *
+     * @param folderName the folder to read
+     * @param searchTerm the search term for filtering, or null for all messages
+     * @param sort the order to read the emails in
+     * @param limit the maximum number of emails to read
+     * @param chunkSize how many envelopes to fetch per server round trip when sorting on the client
+     * @param capabilities the capabilities of the server
+     * @return the first emails in the sort order
+     * @throws MessagingException if the folder cannot be read or searched
+     */
+    List<EmailSummary> listSorted(String folderName, SearchTerm searchTerm, EmailSort sort, int limit, int chunkSize,
+                                  ServerCapabilities capabilities) throws MessagingException {
+        Folder folder = store.getFolder(folderName);
+        folder.open(Folder.READ_ONLY);
+        try {
+            if (folder instanceof IMAPFolder imapFolder && capabilities.has(ImapCapability.SORT)) {
+                Message[] sorted = imapFolder.getSortedMessages(sort.toSortTerms(), searchTerm);
+                logger.debug("Server sorted {} emails of {} by {}", sorted.length, folderName, sort);
+                return EnvelopeIterator.readEnvelopes(folder, Arrays.copyOf(sorted, Math.min(limit, sorted.length)));
+            }
+            if (sort.key() == SortKey.ARRIVAL) {
+                return readByArrival(folder, searchTerm, sort.reverse(), limit);
+            }
+            logger.warn("Server does not support SORT, sorting the emails of {} on the client", folderName);
+            Message[] matches = searchTerm != null ? folder.search(searchTerm) : folder.getMessages();
+            List<EmailSummary> emails = new ArrayList<>(matches.length);
+            for (int start = 0; start < matches.length; start += chunkSize) {
+                emails.addAll(EnvelopeIterator.readEnvelopes(folder,
+                        Arrays.copyOfRange(matches, start, Math.min(start + chunkSize, matches.length))));
+            }
+            emails.sort(sort.comparator());
+            return List.copyOf(emails.subList(0, Math.min(limit, emails.size())));
+        } finally {
+            folder.close(false);
+        }
+    }
+
+    /**
+     * Reads the newest or oldest emails by sequence number. Without a search only the messages at
+     * the end of the folder are touched; with one, the search result is already in arrival order.
+     */
+    private static List<EmailSummary> readByArrival(Folder folder, SearchTerm searchTerm, boolean newestFirst, int limit)
+            throws MessagingException {
+        Message[] candidates;
+        if (searchTerm == null) {
+            int total = folder.getMessageCount();
+            int count = Math.min(limit, total);
+            candidates = count == 0 ? new Message[0]
+                    : newestFirst ? folder.getMessages(total - count + 1, total) : folder.getMessages(1, count);
+        } else {
+            Message[] matches = folder.search(searchTerm);
+            int count = Math.min(limit, matches.length);
+            candidates = newestFirst ? Arrays.copyOfRange(matches, matches.length - count, matches.length)
+                    : Arrays.copyOf(matches, count);
+        }
+        if (newestFirst) {
+            Collections.reverse(Arrays.asList(candidates));
+        }
+        return EnvelopeIterator.readEnvelopes(folder, candidates);
+    }
+
+    /**
+     * Brings the sync state of a folder up to date, fetching only the changes since the previous state.
+     *
+     * @param folderName the folder to sync
+     * @param previous the state returned by the previous sync of this folder, or null for a first sync
+     * @param chunkSize how many envelopes of new messages to fetch per server round trip
+     * @param capabilities the capabilities of the server
+     * @return the changes and the new state
+     * @throws MessagingException if the folder cannot be read or does not support UIDs
+     */
+    FolderChanges syncFolder(String folderName, FolderSyncState previous, int chunkSize,
+                             ServerCapabilities capabilities) throws MessagingException {
+        return new FolderSynchronizer(chunkSize, capabilities).sync(store.getFolder(folderName), previous);
+    }
+
+    /**
+     * Searches a folder and reads the envelopes of the matching messages.
+     *
+     * @param folderName the folder to search
+     * @param searchTerm the search term for filtering, or null for all messages
+     * @return the envelopes of the matching messages
+     * @throws MessagingException if the folder cannot be read
+     */
+    List<EmailSummary> searchEnvelopes(String folderName, SearchTerm searchTerm) throws MessagingException {
+        Folder folder = store.getFolder(folderName);
+        folder.open(Folder.READ_ONLY);
+        try {
+            Message[] messages = searchTerm != null ? folder.search(searchTerm) : folder.getMessages();
+            return EnvelopeIterator.readEnvelopes(folder, messages);
+        } finally {
+            folder.close(false);
+        }
+    }
+
+    /**
+     * Lists the folders that hold messages and match a LIST pattern, where {@code *} matches
+     * any characters including the hierarchy delimiter and {@code %} any characters except it.
+     *
+     * @param pattern the LIST pattern, for example {@code *} or {@code Archive/%}
+     * @return the full names of the matching folders
+     * @throws MessagingException if the folders cannot be listed
+     */
+    List<String> listFolderNames(String pattern) throws MessagingException {
+        List<String> names = new ArrayList<>();
+        for (Folder folder : store.getDefaultFolder().list(pattern)) {
+            if ((folder.getType() & Folder.HOLDS_MESSAGES) != 0) {
+                names.add(folder.getFullName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Deletes the messages matching a search term in chunks of UIDs. Each chunk costs one
+     * {@code UID STORE} and, on servers with UIDPLUS, one {@code UID EXPUNGE} of just those
+     * UIDs. Other servers get a single EXPUNGE after all chunks, which also removes messages
+     * other clients marked as deleted.
+     *
+     * @param folderName the folder to delete from
+     * @param searchTerm the search term selecting the messages to delete, or null for all
+     * @param chunkSize how many UIDs to send per command
+     * @param progress receives the number of deleted messages after each chunk
+     * @param capabilities the capabilities of the server
+     * @return the number of messages deleted
+     * @throws MessagingException if the folder cannot be read or a command fails
+     */
+    int deleteMessages(String folderName, SearchTerm searchTerm, int chunkSize, BatchProgressListener progress,
+                       ServerCapabilities capabilities) throws MessagingException {
+        Folder folder = store.getFolder(folderName);
+        folder.open(Folder.READ_WRITE);
+        try {
+            long[] uids = ImapCommands.uidSearch(folder, searchTerm, 1, UIDFolder.MAXUID);
+            if (uids.length == 0) {
+                return 0;
+            }
+            boolean uidExpunge = folder instanceof IMAPFolder && capabilities.has(ImapCapability.UIDPLUS);
+            if (!uidExpunge) {
+                logger.warn("Server does not support UID EXPUNGE, expunging all deleted messages of {}", folderName);
+            }
+            for (int start = 0; start < uids.length; start += chunkSize) {
+                int end = Math.min(start + chunkSize, uids.length);
+                ImapCommands.uidDelete(folder, Arrays.copyOfRange(uids, start, end), uidExpunge);
+                progress.onProgress(end, uids.length);
+            }
+            if (!uidExpunge) {
+                folder.expunge();
+            }
+            return uids.length;
+        } finally {
+            folder.close(false);
+        }
+    }
+
+    /**
+     * Copies or moves the messages matching a search term to another folder in chunks of UIDs.
+     * Each chunk costs one {@code UID COPY} or, on servers with the MOVE capability, one
+     * {@code UID MOVE}. Moving on servers without MOVE copies each chunk and then deletes it
+     * like {@link #deleteMessages(String, SearchTerm, int, BatchProgressListener, ServerCapabilities)} does.
+     *
+     * @param folderName the folder to copy or move from
+     * @param searchTerm the search term selecting the messages, or null for all
+     * @param targetName the folder to copy or move to, which must exist
+     * @param move whether to remove the messages from the source folder
+     * @param chunkSize how many UIDs to send per command
+     * @param progress receives the number of transferred messages after each chunk
+     * @param capabilities the capabilities of the server
+     * @return the number of messages copied or moved
+     * @throws MessagingException if a folder cannot be read or a command fails
+     */
+    int transferMessages(String folderName, SearchTerm searchTerm, String targetName, boolean move,
+                         int chunkSize, BatchProgressListener progress, ServerCapabilities capabilities)
+            throws MessagingException {
+        Folder target = store.getFolder(targetName);
+        if (!target.exists()) {
+            throw new FolderNotFoundException(target, targetName + " not found");
+        }
+        Folder folder = store.getFolder(folderName);
+        if (move && folder.getFullName().equals(target.getFullName())) {
+            throw new IllegalArgumentException("Cannot move emails from " + folderName + " to itself");
+        }
+        folder.open(move ? Folder.READ_WRITE : Folder.READ_ONLY);
+        try {
+            long[] uids = ImapCommands.uidSearch(folder, searchTerm, 1, UIDFolder.MAXUID);
+            if (uids.length == 0) {
+                return 0;
+            }
+            boolean imap = folder instanceof IMAPFolder;
+            boolean uidMove = move && imap && capabilities.has(ImapCapability.MOVE);
+            boolean uidExpunge = imap && capabilities.has(ImapCapability.UIDPLUS);
+            if (move && !uidMove) {
+                logger.warn("Server does not support MOVE, copying and deleting emails of {} instead", folderName);
+            }
+            for (int start = 0; start < uids.length; start += chunkSize) {
+                int end = Math.min(start + chunkSize, uids.length);
+                long[] chunk = Arrays.copyOfRange(uids, start, end);
+                ImapCommands.uidCopy(folder, chunk, target, uidMove);
+                if (move && !uidMove) {
+                    ImapCommands.uidDelete(folder, chunk, uidExpunge);
+                }
+                progress.onProgress(end, uids.length);
+            }
+            if (move && !uidMove && !uidExpunge) {
+                folder.expunge();
+            }
+            return uids.length;
+        } finally {
+            folder.close(false);
+        }
+    }
+
+    /**
+     * Reads the status of all folders matching a LIST pattern with a single LIST-STATUS command.
+     *
+     * @param pattern the LIST pattern
+     * @param capabilities the capabilities of the server
+     * @return the status of each selectable folder, or null if the server does not support LIST-STATUS
+     * @throws MessagingException if the command fails
+     */
+    List<FolderStatus> listStatus(String pattern, ServerCapabilities capabilities) throws MessagingException {
+        if (capabilities.has(ImapCapability.LIST_STATUS) && store.getDefaultFolder() instanceof IMAPFolder defaultFolder) {
+            return ImapCommands.listStatus(defaultFolder, pattern, capabilities.has(ImapCapability.STATUS_SIZE));
+        }
+        return null;
+    }
+
+    /**
+     * Reads the status of one folder without opening it.
+     *
+     * @param folderName the folder
+     * @param capabilities the capabilities of the server
+     * @return the status of the folder
+     * @throws MessagingException if the folder does not exist or its status cannot be read
+     */
+    FolderStatus folderStatus(String folderName, ServerCapabilities capabilities) throws MessagingException {
+        Folder folder = store.getFolder(folderName);
+        if (folder instanceof IMAPFolder imapFolder) {
+            return ImapCommands.status(imapFolder, capabilities.has(ImapCapability.STATUS_SIZE));
+        }
+        if (!folder.exists()) {
+            throw new FolderNotFoundException(folder, folderName + " not found");
+        }
+        UIDFolder uidFolder = folder instanceof UIDFolder uids ? uids : null;
+        return new FolderStatus(folder.getFullName(), folder.getMessageCount(), folder.getUnreadMessageCount(), -1,
+                uidFolder != null ? uidFolder.getUIDNext() : -1, uidFolder != null ? uidFolder.getUIDValidity() : -1);
+    }
+
+    /**
+     * Plans a search of a folder without running it. Only the folder status is read, to estimate the cost.
+     *
+     * @param folderName the folder the search would run in
+     * @param searchTerm the search term, or null for all messages
+     * @param capabilities the capabilities of the server
+     * @return the plan of the search
+     * @throws MessagingException if the folder does not exist or its status cannot be read
+     */
+    SearchPlan explain(String folderName, SearchTerm searchTerm, ServerCapabilities capabilities) throws MessagingException {
+        FolderStatus status = folderStatus(folderName, capabilities);
+        return SearchPlanner.plan(searchTerm, capabilities, store.getFolder(folderName) instanceof IMAPFolder,
+                status.messages(), status.size());
+    }
+
+    /**
+     * Fetches the envelopes of messages by UID.
+     *
+     * @param folderName the folder to read
+     * @param uidValidity the UIDVALIDITY the UIDs belong to
+     * @param uids the UIDs of the messages
+     * @param chunkSize how many envelopes to fetch per server round trip
+     * @return the envelopes of the messages that still exist
+     * @throws MessagingException if the folder cannot be read or its UIDVALIDITY changed
+     */
+    List<EmailSummary> fetchEnvelopes(String folderName, long uidValidity, long[] uids, int chunkSize) throws MessagingException {
+        Folder folder = store.getFolder(folderName);
+        folder.open(Folder.READ_ONLY);
+        try {
+            UIDFolder uidFolder = ImapCommands.requireUids(folder, "Fetching by UID");
+            if (uidFolder.getUIDValidity() != uidValidity) {
+                throw new MessagingException("UIDVALIDITY of " + folderName + " changed from " + uidValidity
+                        + " to " + uidFolder.getUIDValidity() + ", the folder must be synced again");
+            }
+            List<EmailSummary> emails = new ArrayList<>(uids.length);
+            for (int start = 0; start < uids.length; start += chunkSize) {
+                long[] chunk = Arrays.copyOfRange(uids, start, Math.min(start + chunkSize, uids.length));
+                emails.addAll(EnvelopeIterator.readEnvelopes(folder, uidFolder.getMessagesByUID(chunk)));
+            }
+            return emails;
+        } finally {
+            folder.close(false);
+        }
+    }
+
+    /**
+     * Reads the capabilities the server advertised on this connection, without a round trip.
+     *
+     * @return the capabilities, or {@link ServerCapabilities#NONE} for stores other than IMAP
+     * @throws MessagingException if the capabilities cannot be read
+     */
+    ServerCapabilities capabilities() throws MessagingException {
+        return ServerCapabilities.of(store);
+    }
+
     public Folder[] getFolders() throws MessagingException {
         Folder defaultFolder = store.getDefaultFolder();
         return defaultFolder.list();
@@ -103,6 +656,17 @@ public class EmailStoreConnection implements Closeable {
         return store;
     }
 
+    /**
+     * Checks whether the underlying store is still usable.
+     * For IMAP and POP3 stores this sends a NOOP to the server, so it detects
+     * connections dropped by the server while they were idle.
+     *
+     * @return true if the store is still connected
+     */
+    public boolean isAlive() {
+        return store != null && store.isConnected();
+    }
+
     @Override
     public void close() {
         try {
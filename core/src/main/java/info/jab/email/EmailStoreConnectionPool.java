@@ -0,0 +1,293 @@
+package info.jab.email;
+
+import jakarta.mail.MessagingException;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of connected {@link EmailStoreConnection}s keyed by host, port and user.
+ *
+ * <p>Connections are handed out as {@link Lease}s and go back to the pool when the lease
+ * is closed, so callers keep the usual try-with-resources shape. Idle connections are
+ * checked with a NOOP before being reused and are closed once they have been idle for
+ * longer than the configured TTL. When all connections for a key are in use, borrowers
+ * wait up to the configured timeout for one to be returned.
+ */
+public class EmailStoreConnectionPool implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailStoreConnectionPool.class);
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 4;
+    public static final Duration DEFAULT_IDLE_TTL = Duration.ofMinutes(5);
+    public static final Duration DEFAULT_WAIT_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Opens a new connection for the pool. Allows tests to supply connections without a live server.
+     */
+    @FunctionalInterface
+    interface Connector {
+        EmailStoreConnection connect(String hostname, int port, String user, String password,
+                                     ProtocolConfiguration protocolConfig) throws MessagingException;
+    }
+
+    private record Key(String hostname, int port, String user) { }
+
+    private record IdleConnection(EmailStoreConnection connection, long idleSinceNanos) { }
+
+    private static final class Partition {
+        private final Semaphore permits;
+        private final Deque<IdleConnection> idle = new ConcurrentLinkedDeque<>();
+
+        private Partition(int maxConnections) {
+            this.permits = new Semaphore(maxConnections, true);
+        }
+    }
+
+    private final int maxConnections;
+    private final Duration idleTtl;
+    private final Duration waitTimeout;
+    private final Connector connector;
+    private final Map<Key, Partition> partitions = new ConcurrentHashMap<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private ScheduledExecutorService evictor;
+
+    /**
+     * Creates a pool that opens connections with {@link EmailStoreConnection}.
+     *
+     * @param maxConnections the maximum number of connections per host/port/user
+     * @param idleTtl how long a connection may stay idle before it is closed
+     * @param waitTimeout how long to wait for a free connection when the pool is exhausted
+     */
+    public EmailStoreConnectionPool(int maxConnections, Duration idleTtl, Duration waitTimeout) {
+        this(maxConnections, idleTtl, waitTimeout, EmailStoreConnection::new);
+    }
+
+    EmailStoreConnectionPool(int maxConnections, Duration idleTtl, Duration waitTimeout, Connector connector) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("Max connections must be at least 1, but got: " + maxConnections);
+        }
+        if (idleTtl == null || idleTtl.isNegative() || idleTtl.isZero()) {
+            throw new IllegalArgumentException("Idle TTL must be positive");
+        }
+        if (waitTimeout == null || waitTimeout.isNegative()) {
+            throw new IllegalArgumentException("Wait timeout must not be negative");
+        }
+        this.maxConnections = maxConnections;
+        this.idleTtl = idleTtl;
+        this.waitTimeout = waitTimeout;
+        this.connector = connector;
+    }
+
+    /**
+     * Borrows a connection for the given endpoint, reusing an idle one when it passes the
+     * health check and opening a new one otherwise.
+     *
+     * @param hostname the hostname of the email server
+     * @param port the store port
+     * @param user the username for authentication
+     * @param password the password for authentication
+     * @param protocolConfig the protocol configuration for the port
+     * @return a lease that returns the connection to the pool when closed
+     * @throws MessagingException if no connection becomes available in time or connecting fails
+     */
+    public Lease borrow(String hostname, int port, String user, String password,
+                        ProtocolConfiguration protocolConfig) throws MessagingException {
+        if (closed.get()) {
+            throw new IllegalStateException("Connection pool is closed");
+        }
+        Partition partition = partitions.computeIfAbsent(new Key(hostname, port, user), key -> new Partition(maxConnections));
+        acquirePermit(partition, hostname, port);
+        try {
+            EmailStoreConnection connection = takeHealthyIdle(partition);
+            if (connection == null) {
+                connection = connector.connect(hostname, port, user, password, protocolConfig);
+                logger.debug("Opened new pooled connection to {}:{} for {}", hostname, port, user);
+            } else {
+                logger.debug("Reusing pooled connection to {}:{} for {}", hostname, port, user);
+            }
+            return new Lease(this, partition, connection);
+        } catch (MessagingException | RuntimeException e) {
+            partition.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes idle connections that have exceeded the idle TTL.
+     *
+     * @return the number of connections closed
+     */
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Partition partition : partitions.values()) {
+            Iterator<IdleConnection> iterator = partition.idle.iterator();
+            while (iterator.hasNext()) {
+                IdleConnection idle = iterator.next();
+                if (isExpired(idle, now) && partition.idle.removeFirstOccurrence(idle)) {
+                    idle.connection().close();
+                    evicted++;
+                }
+            }
+        }
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle connections", evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * Gets the maximum number of connections per host, port and user.
+     *
+     * @return the maximum number of connections
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Gets the number of idle connections currently held by the pool.
+     *
+     * @return the idle connection count across all keys
+     */
+    public int idleCount() {
+        return partitions.values().stream().mapToInt(partition -> partition.idle.size()).sum();
+    }
+
+    /**
+     * Closes the pool and all idle connections. Connections currently leased are closed
+     * when their lease is closed.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (this) {
+            if (evictor != null) {
+                evictor.shutdownNow();
+            }
+        }
+        partitions.values().forEach(EmailStoreConnectionPool::closeIdle);
+    }
+
+    private void acquirePermit(Partition partition, String hostname, int port) throws MessagingException {
+        try {
+            if (!partition.permits.tryAcquire(waitTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new MessagingException("Timed out after " + waitTimeout.toMillis()
+                        + " ms waiting for a free connection to " + hostname + ":" + port
+                        + " (max connections: " + maxConnections + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for a connection to " + hostname + ":" + port, e);
+        }
+    }
+
+    private EmailStoreConnection takeHealthyIdle(Partition partition) {
+        long now = System.nanoTime();
+        IdleConnection idle;
+        while ((idle = partition.idle.pollFirst()) != null) {
+            if (isExpired(idle, now)) {
+                idle.connection().close();
+            } else if (idle.connection().isAlive()) {
+                return idle.connection();
+            } else {
+                logger.debug("Discarding pooled connection that failed the health check");
+                idle.connection().close();
+            }
+        }
+        return null;
+    }
+
+    private void release(Partition partition, EmailStoreConnection connection, boolean reusable) {
+        try {
+            if (reusable && !closed.get()) {
+                partition.idle.offerFirst(new IdleConnection(connection, System.nanoTime()));
+                startEvictor();
+                if (closed.get()) {
+                    closeIdle(partition);
+                }
+            } else {
+                connection.close();
+            }
+        } finally {
+            partition.permits.release();
+        }
+    }
+
+    private boolean isExpired(IdleConnection idle, long now) {
+        return now - idle.idleSinceNanos() >= idleTtl.toNanos();
+    }
+
+    private synchronized void startEvictor() {
+        if (evictor != null || closed.get()) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("email-pool-evictor").daemon(true).factory());
+        long periodMillis = Math.max(1, idleTtl.toMillis() / 2);
+        evictor.scheduleAtFixedRate(this::evictIdle, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void closeIdle(Partition partition) {
+        IdleConnection idle;
+        while ((idle = partition.idle.pollFirst()) != null) {
+            idle.connection().close();
+        }
+    }
+
+    /**
+     * A borrowed connection. Closing the lease returns the connection to the pool.
+     */
+    public static final class Lease implements Closeable {
+
+        private final EmailStoreConnectionPool pool;
+        private final Partition partition;
+        private final EmailStoreConnection connection;
+        private boolean reusable = true;
+        private boolean released;
+
+        private Lease(EmailStoreConnectionPool pool, Partition partition, EmailStoreConnection connection) {
+            this.pool = pool;
+            this.partition = partition;
+            this.connection = connection;
+        }
+
+        /**
+         * Gets the leased connection.
+         *
+         * @return the connection
+         */
+        public EmailStoreConnection connection() {
+            return connection;
+        }
+
+        /**
+         * Marks the connection as broken so it is closed instead of being returned to the pool.
+         */
+        public void invalidate() {
+            reusable = false;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                pool.release(partition, connection, reusable);
+            }
+        }
+    }
+}
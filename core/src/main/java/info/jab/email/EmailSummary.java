@@ -0,0 +1,125 @@
+package info.jab.email;
+
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.search.AddressStringTerm;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Envelope data of an email, detached from the server folder it was read from.
+ *
+ * @param uid the IMAP UID of the message, or -1 if the folder does not support UIDs
+ * @param messageNumber the message sequence number at the time it was read
+ * @param messageId the Message-ID header, or null if absent
+ * @param from the sender addresses separated by commas, or null if absent
+ * @param to the TO recipients
+ * @param cc the CC recipients
+ * @param subject the subject, or null if absent
+ * @param sentDate the sent date, or null if absent
+ * @param receivedDate the date the server received the message, or null if unknown
+ * @param size the message size in bytes, or -1 if unknown
+ * @param flags the system flags set on the message
+ */
+public record EmailSummary(
+    long uid,
+    int messageNumber,
+    String messageId,
+    String from,
+    List<String> to,
+    List<String> cc,
+    String subject,
+    Instant sentDate,
+    Instant receivedDate,
+    long size,
+    Set<EmailFlag> flags
+) {
+
+    public EmailSummary {
+        to = to == null ? List.of() : List.copyOf(to);
+        cc = cc == null ? List.of() : List.copyOf(cc);
+        EnumSet<EmailFlag> flagSet = EnumSet.noneOf(EmailFlag.class);
+        if (flags != null) {
+            flagSet.addAll(flags);
+        }
+        flags = Collections.unmodifiableSet(flagSet);
+    }
+
+    /**
+     * Checks whether a system flag is set on the message.
+     *
+     * @param flag the flag to check
+     * @return true if the flag is set
+     */
+    public boolean hasFlag(EmailFlag flag) {
+        return flags.contains(flag);
+    }
+
+    /**
+     * Reads the envelope data of a message. The message should have its envelope prefetched,
+     * otherwise each accessor may cause a server round trip.
+     *
+     * @param message the message to read
+     * @param uid the UID of the message, or -1 if unknown
+     * @return the summary of the message
+     * @throws MessagingException if the message data cannot be read
+     */
+    public static EmailSummary from(Message message, long uid) throws MessagingException {
+        Address[] fromAddresses = message.getFrom();
+        String messageId = message instanceof MimeMessage mimeMessage ? mimeMessage.getMessageID() : null;
+        return new EmailSummary(
+            uid,
+            message.getMessageNumber(),
+            messageId,
+            senders(fromAddresses),
+            toStrings(message.getRecipients(Message.RecipientType.TO)),
+            toStrings(message.getRecipients(Message.RecipientType.CC)),
+            message.getSubject(),
+            toInstant(message.getSentDate()),
+            toInstant(message.getReceivedDate()),
+            message.getSize(),
+            EmailFlag.fromFlags(message.getFlags())
+        );
+    }
+
+    /**
+     * Formats the From addresses of a message. Every sender is kept, as the server FROM search
+     * matches any of them.
+     *
+     * @param from the From addresses, or null
+     * @return the senders separated by commas, or null if there are none
+     */
+    static String senders(Address[] from) {
+        return from != null && from.length > 0 ? String.join(", ", toStrings(from)) : null;
+    }
+
+    /**
+     * Formats addresses with their display names decoded, the form {@link AddressStringTerm}
+     * matches, so a local search agrees with the server on non-ASCII names.
+     *
+     * @param addresses the addresses, or null
+     * @return the formatted addresses
+     */
+    static List<String> toStrings(Address[] addresses) {
+        if (addresses == null) {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>(addresses.length);
+        for (Address address : addresses) {
+            result.add(address instanceof InternetAddress internetAddress ? internetAddress.toUnicodeString() : address.toString());
+        }
+        return result;
+    }
+
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
+    }
+}
@@ -0,0 +1,102 @@
+package info.jab.email;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent on-disk cache of envelopes, with one file per account and folder.
+ *
+ * <p>Each file belongs to one UIDVALIDITY of its folder: when the server reports a different
+ * UIDVALIDITY the file is discarded and started again, since its UIDs no longer identify the same
+ * messages. Files are memory-mapped for reading and only appended to, so a cold start reads
+ * cached envelopes without decoding the whole file. See {@link EnvelopeCacheFile} for the format.
+ */
+public class EnvelopeCache implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvelopeCache.class);
+
+    private static final String FILE_EXTENSION = ".envc";
+
+    private final Path directory;
+    private final Map<String, EnvelopeCacheFile> openFiles = new HashMap<>();
+    private boolean closed;
+
+    /**
+     * Creates a cache that keeps its files in the given directory. The directory is created on first write.
+     *
+     * @param directory the cache directory
+     */
+    public EnvelopeCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the directory the cache files are kept in.
+     *
+     * @return the cache directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Opens the cache file of a folder, discarding it if it was written for another UIDVALIDITY.
+     *
+     * @param account the account the folder belongs to, for example user@host:port
+     * @param folder the folder name
+     * @param uidValidity the current UIDVALIDITY of the folder
+     * @return the cache file of the folder
+     * @throws IOException if the file cannot be opened or created
+     */
+    synchronized EnvelopeCacheFile folder(String account, String folder, long uidValidity) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Envelope cache is closed");
+        }
+        String key = account + "\n" + folder;
+        EnvelopeCacheFile file = openFiles.get(key);
+        if (file != null && file.uidValidity() == uidValidity) {
+            return file;
+        }
+        if (file != null) {
+            logger.info("UIDVALIDITY of {} changed from {} to {}, discarding cached envelopes", folder, file.uidValidity(), uidValidity);
+            file.delete();
+        }
+        file = EnvelopeCacheFile.open(directory.resolve(fileName(key)), key, uidValidity);
+        openFiles.put(key, file);
+        return file;
+    }
+
+    /**
+     * Closes all open cache files.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (EnvelopeCacheFile file : openFiles.values()) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                logger.warn("Error closing envelope cache file: {}", e.getMessage());
+            }
+        }
+        openFiles.clear();
+    }
+
+    private static String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16) + FILE_EXTENSION;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
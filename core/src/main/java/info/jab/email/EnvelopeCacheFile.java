@@ -0,0 +1,572 @@
+package info.jab.email;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only file of envelopes for one folder of one account at one UIDVALIDITY.
+ *
+ * <p>The file starts with a header (magic, version, UIDVALIDITY and the account/folder key)
+ * followed by length-prefixed records:
+ * <pre>
+ * int    length of the rest of the record
+ * long   uid
+ * long   size
+ * long   sent date in epoch millis, or Long.MIN_VALUE
+ * long   received date in epoch millis, or Long.MIN_VALUE
+ * byte   system flags, packed with {@link EmailFlag#toBits}
+ * string Message-ID, from, subject   (int byte length, -1 for null, then UTF-8 bytes)
+ * short  TO count, then that many strings
+ * short  CC count, then that many strings
+ * </pre>
+ * Reads go through a read-only memory mapping. Opening the file only reads the length and UID of
+ * each record to build a sorted UID index in primitive arrays, so a million envelopes are indexed
+ * without decoding them. A record torn by a crash during an append is cut off on the next open.
+ * When the same UID is appended twice the later record wins. Writes hold an exclusive lock on the
+ * file, so processes sharing the cache directory never interleave their records.
+ */
+final class EnvelopeCacheFile implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvelopeCacheFile.class);
+
+    static final int MAGIC = 0x454E5643; // "ENVC"
+    static final short VERSION = 2;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int ORDINAL_BITS = 31;
+    private static final long ORDINAL_MASK = (1L << ORDINAL_BITS) - 1;
+    private static final int MAX_RECIPIENTS = 0xFFFF;
+
+    private final Path path;
+    private final long uidValidity;
+    private final FileChannel channel;
+    private final int headerLength;
+    private MappedByteBuffer mapped;
+    private long mappedSize;
+
+    // Offsets of all records in append order, and the sorted UID index derived from them
+    private long[] recordOffsets = new long[64];
+    private long[] recordUids = new long[64];
+    private int recordCount;
+    private long[] sortedUids = new long[0];
+    private long[] sortedOffsets = new long[0];
+    private boolean indexDirty;
+    private boolean appendedInUidOrder = true;
+
+    private EnvelopeCacheFile(Path path, long uidValidity, FileChannel channel, int headerLength) {
+        this.path = path;
+        this.uidValidity = uidValidity;
+        this.channel = channel;
+        this.headerLength = headerLength;
+    }
+
+    /**
+     * Opens a cache file, creating it when missing and recreating it when it belongs to another
+     * UIDVALIDITY or key, or cannot be read.
+     *
+     * @param path the file
+     * @param key the account and folder the file belongs to
+     * @param uidValidity the current UIDVALIDITY of the folder
+     * @return the open cache file
+     * @throws IOException if the file cannot be created or read
+     */
+    static EnvelopeCacheFile open(Path path, String key, long uidValidity) throws IOException {
+        if (Files.exists(path)) {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                int headerLength = readHeader(channel, key, uidValidity);
+                if (headerLength > 0) {
+                    EnvelopeCacheFile file = new EnvelopeCacheFile(path, uidValidity, channel, headerLength);
+                    file.loadIndex();
+                    return file;
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Discarding unreadable envelope cache {}: {}", path, e.getMessage());
+            }
+            channel.close();
+            logger.info("Recreating envelope cache {} for UIDVALIDITY {}", path, uidValidity);
+        }
+        Files.createDirectories(path.getParent());
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = header(key, uidValidity);
+        int headerLength = header.remaining();
+        try (FileLock _ = channel.lock()) {
+            channel.truncate(0);
+            channel.write(header, 0);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return new EnvelopeCacheFile(path, uidValidity, channel, headerLength);
+    }
+
+    /**
+     * Gets the UIDVALIDITY the cached UIDs belong to.
+     *
+     * @return the UIDVALIDITY
+     */
+    long uidValidity() {
+        return uidValidity;
+    }
+
+    /**
+     * Gets the number of distinct UIDs in the cache.
+     *
+     * @return the number of cached envelopes
+     */
+    synchronized int size() {
+        ensureIndex();
+        return sortedUids.length;
+    }
+
+    /**
+     * Checks whether an envelope is cached.
+     *
+     * @param uid the UID of the message
+     * @return true if the envelope is cached
+     */
+    synchronized boolean contains(long uid) {
+        ensureIndex();
+        return Arrays.binarySearch(sortedUids, uid) >= 0;
+    }
+
+    /**
+     * Reads a cached envelope. The returned summary has message number 0, as sequence numbers
+     * are not stable and are not cached.
+     *
+     * @param uid the UID of the message
+     * @return the cached envelope, or null if it is not cached
+     * @throws IOException if the file cannot be mapped
+     */
+    synchronized EmailSummary get(long uid) throws IOException {
+        ensureIndex();
+        int index = Arrays.binarySearch(sortedUids, uid);
+        if (index < 0) {
+            return null;
+        }
+        return decode(mapping(), sortedOffsets[index]);
+    }
+
+    /**
+     * Appends envelopes to the file in one write.
+     *
+     * @param summaries the envelopes to cache; entries without a UID are skipped
+     * @throws IOException if the file cannot be written
+     */
+    synchronized void append(Collection<EmailSummary> summaries) throws IOException {
+        List<byte[]> records = new ArrayList<>(summaries.size());
+        int total = 0;
+        for (EmailSummary summary : summaries) {
+            if (summary.uid() > 0) {
+                byte[] record = encode(summary);
+                records.add(record);
+                total += record.length;
+            }
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        records.forEach(buffer::put);
+        buffer.flip();
+        long offset;
+        try (FileLock _ = channel.lock()) {
+            // Another process may have appended since, so the end is only read under the lock
+            offset = channel.size();
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+        for (byte[] record : records) {
+            addRecord(ByteBuffer.wrap(record).getLong(Integer.BYTES), offset);
+            offset += record.length;
+        }
+    }
+
+    /**
+     * Result of a local search: the matching UIDs, and the UIDs that could not be evaluated
+     * because their envelopes are not cached.
+     *
+     * @param matches the matching UIDs in ascending order
+     * @param missing the UIDs without a cached envelope in ascending order
+     */
+    record LocalMatches(long[] matches, long[] missing) { }
+
+    /**
+     * Evaluates a predicate over the cached envelopes of the messages in a sync state, using the
+     * flags from the state instead of the possibly stale cached ones. A single view is moved from
+     * record to record over the mapped file, so no objects are created per envelope.
+     *
+     * @param predicate the predicate to evaluate
+     * @param state the messages to consider and their current flags
+     * @return the matching and the uncached UIDs
+     * @throws IOException if the file cannot be mapped
+     */
+    synchronized LocalMatches search(EnvelopePredicate predicate, FolderSyncState state) throws IOException {
+        ensureIndex();
+        RecordView view = new RecordView(mapping());
+        long[] uids = state.uids();
+        long[] matches = new long[16];
+        long[] missing = new long[0];
+        int matchCount = 0;
+        int missingCount = 0;
+        int cursor = 0;
+        for (int i = 0; i < uids.length; i++) {
+            long uid = uids[i];
+            while (cursor < sortedUids.length && sortedUids[cursor] < uid) {
+                cursor++;
+            }
+            if (cursor < sortedUids.length && sortedUids[cursor] == uid) {
+                view.moveTo((int) sortedOffsets[cursor], state.flagBitsAt(i));
+                if (predicate.test(view)) {
+                    if (matchCount == matches.length) {
+                        matches = Arrays.copyOf(matches, matchCount * 2);
+                    }
+                    matches[matchCount++] = uid;
+                }
+            } else {
+                if (missingCount == missing.length) {
+                    missing = Arrays.copyOf(missing, Math.max(16, missingCount * 2));
+                }
+                missing[missingCount++] = uid;
+            }
+        }
+        return new LocalMatches(Arrays.copyOf(matches, matchCount), Arrays.copyOf(missing, missingCount));
+    }
+
+    /**
+     * Deletes the file. The instance must not be used afterwards.
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    synchronized void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mapped = null;
+        channel.close();
+    }
+
+    private void loadIndex() throws IOException {
+        long fileSize = channel.size();
+        MappedByteBuffer buffer = mapping();
+        long offset = headerLength;
+        while (offset + Integer.BYTES <= fileSize) {
+            int length = buffer.getInt((int) offset);
+            if (length < Long.BYTES || offset + Integer.BYTES + length > fileSize) {
+                break;
+            }
+            addRecord(buffer.getLong((int) offset + Integer.BYTES), offset);
+            offset += Integer.BYTES + length;
+        }
+        if (offset < fileSize) {
+            // The tail may be a record another process is still appending: only cut it off under the lock
+            try (FileLock _ = channel.lock()) {
+                if (channel.size() == fileSize) {
+                    logger.warn("Truncating torn record at offset {} of envelope cache {}", offset, path);
+                    mapped = null;
+                    channel.truncate(offset);
+                }
+            }
+        }
+        logger.debug("Indexed {} cached envelopes from {}", recordCount, path);
+    }
+
+    private void addRecord(long uid, long offset) {
+        if (recordCount == recordOffsets.length) {
+            recordOffsets = Arrays.copyOf(recordOffsets, recordCount * 2);
+            recordUids = Arrays.copyOf(recordUids, recordCount * 2);
+        }
+        if (recordCount > 0 && uid <= recordUids[recordCount - 1]) {
+            appendedInUidOrder = false;
+        }
+        recordOffsets[recordCount] = offset;
+        recordUids[recordCount] = uid;
+        recordCount++;
+        indexDirty = true;
+    }
+
+    /**
+     * Rebuilds the sorted UID index. UIDs are unsigned 32-bit values, so each entry packs the UID above
+     * the 31-bit record ordinal into one positive long and a primitive sort keeps records of the same
+     * UID in append order.
+     */
+    private void ensureIndex() {
+        if (!indexDirty) {
+            return;
+        }
+        indexDirty = false;
+        if (appendedInUidOrder) {
+            // The common case: envelopes are fetched and appended in ascending UID order
+            sortedUids = Arrays.copyOf(recordUids, recordCount);
+            sortedOffsets = Arrays.copyOf(recordOffsets, recordCount);
+            return;
+        }
+        long[] keys = new long[recordCount];
+        for (int i = 0; i < recordCount; i++) {
+            keys[i] = (recordUids[i] << ORDINAL_BITS) | i;
+        }
+        Arrays.sort(keys);
+        long[] uids = new long[recordCount];
+        long[] offsets = new long[recordCount];
+        int size = 0;
+        for (int i = 0; i < keys.length; i++) {
+            long uid = keys[i] >>> ORDINAL_BITS;
+            if (i + 1 < keys.length && keys[i + 1] >>> ORDINAL_BITS == uid) {
+                continue; // a later record of the same UID wins
+            }
+            uids[size] = uid;
+            offsets[size] = recordOffsets[(int) (keys[i] & ORDINAL_MASK)];
+            size++;
+        }
+        sortedUids = Arrays.copyOf(uids, size);
+        sortedOffsets = Arrays.copyOf(offsets, size);
+    }
+
+    private MappedByteBuffer mapping() throws IOException {
+        long size = channel.size();
+        if (mapped == null || mappedSize != size) {
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Envelope cache " + path + " exceeds the maximum mappable size");
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mappedSize = size;
+        }
+        return mapped;
+    }
+
+    private static ByteBuffer header(String key, long uidValidity) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES + keyBytes.length);
+        header.putInt(MAGIC).putShort(VERSION).putLong(uidValidity).putInt(keyBytes.length).put(keyBytes);
+        return header.flip();
+    }
+
+    /**
+     * Reads and checks the header.
+     *
+     * @return the header length, or -1 if the file belongs to another key or UIDVALIDITY
+     */
+    private static int readHeader(FileChannel channel, String key, long uidValidity) throws IOException {
+        ByteBuffer expected = header(key, uidValidity);
+        ByteBuffer actual = ByteBuffer.allocate(expected.remaining());
+        while (actual.hasRemaining() && channel.read(actual, actual.position()) > 0) {
+            // keep reading until the header is complete or the file ends
+        }
+        return actual.flip().equals(expected) ? expected.remaining() : -1;
+    }
+
+    static byte[] encode(EmailSummary summary) {
+        byte[] messageId = utf8(summary.messageId());
+        byte[] from = utf8(summary.from());
+        byte[] subject = utf8(summary.subject());
+        List<byte[]> to = summary.to().stream().limit(MAX_RECIPIENTS).map(EnvelopeCacheFile::utf8).toList();
+        List<byte[]> cc = summary.cc().stream().limit(MAX_RECIPIENTS).map(EnvelopeCacheFile::utf8).toList();
+        int length = 4 * Long.BYTES + 1
+                + stringLength(messageId) + stringLength(from) + stringLength(subject)
+                + Short.BYTES + to.stream().mapToInt(EnvelopeCacheFile::stringLength).sum()
+                + Short.BYTES + cc.stream().mapToInt(EnvelopeCacheFile::stringLength).sum();
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + length);
+        buffer.putInt(length)
+                .putLong(summary.uid())
+                .putLong(summary.size())
+                .putLong(summary.sentDate() != null ? summary.sentDate().toEpochMilli() : NO_DATE)
+                .putLong(summary.receivedDate() != null ? summary.receivedDate().toEpochMilli() : NO_DATE)
+                .put((byte) EmailFlag.toBits(summary.flags()));
+        putString(buffer, messageId);
+        putString(buffer, from);
+        putString(buffer, subject);
+        putStrings(buffer, to);
+        putStrings(buffer, cc);
+        return buffer.array();
+    }
+
+    static EmailSummary decode(ByteBuffer mapped, long offset) {
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.position((int) offset + Integer.BYTES);
+        try {
+            long uid = buffer.getLong();
+            long size = buffer.getLong();
+            long sent = buffer.getLong();
+            long received = buffer.getLong();
+            int flags = buffer.get();
+            String messageId = getString(buffer);
+            String from = getString(buffer);
+            String subject = getString(buffer);
+            List<String> to = getStrings(buffer);
+            List<String> cc = getStrings(buffer);
+            return new EmailSummary(uid, 0, messageId, from, to, cc, subject,
+                    sent == NO_DATE ? null : Instant.ofEpochMilli(sent),
+                    received == NO_DATE ? null : Instant.ofEpochMilli(received),
+                    size, EmailFlag.fromBits(flags));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalStateException("Corrupt envelope cache record at offset " + offset, e);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int stringLength(byte[] bytes) {
+        return Integer.BYTES + (bytes != null ? bytes.length : 0);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static void putStrings(ByteBuffer buffer, List<byte[]> values) {
+        buffer.putShort((short) values.size());
+        values.forEach(bytes -> putString(buffer, bytes));
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> getStrings(ByteBuffer buffer) {
+        int count = Short.toUnsignedInt(buffer.getShort());
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(getString(buffer));
+        }
+        return values;
+    }
+
+    /**
+     * Flyweight view of one record of the mapped file. String fields are located lazily by
+     * walking the length prefixes, and matched against patterns without decoding.
+     */
+    private static final class RecordView implements EnvelopeView {
+
+        private static final int UID = Integer.BYTES;
+        private static final int SIZE = UID + Long.BYTES;
+        private static final int SENT = SIZE + Long.BYTES;
+        private static final int RECEIVED = SENT + Long.BYTES;
+        private static final int FLAGS = RECEIVED + Long.BYTES;
+        private static final int MESSAGE_ID = FLAGS + 1;
+
+        private final ByteBuffer buffer;
+        private int base;
+        private int flagBits;
+        private int fromPosition;
+        private int subjectPosition;
+        private int toPosition;
+        private int ccPosition;
+
+        private RecordView(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private void moveTo(int offset, int flagBits) {
+            this.base = offset;
+            this.flagBits = flagBits;
+            this.fromPosition = -1;
+        }
+
+        @Override
+        public long uid() {
+            return buffer.getLong(base + UID);
+        }
+
+        @Override
+        public int flagBits() {
+            return flagBits >= 0 ? flagBits : buffer.get(base + FLAGS);
+        }
+
+        @Override
+        public long size() {
+            return buffer.getLong(base + SIZE);
+        }
+
+        @Override
+        public long sentDateMillis() {
+            return buffer.getLong(base + SENT);
+        }
+
+        @Override
+        public long receivedDateMillis() {
+            return buffer.getLong(base + RECEIVED);
+        }
+
+        @Override
+        public boolean contains(EnvelopeField field, TextPattern pattern) {
+            locateStrings();
+            return switch (field) {
+                case MESSAGE_ID -> matchesString(base + MESSAGE_ID, pattern);
+                case FROM -> matchesString(fromPosition, pattern);
+                case SUBJECT -> matchesString(subjectPosition, pattern);
+                case TO -> matchesAny(toPosition, pattern);
+                case CC -> matchesAny(ccPosition, pattern);
+            };
+        }
+
+        private void locateStrings() {
+            if (fromPosition >= 0) {
+                return;
+            }
+            fromPosition = skipString(base + MESSAGE_ID);
+            subjectPosition = skipString(fromPosition);
+            toPosition = skipString(subjectPosition);
+            int position = toPosition + Short.BYTES;
+            for (int count = Short.toUnsignedInt(buffer.getShort(toPosition)); count > 0; count--) {
+                position = skipString(position);
+            }
+            ccPosition = position;
+        }
+
+        private int skipString(int position) {
+            int length = buffer.getInt(position);
+            return position + Integer.BYTES + Math.max(length, 0);
+        }
+
+        private boolean matchesString(int position, TextPattern pattern) {
+            int length = buffer.getInt(position);
+            return length >= 0 && pattern.matches(buffer, position + Integer.BYTES, length);
+        }
+
+        private boolean matchesAny(int position, TextPattern pattern) {
+            int count = Short.toUnsignedInt(buffer.getShort(position));
+            int current = position + Short.BYTES;
+            for (int i = 0; i < count; i++) {
+                if (matchesString(current, pattern)) {
+                    return true;
+                }
+                current = skipString(current);
+            }
+            return false;
+        }
+    }
+}
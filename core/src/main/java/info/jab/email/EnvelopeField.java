@@ -0,0 +1,12 @@
+package info.jab.email;
+
+/**
+ * Text fields of an envelope that search patterns can be matched against.
+ */
+public enum EnvelopeField {
+    MESSAGE_ID,
+    FROM,
+    SUBJECT,
+    TO,
+    CC
+}
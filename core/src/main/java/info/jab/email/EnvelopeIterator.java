@@ -0,0 +1,201 @@
+package info.jab.email;
+
+import com.sun.mail.imap.IMAPMessage;
+import jakarta.mail.FetchProfile;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.UIDFolder;
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Iterates over the envelopes of an open folder, fetching them from the server in chunks.
+ *
+ * <p>Only one chunk of envelopes is held in memory at a time: after a chunk has been converted
+ * to records the cached headers of its messages are released. Closing the iterator closes the folder.
+ *
+ * @param <T> the record each message is converted to
+ */
+class EnvelopeIterator<T> implements Iterator<T>, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvelopeIterator.class);
+
+    private final Folder folder;
+    private final Message[] matches;
+    private final int total;
+    private final int chunkSize;
+    private final ChunkReader<T> reader;
+    private final Deque<T> buffer = new ArrayDeque<>();
+    private int position;
+    private boolean closed;
+
+    /**
+     * Fetches and converts one chunk of messages.
+     */
+    @FunctionalInterface
+    private interface ChunkReader<T> {
+        List<T> read(Folder folder, Message[] chunk) throws MessagingException;
+    }
+
+    /**
+     * Creates an iterator over the envelopes of an open folder.
+     *
+     * @param folder the open folder
+     * @param matches the messages matching a search, or null to iterate the whole folder by sequence number
+     * @param chunkSize how many envelopes to fetch per server round trip
+     * @return the iterator
+     * @throws MessagingException if the folder message count cannot be read
+     */
+    static EnvelopeIterator<EmailSummary> envelopes(Folder folder, Message[] matches, int chunkSize) throws MessagingException {
+        FetchProfile fetchProfile = envelopeProfile();
+        return new EnvelopeIterator<>(folder, matches, chunkSize,
+                (chunkFolder, chunk) -> readEnvelopes(chunkFolder, chunk, fetchProfile));
+    }
+
+    /**
+     * Creates an iterator over an open folder that fetches only the fields of a projection.
+     *
+     * @param folder the open folder
+     * @param matches the messages matching a search, or null to iterate the whole folder by sequence number
+     * @param chunkSize how many messages to fetch per server round trip
+     * @param projection the fields to fetch and read
+     * @return the iterator
+     * @throws MessagingException if the folder message count cannot be read
+     */
+    static EnvelopeIterator<ProjectedEmail> projected(Folder folder, Message[] matches, int chunkSize,
+                                                      FieldProjection projection) throws MessagingException {
+        FetchProfile fetchProfile = projection.fetchProfile();
+        return new EnvelopeIterator<>(folder, matches, chunkSize,
+                (chunkFolder, chunk) -> readMessages(chunkFolder, chunk, fetchProfile,
+                        message -> projection.read(chunkFolder, message)));
+    }
+
+    private EnvelopeIterator(Folder folder, Message[] matches, int chunkSize, ChunkReader<T> reader) throws MessagingException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1, but got: " + chunkSize);
+        }
+        this.folder = folder;
+        this.matches = matches;
+        this.total = matches != null ? matches.length : folder.getMessageCount();
+        this.chunkSize = chunkSize;
+        this.reader = reader;
+    }
+
+    /**
+     * Gets the number of messages this iterator will return.
+     *
+     * @return the message count
+     */
+    int size() {
+        return total;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (buffer.isEmpty() && position < total && !closed) {
+            fetchNextChunk();
+        }
+        return !buffer.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return buffer.removeFirst();
+    }
+
+    private void fetchNextChunk() {
+        int end = Math.min(position + chunkSize, total);
+        try {
+            Message[] chunk = matches != null
+                    ? Arrays.copyOfRange(matches, position, end)
+                    : folder.getMessages(position + 1, end);
+            buffer.addAll(reader.read(folder, chunk));
+            logger.debug("Fetched envelopes {}-{} of {} from {}", position + 1, end, total, folder.getFullName());
+            position = end;
+        } catch (MessagingException e) {
+            throw new EmailException("Error fetching envelopes from folder " + folder.getFullName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Fetches the envelopes of the given messages in one round trip and converts them to summaries,
+     * releasing the cached headers afterwards. Expunged messages and null entries are skipped.
+     *
+     * @param folder the open folder the messages belong to
+     * @param messages the messages to read
+     * @return the summaries in the order of the messages
+     * @throws MessagingException if the envelopes cannot be fetched
+     */
+    static List<EmailSummary> readEnvelopes(Folder folder, Message[] messages) throws MessagingException {
+        return readEnvelopes(folder, messages, envelopeProfile());
+    }
+
+    private static List<EmailSummary> readEnvelopes(Folder folder, Message[] messages, FetchProfile fetchProfile) throws MessagingException {
+        return readMessages(folder, messages, fetchProfile, message -> {
+            long uid = folder instanceof UIDFolder uidFolder ? uidFolder.getUID(message) : -1;
+            return EmailSummary.from(message, uid);
+        });
+    }
+
+    /**
+     * Converts a fetched message to a record.
+     */
+    @FunctionalInterface
+    private interface MessageReader<T> {
+        T read(Message message) throws MessagingException;
+    }
+
+    private static <T> List<T> readMessages(Folder folder, Message[] messages, FetchProfile fetchProfile,
+                                            MessageReader<T> messageReader) throws MessagingException {
+        Message[] present = Arrays.stream(messages).filter(Objects::nonNull).toArray(Message[]::new);
+        folder.fetch(present, fetchProfile);
+        List<T> records = new ArrayList<>(present.length);
+        for (Message message : present) {
+            if (message.isExpunged()) {
+                continue;
+            }
+            records.add(messageReader.read(message));
+            if (message instanceof IMAPMessage imapMessage) {
+                imapMessage.invalidateHeaders();
+            }
+        }
+        return records;
+    }
+
+    private static FetchProfile envelopeProfile() {
+        FetchProfile fetchProfile = new FetchProfile();
+        fetchProfile.add(FetchProfile.Item.ENVELOPE);
+        fetchProfile.add(FetchProfile.Item.FLAGS);
+        fetchProfile.add(UIDFolder.FetchProfileItem.UID);
+        return fetchProfile;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer.clear();
+        try {
+            if (folder.isOpen()) {
+                folder.close(false);
+            }
+        } catch (MessagingException e) {
+            logger.error("Error closing folder {}: {}", folder.getFullName(), e.getMessage(), e);
+        }
+    }
+}
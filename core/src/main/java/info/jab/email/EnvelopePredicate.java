@@ -0,0 +1,67 @@
+package info.jab.email;
+
+import jakarta.mail.search.SearchTerm;
+
+/**
+ * A search condition evaluated locally against envelope data instead of on the server.
+ *
+ * <p>Predicates are compiled once from a {@link SearchTerm} with {@link #compile(SearchTerm)},
+ * after the term has been optimized as by {@link EmailSearch#optimize()}; all patterns, flag
+ * masks and dates are prepared at that point, so testing a record does not allocate. Terms that
+ * need data outside the envelope, such as the body or BCC recipients, cannot be compiled; check
+ * with {@link #isLocal(SearchTerm)} first.
+ *
+ * @see EmailSearch#toPredicate()
+ */
+@FunctionalInterface
+public interface EnvelopePredicate {
+
+    /**
+     * A predicate that matches every envelope.
+     */
+    EnvelopePredicate ALL = envelope -> true;
+
+    /**
+     * A predicate that matches no envelope.
+     */
+    EnvelopePredicate NONE = envelope -> false;
+
+    /**
+     * Tests an envelope.
+     *
+     * @param envelope the envelope to test; must not be retained
+     * @return true if the envelope matches
+     */
+    boolean test(EnvelopeView envelope);
+
+    /**
+     * Tests an envelope held in memory.
+     *
+     * @param summary the envelope to test
+     * @return true if the envelope matches
+     */
+    default boolean test(EmailSummary summary) {
+        return test(EnvelopeView.of(summary));
+    }
+
+    /**
+     * Compiles a Jakarta Mail search term into a local predicate with the same meaning.
+     *
+     * @param term the search term, or null to match everything
+     * @return the compiled predicate
+     * @throws IllegalArgumentException if the term cannot be evaluated on envelope data
+     */
+    static EnvelopePredicate compile(SearchTerm term) {
+        return EnvelopePredicateCompiler.compile(term);
+    }
+
+    /**
+     * Checks whether a search term can be evaluated on envelope data alone.
+     *
+     * @param term the search term, or null
+     * @return true if {@link #compile(SearchTerm)} accepts the term
+     */
+    static boolean isLocal(SearchTerm term) {
+        return EnvelopePredicateCompiler.isLocal(term);
+    }
+}
@@ -0,0 +1,193 @@
+package info.jab.email;
+
+import jakarta.mail.Flags;
+import jakarta.mail.Message;
+import jakarta.mail.search.AndTerm;
+import jakarta.mail.search.ComparisonTerm;
+import jakarta.mail.search.DateTerm;
+import jakarta.mail.search.FlagTerm;
+import jakarta.mail.search.FromStringTerm;
+import jakarta.mail.search.MessageIDTerm;
+import jakarta.mail.search.NotTerm;
+import jakarta.mail.search.OrTerm;
+import jakarta.mail.search.ReceivedDateTerm;
+import jakarta.mail.search.RecipientStringTerm;
+import jakarta.mail.search.SearchTerm;
+import jakarta.mail.search.SentDateTerm;
+import jakarta.mail.search.SizeTerm;
+import jakarta.mail.search.SubjectTerm;
+import java.util.function.LongPredicate;
+
+/**
+ * Translates Jakarta Mail search terms into {@link EnvelopePredicate}s.
+ *
+ * <p>Comparisons follow the {@code match} methods of the corresponding terms, so a compiled
+ * predicate accepts the same messages as {@link SearchTerm#match} on the client. Note that IMAP
+ * servers compare dates by day only, so results can differ from a server search for dates
+ * that are not at a day boundary.
+ */
+final class EnvelopePredicateCompiler {
+
+    private EnvelopePredicateCompiler() {
+        // Utility class
+    }
+
+    static EnvelopePredicate compile(SearchTerm term) {
+        return compileOptimized(SearchTermOptimizer.optimize(term));
+    }
+
+    private static EnvelopePredicate compileOptimized(SearchTerm term) {
+        if (term == null) {
+            return EnvelopePredicate.ALL;
+        }
+        if (term instanceof NoMatchTerm) {
+            return EnvelopePredicate.NONE;
+        }
+        if (term instanceof AndTerm andTerm) {
+            EnvelopePredicate[] parts = compileAll(andTerm.getTerms());
+            return envelope -> {
+                for (EnvelopePredicate part : parts) {
+                    if (!part.test(envelope)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+        if (term instanceof OrTerm orTerm) {
+            EnvelopePredicate[] parts = compileAll(orTerm.getTerms());
+            return envelope -> {
+                for (EnvelopePredicate part : parts) {
+                    if (part.test(envelope)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+        if (term instanceof NotTerm notTerm) {
+            EnvelopePredicate inner = compileOptimized(notTerm.getTerm());
+            return envelope -> !inner.test(envelope);
+        }
+        if (term instanceof FlagTerm flagTerm) {
+            return compileFlags(flagTerm);
+        }
+        if (term instanceof FromStringTerm fromTerm) {
+            return textPredicate(EnvelopeField.FROM, fromTerm.getPattern());
+        }
+        if (term instanceof SubjectTerm subjectTerm) {
+            return textPredicate(EnvelopeField.SUBJECT, subjectTerm.getPattern());
+        }
+        if (term instanceof MessageIDTerm messageIdTerm) {
+            return textPredicate(EnvelopeField.MESSAGE_ID, messageIdTerm.getPattern());
+        }
+        if (term instanceof RecipientStringTerm recipientTerm) {
+            return textPredicate(recipientField(recipientTerm), recipientTerm.getPattern());
+        }
+        if (term instanceof ReceivedDateTerm dateTerm) {
+            LongPredicate matches = dateComparison(dateTerm);
+            return envelope -> matches.test(envelope.receivedDateMillis());
+        }
+        if (term instanceof SentDateTerm dateTerm) {
+            LongPredicate matches = dateComparison(dateTerm);
+            return envelope -> matches.test(envelope.sentDateMillis());
+        }
+        if (term instanceof SizeTerm sizeTerm) {
+            LongPredicate matches = numberComparison(sizeTerm.getComparison(), sizeTerm.getNumber());
+            return envelope -> envelope.size() >= 0 && matches.test(envelope.size());
+        }
+        throw new IllegalArgumentException("Search term cannot be evaluated locally: " + term.getClass().getSimpleName());
+    }
+
+    static boolean isLocal(SearchTerm term) {
+        if (term == null) {
+            return true;
+        }
+        if (term instanceof AndTerm andTerm) {
+            return allLocal(andTerm.getTerms());
+        }
+        if (term instanceof OrTerm orTerm) {
+            return allLocal(orTerm.getTerms());
+        }
+        if (term instanceof NotTerm notTerm) {
+            return isLocal(notTerm.getTerm());
+        }
+        if (term instanceof FlagTerm flagTerm) {
+            return flagTerm.getFlags().getUserFlags().length == 0;
+        }
+        if (term instanceof RecipientStringTerm recipientTerm) {
+            Message.RecipientType type = recipientTerm.getRecipientType();
+            return type == Message.RecipientType.TO || type == Message.RecipientType.CC;
+        }
+        return term instanceof NoMatchTerm || term instanceof FromStringTerm || term instanceof SubjectTerm || term instanceof MessageIDTerm
+                || term instanceof ReceivedDateTerm || term instanceof SentDateTerm || term instanceof SizeTerm;
+    }
+
+    private static boolean allLocal(SearchTerm[] terms) {
+        for (SearchTerm term : terms) {
+            if (!isLocal(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static EnvelopePredicate[] compileAll(SearchTerm[] terms) {
+        EnvelopePredicate[] predicates = new EnvelopePredicate[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            predicates[i] = compileOptimized(terms[i]);
+        }
+        return predicates;
+    }
+
+    private static EnvelopePredicate compileFlags(FlagTerm flagTerm) {
+        Flags flags = flagTerm.getFlags();
+        if (flags.getUserFlags().length > 0) {
+            throw new IllegalArgumentException("User flags cannot be evaluated locally: " + String.join(", ", flags.getUserFlags()));
+        }
+        int mask = 0;
+        for (Flags.Flag flag : flags.getSystemFlags()) {
+            if (flag != Flags.Flag.USER) {
+                mask |= EmailFlag.of(flag).bit();
+            }
+        }
+        int required = mask;
+        if (flagTerm.getTestSet()) {
+            return envelope -> (envelope.flagBits() & required) == required;
+        }
+        return envelope -> (envelope.flagBits() & required) == 0;
+    }
+
+    private static EnvelopePredicate textPredicate(EnvelopeField field, String text) {
+        TextPattern pattern = TextPattern.of(text);
+        return envelope -> envelope.contains(field, pattern);
+    }
+
+    private static EnvelopeField recipientField(RecipientStringTerm term) {
+        Message.RecipientType type = term.getRecipientType();
+        if (type == Message.RecipientType.TO) {
+            return EnvelopeField.TO;
+        }
+        if (type == Message.RecipientType.CC) {
+            return EnvelopeField.CC;
+        }
+        throw new IllegalArgumentException("Recipient type cannot be evaluated locally: " + type);
+    }
+
+    private static LongPredicate dateComparison(DateTerm term) {
+        LongPredicate comparison = numberComparison(term.getComparison(), term.getDate().getTime());
+        return millis -> millis != EnvelopeView.NO_DATE && comparison.test(millis);
+    }
+
+    private static LongPredicate numberComparison(int comparison, long reference) {
+        return switch (comparison) {
+            case ComparisonTerm.LE -> value -> value <= reference;
+            case ComparisonTerm.LT -> value -> value < reference;
+            case ComparisonTerm.EQ -> value -> value == reference;
+            case ComparisonTerm.NE -> value -> value != reference;
+            case ComparisonTerm.GT -> value -> value > reference;
+            case ComparisonTerm.GE -> value -> value >= reference;
+            default -> throw new IllegalArgumentException("Unknown comparison: " + comparison);
+        };
+    }
+}
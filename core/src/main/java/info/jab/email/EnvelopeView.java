@@ -0,0 +1,121 @@
+package info.jab.email;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Read-only access to the envelope fields that {@link EnvelopePredicate}s evaluate.
+ *
+ * <p>Implementations may be flyweights that are repositioned from record to record, so a view
+ * must not be retained after the predicate returns.
+ */
+public interface EnvelopeView {
+
+    /**
+     * Date fields use this value when the date is not known.
+     */
+    long NO_DATE = Long.MIN_VALUE;
+
+    /**
+     * Gets the UID of the message.
+     *
+     * @return the UID, or -1 if unknown
+     */
+    long uid();
+
+    /**
+     * Gets the system flags, packed with {@link EmailFlag#toBits}.
+     *
+     * @return the flag bits
+     */
+    int flagBits();
+
+    /**
+     * Gets the size of the message.
+     *
+     * @return the size in bytes, or -1 if unknown
+     */
+    long size();
+
+    /**
+     * Gets the sent date.
+     *
+     * @return the sent date in epoch milliseconds, or {@link #NO_DATE}
+     */
+    long sentDateMillis();
+
+    /**
+     * Gets the received date.
+     *
+     * @return the received date in epoch milliseconds, or {@link #NO_DATE}
+     */
+    long receivedDateMillis();
+
+    /**
+     * Checks whether a text field contains a pattern. For recipient fields any recipient may match.
+     *
+     * @param field the field to search
+     * @param pattern the pattern to look for
+     * @return true if the field contains the pattern
+     */
+    boolean contains(EnvelopeField field, TextPattern pattern);
+
+    /**
+     * Creates a view over an envelope held in memory.
+     *
+     * @param summary the envelope
+     * @return a view of the envelope
+     */
+    static EnvelopeView of(EmailSummary summary) {
+        return new EnvelopeView() {
+            @Override
+            public long uid() {
+                return summary.uid();
+            }
+
+            @Override
+            public int flagBits() {
+                return EmailFlag.toBits(summary.flags());
+            }
+
+            @Override
+            public long size() {
+                return summary.size();
+            }
+
+            @Override
+            public long sentDateMillis() {
+                return millis(summary.sentDate());
+            }
+
+            @Override
+            public long receivedDateMillis() {
+                return millis(summary.receivedDate());
+            }
+
+            @Override
+            public boolean contains(EnvelopeField field, TextPattern pattern) {
+                return switch (field) {
+                    case MESSAGE_ID -> pattern.matches(summary.messageId());
+                    case FROM -> pattern.matches(summary.from());
+                    case SUBJECT -> pattern.matches(summary.subject());
+                    case TO -> anyMatches(summary.to(), pattern);
+                    case CC -> anyMatches(summary.cc(), pattern);
+                };
+            }
+
+            private static long millis(Instant instant) {
+                return instant != null ? instant.toEpochMilli() : NO_DATE;
+            }
+
+            private static boolean anyMatches(List<String> values, TextPattern pattern) {
+                for (String value : values) {
+                    if (pattern.matches(value)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package info.jab.email;
+
+import jakarta.mail.Address;
+import jakarta.mail.FetchProfile;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.UIDFolder;
+import jakarta.mail.internet.MimeMessage;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Selection of the fields to read for each email, which determines the smallest FETCH that
+ * delivers them. Envelope fields share one ENVELOPE item, while flags, size, UID and single
+ * header fields are fetched on their own, so selecting only {@code flags,size} never downloads
+ * an envelope.
+ *
+ * @param fields the email fields to read, in output order
+ * @param headers the names of the header fields to read, in output order
+ */
+public record FieldProjection(List<EmailField> fields, List<String> headers) {
+
+    /**
+     * The fields list-emails prints by default: sender, subject and sent date.
+     */
+    public static final FieldProjection DEFAULT = new FieldProjection(
+            List.of(EmailField.FROM, EmailField.SUBJECT, EmailField.SENT_DATE), List.of());
+
+    private static final String HEADER_PREFIX = "header:";
+
+    public FieldProjection {
+        fields = fields == null ? List.of() : List.copyOf(new LinkedHashSet<>(fields));
+        headers = headers == null ? List.of() : List.copyOf(new LinkedHashSet<>(headers));
+        for (String header : headers) {
+            if (header.isBlank() || header.contains(":") || header.chars().anyMatch(Character::isWhitespace)) {
+                throw new IllegalArgumentException("Invalid header field name: '" + header + "'");
+            }
+        }
+        if (fields.isEmpty() && headers.isEmpty()) {
+            throw new IllegalArgumentException("At least one field must be selected");
+        }
+    }
+
+    /**
+     * Creates a projection of email fields without header fields.
+     *
+     * @param fields the fields to read
+     * @return the projection
+     */
+    public static FieldProjection of(EmailField... fields) {
+        return new FieldProjection(List.of(fields), List.of());
+    }
+
+    /**
+     * Parses a comma-separated field list such as {@code uid,flags,size,header:List-Id}. Field names
+     * are those of {@link EmailField#fieldName()}; {@code header:<name>} selects a header field.
+     *
+     * @param spec the field list
+     * @return the projection
+     * @throws IllegalArgumentException if a field is unknown or the list is empty
+     */
+    public static FieldProjection parse(String spec) {
+        List<EmailField> fields = new ArrayList<>();
+        List<String> headers = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String name = part.strip();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (name.regionMatches(true, 0, HEADER_PREFIX, 0, HEADER_PREFIX.length())) {
+                headers.add(name.substring(HEADER_PREFIX.length()).strip());
+            } else {
+                fields.add(EmailField.of(name));
+            }
+        }
+        return new FieldProjection(fields, headers);
+    }
+
+    /**
+     * Checks whether a field is selected.
+     *
+     * @param field the field to check
+     * @return true if the field is read
+     */
+    public boolean includes(EmailField field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * Builds the fetch profile that delivers the selected fields and nothing else.
+     *
+     * @return the fetch profile
+     */
+    FetchProfile fetchProfile() {
+        FetchProfile fetchProfile = new FetchProfile();
+        Set<FetchProfile.Item> items = new LinkedHashSet<>();
+        fields.forEach(field -> items.add(field.fetchItem()));
+        items.forEach(fetchProfile::add);
+        headers.forEach(fetchProfile::add);
+        return fetchProfile;
+    }
+
+    /**
+     * Reads the selected fields of a message fetched with {@link #fetchProfile()}. Fields that
+     * are not selected are left at their absent value, so reading never causes another round trip.
+     *
+     * @param folder the open folder the message belongs to
+     * @param message the message to read
+     * @return the projected email
+     * @throws MessagingException if the message data cannot be read
+     */
+    ProjectedEmail read(Folder folder, Message message) throws MessagingException {
+        long uid = includes(EmailField.UID) && folder instanceof UIDFolder uidFolder ? uidFolder.getUID(message) : -1;
+        Address[] from = includes(EmailField.FROM) ? message.getFrom() : null;
+        EmailSummary summary = new EmailSummary(
+                uid,
+                message.getMessageNumber(),
+                includes(EmailField.MESSAGE_ID) && message instanceof MimeMessage mimeMessage ? mimeMessage.getMessageID() : null,
+                EmailSummary.senders(from),
+                includes(EmailField.TO) ? EmailSummary.toStrings(message.getRecipients(Message.RecipientType.TO)) : null,
+                includes(EmailField.CC) ? EmailSummary.toStrings(message.getRecipients(Message.RecipientType.CC)) : null,
+                includes(EmailField.SUBJECT) ? message.getSubject() : null,
+                includes(EmailField.SENT_DATE) ? toInstant(message.getSentDate()) : null,
+                includes(EmailField.RECEIVED_DATE) ? toInstant(message.getReceivedDate()) : null,
+                includes(EmailField.SIZE) ? message.getSize() : -1,
+                includes(EmailField.FLAGS) ? EmailFlag.fromFlags(message.getFlags()) : null);
+        Map<String, String> headerValues = new LinkedHashMap<>();
+        for (String header : headers) {
+            headerValues.put(header, message.getHeader(header, ", "));
+        }
+        return new ProjectedEmail(summary, headerValues);
+    }
+
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
+    }
+}
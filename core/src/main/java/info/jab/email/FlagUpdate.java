@@ -0,0 +1,22 @@
+package info.jab.email;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The new system flags of a message whose flags changed since the previous sync.
+ *
+ * @param uid the UID of the message
+ * @param flags the flags now set on the message
+ */
+public record FlagUpdate(long uid, Set<EmailFlag> flags) {
+
+    public FlagUpdate {
+        EnumSet<EmailFlag> flagSet = EnumSet.noneOf(EmailFlag.class);
+        if (flags != null) {
+            flagSet.addAll(flags);
+        }
+        flags = Collections.unmodifiableSet(flagSet);
+    }
+}
@@ -0,0 +1,41 @@
+package info.jab.email;
+
+import java.util.List;
+
+/**
+ * Changes found by one incremental sync of a folder.
+ *
+ * <p>Pass {@link #state()} to the next sync of the same folder so that only the changes made
+ * after this one are fetched.
+ *
+ * @param state the folder state after applying these changes
+ * @param mode how the changes were found
+ * @param uidValidityChanged true if the previous state was discarded because the folder UIDVALIDITY changed
+ * @param added the envelopes of the messages that arrived since the previous sync, in UID order
+ * @param flagUpdates the messages whose flags changed since the previous sync
+ * @param vanished the UIDs of the messages that were expunged since the previous sync
+ */
+public record FolderChanges(
+    FolderSyncState state,
+    SyncMode mode,
+    boolean uidValidityChanged,
+    List<EmailSummary> added,
+    List<FlagUpdate> flagUpdates,
+    List<Long> vanished
+) {
+
+    public FolderChanges {
+        added = added == null ? List.of() : List.copyOf(added);
+        flagUpdates = flagUpdates == null ? List.of() : List.copyOf(flagUpdates);
+        vanished = vanished == null ? List.of() : List.copyOf(vanished);
+    }
+
+    /**
+     * Checks whether the sync found nothing to apply.
+     *
+     * @return true if no message was added, changed or expunged and the UIDVALIDITY is unchanged
+     */
+    public boolean isEmpty() {
+        return !uidValidityChanged && added.isEmpty() && flagUpdates.isEmpty() && vanished.isEmpty();
+    }
+}
@@ -0,0 +1,27 @@
+package info.jab.email;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * An email found by a search over several folders, together with the folder it is in.
+ *
+ * @param folder the full name of the folder the email is in
+ * @param email the envelope of the email
+ */
+public record FolderEmail(String folder, EmailSummary email) {
+
+    public FolderEmail {
+        Objects.requireNonNull(folder, "folder");
+        Objects.requireNonNull(email, "email");
+    }
+
+    /**
+     * Gets the date results are ordered by: the sent date, or the received date if the email has none.
+     *
+     * @return the date of the email, or null if it has neither date
+     */
+    public Instant date() {
+        return email.sentDate() != null ? email.sentDate() : email.receivedDate();
+    }
+}
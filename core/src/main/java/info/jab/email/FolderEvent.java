@@ -0,0 +1,34 @@
+package info.jab.email;
+
+import java.util.Objects;
+
+/**
+ * A change of a watched folder, as reported by a {@link FolderWatcher}.
+ *
+ * @param type whether a message arrived or was expunged
+ * @param folder the full name of the folder
+ * @param uidValidity the UIDVALIDITY the UID belongs to
+ * @param uid the IMAP UID of the message
+ * @param email the envelope of the message, or null for an expunged message whose envelope
+ *        the watcher never read, such as one that was in the folder before it started watching
+ */
+public record FolderEvent(Type type, String folder, long uidValidity, long uid, EmailSummary email) {
+
+    /**
+     * The kinds of change.
+     */
+    public enum Type {
+        /** A message arrived in the folder. */
+        NEW_MESSAGE,
+        /** A message was removed from the folder. */
+        EXPUNGED
+    }
+
+    public FolderEvent {
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(folder, "folder");
+        if (type == Type.NEW_MESSAGE && email == null) {
+            throw new IllegalArgumentException("A new message event needs the envelope of the message");
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package info.jab.email;
+
+/**
+ * Receives the changes of a folder watched by a {@link FolderWatcher}.
+ *
+ * <p>Events are delivered one at a time on the watcher thread, in the order the server reported
+ * them; a slow listener delays noticing the next change but loses none.
+ */
+@FunctionalInterface
+public interface FolderEventListener {
+
+    /**
+     * Called for each message that arrived in or was expunged from the folder.
+     *
+     * @param event the change
+     */
+    void onEvent(FolderEvent event);
+
+    /**
+     * Called once when the watcher stops because of an error it cannot recover from, such as
+     * rejected credentials or a missing folder. Lost connections are not reported; the watcher
+     * reconnects on its own.
+     *
+     * @param error why the watcher stopped
+     */
+    default void onError(EmailException error) {
+    }
+}
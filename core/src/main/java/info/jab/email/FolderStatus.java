@@ -0,0 +1,23 @@
+package info.jab.email;
+
+/**
+ * Message counts of a folder as reported by the IMAP STATUS command.
+ *
+ * @param folder the full name of the folder
+ * @param messages the number of messages in the folder
+ * @param unseen the number of messages without the SEEN flag
+ * @param size the total size of the messages in bytes, or -1 if the server does not support STATUS=SIZE
+ * @param uidNext the UID the next message will get, or -1 if unknown
+ * @param uidValidity the UIDVALIDITY of the folder, or -1 if unknown
+ */
+public record FolderStatus(String folder, int messages, int unseen, long size, long uidNext, long uidValidity) {
+
+    /**
+     * Checks whether the server reported the total size of the folder.
+     *
+     * @return true if {@link #size()} is known
+     */
+    public boolean hasSize() {
+        return size >= 0;
+    }
+}
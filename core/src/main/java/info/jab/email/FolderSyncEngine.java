@@ -0,0 +1,77 @@
+package info.jab.email;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Polls folders incrementally, remembering the {@link FolderSyncState} of each folder between polls.
+ *
+ * <p>The first poll of a folder fetches all envelopes; later polls only fetch what changed since
+ * the previous one. A failed poll keeps the previous state, so the next poll picks up the same changes.
+ */
+public class FolderSyncEngine {
+
+    private final EmailClient emailClient;
+    private final Map<String, FolderSyncState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an engine that polls through the given client.
+     *
+     * @param emailClient the client to sync with
+     */
+    public FolderSyncEngine(EmailClient emailClient) {
+        this.emailClient = emailClient;
+    }
+
+    /**
+     * Fetches the changes of a folder since its previous poll and remembers the new state.
+     *
+     * @param folder the folder name
+     * @return the changes since the previous poll, or all envelopes on the first poll
+     * @throws EmailException if the folder cannot be synced
+     */
+    public FolderChanges poll(String folder) {
+        FolderChanges changes = emailClient.syncFolder(folder, states.get(folder));
+        states.put(folder, changes.state());
+        return changes;
+    }
+
+    /**
+     * Searches a folder locally over its cached envelopes, polling it first if it was not polled yet.
+     * The result reflects the folder as of the last poll.
+     *
+     * @param folder the folder name
+     * @param search the search to evaluate, which must only use envelope fields and flags
+     * @return the matching emails in ascending UID order
+     * @throws EmailException if the folder cannot be polled or searched locally
+     * @see EmailClient#searchLocal(FolderSyncState, EmailSearch)
+     */
+    public List<EmailSummary> search(String folder, EmailSearch search) {
+        FolderSyncState state = states.get(folder);
+        if (state == null) {
+            state = poll(folder).state();
+        }
+        return emailClient.searchLocal(state, search);
+    }
+
+    /**
+     * Gets the state remembered for a folder.
+     *
+     * @param folder the folder name
+     * @return the state of the last successful poll, or empty if the folder was not polled yet
+     */
+    public Optional<FolderSyncState> state(String folder) {
+        return Optional.ofNullable(states.get(folder));
+    }
+
+    /**
+     * Forgets the state of a folder, so its next poll fetches all envelopes again.
+     *
+     * @param folder the folder name
+     */
+    public void reset(String folder) {
+        states.remove(folder);
+    }
+}
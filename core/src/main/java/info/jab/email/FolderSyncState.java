@@ -0,0 +1,174 @@
+package info.jab.email;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * What a client knows about a folder after a sync: its UIDVALIDITY, UIDNEXT and HIGHESTMODSEQ,
+ * and the UID and system flags of every message. The session-specific RECENT flag is not tracked.
+ *
+ * <p>UIDs are kept in a sorted {@code long[]} with the flags packed into a parallel {@code byte[]},
+ * so a state costs 9 bytes per message. Instances are immutable.
+ */
+public final class FolderSyncState {
+
+    private final String folder;
+    private final long uidValidity;
+    private final long uidNext;
+    private final long highestModSeq;
+    private final long[] uids;
+    private final byte[] flags;
+
+    FolderSyncState(String folder, long uidValidity, long uidNext, long highestModSeq, long[] uids, byte[] flags) {
+        if (uids.length != flags.length) {
+            throw new IllegalArgumentException("UIDs and flags must have the same length");
+        }
+        this.folder = Objects.requireNonNull(folder, "folder");
+        this.uidValidity = uidValidity;
+        this.uidNext = uidNext;
+        this.highestModSeq = highestModSeq;
+        this.uids = uids;
+        this.flags = flags;
+    }
+
+    /**
+     * Gets the name of the folder this state belongs to.
+     *
+     * @return the folder name
+     */
+    public String folder() {
+        return folder;
+    }
+
+    /**
+     * Gets the UIDVALIDITY of the folder. UIDs in this state are only meaningful while it does not change.
+     *
+     * @return the UIDVALIDITY
+     */
+    public long uidValidity() {
+        return uidValidity;
+    }
+
+    /**
+     * Gets the UIDNEXT of the folder: every message with a UID at or above it arrived after the sync.
+     *
+     * @return the UIDNEXT
+     */
+    public long uidNext() {
+        return uidNext;
+    }
+
+    /**
+     * Gets the HIGHESTMODSEQ of the folder.
+     *
+     * @return the HIGHESTMODSEQ, or 0 if the server does not support CONDSTORE
+     */
+    public long highestModSeq() {
+        return highestModSeq;
+    }
+
+    /**
+     * Gets the number of messages in the folder at the time of the sync.
+     *
+     * @return the message count
+     */
+    public int messageCount() {
+        return uids.length;
+    }
+
+    /**
+     * Checks whether a message was in the folder at the time of the sync.
+     *
+     * @param uid the UID of the message
+     * @return true if the message is known
+     */
+    public boolean contains(long uid) {
+        return Arrays.binarySearch(uids, uid) >= 0;
+    }
+
+    /**
+     * Gets the system flags a message had at the time of the sync.
+     *
+     * @param uid the UID of the message
+     * @return the flags of the message, or an empty set if the message is not known
+     */
+    public Set<EmailFlag> flags(long uid) {
+        int index = Arrays.binarySearch(uids, uid);
+        return EmailFlag.fromBits(index >= 0 ? flags[index] : 0);
+    }
+
+    /**
+     * Gets the UIDs of all known messages in ascending order. The array is shared and must not be modified.
+     */
+    long[] uids() {
+        return uids;
+    }
+
+    /**
+     * Gets the packed flags of a known message, or -1 if the message is not known.
+     */
+    int flagBits(long uid) {
+        int index = Arrays.binarySearch(uids, uid);
+        return index >= 0 ? flags[index] : -1;
+    }
+
+    /**
+     * Gets the packed flags of the message at an index of {@link #uids()}.
+     */
+    int flagBitsAt(int index) {
+        return flags[index];
+    }
+
+    /**
+     * Creates the state that results from applying a set of changes to this one.
+     *
+     * @param newUidNext the UIDNEXT after the sync
+     * @param newHighestModSeq the HIGHESTMODSEQ after the sync
+     * @param added the messages that arrived, with UIDs above all known ones
+     * @param updatedFlags the new packed flags of known messages, keyed by UID
+     * @param vanished the UIDs of the messages that were expunged
+     * @return the new state
+     */
+    FolderSyncState apply(long newUidNext, long newHighestModSeq, Collection<EmailSummary> added,
+                          Map<Long, Integer> updatedFlags, Collection<Long> vanished) {
+        long[] gone = vanished.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        long[] newUids = new long[uids.length - countKnown(gone) + added.size()];
+        byte[] newFlags = new byte[newUids.length];
+        int size = 0;
+        for (int i = 0; i < uids.length; i++) {
+            if (Arrays.binarySearch(gone, uids[i]) >= 0) {
+                continue;
+            }
+            Integer updated = updatedFlags.get(uids[i]);
+            newUids[size] = uids[i];
+            newFlags[size] = updated != null ? updated.byteValue() : flags[i];
+            size++;
+        }
+        for (EmailSummary summary : added) {
+            newUids[size] = summary.uid();
+            newFlags[size] = (byte) (EmailFlag.toBits(summary.flags()) & ~EmailFlag.RECENT.bit());
+            size++;
+        }
+        return new FolderSyncState(folder, uidValidity, newUidNext, newHighestModSeq,
+                Arrays.copyOf(newUids, size), Arrays.copyOf(newFlags, size));
+    }
+
+    private int countKnown(long[] candidates) {
+        int count = 0;
+        for (long uid : candidates) {
+            if (contains(uid)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "FolderSyncState[folder=" + folder + ", uidValidity=" + uidValidity + ", uidNext=" + uidNext
+                + ", highestModSeq=" + highestModSeq + ", messageCount=" + uids.length + "]";
+    }
+}
@@ -0,0 +1,270 @@
+package info.jab.email;
+
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.MessageVanishedEvent;
+import com.sun.mail.imap.ResyncData;
+import jakarta.mail.FetchProfile;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.UIDFolder;
+import jakarta.mail.event.MailEvent;
+import jakarta.mail.event.MessageChangedEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Brings a {@link FolderSyncState} up to date with the server, fetching only what changed.
+ *
+ * <p>The cheapest method the server supports is used. With QRESYNC the server reports changed
+ * flags and vanished UIDs while the folder is opened; with CONDSTORE changed flags are fetched
+ * with CHANGEDSINCE and the number of messages below the previous UIDNEXT tells whether any UIDs
+ * vanished. Envelopes are only fetched for UIDs at or above the previous UIDNEXT. Servers without
+ * CONDSTORE fall back to fetching the flags of all messages and diffing them against the previous
+ * state, and a changed UIDVALIDITY discards the previous state altogether.
+ */
+final class FolderSynchronizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(FolderSynchronizer.class);
+
+    private final int chunkSize;
+    private final ServerCapabilities capabilities;
+
+    /**
+     * Creates a synchronizer.
+     *
+     * @param chunkSize how many envelopes of new messages to fetch per server round trip
+     * @param capabilities the capabilities of the server, which decide the sync method
+     */
+    FolderSynchronizer(int chunkSize, ServerCapabilities capabilities) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1, but got: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.capabilities = capabilities;
+    }
+
+    /**
+     * Opens a folder read-only, finds the changes since the previous state and closes it again.
+     *
+     * @param folder the folder, not yet open
+     * @param previous the state of the previous sync of this folder, or null for a first sync
+     * @return the changes and the new state
+     * @throws MessagingException if the folder cannot be read or does not support UIDs
+     */
+    FolderChanges sync(Folder folder, FolderSyncState previous) throws MessagingException {
+        if (previous != null && !previous.folder().equals(folder.getFullName())) {
+            throw new IllegalArgumentException("Sync state of folder " + previous.folder()
+                    + " cannot be used for folder " + folder.getFullName());
+        }
+        boolean qresync = previous != null && previous.highestModSeq() > 0 && hasCapability(folder, ImapCapability.QRESYNC);
+        List<MailEvent> resyncEvents = qresync
+                ? ((IMAPFolder) folder).open(Folder.READ_ONLY, new ResyncData(previous.uidValidity(), previous.highestModSeq()))
+                : openReadOnly(folder);
+        try {
+            UIDFolder uidFolder = ImapCommands.requireUids(folder, "Folder sync");
+            if (previous == null) {
+                return fullSync(folder, uidFolder, false);
+            }
+            if (uidFolder.getUIDValidity() != previous.uidValidity()) {
+                logger.info("UIDVALIDITY of {} changed from {} to {}, discarding sync state",
+                        folder.getFullName(), previous.uidValidity(), uidFolder.getUIDValidity());
+                return fullSync(folder, uidFolder, true);
+            }
+            if (qresync) {
+                return qresyncSync(folder, uidFolder, previous, resyncEvents);
+            }
+            if (previous.highestModSeq() > 0 && hasCapability(folder, ImapCapability.CONDSTORE)) {
+                return condstoreSync(folder, uidFolder, previous);
+            }
+            return uidDiffSync(folder, uidFolder, previous);
+        } finally {
+            if (folder.isOpen()) {
+                folder.close(false);
+            }
+        }
+    }
+
+    private static List<MailEvent> openReadOnly(Folder folder) throws MessagingException {
+        folder.open(Folder.READ_ONLY);
+        return List.of();
+    }
+
+    private FolderChanges fullSync(Folder folder, UIDFolder uidFolder, boolean uidValidityChanged) throws MessagingException {
+        long uidValidity = uidFolder.getUIDValidity();
+        long uidNext = uidFolder.getUIDNext();
+        long highestModSeq = highestModSeq(folder);
+        int total = folder.getMessageCount();
+        List<EmailSummary> added = new ArrayList<>(total);
+        for (int start = 1; start <= total; start += chunkSize) {
+            added.addAll(EnvelopeIterator.readEnvelopes(folder, folder.getMessages(start, Math.min(start + chunkSize - 1, total))));
+        }
+        added.sort((a, b) -> Long.compare(a.uid(), b.uid()));
+        FolderSyncState state = new FolderSyncState(folder.getFullName(), uidValidity, 0, 0, new long[0], new byte[0])
+                .apply(nextUid(uidNext, added, 1), highestModSeq, added, Map.of(), List.of());
+        logger.info("Full sync of {}: {} messages", folder.getFullName(), added.size());
+        return new FolderChanges(state, SyncMode.FULL, uidValidityChanged, added, List.of(), List.of());
+    }
+
+    private FolderChanges qresyncSync(Folder folder, UIDFolder uidFolder, FolderSyncState previous,
+                                      List<MailEvent> resyncEvents) throws MessagingException {
+        Map<Long, Integer> changedFlags = new HashMap<>();
+        List<Long> vanished = new ArrayList<>();
+        for (MailEvent event : resyncEvents) {
+            if (event instanceof MessageVanishedEvent vanishedEvent) {
+                for (long uid : vanishedEvent.getUIDs()) {
+                    if (previous.contains(uid)) {
+                        vanished.add(uid);
+                    }
+                }
+            } else if (event instanceof MessageChangedEvent changedEvent) {
+                Message message = changedEvent.getMessage();
+                changedFlags.put(uidFolder.getUID(message), trackedBits(message));
+            }
+        }
+        List<EmailSummary> added = fetchNew(folder, previous);
+        return changes(folder, uidFolder, previous, SyncMode.QRESYNC, added, changedFlags, vanished);
+    }
+
+    private FolderChanges condstoreSync(Folder folder, UIDFolder uidFolder, FolderSyncState previous) throws MessagingException {
+        Map<Long, Integer> changedFlags = new HashMap<>();
+        if (previous.uidNext() > 1) {
+            Message[] changed = ((IMAPFolder) folder).getMessagesByUIDChangedSince(1, previous.uidNext() - 1, previous.highestModSeq());
+            for (Message message : changed) {
+                changedFlags.put(uidFolder.getUID(message), trackedBits(message));
+            }
+        }
+        List<EmailSummary> added = fetchNew(folder, previous);
+        return changes(folder, uidFolder, previous, SyncMode.CONDSTORE, added, changedFlags, vanished(folder, previous));
+    }
+
+    /**
+     * Finds the known UIDs that are gone. The check counts the messages below the previous UIDNEXT
+     * rather than comparing folder totals, which miss an expunge offset by a new arrival.
+     */
+    private List<Long> vanished(Folder folder, FolderSyncState previous) throws MessagingException {
+        if (previous.messageCount() == 0) {
+            return List.of();
+        }
+        long lastKnownUid = previous.uidNext() - 1;
+        if (hasCapability(folder, ImapCapability.ESEARCH)
+                && ImapCommands.uidCount((IMAPFolder) folder, 1, lastKnownUid) == previous.messageCount()) {
+            return List.of();
+        }
+        // Without ESEARCH the count costs a search over all known UIDs anyway
+        long[] present = ImapCommands.uidSearch(folder, null, 1, lastKnownUid);
+        return missing(previous.uids(), present);
+    }
+
+    private FolderChanges uidDiffSync(Folder folder, UIDFolder uidFolder, FolderSyncState previous) throws MessagingException {
+        Message[] messages = folder.getMessages();
+        FetchProfile flagsProfile = new FetchProfile();
+        flagsProfile.add(FetchProfile.Item.FLAGS);
+        flagsProfile.add(UIDFolder.FetchProfileItem.UID);
+        folder.fetch(messages, flagsProfile);
+
+        Map<Long, Integer> changedFlags = new HashMap<>();
+        long[] present = new long[messages.length];
+        int presentCount = 0;
+        for (Message message : messages) {
+            if (message.isExpunged()) {
+                continue;
+            }
+            long uid = uidFolder.getUID(message);
+            if (uid < previous.uidNext()) {
+                present[presentCount++] = uid;
+                int bits = trackedBits(message);
+                int previousBits = previous.flagBits(uid);
+                if (previousBits >= 0 && previousBits != bits) {
+                    changedFlags.put(uid, bits);
+                }
+            }
+        }
+        long[] known = Arrays.copyOf(present, presentCount);
+        Arrays.sort(known);
+        List<Long> vanished = missing(previous.uids(), known);
+        List<EmailSummary> added = fetchNew(folder, previous);
+        return changes(folder, uidFolder, previous, SyncMode.UID_DIFF, added, changedFlags, vanished);
+    }
+
+    private FolderChanges changes(Folder folder, UIDFolder uidFolder, FolderSyncState previous, SyncMode mode,
+                                  List<EmailSummary> added, Map<Long, Integer> changedFlags,
+                                  List<Long> vanished) throws MessagingException {
+        // QRESYNC and CONDSTORE report any modification; only keep real flag changes of known messages
+        Set<Long> vanishedSet = new HashSet<>(vanished);
+        changedFlags.entrySet().removeIf(entry -> previous.flagBits(entry.getKey()) == entry.getValue()
+                || previous.flagBits(entry.getKey()) < 0 || vanishedSet.contains(entry.getKey()));
+        List<FlagUpdate> flagUpdates = changedFlags.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> new FlagUpdate(entry.getKey(), EmailFlag.fromBits(entry.getValue())))
+                .toList();
+        long highestModSeq = highestModSeq(folder);
+        long uidNext = nextUid(uidFolder.getUIDNext(), added, previous.uidNext());
+        FolderSyncState state = previous.apply(uidNext, highestModSeq, added, changedFlags, vanished);
+        logger.info("{} sync of {}: {} added, {} flag changes, {} vanished", mode, folder.getFullName(),
+                added.size(), flagUpdates.size(), vanished.size());
+        return new FolderChanges(state, mode, false, added, flagUpdates, vanished);
+    }
+
+    /**
+     * Fetches the envelopes of the messages that arrived since the previous sync.
+     */
+    private List<EmailSummary> fetchNew(Folder folder, FolderSyncState previous) throws MessagingException {
+        long[] uids = ImapCommands.uidSearch(folder, null, previous.uidNext(), UIDFolder.MAXUID);
+        UIDFolder uidFolder = (UIDFolder) folder;
+        List<EmailSummary> added = new ArrayList<>(uids.length);
+        for (int start = 0; start < uids.length; start += chunkSize) {
+            long[] chunk = Arrays.copyOfRange(uids, start, Math.min(start + chunkSize, uids.length));
+            for (EmailSummary summary : EnvelopeIterator.readEnvelopes(folder, uidFolder.getMessagesByUID(chunk))) {
+                if (!previous.contains(summary.uid())) {
+                    added.add(summary);
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Packs the flags of a message, leaving out RECENT: it is specific to the session that sees
+     * the message first and would otherwise show up as a change on every sync.
+     */
+    private static int trackedBits(Message message) throws MessagingException {
+        return EmailFlag.toBits(EmailFlag.fromFlags(message.getFlags())) & ~EmailFlag.RECENT.bit();
+    }
+
+    private static List<Long> missing(long[] known, long[] present) {
+        List<Long> missing = new ArrayList<>();
+        for (long uid : known) {
+            if (Arrays.binarySearch(present, uid) < 0) {
+                missing.add(uid);
+            }
+        }
+        return missing;
+    }
+
+    private static long nextUid(long reportedUidNext, List<EmailSummary> added, long previousUidNext) {
+        long next = Math.max(reportedUidNext, previousUidNext);
+        for (EmailSummary summary : added) {
+            next = Math.max(next, summary.uid() + 1);
+        }
+        return next;
+    }
+
+    private long highestModSeq(Folder folder) throws MessagingException {
+        if (folder instanceof IMAPFolder imapFolder && hasCapability(folder, ImapCapability.CONDSTORE)) {
+            return imapFolder.getHighestModSeq();
+        }
+        return 0;
+    }
+
+    private boolean hasCapability(Folder folder, ImapCapability capability) {
+        return folder instanceof IMAPFolder && capabilities.has(capability);
+    }
+}
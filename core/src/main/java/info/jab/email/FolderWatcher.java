@@ -0,0 +1,405 @@
+package info.jab.email;
+
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPStore;
+import com.sun.mail.imap.protocol.IMAPResponse;
+import jakarta.mail.Folder;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Store;
+import jakarta.mail.UIDFolder;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches a folder for arriving and expunged messages over a dedicated connection held in IMAP
+ * IDLE (RFC 2177), so a new message is reported as soon as the server announces it instead of on
+ * the next poll of the whole folder.
+ *
+ * <p>Every wakeup costs one {@code UID SEARCH} for UIDs above the highest one seen, plus one
+ * envelope fetch for the messages it finds. The UIDs of the whole folder are searched once at
+ * start and again only after the server reported expunged messages; folders of other IMAP
+ * providers, which are polled, are searched in full on every poll.
+ *
+ * <p>IDLE is re-issued every re-IDLE interval, well before servers may end it after 30 minutes and
+ * NAT gateways forget a silent connection. Servers without IDLE are polled instead. A lost
+ * connection is reopened with the backoff of the retry policy, and the changes made while it was
+ * down are reported after reconnecting. Events are delivered on the watcher thread.
+ */
+public final class FolderWatcher implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FolderWatcher.class);
+
+    /**
+     * Default time after which IDLE is ended and re-issued.
+     */
+    public static final Duration DEFAULT_REIDLE_INTERVAL = Duration.ofMinutes(9);
+
+    /**
+     * Default time between polls of servers that do not support IDLE.
+     */
+    public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(5);
+
+    private static final Duration MIN_RECONNECT_DELAY = Duration.ofSeconds(1);
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+    private static final long CLOSE_RETRY_MILLIS = 100;
+    private static final int MAX_REMEMBERED_ENVELOPES = 1000;
+
+    private final String hostname;
+    private final int port;
+    private final String user;
+    private final String password;
+    private final ProtocolConfiguration protocolConfig;
+    private final String folderName;
+    private final FolderEventListener listener;
+    private final RetryPolicy retryPolicy;
+    private final Duration reIdleInterval;
+    private final Duration pollInterval;
+    private final Thread thread;
+    private final ScheduledExecutorService reIdleTimer;
+    private final CountDownLatch closing = new CountDownLatch(1);
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile Folder openFolder;
+    private volatile boolean watching;
+    private volatile EmailException failure;
+    private final AtomicBoolean expungeReported = new AtomicBoolean();
+
+    // State of the folder as last reported, only touched by the watcher thread
+    private long uidValidity = -1;
+    private long[] knownUids;
+    private long highestUid;
+    private boolean tracksExpunges;
+    private final Map<Long, EmailSummary> envelopes = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, EmailSummary> eldest) {
+            return size() > MAX_REMEMBERED_ENVELOPES;
+        }
+    };
+
+    /**
+     * Package-private constructor. Use {@link EmailClient#watchFolder} to create instances.
+     *
+     * @param hostname the hostname of the IMAP server
+     * @param port the IMAP port
+     * @param user the username for authentication
+     * @param password the password for authentication
+     * @param protocolConfig the protocol configuration of the port; its timeout is raised above the re-IDLE interval
+     * @param folderName the folder to watch
+     * @param listener receives the changes
+     * @param retryPolicy the backoff between reconnects
+     * @param reIdleInterval how long one IDLE command may last
+     * @param pollInterval the time between polls of servers without IDLE
+     */
+    FolderWatcher(String hostname, int port, String user, String password, ProtocolConfiguration protocolConfig,
+                  String folderName, FolderEventListener listener, RetryPolicy retryPolicy,
+                  Duration reIdleInterval, Duration pollInterval) {
+        this.hostname = hostname;
+        this.port = port;
+        this.user = user;
+        this.password = password;
+        // A silent IDLE must not run into the read timeout
+        this.protocolConfig = protocolConfig.withTimeout(reIdleInterval.plus(retryPolicy.operationTimeout()));
+        this.folderName = folderName;
+        this.listener = listener;
+        this.retryPolicy = retryPolicy;
+        this.reIdleInterval = reIdleInterval;
+        this.pollInterval = pollInterval;
+        this.thread = new Thread(this::run, "folder-watcher-" + folderName);
+        this.thread.setDaemon(true);
+        this.reIdleTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread timer = new Thread(runnable, "folder-watcher-reidle-" + folderName);
+            timer.setDaemon(true);
+            return timer;
+        });
+    }
+
+    /**
+     * Starts watching in the background.
+     *
+     * @return this watcher
+     */
+    FolderWatcher start() {
+        long interval = reIdleInterval.toMillis();
+        reIdleTimer.scheduleAtFixedRate(this::endIdle, interval, interval, TimeUnit.MILLISECONDS);
+        thread.start();
+        logger.info("Watching folder {} on {}:{}", folderName, hostname, port);
+        return this;
+    }
+
+    /**
+     * Gets the watched folder.
+     *
+     * @return the folder name
+     */
+    public String folder() {
+        return folderName;
+    }
+
+    /**
+     * Checks whether the watcher is still watching.
+     *
+     * @return false once it was closed or stopped because of an error
+     */
+    public boolean isRunning() {
+        return stopped.getCount() > 0;
+    }
+
+    /**
+     * Checks whether the watcher is connected and has taken the current content of the folder as
+     * its starting point, so every later change will be reported.
+     *
+     * @return true while connected, false while connecting, reconnecting or stopped
+     */
+    public boolean isWatching() {
+        return watching;
+    }
+
+    /**
+     * Gets the error that stopped the watcher.
+     *
+     * @return the error, or null if the watcher is running or was closed
+     */
+    public EmailException failure() {
+        return failure;
+    }
+
+    /**
+     * Waits until the watcher stops, which happens only when it is closed or fails.
+     *
+     * @param timeout the maximum time to wait
+     * @return true if the watcher stopped, false if the timeout elapsed first
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean awaitTermination(Duration timeout) throws InterruptedException {
+        return stopped.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops watching, ending IDLE and logging out. Events being delivered are completed first.
+     */
+    @Override
+    public void close() {
+        if (closing.getCount() == 0) {
+            return;
+        }
+        closing.countDown();
+        reIdleTimer.shutdownNow();
+        long deadline = System.nanoTime() + CLOSE_TIMEOUT.toNanos();
+        try {
+            // Repeated, since IDLE may start right after an attempt to end it
+            while (!stopped.await(CLOSE_RETRY_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (System.nanoTime() >= deadline) {
+                    logger.warn("Watcher of {} did not stop within {} ms", folderName, CLOSE_TIMEOUT.toMillis());
+                    return;
+                }
+                endIdle();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isClosing() {
+        return closing.getCount() == 0;
+    }
+
+    /**
+     * Ends a running IDLE by sending a NOOP from another thread: the provider sends DONE first,
+     * the watcher thread returns from IDLE, checks for changes and starts the next one.
+     */
+    private void endIdle() {
+        if (openFolder instanceof IMAPFolder imapFolder && imapFolder.isOpen()) {
+            try {
+                imapFolder.doCommand(protocol -> {
+                    protocol.noop();
+                    return null;
+                });
+            } catch (MessagingException | RuntimeException e) {
+                logger.debug("Error ending IDLE on {}: {}", folderName, e.getMessage());
+            }
+        }
+    }
+
+    private void run() {
+        Session session = SessionFactory.createStoreSession(hostname, port, user, password, protocolConfig);
+        int failures = 0;
+        try {
+            while (!isClosing()) {
+                Store store = null;
+                try {
+                    store = session.getStore(protocolConfig.getProtocol().getValue());
+                    store.connect(hostname, port, user, password);
+                    Folder folder = store.getFolder(folderName);
+                    folder.open(Folder.READ_ONLY);
+                    UIDFolder uidFolder = ImapCommands.requireUids(folder, "Watching");
+                    openFolder = folder;
+                    tracksExpunges = folder instanceof IMAPFolder imapFolder && trackExpunges(imapFolder);
+                    synchronize(folder, uidFolder);
+                    failures = 0;
+                    watching = true;
+                    watch(store, folder, uidFolder);
+                } catch (MessagingException e) {
+                    if (isClosing()) {
+                        break;
+                    }
+                    if (!ResilientExecutor.isConnectionFailure(e)) {
+                        fail(new EmailException("Error watching folder " + folderName + ": " + e.getMessage(), e));
+                        break;
+                    }
+                    failures++;
+                    Duration delay = retryPolicy.backoff(failures, ThreadLocalRandom.current().nextDouble());
+                    if (delay.compareTo(MIN_RECONNECT_DELAY) < 0) {
+                        delay = MIN_RECONNECT_DELAY;
+                    }
+                    logger.warn("Lost connection watching {}, reconnecting in {} ms: {}", folderName, delay.toMillis(), e.getMessage());
+                    if (closing.await(delay.toMillis(), TimeUnit.MILLISECONDS)) {
+                        break;
+                    }
+                } catch (RuntimeException e) {
+                    fail(new EmailException("Error watching folder " + folderName + ": " + e.getMessage(), e));
+                    break;
+                } finally {
+                    watching = false;
+                    openFolder = null;
+                    closeQuietly(store);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            reIdleTimer.shutdownNow();
+            stopped.countDown();
+            logger.info("Stopped watching folder {}", folderName);
+        }
+    }
+
+    private void fail(EmailException error) {
+        logger.error(error.getMessage(), error);
+        failure = error;
+        try {
+            listener.onError(error);
+        } catch (RuntimeException e) {
+            logger.warn("Folder event listener failed handling an error: {}", e.getMessage());
+        }
+    }
+
+    private void watch(Store store, Folder folder, UIDFolder uidFolder) throws MessagingException, InterruptedException {
+        boolean idle = folder instanceof IMAPFolder && store instanceof IMAPStore imapStore && imapStore.hasCapability("IDLE");
+        if (!idle) {
+            logger.warn("Server does not support IDLE, polling {} every {} ms", folderName, pollInterval.toMillis());
+        }
+        while (!isClosing()) {
+            if (idle) {
+                // Returns after the first notification, or when another thread uses the folder
+                ((IMAPFolder) folder).idle(true);
+            } else if (closing.await(pollInterval.toMillis(), TimeUnit.MILLISECONDS)) {
+                break;
+            }
+            if (isClosing()) {
+                break;
+            }
+            reportChanges(folder, uidFolder, null);
+        }
+    }
+
+    /**
+     * Flags every EXPUNGE or VANISHED response of the connection, including those read while idling,
+     * so the UIDs of the whole folder are only searched after something was expunged.
+     */
+    private boolean trackExpunges(IMAPFolder folder) throws MessagingException {
+        expungeReported.set(false);
+        folder.doCommand(protocol -> {
+            protocol.addResponseHandler(response -> {
+                if (response instanceof IMAPResponse imapResponse
+                        && (imapResponse.keyEquals("EXPUNGE") || imapResponse.keyEquals("VANISHED"))) {
+                    expungeReported.set(true);
+                }
+            });
+            return null;
+        });
+        return true;
+    }
+
+    /**
+     * Takes the UIDs of the folder as the starting point on first connect, or reports what
+     * changed while the watcher was disconnected when it reconnects.
+     */
+    private void synchronize(Folder folder, UIDFolder uidFolder) throws MessagingException {
+        long validity = uidFolder.getUIDValidity();
+        long[] present = ImapCommands.uidSearch(folder, null, 1, UIDFolder.MAXUID);
+        if (knownUids == null || validity != uidValidity) {
+            if (knownUids != null) {
+                logger.warn("UIDVALIDITY of {} changed from {} to {}, watching from its current content",
+                        folderName, uidValidity, validity);
+            }
+            uidValidity = validity;
+            knownUids = present;
+            highestUid = Math.max(present.length > 0 ? present[present.length - 1] : 0, uidFolder.getUIDNext() - 1);
+            envelopes.clear();
+            logger.debug("Watching {} with {} messages from UID {}", folderName, present.length, highestUid);
+            return;
+        }
+        reportChanges(folder, uidFolder, present);
+    }
+
+    /**
+     * Reports the messages that arrived above the highest UID seen and, if the server reported
+     * expunges or they are not tracked, the messages that were expunged.
+     *
+     * @param present all UIDs of the folder if already searched, or null to search only what is needed
+     */
+    private void reportChanges(Folder folder, UIDFolder uidFolder, long[] present) throws MessagingException {
+        long previousHighest = highestUid;
+        if (present == null && (!tracksExpunges || expungeReported.getAndSet(false))) {
+            present = ImapCommands.uidSearch(folder, null, 1, UIDFolder.MAXUID);
+        }
+        long[] added = present != null
+                ? LongStream.of(present).filter(uid -> uid > previousHighest).toArray()
+                : ImapCommands.uidSearch(folder, null, previousHighest + 1, UIDFolder.MAXUID);
+
+        if (present != null) {
+            long[] remaining = LongStream.of(present).filter(uid -> uid <= previousHighest).toArray();
+            for (long uid : knownUids) {
+                if (Arrays.binarySearch(remaining, uid) < 0) {
+                    listener.onEvent(new FolderEvent(FolderEvent.Type.EXPUNGED, folderName, uidValidity, uid, envelopes.remove(uid)));
+                }
+            }
+            knownUids = remaining;
+        }
+        if (added.length == 0) {
+            return;
+        }
+        List<EmailSummary> emails = EnvelopeIterator.readEnvelopes(folder, uidFolder.getMessagesByUID(added));
+        highestUid = added[added.length - 1];
+        knownUids = LongStream.concat(LongStream.of(knownUids), emails.stream().mapToLong(EmailSummary::uid)).toArray();
+        logger.debug("{} new messages in {}", emails.size(), folderName);
+        for (EmailSummary email : emails) {
+            envelopes.put(email.uid(), email);
+            listener.onEvent(new FolderEvent(FolderEvent.Type.NEW_MESSAGE, folderName, uidValidity, email.uid(), email));
+        }
+    }
+
+    private void closeQuietly(Store store) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.close();
+        } catch (MessagingException e) {
+            logger.debug("Error closing watcher connection of {}: {}", folderName, e.getMessage());
+        }
+    }
+}
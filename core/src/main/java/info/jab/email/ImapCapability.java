@@ -0,0 +1,82 @@
+package info.jab.email;
+
+/**
+ * IMAP extensions that let the client pick a cheaper command for an operation. Each has a
+ * fallback that works on servers without it.
+ */
+public enum ImapCapability {
+    /**
+     * ESEARCH (RFC 4731): {@code SEARCH RETURN (COUNT)} counts without listing the matches.
+     */
+    ESEARCH("ESEARCH"),
+
+    /**
+     * SORT (RFC 5256): the server sorts, so only the first emails need fetching.
+     */
+    SORT("SORT"),
+
+    /**
+     * THREAD (RFC 5256) with any threading algorithm.
+     */
+    THREAD("THREAD=*"),
+
+    /**
+     * CONDSTORE (RFC 7162): changed flags are fetched with CHANGEDSINCE.
+     */
+    CONDSTORE("CONDSTORE"),
+
+    /**
+     * QRESYNC (RFC 7162): changed flags and vanished UIDs are reported when the folder is opened.
+     */
+    QRESYNC("QRESYNC"),
+
+    /**
+     * UIDPLUS (RFC 4315): {@code UID EXPUNGE} removes only the given messages.
+     */
+    UIDPLUS("UIDPLUS"),
+
+    /**
+     * MOVE (RFC 6851): {@code UID MOVE} instead of copying and deleting.
+     */
+    MOVE("MOVE"),
+
+    /**
+     * LIST-STATUS (RFC 5819): the counts of all folders in one LIST command.
+     */
+    LIST_STATUS("LIST-STATUS"),
+
+    /**
+     * STATUS=SIZE (RFC 8438): folder sizes in STATUS responses.
+     */
+    STATUS_SIZE("STATUS=SIZE"),
+
+    /**
+     * COMPRESS=DEFLATE (RFC 4978): a compressed connection.
+     */
+    COMPRESS("COMPRESS=DEFLATE"),
+
+    /**
+     * WITHIN (RFC 5032): the OLDER and YOUNGER search keys, relative to the current time.
+     */
+    WITHIN("WITHIN"),
+
+    /**
+     * IDLE (RFC 2177): the server pushes changes of the selected folder.
+     */
+    IDLE("IDLE");
+
+    private final String atom;
+
+    ImapCapability(String atom) {
+        this.atom = atom;
+    }
+
+    /**
+     * Gets the capability as the server advertises it, where a trailing {@code *} matches any suffix.
+     *
+     * @return the capability name
+     */
+    public String atom() {
+        return atom;
+    }
+}
@@ -0,0 +1,432 @@
+package info.jab.email;
+
+import com.sun.mail.iap.Argument;
+import com.sun.mail.iap.ProtocolException;
+import com.sun.mail.iap.Response;
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.protocol.IMAPProtocol;
+import com.sun.mail.imap.protocol.BASE64MailboxEncoder;
+import com.sun.mail.imap.protocol.IMAPResponse;
+import com.sun.mail.imap.protocol.ListInfo;
+import com.sun.mail.imap.protocol.SearchSequence;
+import com.sun.mail.imap.protocol.Status;
+import com.sun.mail.imap.protocol.UIDSet;
+import jakarta.mail.FetchProfile;
+import jakarta.mail.Flags;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.UIDFolder;
+import jakarta.mail.search.SearchException;
+import jakarta.mail.search.SearchTerm;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.LongStream;
+
+/**
+ * Raw IMAP commands that Jakarta Mail does not expose through the Folder API,
+ * issued over the connection of an open {@link IMAPFolder}.
+ *
+ * <p>All methods work on UIDs rather than message sequence numbers, so their
+ * results stay valid while other clients add or expunge messages.
+ */
+final class ImapCommands {
+
+    private static final String[] STATUS_ITEMS = {"MESSAGES", "UNSEEN", "UIDNEXT", "UIDVALIDITY"};
+    private static final String[] STATUS_ITEMS_WITH_SIZE = {"MESSAGES", "UNSEEN", "UIDNEXT", "UIDVALIDITY", "SIZE"};
+
+    private ImapCommands() {
+        // Utility class
+    }
+
+    /**
+     * Runs {@code UID SEARCH} restricted to a UID range.
+     *
+     * <p>Folders of other IMAP providers that only implement {@link UIDFolder} fall back to
+     * fetching the messages of the UID range and searching among them, which costs an extra
+     * round trip but keeps the same result. So do terms that SearchSequence cannot express, such
+     * as a SizeTerm with GE or a custom SearchTerm, which are matched on the client like
+     * {@link IMAPFolder#search(SearchTerm)} does.
+     *
+     * @param folder the open folder
+     * @param searchTerm the search criteria, or null for all messages
+     * @param fromUid the lowest UID to include
+     * @param toUid the highest UID to include, or {@link UIDFolder#MAXUID} for no upper bound
+     * @return the matching UIDs in ascending order
+     * @throws MessagingException if the command fails or the folder does not support UIDs
+     */
+    static long[] uidSearch(Folder folder, SearchTerm searchTerm, long fromUid, long toUid) throws MessagingException {
+        if (fromUid > toUid || NoMatchTerm.matchesNothing(searchTerm)) {
+            return new long[0];
+        }
+        long[] uids;
+        if (folder instanceof IMAPFolder imapFolder) {
+            uids = (long[]) imapFolder.doCommand(protocol -> {
+                Argument args = new Argument();
+                args.writeAtom("UID");
+                args.writeAtom(uidRange(fromUid, toUid));
+                if (searchTerm != null) {
+                    Argument criteria = serverCriteria(protocol, searchTerm);
+                    if (criteria == null) {
+                        return null;
+                    }
+                    args.append(criteria);
+                }
+                return readNumbers(protocol, withCharset("UID SEARCH", searchTerm), args, "SEARCH");
+            });
+            if (uids == null) {
+                uids = searchByUidRange(imapFolder, searchTerm, fromUid, toUid);
+            }
+        } else {
+            uids = searchByUidRange(requireUids(folder, "UID search"), searchTerm, fromUid, toUid);
+        }
+        // "n:*" always includes the highest UID, even when it is below n
+        return LongStream.of(uids).filter(uid -> uid >= fromUid && uid <= toUid).sorted().toArray();
+    }
+
+    /**
+     * Counts the messages matching a search with {@code SEARCH RETURN (COUNT)} (RFC 4731), so the
+     * server answers with a single number instead of the list of matching messages. Terms that
+     * SearchSequence cannot express are matched on the client by {@link IMAPFolder#search(SearchTerm)}.
+     *
+     * @param folder the open folder, on a server with the ESEARCH capability
+     * @param searchTerm the search criteria
+     * @return the number of matching messages
+     * @throws MessagingException if the command fails
+     */
+    static int searchCount(IMAPFolder folder, SearchTerm searchTerm) throws MessagingException {
+        Integer count = (Integer) folder.doCommand(protocol -> {
+            Argument criteria = serverCriteria(protocol, searchTerm);
+            return criteria != null ? countMatches(protocol, SearchSequence.isAscii(searchTerm), criteria) : null;
+        });
+        return count != null ? count : folder.search(searchTerm).length;
+    }
+
+    /**
+     * Counts the messages of a UID range with {@code SEARCH RETURN (COUNT) UID from:to} (RFC 4731).
+     *
+     * @param folder the open folder, on a server with the ESEARCH capability
+     * @param fromUid the lowest UID to include
+     * @param toUid the highest UID to include
+     * @return the number of messages in the range
+     * @throws MessagingException if the command fails
+     */
+    static int uidCount(IMAPFolder folder, long fromUid, long toUid) throws MessagingException {
+        if (fromUid > toUid) {
+            return 0;
+        }
+        return (int) folder.doCommand(protocol -> {
+            Argument criteria = new Argument();
+            criteria.writeAtom("UID");
+            criteria.writeAtom(uidRange(fromUid, toUid));
+            return countMatches(protocol, true, criteria);
+        });
+    }
+
+    private static int countMatches(IMAPProtocol protocol, boolean ascii, Argument criteria) throws ProtocolException {
+        Argument args = new Argument();
+        args.writeAtom("RETURN");
+        Argument returnOptions = new Argument();
+        returnOptions.writeAtom("COUNT");
+        args.writeArgument(returnOptions);
+        // RFC 4466 puts the return options before the charset
+        if (!ascii) {
+            args.writeAtom("CHARSET");
+            args.writeAtom("UTF-8");
+        }
+        args.append(criteria);
+
+        Response[] responses = protocol.command("SEARCH", args);
+        Response result = responses[responses.length - 1];
+        int count = 0;
+        if (result.isOK()) {
+            for (int i = 0; i < responses.length - 1; i++) {
+                if (responses[i] instanceof IMAPResponse response && response.keyEquals("ESEARCH")) {
+                    count = readEsearchCount(response);
+                    responses[i] = null;
+                }
+            }
+        }
+        protocol.notifyResponseHandlers(responses);
+        protocol.handleResult(result);
+        return count;
+    }
+
+    /**
+     * Reads the COUNT of an {@code ESEARCH [(TAG "tag")] [UID] COUNT n} response, which is absent when nothing matched.
+     */
+    static int readEsearchCount(IMAPResponse response) {
+        response.skipSpaces();
+        if (response.peekByte() == '(') {
+            byte b;
+            do {
+                b = response.readByte();
+            } while (b != ')' && b != 0);
+        }
+        String atom;
+        while ((atom = response.readAtom()) != null && !atom.isEmpty()) {
+            if (atom.equalsIgnoreCase("COUNT")) {
+                return (int) response.readLong();
+            }
+            if (!atom.equalsIgnoreCase("UID")) {
+                response.readAtom();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Marks messages as deleted with {@code UID STORE uids +FLAGS.SILENT (\Deleted)}, sending the
+     * UIDs as compressed ranges, and optionally removes exactly those messages with
+     * {@code UID EXPUNGE} (RFC 4315), leaving messages other clients marked as deleted alone.
+     *
+     * <p>Folders of other IMAP providers fall back to setting the flag on the messages of the UIDs;
+     * expunging is then left to the caller.
+     *
+     * @param folder the folder, open read-write
+     * @param uids the UIDs of the messages in ascending order
+     * @param uidExpunge whether to expunge the messages with UID EXPUNGE, which needs UIDPLUS
+     * @throws MessagingException if a command fails
+     */
+    static void uidDelete(Folder folder, long[] uids, boolean uidExpunge) throws MessagingException {
+        if (folder instanceof IMAPFolder imapFolder) {
+            UIDSet[] uidSets = UIDSet.createUIDSets(uids);
+            imapFolder.doCommand(protocol -> {
+                Argument args = new Argument();
+                args.writeAtom(UIDSet.toString(uidSets));
+                args.writeAtom("+FLAGS.SILENT");
+                args.writeAtom("(\\Deleted)");
+                protocol.simpleCommand("UID STORE", args);
+                if (uidExpunge) {
+                    protocol.uidexpunge(uidSets);
+                }
+                return null;
+            });
+        } else {
+            Message[] messages = requireUids(folder, "UID delete").getMessagesByUID(uids);
+            folder.setFlags(Arrays.stream(messages).filter(Objects::nonNull).toArray(Message[]::new),
+                    new Flags(Flags.Flag.DELETED), true);
+        }
+    }
+
+    /**
+     * Copies messages to another folder with {@code UID COPY}, or moves them with {@code UID MOVE}
+     * (RFC 6851), sending the UIDs as compressed ranges so a chunk costs a single command.
+     *
+     * <p>Folders of other IMAP providers fall back to copying the messages of the UIDs; moving
+     * is then left to the caller, by deleting the copied messages.
+     *
+     * @param folder the open source folder
+     * @param uids the UIDs of the messages in ascending order
+     * @param target the target folder, which must exist
+     * @param move whether to move the messages with UID MOVE, which needs the MOVE capability
+     * @throws MessagingException if a command fails
+     */
+    static void uidCopy(Folder folder, long[] uids, Folder target, boolean move) throws MessagingException {
+        if (folder instanceof IMAPFolder imapFolder) {
+            String uidSet = UIDSet.toString(UIDSet.createUIDSets(uids));
+            imapFolder.doCommand(protocol -> {
+                Argument args = new Argument();
+                args.writeAtom(uidSet);
+                writeMailboxName(protocol, args, target.getFullName());
+                protocol.simpleCommand(move ? "UID MOVE" : "UID COPY", args);
+                return null;
+            });
+        } else {
+            Message[] messages = requireUids(folder, "UID copy").getMessagesByUID(uids);
+            folder.copyMessages(Arrays.stream(messages).filter(Objects::nonNull).toArray(Message[]::new), target);
+        }
+    }
+
+    /**
+     * Runs {@code LIST "" pattern RETURN (STATUS (...))} (RFC 5819), which returns the folders
+     * matching a pattern together with their counts in a single round trip. Only selectable
+     * folders are returned, in the order the server lists them.
+     *
+     * @param folder any folder of the store, used for its connection; it does not need to be open
+     * @param pattern the LIST pattern
+     * @param withSize whether to ask for the SIZE item as well, which needs STATUS=SIZE (RFC 8438)
+     * @return the status of each matching folder
+     * @throws MessagingException if the command fails
+     */
+    @SuppressWarnings("unchecked")
+    static List<FolderStatus> listStatus(IMAPFolder folder, String pattern, boolean withSize) throws MessagingException {
+        return (List<FolderStatus>) folder.doCommand(protocol -> {
+            Argument args = new Argument();
+            args.writeString("");
+            writeMailboxName(protocol, args, pattern);
+            args.writeAtom("RETURN");
+            Argument returnOptions = new Argument();
+            returnOptions.writeAtom("STATUS");
+            returnOptions.writeArgument(statusItems(withSize));
+            args.writeArgument(returnOptions);
+
+            Response[] responses = protocol.command("LIST", args);
+            Response result = responses[responses.length - 1];
+            List<String> selectable = new ArrayList<>();
+            Map<String, Status> statuses = new HashMap<>();
+            if (result.isOK()) {
+                for (int i = 0; i < responses.length - 1; i++) {
+                    if (!(responses[i] instanceof IMAPResponse response)) {
+                        continue;
+                    }
+                    if (response.keyEquals("LIST")) {
+                        ListInfo info = new ListInfo(response);
+                        if (info.canOpen) {
+                            selectable.add(info.name);
+                        }
+                        responses[i] = null;
+                    } else if (response.keyEquals("STATUS")) {
+                        Status status = new Status(response);
+                        statuses.put(status.mbox, status);
+                        responses[i] = null;
+                    }
+                }
+            }
+            protocol.notifyResponseHandlers(responses);
+            protocol.handleResult(result);
+
+            List<FolderStatus> folders = new ArrayList<>(selectable.size());
+            for (String name : selectable) {
+                Status status = statuses.get(name);
+                if (status != null) {
+                    folders.add(toFolderStatus(name, status, withSize));
+                }
+            }
+            return folders;
+        });
+    }
+
+    /**
+     * Runs {@code STATUS} for one folder, asking for all counts in a single round trip.
+     *
+     * @param folder the folder, which does not need to be open
+     * @param withSize whether to ask for the SIZE item as well, which needs STATUS=SIZE (RFC 8438)
+     * @return the status of the folder
+     * @throws MessagingException if the command fails
+     */
+    static FolderStatus status(IMAPFolder folder, boolean withSize) throws MessagingException {
+        String[] items = withSize ? STATUS_ITEMS_WITH_SIZE : STATUS_ITEMS;
+        Status status = (Status) folder.doCommand(protocol -> protocol.status(folder.getFullName(), items));
+        return toFolderStatus(folder.getFullName(), status, withSize);
+    }
+
+    /**
+     * Writes a mailbox name or pattern, in UTF-8 if the server accepts it and in modified UTF-7 otherwise.
+     */
+    private static void writeMailboxName(IMAPProtocol protocol, Argument args, String name) {
+        if (protocol.supportsUtf8()) {
+            args.writeString(name, StandardCharsets.UTF_8);
+        } else {
+            args.writeString(BASE64MailboxEncoder.encode(name));
+        }
+    }
+
+    private static Argument statusItems(boolean withSize) {
+        Argument items = new Argument();
+        for (String item : withSize ? STATUS_ITEMS_WITH_SIZE : STATUS_ITEMS) {
+            items.writeAtom(item);
+        }
+        return items;
+    }
+
+    private static FolderStatus toFolderStatus(String name, Status status, boolean withSize) {
+        return new FolderStatus(name, status.total, status.unseen, withSize ? status.getItem("SIZE") : -1,
+                status.uidnext, status.uidvalidity);
+    }
+
+    /**
+     * Casts a folder to a UIDFolder, failing with a clear message for stores without UIDs.
+     *
+     * @param folder the folder
+     * @param operation the operation that needs UIDs, used in the error message
+     * @return the folder as a UIDFolder
+     * @throws MessagingException if the folder does not support UIDs
+     */
+    static UIDFolder requireUids(Folder folder, String operation) throws MessagingException {
+        if (folder instanceof UIDFolder uidFolder) {
+            return uidFolder;
+        }
+        throw new MessagingException(operation + " requires a store with UID support, but folder " + folder.getFullName()
+                + " is served by " + folder.getStore().getClass().getSimpleName());
+    }
+
+    private static long[] searchByUidRange(UIDFolder uidFolder, SearchTerm searchTerm, long fromUid, long toUid)
+            throws MessagingException {
+        Folder folder = (Folder) uidFolder;
+        Message[] messages = uidFolder.getMessagesByUID(fromUid, toUid);
+        if (searchTerm != null && messages.length > 0) {
+            messages = folder.search(searchTerm, messages);
+        }
+        FetchProfile uidProfile = new FetchProfile();
+        uidProfile.add(UIDFolder.FetchProfileItem.UID);
+        folder.fetch(messages, uidProfile);
+        long[] uids = new long[messages.length];
+        for (int i = 0; i < messages.length; i++) {
+            uids[i] = uidFolder.getUID(messages[i]);
+        }
+        return uids;
+    }
+
+    /**
+     * Formats a UID range, using {@code *} for an open upper bound.
+     *
+     * @param fromUid the first UID
+     * @param toUid the last UID, or {@link UIDFolder#MAXUID}
+     * @return the range in IMAP sequence-set syntax
+     */
+    static String uidRange(long fromUid, long toUid) {
+        String end = toUid >= UIDFolder.MAXUID ? "*" : Long.toString(toUid);
+        return fromUid == toUid ? end : fromUid + ":" + end;
+    }
+
+    private static String withCharset(String command, SearchTerm searchTerm) {
+        if (searchTerm == null || SearchSequence.isAscii(searchTerm)) {
+            return command;
+        }
+        return command + " CHARSET UTF-8";
+    }
+
+    /**
+     * Generates the IMAP SEARCH criteria of a term, or null when SearchSequence cannot express it.
+     */
+    private static Argument serverCriteria(IMAPProtocol protocol, SearchTerm searchTerm) throws ProtocolException {
+        String charset = SearchSequence.isAscii(searchTerm) ? null : "UTF-8";
+        try {
+            return new SearchSequence(protocol).generateSequence(searchTerm, charset);
+        } catch (SearchException e) {
+            return null;
+        } catch (IOException e) {
+            throw new ProtocolException("Search term cannot be sent to the server: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sends a command and collects the numbers of its untagged responses with the given key.
+     */
+    private static long[] readNumbers(IMAPProtocol protocol, String command, Argument args, String key) throws ProtocolException {
+        Response[] responses = protocol.command(command, args);
+        Response result = responses[responses.length - 1];
+        LongStream.Builder numbers = LongStream.builder();
+        if (result.isOK()) {
+            for (int i = 0; i < responses.length - 1; i++) {
+                if (responses[i] instanceof IMAPResponse response && response.keyEquals(key)) {
+                    long number;
+                    while ((number = response.readLong()) != -1) {
+                        numbers.add(number);
+                    }
+                    responses[i] = null;
+                }
+            }
+        }
+        protocol.notifyResponseHandlers(responses);
+        protocol.handleResult(result);
+        return numbers.build().toArray();
+    }
+}
@@ -0,0 +1,30 @@
+package info.jab.email;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a search over several folders. Folders that could not be searched do not fail
+ * the whole search: their errors are reported next to the emails found in the others.
+ *
+ * @param emails the emails found, ordered by date with the oldest first
+ * @param failures the error of each folder that could not be searched or was cancelled, in folder order
+ */
+public record MultiFolderResult(List<FolderEmail> emails, Map<String, EmailException> failures) {
+
+    public MultiFolderResult {
+        emails = emails == null ? List.of() : List.copyOf(emails);
+        failures = failures == null ? Map.of() : Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+    }
+
+    /**
+     * Checks whether every folder was searched.
+     *
+     * @return true if no folder failed or was cancelled
+     */
+    public boolean isComplete() {
+        return failures.isEmpty();
+    }
+}
@@ -0,0 +1,53 @@
+package info.jab.email;
+
+import jakarta.mail.Message;
+import jakarta.mail.search.SearchTerm;
+
+/**
+ * A search term that matches no message, produced when a search contradicts itself,
+ * for example by asking for messages that are both read and unread.
+ *
+ * <p>Clients answer it with an empty result without contacting the server, since IMAP
+ * has no way to express it. Use {@link EmailSearch#none()} to create one.
+ */
+public final class NoMatchTerm extends SearchTerm {
+
+    static final NoMatchTerm INSTANCE = new NoMatchTerm();
+
+    private NoMatchTerm() {
+    }
+
+    /**
+     * Checks whether a search term matches no message at all.
+     *
+     * @param term the search term, or null
+     * @return true if the term is a {@code NoMatchTerm}
+     */
+    public static boolean matchesNothing(SearchTerm term) {
+        return term instanceof NoMatchTerm;
+    }
+
+    @Override
+    public boolean match(Message message) {
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof NoMatchTerm;
+    }
+
+    @Override
+    public int hashCode() {
+        return NoMatchTerm.class.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "NONE";
+    }
+
+    private Object readResolve() {
+        return INSTANCE;
+    }
+}
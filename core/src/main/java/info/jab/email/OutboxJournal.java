@@ -0,0 +1,407 @@
+package info.jab.email;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only journal of the emails in an {@link EmailOutbox}.
+ *
+ * <p>The file starts with a header (magic and version) followed by checksummed records:
+ * <pre>
+ * int    length of the rest of the record
+ * int    CRC32C of the bytes after it
+ * byte   type: 1 enqueued, 2 sent, 3 failed
+ * string Message-ID   (int byte length, then UTF-8 bytes)
+ * enqueued: long enqueue time in epoch millis, then string to, subject and body
+ * failed:   string error
+ * </pre>
+ * Appends are only written to the file; {@link #sync()} forces them to disk, so callers decide
+ * how many appends share one fsync. A record torn or corrupted by a crash ends the replay and is
+ * cut off, together with anything after it. Compaction rewrites the journal with only the
+ * pending emails and atomically replaces the old file.
+ *
+ * <p>An open journal holds an exclusive lock on a sibling {@code .lock} file, which compaction
+ * never replaces, so a second process opening the same outbox fails instead of replaying and
+ * sending the pending emails again.
+ */
+final class OutboxJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxJournal.class);
+
+    static final int MAGIC = 0x4F424F58; // "OBOX"
+    static final short VERSION = 1;
+    private static final int HEADER_LENGTH = Integer.BYTES + Short.BYTES;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024 * 1024;
+
+    private static final byte ENQUEUED = 1;
+    private static final byte SENT = 2;
+    private static final byte FAILED = 3;
+
+    // File locks are held per process, so journals open in this process are tracked separately
+    private static final Set<Path> OPEN_JOURNALS = ConcurrentHashMap.newKeySet();
+
+    /**
+     * An email in the journal that was neither sent nor given up on.
+     *
+     * @param messageId the Message-ID the email is sent with
+     * @param email the email
+     * @param enqueuedAt when the email was enqueued
+     */
+    record Entry(String messageId, EmailMessage email, Instant enqueuedAt) { }
+
+    private final Path path;
+    private final FileChannel lockChannel;
+    private FileChannel channel;
+    private boolean dirty;
+    private int doneOnOpen;
+
+    private OutboxJournal(Path path, FileChannel lockChannel, FileChannel channel) {
+        this.path = path;
+        this.lockChannel = lockChannel;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a journal, creating it when missing, and replays it.
+     *
+     * @param path the journal file
+     * @param pending receives the pending emails in enqueue order, keyed by Message-ID
+     * @return the open journal
+     * @throws IOException if the file cannot be created or read, is not a journal, or is already
+     *         open in this or another process
+     */
+    static OutboxJournal open(Path path, Map<String, Entry> pending) throws IOException {
+        Files.createDirectories(path.getParent());
+        FileChannel lockChannel = lock(path);
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (channel.size() == 0) {
+                channel.write(header(), 0);
+                channel.force(true);
+            }
+            OutboxJournal journal = new OutboxJournal(path, lockChannel, channel);
+            journal.doneOnOpen = journal.replay(pending);
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            unlock(path, lockChannel);
+            throw e;
+        }
+    }
+
+    /**
+     * Makes this process the only owner of the journal, failing fast when another one holds it.
+     */
+    private static FileChannel lock(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        if (!OPEN_JOURNALS.add(key)) {
+            throw new IOException("Outbox journal " + path + " is already open in this process");
+        }
+        FileChannel lockChannel = null;
+        try {
+            lockChannel = FileChannel.open(path.resolveSibling(path.getFileName() + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("Outbox journal " + path + " is in use by another process");
+            }
+            return lockChannel;
+        } catch (IOException | RuntimeException e) {
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+            OPEN_JOURNALS.remove(key);
+            throw e;
+        }
+    }
+
+    private static void unlock(Path path, FileChannel lockChannel) throws IOException {
+        try {
+            lockChannel.close();
+        } finally {
+            OPEN_JOURNALS.remove(path.toAbsolutePath().normalize());
+        }
+    }
+
+    /**
+     * Appends an enqueued email.
+     *
+     * @param entry the email and its Message-ID
+     * @throws IOException if the file cannot be written
+     */
+    synchronized void appendEnqueued(Entry entry) throws IOException {
+        append(encodeEnqueued(entry));
+    }
+
+    /**
+     * Appends that an email was accepted by the server.
+     *
+     * @param messageId the Message-ID of the email
+     * @throws IOException if the file cannot be written
+     */
+    synchronized void appendSent(String messageId) throws IOException {
+        append(encode(SENT, messageId, null));
+    }
+
+    /**
+     * Appends that delivery of an email was given up.
+     *
+     * @param messageId the Message-ID of the email
+     * @param error the last delivery error
+     * @throws IOException if the file cannot be written
+     */
+    synchronized void appendFailed(String messageId, String error) throws IOException {
+        append(encode(FAILED, messageId, error));
+    }
+
+    /**
+     * Forces all appends since the last sync to disk.
+     *
+     * @throws IOException if the file cannot be synced
+     */
+    synchronized void sync() throws IOException {
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    /**
+     * Gets the size of the journal file.
+     *
+     * @return the size in bytes
+     * @throws IOException if the size cannot be read
+     */
+    synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Rewrites the journal with only the given pending emails, replacing the old file atomically.
+     * The old file stays open for appends until the new one is in place, so a failed compaction
+     * leaves the journal as it was.
+     *
+     * @param pending the emails that are still pending, in enqueue order
+     * @throws IOException if the new journal cannot be written or moved into place
+     */
+    synchronized void compact(Collection<Entry> pending) throws IOException {
+        sync();
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            out.write(header());
+            for (Entry entry : pending) {
+                ByteBuffer record = ByteBuffer.wrap(encodeEnqueued(entry));
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+            }
+            out.force(true);
+            try {
+                Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            Files.deleteIfExists(compacted);
+            throw e;
+        }
+        // The moved channel now writes to the journal, so the old file is no longer needed
+        FileChannel old = channel;
+        channel = out;
+        try {
+            old.close();
+        } catch (IOException e) {
+            logger.warn("Error closing replaced outbox journal {}: {}", path, e.getMessage());
+        }
+        logger.debug("Compacted outbox journal {} to {} pending emails", path, pending.size());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            try {
+                channel.close();
+            } finally {
+                unlock(path, lockChannel);
+            }
+        }
+    }
+
+    private void append(byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        long position = channel.size();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        dirty = true;
+    }
+
+    /**
+     * Gets how many emails the journal held as sent or failed when it was opened, which compaction would drop.
+     */
+    int doneOnOpen() {
+        return doneOnOpen;
+    }
+
+    private int replay(Map<String, Entry> pending) throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(fileSize, Integer.MAX_VALUE));
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+            // keep reading until the whole journal is in memory
+        }
+        buffer.flip();
+        if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+            throw new IOException(path + " is not an outbox journal");
+        }
+        int done = 0;
+        long validEnd = buffer.position();
+        while (buffer.remaining() >= 2 * Integer.BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 1 || length > MAX_RECORD_LENGTH || length > buffer.remaining()
+                    || checksum != checksum(buffer, buffer.position(), length)) {
+                break;
+            }
+            ByteBuffer record = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            try {
+                byte type = record.get();
+                String messageId = getString(record);
+                switch (type) {
+                    case ENQUEUED -> {
+                        Instant enqueuedAt = Instant.ofEpochMilli(record.getLong());
+                        EmailMessage email = new EmailMessage(getString(record), getString(record), getString(record));
+                        pending.put(messageId, new Entry(messageId, email, enqueuedAt));
+                    }
+                    case SENT, FAILED -> {
+                        if (pending.remove(messageId) != null) {
+                            done++;
+                        }
+                    }
+                    default -> throw new IllegalStateException("Unknown outbox record type " + type);
+                }
+            } catch (BufferUnderflowException | IllegalStateException e) {
+                logger.warn("Corrupt outbox journal record at offset {}: {}", validEnd, e.getMessage());
+                break;
+            }
+            validEnd = buffer.position();
+        }
+        if (validEnd < fileSize) {
+            logger.warn("Cutting off {} bytes of torn records at the end of outbox journal {}", fileSize - validEnd, path);
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+        logger.debug("Replayed outbox journal {}: {} pending, {} done", path, pending.size(), done);
+        return done;
+    }
+
+    private static ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER_LENGTH).putInt(MAGIC).putShort(VERSION).flip();
+    }
+
+    private static byte[] encodeEnqueued(Entry entry) {
+        EmailMessage email = entry.email();
+        byte[] messageId = utf8(entry.messageId());
+        byte[] to = utf8(email.to());
+        byte[] subject = utf8(email.subject());
+        byte[] body = utf8(email.body());
+        ByteBuffer buffer = record(1 + stringLength(messageId) + Long.BYTES
+                + stringLength(to) + stringLength(subject) + stringLength(body));
+        buffer.put(ENQUEUED);
+        putString(buffer, messageId);
+        buffer.putLong(entry.enqueuedAt().toEpochMilli());
+        putString(buffer, to);
+        putString(buffer, subject);
+        putString(buffer, body);
+        return seal(buffer);
+    }
+
+    private static byte[] encode(byte type, String messageId, String error) {
+        byte[] id = utf8(messageId);
+        byte[] errorBytes = error != null ? utf8(error) : null;
+        ByteBuffer buffer = record(1 + stringLength(id) + (errorBytes != null ? stringLength(errorBytes) : 0));
+        buffer.put(type);
+        putString(buffer, id);
+        if (errorBytes != null) {
+            putString(buffer, errorBytes);
+        }
+        return seal(buffer);
+    }
+
+    private static ByteBuffer record(int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES + length);
+        buffer.putInt(length).putInt(0);
+        return buffer;
+    }
+
+    /**
+     * Fills in the checksum of a record once its payload is written.
+     */
+    private static byte[] seal(ByteBuffer buffer) {
+        int length = buffer.getInt(0);
+        buffer.putInt(Integer.BYTES, checksum(buffer, 2 * Integer.BYTES, length));
+        return buffer.array();
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static byte[] utf8(String value) {
+        return (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringLength(byte[] bytes) {
+        return Integer.BYTES + bytes.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalStateException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
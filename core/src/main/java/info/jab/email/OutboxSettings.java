@@ -0,0 +1,52 @@
+package info.jab.email;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Tuning of an {@link EmailOutbox}.
+ *
+ * @param syncInterval how long appends to the journal may wait for a shared fsync; an enqueued
+ *        email can be lost in a crash within this window unless {@link EmailOutbox#sync()} is called
+ * @param maxAttempts how many times delivery of an email is attempted before it is given up
+ * @param initialRetryDelay the delay before the first retry, doubled for every further retry
+ * @param maxRetryDelay the upper bound of the retry delay
+ */
+public record OutboxSettings(Duration syncInterval, int maxAttempts, Duration initialRetryDelay, Duration maxRetryDelay) {
+
+    /**
+     * Settings that fsync every 10 ms and try each email 5 times, retrying after 1 s up to 5 min.
+     */
+    public static final OutboxSettings DEFAULTS =
+            new OutboxSettings(Duration.ofMillis(10), 5, Duration.ofSeconds(1), Duration.ofMinutes(5));
+
+    public OutboxSettings {
+        Objects.requireNonNull(syncInterval, "syncInterval");
+        Objects.requireNonNull(initialRetryDelay, "initialRetryDelay");
+        Objects.requireNonNull(maxRetryDelay, "maxRetryDelay");
+        if (syncInterval.isNegative() || syncInterval.isZero()) {
+            throw new IllegalArgumentException("Sync interval must be positive, but got: " + syncInterval);
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be at least 1, but got: " + maxAttempts);
+        }
+        if (initialRetryDelay.isNegative() || maxRetryDelay.compareTo(initialRetryDelay) < 0) {
+            throw new IllegalArgumentException("Retry delays must satisfy 0 <= initial <= max, but got: "
+                    + initialRetryDelay + " and " + maxRetryDelay);
+        }
+    }
+
+    /**
+     * Gets the delay before a retry, doubling the initial delay per earlier attempt up to the maximum.
+     *
+     * @param attempts how many attempts were made so far, at least 1
+     * @return the delay before the next attempt
+     */
+    Duration retryDelay(int attempts) {
+        Duration delay = initialRetryDelay;
+        for (int i = 1; i < attempts && delay.compareTo(maxRetryDelay) < 0; i++) {
+            delay = delay.multipliedBy(2);
+        }
+        return delay.compareTo(maxRetryDelay) < 0 ? delay : maxRetryDelay;
+    }
+}
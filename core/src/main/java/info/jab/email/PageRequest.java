@@ -0,0 +1,46 @@
+package info.jab.email;
+
+/**
+ * Request for one page of emails, positioned by an IMAP UID cursor.
+ *
+ * @param limit the maximum number of emails in the page
+ * @param cursor the UID to continue after in the paging direction, or 0 to start at the beginning
+ * @param order the paging direction
+ */
+public record PageRequest(int limit, long cursor, UidOrder order) {
+
+    public PageRequest {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1, but got: " + limit);
+        }
+        if (cursor < 0) {
+            throw new IllegalArgumentException("Cursor UID must not be negative, but got: " + cursor);
+        }
+        if (order == null) {
+            order = UidOrder.ASCENDING;
+        }
+    }
+
+    /**
+     * Creates a request for the first page.
+     *
+     * @param limit the maximum number of emails in the page
+     * @param order the paging direction
+     * @return the page request
+     */
+    public static PageRequest first(int limit, UidOrder order) {
+        return new PageRequest(limit, 0, order);
+    }
+
+    /**
+     * Creates a request for the page following a cursor returned by a previous page.
+     *
+     * @param limit the maximum number of emails in the page
+     * @param cursor the next cursor of the previous page
+     * @param order the paging direction
+     * @return the page request
+     */
+    public static PageRequest after(int limit, long cursor, UidOrder order) {
+        return new PageRequest(limit, cursor, order);
+    }
+}
@@ -0,0 +1,29 @@
+package info.jab.email;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The fields of an email selected by a {@link FieldProjection}. Fields that were not selected
+ * hold the absent value of {@link EmailSummary}: null, -1 or empty.
+ *
+ * @param summary the selected email fields
+ * @param headers the value of each selected header field, or null if the email does not have it
+ */
+public record ProjectedEmail(EmailSummary summary, Map<String, String> headers) {
+
+    public ProjectedEmail {
+        headers = headers == null ? Map.of() : Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+    }
+
+    /**
+     * Gets the value of a selected header field.
+     *
+     * @param name the header field name as selected
+     * @return the header value, with repeated fields joined by commas, or null if absent
+     */
+    public String header(String name) {
+        return headers.get(name);
+    }
+}
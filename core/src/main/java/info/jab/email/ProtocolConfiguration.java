@@ -1,5 +1,6 @@
 package info.jab.email;
 
+import java.time.Duration;
 import java.util.Properties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,11 +12,17 @@ public class ProtocolConfiguration {
     private final Protocol protocol;
     private final boolean useSSL;
     private final boolean useSTARTTLS;
+    private final Duration timeout;
 
     private ProtocolConfiguration(Protocol protocol, boolean useSSL, boolean useSTARTTLS) {
+        this(protocol, useSSL, useSTARTTLS, null);
+    }
+
+    private ProtocolConfiguration(Protocol protocol, boolean useSSL, boolean useSTARTTLS, Duration timeout) {
         this.protocol = protocol;
         this.useSSL = useSSL;
         this.useSTARTTLS = useSTARTTLS;
+        this.timeout = timeout;
     }
 
     public static ProtocolConfiguration fromPort(int port) {
@@ -88,6 +95,26 @@ public class ProtocolConfiguration {
         return useSTARTTLS;
     }
 
+    /**
+     * Creates a copy of this configuration whose connections give up connecting, and reading a
+     * response, after the given timeout instead of waiting forever.
+     *
+     * @param timeout the socket connect and read timeout
+     * @return the configuration with the timeout
+     */
+    public ProtocolConfiguration withTimeout(Duration timeout) {
+        return new ProtocolConfiguration(protocol, useSSL, useSTARTTLS, timeout);
+    }
+
+    /**
+     * Gets the socket connect and read timeout.
+     *
+     * @return the timeout, or null if connections wait forever
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
     public Properties toJavaMailProperties(String host, int port) {
         if (protocol == Protocol.SMTP) {
             return toSmtpJavaMailProperties(host, port);
@@ -101,6 +128,10 @@ public class ProtocolConfiguration {
         properties.put("mail." + protocolValue + ".port", String.valueOf(port));
         properties.put("mail." + protocolValue + ".auth", "true");
         properties.put("mail." + protocolValue + ".ssl.enable", String.valueOf(useSSL));
+        if (timeout != null) {
+            properties.put("mail." + protocolValue + ".connectiontimeout", String.valueOf(timeout.toMillis()));
+            properties.put("mail." + protocolValue + ".timeout", String.valueOf(timeout.toMillis()));
+        }
 
         if (protocol == Protocol.IMAP) {
             properties.put("mail.imap.starttls.enable", "false");
@@ -125,6 +156,8 @@ public class ProtocolConfiguration {
         properties.put("mail.smtp.port", String.valueOf(port));
         properties.put("mail.smtp.auth", "true");
         properties.put("mail.smtp.ssl.enable", String.valueOf(useSSL));
+        // Probe reused connections with RSET instead of NOOP, which also clears the previous transaction
+        properties.put("mail.smtp.userset", "true");
         if (useSTARTTLS) {
             properties.put("mail.smtp.starttls.enable", "true");
         }
@@ -0,0 +1,139 @@
+package info.jab.email;
+
+import com.sun.mail.iap.ConnectionException;
+import jakarta.mail.FolderClosedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.StoreClosedException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs store operations under a {@link RetryPolicy} and a {@link CircuitBreaker}.
+ *
+ * <p>Only connection failures are retried: errors reaching the server, a dropped connection or a
+ * read that timed out. Errors the server answered with, such as a missing folder or rejected
+ * credentials, fail right away and count as the server being reachable. No attempt is started
+ * that could not finish its backoff before the deadline of the operation.
+ */
+final class ResilientExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilientExecutor.class);
+
+    /**
+     * One attempt of an operation.
+     */
+    @FunctionalInterface
+    interface Attempt<T> {
+        T run() throws MessagingException;
+    }
+
+    /**
+     * Waits between attempts. Allows tests to retry without sleeping.
+     */
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(Duration duration) throws InterruptedException;
+    }
+
+    private final RetryPolicy policy;
+    private final CircuitBreaker circuitBreaker;
+    private final LongSupplier nanoClock;
+    private final DoubleSupplier random;
+    private final Sleeper sleeper;
+
+    ResilientExecutor(RetryPolicy policy, CircuitBreaker circuitBreaker) {
+        this(policy, circuitBreaker, System::nanoTime, () -> ThreadLocalRandom.current().nextDouble(),
+                duration -> TimeUnit.NANOSECONDS.sleep(duration.toNanos()));
+    }
+
+    ResilientExecutor(RetryPolicy policy, CircuitBreaker circuitBreaker, LongSupplier nanoClock,
+                      DoubleSupplier random, Sleeper sleeper) {
+        this.policy = policy;
+        this.circuitBreaker = circuitBreaker;
+        this.nanoClock = nanoClock;
+        this.random = random;
+        this.sleeper = sleeper;
+    }
+
+    RetryPolicy policy() {
+        return policy;
+    }
+
+    CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Runs an operation, retrying connection failures with backoff until it succeeds, the attempts
+     * run out or the deadline passes.
+     *
+     * @param action what the operation does, for messages, for example "listing folders"
+     * @param attempt one attempt of the operation
+     * @return the result of the first successful attempt
+     * @throws MessagingException the failure of the last attempt, or why no further attempt was made
+     */
+    <T> T execute(String action, Attempt<T> attempt) throws MessagingException {
+        long deadline = nanoClock.getAsLong() + policy.operationTimeout().toNanos();
+        for (int attempts = 1; ; attempts++) {
+            if (!circuitBreaker.tryAcquire()) {
+                throw new MessagingException("Server unavailable, failing fast while the circuit breaker is open for another "
+                        + circuitBreaker.remainingOpen().toMillis() + " ms");
+            }
+            MessagingException failure;
+            try {
+                T result = attempt.run();
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (MessagingException e) {
+                if (!isConnectionFailure(e)) {
+                    circuitBreaker.onSuccess();
+                    throw e;
+                }
+                circuitBreaker.onFailure();
+                failure = e;
+            } catch (RuntimeException e) {
+                circuitBreaker.onAbandoned();
+                throw e;
+            }
+            if (attempts >= policy.maxAttempts()) {
+                throw failure;
+            }
+            Duration backoff = policy.backoff(attempts, random.getAsDouble());
+            if (nanoClock.getAsLong() + backoff.toNanos() >= deadline) {
+                throw new MessagingException("Deadline of " + policy.operationTimeout().toMillis() + " ms exceeded "
+                        + action + " after " + attempts + " attempts: " + failure.getMessage(), failure);
+            }
+            logger.warn("Attempt {} of {} {} failed, retrying in {} ms: {}", attempts, policy.maxAttempts(), action,
+                    backoff.toMillis(), failure.getMessage());
+            try {
+                sleeper.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.addSuppressed(e);
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Checks whether a failure means the server could not be reached or the connection to it was lost.
+     *
+     * @param e the failure
+     * @return true if the failure is worth retrying on a new connection
+     */
+    static boolean isConnectionFailure(MessagingException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StoreClosedException || cause instanceof FolderClosedException
+                    || cause instanceof ConnectionException || cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
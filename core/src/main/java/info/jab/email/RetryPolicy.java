@@ -0,0 +1,66 @@
+package info.jab.email;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * How store operations are retried when the connection to the server fails.
+ *
+ * @param maxAttempts how many times an operation is attempted, 1 to disable retries
+ * @param initialBackoff the delay before the first retry, doubled for every further retry
+ * @param maxBackoff the upper bound of the delay between attempts
+ * @param jitter the fraction of each delay that is randomized, from 0 for none to 1 for a delay
+ *        anywhere between 0 and the full backoff, so clients that failed together do not retry together
+ * @param operationTimeout the deadline of an operation over all its attempts; it is also the socket
+ *        connect and read timeout, so an attempt that hangs on the network fails instead of blocking forever
+ */
+public record RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, double jitter,
+                          Duration operationTimeout) {
+
+    /**
+     * Three attempts, backing off from 200 ms up to 5 s with half of each delay randomized, within 60 s.
+     */
+    public static final RetryPolicy DEFAULTS =
+            new RetryPolicy(3, Duration.ofMillis(200), Duration.ofSeconds(5), 0.5, Duration.ofSeconds(60));
+
+    /**
+     * A single attempt within 60 s.
+     */
+    public static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO, 0, Duration.ofSeconds(60));
+
+    public RetryPolicy {
+        Objects.requireNonNull(initialBackoff, "initialBackoff");
+        Objects.requireNonNull(maxBackoff, "maxBackoff");
+        Objects.requireNonNull(operationTimeout, "operationTimeout");
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be at least 1, but got: " + maxAttempts);
+        }
+        if (initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException("Backoffs must satisfy 0 <= initial <= max, but got: "
+                    + initialBackoff + " and " + maxBackoff);
+        }
+        if (!(jitter >= 0 && jitter <= 1)) {
+            throw new IllegalArgumentException("Jitter must be between 0 and 1, but got: " + jitter);
+        }
+        if (operationTimeout.isNegative() || operationTimeout.isZero()) {
+            throw new IllegalArgumentException("Operation timeout must be positive, but got: " + operationTimeout);
+        }
+    }
+
+    /**
+     * Gets the delay before a retry: the initial backoff doubled per earlier retry up to the maximum,
+     * with the jitter fraction of it scaled by a random number.
+     *
+     * @param attempts how many attempts were made so far, at least 1
+     * @param random a random number between 0 inclusive and 1 exclusive
+     * @return the delay before the next attempt
+     */
+    Duration backoff(int attempts, double random) {
+        Duration delay = initialBackoff;
+        for (int i = 1; i < attempts && delay.compareTo(maxBackoff) < 0; i++) {
+            delay = delay.multipliedBy(2);
+        }
+        long nanos = Math.min(delay.toNanos(), maxBackoff.toNanos());
+        return Duration.ofNanos(nanos - (long) (nanos * jitter * random));
+    }
+}
@@ -0,0 +1,112 @@
+package info.jab.email;
+
+import jakarta.mail.search.SearchTerm;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * How a search will be executed, worked out without running it: the IMAP SEARCH command the
+ * server receives, which criteria the server evaluates and which the client has to evaluate,
+ * the server extensions involved and an estimate of the cost.
+ *
+ * <p>Jakarta Mail sends a search term as one IMAP SEARCH only when every part of it can be
+ * expressed there. Otherwise listing quietly falls back to fetching every message of the folder
+ * and matching it on the client, while UID based operations such as paging, counting, deleting
+ * and moving reject the search.
+ *
+ * @param execution where the search runs
+ * @param imapSearch the SEARCH command sent to the server, or null if none is sent
+ * @param serverCriteria the criteria the server evaluates, in IMAP syntax
+ * @param localCriteria the criteria the client evaluates, each with the reason it cannot run on the server
+ * @param capabilities the server extensions the search relies on
+ * @param readsBodies whether a criterion needs the message bodies, which costs far more than envelope criteria
+ * @param messages the number of messages in the folder, or -1 if unknown
+ * @param folderSize the total size of the folder in bytes, or -1 if unknown
+ */
+public record SearchPlan(Execution execution, String imapSearch, List<String> serverCriteria,
+                         List<String> localCriteria, Set<ImapCapability> capabilities, boolean readsBodies,
+                         int messages, long folderSize) {
+
+    /**
+     * Where a search runs.
+     */
+    public enum Execution {
+        /**
+         * The search contradicts itself and is answered with no messages without contacting the server.
+         */
+        NO_MATCH,
+
+        /**
+         * There is no search: every message of the folder is listed.
+         */
+        ALL,
+
+        /**
+         * The whole search runs on the server as one SEARCH command.
+         */
+        SERVER,
+
+        /**
+         * The search cannot be expressed as IMAP SEARCH, so every message is fetched and matched on the client.
+         */
+        CLIENT
+    }
+
+    public SearchPlan {
+        serverCriteria = serverCriteria == null ? List.of() : List.copyOf(serverCriteria);
+        localCriteria = localCriteria == null ? List.of() : List.copyOf(localCriteria);
+        EnumSet<ImapCapability> used = EnumSet.noneOf(ImapCapability.class);
+        if (capabilities != null) {
+            used.addAll(capabilities);
+        }
+        capabilities = Collections.unmodifiableSet(used);
+    }
+
+    /**
+     * Plans a search term for an IMAP server with the given capabilities, without knowing the folder.
+     *
+     * @param searchTerm the search term, or null for all messages
+     * @param capabilities the capabilities of the server
+     * @return the plan, with an unknown number of messages
+     */
+    public static SearchPlan of(SearchTerm searchTerm, ServerCapabilities capabilities) {
+        return SearchPlanner.plan(searchTerm, capabilities, true, -1, -1);
+    }
+
+    /**
+     * Estimates the number of round trips the search costs.
+     *
+     * @return the estimated round trips, or -1 if the folder size is unknown and the search runs on the client
+     */
+    public long estimatedRoundTrips() {
+        return switch (execution) {
+            case NO_MATCH -> 0;
+            case ALL, SERVER -> 1;
+            // Each message loads its headers, and its content for body criteria, on first access
+            case CLIENT -> messages < 0 ? -1 : 1 + (long) messages * (readsBodies ? 2 : 1);
+        };
+    }
+
+    /**
+     * Describes the estimated cost of the search in one sentence.
+     *
+     * @return the cost estimate
+     */
+    public String costEstimate() {
+        String folder = messages >= 0 ? messages + " messages" : "every message of the folder";
+        return switch (execution) {
+            case NO_MATCH -> "No round trip: the search matches nothing and is answered by the client";
+            case ALL -> "No search: " + (messages >= 0 ? "all " + messages + " messages are" : "every message of the folder is")
+                    + " listed";
+            case SERVER -> "1 round trip: the server scans " + folder
+                    + (readsBodies ? ", reading their bodies," : "")
+                    + " and returns only the numbers of the matching messages";
+            case CLIENT -> (messages >= 0 ? estimatedRoundTrips() + " round trips" : "One round trip per message")
+                    + ": the client fetches " + (readsBodies ? "the headers and bodies" : "the headers") + " of " + folder
+                    + (readsBodies && folderSize >= 0 ? " (about " + folderSize + " bytes)" : "")
+                    + " and matches them locally";
+        };
+    }
+}
@@ -0,0 +1,255 @@
+package info.jab.email;
+
+import com.sun.mail.imap.ModifiedSinceTerm;
+import com.sun.mail.imap.OlderTerm;
+import com.sun.mail.imap.YoungerTerm;
+import jakarta.mail.Flags;
+import jakarta.mail.Message;
+import jakarta.mail.search.AndTerm;
+import jakarta.mail.search.BodyTerm;
+import jakarta.mail.search.ComparisonTerm;
+import jakarta.mail.search.DateTerm;
+import jakarta.mail.search.FlagTerm;
+import jakarta.mail.search.FromStringTerm;
+import jakarta.mail.search.FromTerm;
+import jakarta.mail.search.HeaderTerm;
+import jakarta.mail.search.MessageIDTerm;
+import jakarta.mail.search.MessageNumberTerm;
+import jakarta.mail.search.NotTerm;
+import jakarta.mail.search.OrTerm;
+import jakarta.mail.search.ReceivedDateTerm;
+import jakarta.mail.search.RecipientStringTerm;
+import jakarta.mail.search.RecipientTerm;
+import jakarta.mail.search.SearchTerm;
+import jakarta.mail.search.SentDateTerm;
+import jakarta.mail.search.SizeTerm;
+import jakarta.mail.search.StringTerm;
+import jakarta.mail.search.SubjectTerm;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Works out the {@link SearchPlan} of a search term by rendering it the way
+ * {@code com.sun.mail.imap.protocol.SearchSequence} sends it, without a connection.
+ *
+ * <p>Terms that SearchSequence cannot express, such as size comparisons other than greater
+ * and less than, are collected instead; a single one of them makes Jakarta Mail match the
+ * whole search on the client.
+ */
+final class SearchPlanner {
+
+    private static final DateTimeFormatter IMAP_DATE = DateTimeFormatter.ofPattern("d-MMM-yyyy", Locale.ENGLISH);
+
+    private final ServerCapabilities serverCapabilities;
+    private final Set<ImapCapability> used = EnumSet.noneOf(ImapCapability.class);
+    private final List<String> unsupported = new ArrayList<>();
+    private boolean readsBodies;
+    private boolean ascii = true;
+
+    private SearchPlanner(ServerCapabilities serverCapabilities) {
+        this.serverCapabilities = serverCapabilities;
+    }
+
+    /**
+     * Plans a search term.
+     *
+     * @param searchTerm the search term, or null for all messages
+     * @param capabilities the capabilities of the server
+     * @param serverSearch whether the store can search on the server, which POP3 cannot
+     * @param messages the number of messages in the folder, or -1 if unknown
+     * @param folderSize the size of the folder in bytes, or -1 if unknown
+     * @return the plan
+     */
+    static SearchPlan plan(SearchTerm searchTerm, ServerCapabilities capabilities, boolean serverSearch,
+                           int messages, long folderSize) {
+        if (searchTerm == null) {
+            return new SearchPlan(SearchPlan.Execution.ALL, null, List.of(), List.of(), Set.of(), false, messages, folderSize);
+        }
+        if (NoMatchTerm.matchesNothing(searchTerm)) {
+            return new SearchPlan(SearchPlan.Execution.NO_MATCH, null, List.of(), List.of(), Set.of(), false, messages, folderSize);
+        }
+        SearchPlanner planner = new SearchPlanner(capabilities);
+        List<String> criteria = new ArrayList<>();
+        if (searchTerm instanceof AndTerm andTerm) {
+            for (SearchTerm operand : andTerm.getTerms()) {
+                criteria.add(planner.render(operand));
+            }
+        } else {
+            criteria.add(planner.render(searchTerm));
+        }
+        if (!serverSearch) {
+            List<String> local = criteria.stream().map(criterion -> criterion + " (the store cannot search on the server)").toList();
+            return new SearchPlan(SearchPlan.Execution.CLIENT, null, List.of(), local, Set.of(),
+                    planner.readsBodies, messages, folderSize);
+        }
+        if (!planner.unsupported.isEmpty()) {
+            // Jakarta Mail cannot send part of a search, so all of it is matched on the client
+            return new SearchPlan(SearchPlan.Execution.CLIENT, null, List.of(), planner.unsupported, Set.of(),
+                    planner.readsBodies, messages, folderSize);
+        }
+        String command = (planner.ascii ? "SEARCH " : "SEARCH CHARSET UTF-8 ") + String.join(" ", criteria);
+        return new SearchPlan(SearchPlan.Execution.SERVER, command, criteria, List.of(), planner.used,
+                planner.readsBodies, messages, folderSize);
+    }
+
+    private String render(SearchTerm term) {
+        return switch (term) {
+            case AndTerm andTerm -> {
+                List<String> operands = new ArrayList<>();
+                for (SearchTerm operand : andTerm.getTerms()) {
+                    operands.add(render(operand));
+                }
+                yield String.join(" ", operands);
+            }
+            case OrTerm orTerm -> renderOr(orTerm.getTerms());
+            case NotTerm notTerm -> "NOT " + operand(notTerm.getTerm());
+            case FlagTerm flagTerm -> renderFlags(flagTerm);
+            case FromStringTerm fromTerm -> "FROM " + string(fromTerm);
+            case FromTerm fromTerm -> "FROM " + string(fromTerm.getAddress().toString());
+            case RecipientStringTerm recipientTerm -> recipient(recipientTerm.getRecipientType(), string(recipientTerm));
+            case RecipientTerm recipientTerm -> recipient(recipientTerm.getRecipientType(),
+                    string(recipientTerm.getAddress().toString()));
+            case SubjectTerm subjectTerm -> "SUBJECT " + string(subjectTerm);
+            case BodyTerm bodyTerm -> {
+                readsBodies = true;
+                yield "BODY " + string(bodyTerm);
+            }
+            case MessageIDTerm messageIdTerm -> "HEADER Message-ID " + string(messageIdTerm);
+            case HeaderTerm headerTerm -> "HEADER " + headerTerm.getHeaderName() + " " + string(headerTerm);
+            case ReceivedDateTerm dateTerm -> renderDate(dateTerm, "");
+            case SentDateTerm dateTerm -> renderDate(dateTerm, "SENT");
+            case SizeTerm sizeTerm -> switch (sizeTerm.getComparison()) {
+                case ComparisonTerm.GT -> "LARGER " + sizeTerm.getNumber();
+                case ComparisonTerm.LT -> "SMALLER " + sizeTerm.getNumber();
+                default -> unsupported("SIZE " + comparison(sizeTerm.getComparison()) + " " + sizeTerm.getNumber(),
+                        "IMAP SEARCH only has LARGER and SMALLER");
+            };
+            case MessageNumberTerm numberTerm -> String.valueOf(numberTerm.getNumber());
+            case ModifiedSinceTerm modifiedTerm -> requires(ImapCapability.CONDSTORE, "MODSEQ " + modifiedTerm.getModSeq());
+            case OlderTerm olderTerm -> requires(ImapCapability.WITHIN, "OLDER " + olderTerm.getInterval());
+            case YoungerTerm youngerTerm -> requires(ImapCapability.WITHIN, "YOUNGER " + youngerTerm.getInterval());
+            case NoMatchTerm noMatch -> unsupported(noMatch.toString(), "IMAP SEARCH cannot express a search that matches nothing");
+            default -> unsupported(term.getClass().getSimpleName(), "not expressible as IMAP SEARCH");
+        };
+    }
+
+    /**
+     * Renders an OR the way SearchSequence does: more than two operands are nested from the left.
+     */
+    private String renderOr(SearchTerm[] terms) {
+        String rendered = operand(terms[0]);
+        for (int i = 1; i < terms.length; i++) {
+            rendered = "OR " + rendered + " " + operand(terms[i]);
+        }
+        return rendered;
+    }
+
+    /**
+     * Renders an operand of OR or NOT, where SearchSequence puts AND and flag terms in parentheses.
+     */
+    private String operand(SearchTerm term) {
+        String rendered = render(term);
+        return term instanceof AndTerm || term instanceof FlagTerm ? "(" + rendered + ")" : rendered;
+    }
+
+    private String renderFlags(FlagTerm term) {
+        boolean set = term.getTestSet();
+        Flags.Flag[] systemFlags = term.getFlags().getSystemFlags();
+        String[] userFlags = term.getFlags().getUserFlags();
+        if (systemFlags.length == 0 && userFlags.length == 0) {
+            return unsupported("FLAGS ()", "SearchSequence rejects a flag term without flags as an invalid FlagTerm");
+        }
+        List<String> keys = new ArrayList<>();
+        for (Flags.Flag flag : systemFlags) {
+            // SearchSequence sends OLD for an unset RECENT flag and leaves out the USER flag
+            if (flag == Flags.Flag.ANSWERED) {
+                keys.add(set ? "ANSWERED" : "UNANSWERED");
+            } else if (flag == Flags.Flag.DELETED) {
+                keys.add(set ? "DELETED" : "UNDELETED");
+            } else if (flag == Flags.Flag.DRAFT) {
+                keys.add(set ? "DRAFT" : "UNDRAFT");
+            } else if (flag == Flags.Flag.FLAGGED) {
+                keys.add(set ? "FLAGGED" : "UNFLAGGED");
+            } else if (flag == Flags.Flag.RECENT) {
+                keys.add(set ? "RECENT" : "OLD");
+            } else if (flag == Flags.Flag.SEEN) {
+                keys.add(set ? "SEEN" : "UNSEEN");
+            }
+        }
+        for (String userFlag : userFlags) {
+            keys.add((set ? "KEYWORD " : "UNKEYWORD ") + userFlag);
+        }
+        return String.join(" ", keys);
+    }
+
+    private String renderDate(DateTerm term, String prefix) {
+        String date = term.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate().format(IMAP_DATE);
+        return switch (term.getComparison()) {
+            case ComparisonTerm.GT -> "NOT " + prefix + "ON " + date + " " + prefix + "SINCE " + date;
+            case ComparisonTerm.EQ -> prefix + "ON " + date;
+            case ComparisonTerm.LT -> prefix + "BEFORE " + date;
+            case ComparisonTerm.GE -> prefix + "SINCE " + date;
+            case ComparisonTerm.LE -> "OR " + prefix + "BEFORE " + date + " " + prefix + "ON " + date;
+            case ComparisonTerm.NE -> "NOT " + prefix + "ON " + date;
+            default -> unsupported(prefix + "DATE " + term.getComparison(), "unknown date comparison");
+        };
+    }
+
+    private String recipient(Message.RecipientType type, String value) {
+        if (type == Message.RecipientType.TO) {
+            return "TO " + value;
+        }
+        if (type == Message.RecipientType.CC) {
+            return "CC " + value;
+        }
+        if (type == Message.RecipientType.BCC) {
+            return "BCC " + value;
+        }
+        return unsupported(type + " " + value, "IMAP SEARCH only has TO, CC and BCC recipients");
+    }
+
+    private String requires(ImapCapability capability, String criterion) {
+        if (!serverCapabilities.has(capability)) {
+            return unsupported(criterion, "the server does not support " + capability.atom());
+        }
+        used.add(capability);
+        return criterion;
+    }
+
+    private String unsupported(String criterion, String reason) {
+        unsupported.add(criterion + " (" + reason + ")");
+        return criterion;
+    }
+
+    private String string(StringTerm term) {
+        return string(term.getPattern());
+    }
+
+    /**
+     * Quotes a search string. Non-ASCII strings are sent as literals after {@code CHARSET UTF-8},
+     * which is shown quoted here.
+     */
+    private String string(String value) {
+        if (!value.chars().allMatch(c -> c < 0x80)) {
+            ascii = false;
+        }
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static String comparison(int comparison) {
+        return switch (comparison) {
+            case ComparisonTerm.LE -> "<=";
+            case ComparisonTerm.LT -> "<";
+            case ComparisonTerm.EQ -> "=";
+            case ComparisonTerm.NE -> "!=";
+            case ComparisonTerm.GT -> ">";
+            case ComparisonTerm.GE -> ">=";
+            default -> "?";
+        };
+    }
+}
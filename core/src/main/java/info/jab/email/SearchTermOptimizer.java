@@ -0,0 +1,307 @@
+package info.jab.email;
+
+import jakarta.mail.Flags;
+import jakarta.mail.search.AddressTerm;
+import jakarta.mail.search.AndTerm;
+import jakarta.mail.search.BodyTerm;
+import jakarta.mail.search.ComparisonTerm;
+import jakarta.mail.search.DateTerm;
+import jakarta.mail.search.FlagTerm;
+import jakarta.mail.search.NotTerm;
+import jakarta.mail.search.OrTerm;
+import jakarta.mail.search.ReceivedDateTerm;
+import jakarta.mail.search.SearchTerm;
+import jakarta.mail.search.SentDateTerm;
+import jakarta.mail.search.SizeTerm;
+import jakarta.mail.search.StringTerm;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rewrites search terms into an equivalent, simpler form before they are sent to the server
+ * or compiled into a local predicate.
+ *
+ * <ul>
+ *   <li>nested AND and OR terms are flattened into a single n-ary term, and double negations removed;</li>
+ *   <li>duplicate operands are removed;</li>
+ *   <li>flag conditions of an AND are merged into at most one set and one unset {@link FlagTerm};</li>
+ *   <li>bounds on the received date, the sent date and the size of an AND are narrowed to one range;</li>
+ *   <li>operands of an AND are ordered cheapest first, so local evaluation can stop early;</li>
+ *   <li>contradictions, such as a flag that must be both set and unset, an empty range or a term
+ *       together with its negation, become a {@link NoMatchTerm}.</li>
+ * </ul>
+ *
+ * <p>Ranges are compared to the millisecond. The factory methods of {@link EmailSearch} put
+ * date bounds on day boundaries, where this agrees with the day granularity of IMAP servers.
+ */
+final class SearchTermOptimizer {
+
+    private SearchTermOptimizer() {
+        // Utility class
+    }
+
+    /**
+     * Optimizes a search term.
+     *
+     * @param term the term to optimize, or null for no filter
+     * @return an equivalent term, a {@link NoMatchTerm} if the term cannot match, or null if it matches
+     *         every message
+     */
+    static SearchTerm optimize(SearchTerm term) {
+        if (term instanceof AndTerm andTerm) {
+            return optimizeAnd(andTerm.getTerms());
+        }
+        if (term instanceof OrTerm orTerm) {
+            return optimizeOr(orTerm.getTerms());
+        }
+        if (term instanceof NotTerm notTerm) {
+            SearchTerm inner = optimize(notTerm.getTerm());
+            if (inner == null) {
+                return NoMatchTerm.INSTANCE;
+            }
+            if (inner instanceof NoMatchTerm) {
+                return null;
+            }
+            if (inner instanceof NotTerm doubleNegation) {
+                return doubleNegation.getTerm();
+            }
+            if (inner instanceof FlagTerm flagTerm && isSingleFlag(flagTerm.getFlags())) {
+                // Not having one flag set is the same as having it unset
+                return new FlagTerm(flagTerm.getFlags(), !flagTerm.getTestSet());
+            }
+            return new NotTerm(inner);
+        }
+        return term;
+    }
+
+    private static SearchTerm optimizeAnd(SearchTerm[] terms) {
+        Set<SearchTerm> operands = new LinkedHashSet<>();
+        for (SearchTerm term : terms) {
+            SearchTerm optimized = optimize(term);
+            if (optimized instanceof NoMatchTerm) {
+                return optimized;
+            }
+            if (optimized == null) {
+                continue;
+            }
+            if (optimized instanceof AndTerm nested) {
+                operands.addAll(List.of(nested.getTerms()));
+            } else {
+                operands.add(optimized);
+            }
+        }
+        for (SearchTerm operand : operands) {
+            if (operands.contains(negate(operand))) {
+                return NoMatchTerm.INSTANCE;
+            }
+        }
+
+        Flags set = new Flags();
+        Flags unset = new Flags();
+        Range received = new Range();
+        Range sent = new Range();
+        Range size = new Range();
+        List<SearchTerm> rest = new ArrayList<>();
+        for (SearchTerm operand : operands) {
+            boolean absorbed = switch (operand) {
+                case FlagTerm flagTerm -> {
+                    (flagTerm.getTestSet() ? set : unset).add(flagTerm.getFlags());
+                    yield true;
+                }
+                case ReceivedDateTerm dateTerm -> received.add(dateTerm.getComparison(), dateTerm.getDate().getTime());
+                case SentDateTerm dateTerm -> sent.add(dateTerm.getComparison(), dateTerm.getDate().getTime());
+                case SizeTerm sizeTerm -> size.add(sizeTerm.getComparison(), sizeTerm.getNumber());
+                default -> false;
+            };
+            if (!absorbed) {
+                rest.add(operand);
+            }
+        }
+        if (overlaps(set, unset) || received.isEmpty() || sent.isEmpty() || size.isEmpty()) {
+            return NoMatchTerm.INSTANCE;
+        }
+
+        List<SearchTerm> merged = new ArrayList<>();
+        if (!isEmpty(set)) {
+            merged.add(new FlagTerm(set, true));
+        }
+        if (!isEmpty(unset)) {
+            merged.add(new FlagTerm(unset, false));
+        }
+        received.addTerms(merged, (comparison, bound) -> new ReceivedDateTerm(comparison, new Date(bound)));
+        sent.addTerms(merged, (comparison, bound) -> new SentDateTerm(comparison, new Date(bound)));
+        size.addTerms(merged, (comparison, bound) -> new SizeTerm(comparison, (int) bound));
+        merged.addAll(rest);
+        merged.sort(Comparator.comparingInt(SearchTermOptimizer::cost));
+        if (merged.isEmpty()) {
+            return null;
+        }
+        return merged.size() == 1 ? merged.get(0) : new AndTerm(merged.toArray(SearchTerm[]::new));
+    }
+
+    private static SearchTerm optimizeOr(SearchTerm[] terms) {
+        Set<SearchTerm> operands = new LinkedHashSet<>();
+        for (SearchTerm term : terms) {
+            SearchTerm optimized = optimize(term);
+            if (optimized == null) {
+                return null;
+            }
+            if (optimized instanceof OrTerm nested) {
+                operands.addAll(List.of(nested.getTerms()));
+            } else if (!(optimized instanceof NoMatchTerm)) {
+                operands.add(optimized);
+            }
+        }
+        if (operands.isEmpty()) {
+            return NoMatchTerm.INSTANCE;
+        }
+        return operands.size() == 1 ? operands.iterator().next() : new OrTerm(operands.toArray(SearchTerm[]::new));
+    }
+
+    private static SearchTerm negate(SearchTerm term) {
+        return term instanceof NotTerm notTerm ? notTerm.getTerm() : new NotTerm(term);
+    }
+
+    private static boolean overlaps(Flags set, Flags unset) {
+        for (Flags.Flag flag : unset.getSystemFlags()) {
+            if (set.contains(flag)) {
+                return true;
+            }
+        }
+        for (String flag : unset.getUserFlags()) {
+            if (set.contains(flag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSingleFlag(Flags flags) {
+        return flags.getSystemFlags().length + flags.getUserFlags().length == 1;
+    }
+
+    private static boolean isEmpty(Flags flags) {
+        return flags.getSystemFlags().length == 0 && flags.getUserFlags().length == 0;
+    }
+
+    /**
+     * Relative cost of evaluating a term: flags, then numbers, then addresses and headers, then
+     * anything else, then the body.
+     */
+    private static int cost(SearchTerm term) {
+        if (term instanceof FlagTerm) {
+            return 0;
+        }
+        if (term instanceof DateTerm || term instanceof SizeTerm) {
+            return 1;
+        }
+        if (term instanceof BodyTerm) {
+            return 4;
+        }
+        if (term instanceof StringTerm || term instanceof AddressTerm) {
+            return 2;
+        }
+        if (term instanceof NotTerm notTerm) {
+            return cost(notTerm.getTerm());
+        }
+        if (term instanceof AndTerm andTerm) {
+            return maxCost(andTerm.getTerms());
+        }
+        if (term instanceof OrTerm orTerm) {
+            return maxCost(orTerm.getTerms());
+        }
+        return 3;
+    }
+
+    private static int maxCost(SearchTerm[] terms) {
+        int max = 0;
+        for (SearchTerm term : terms) {
+            max = Math.max(max, cost(term));
+        }
+        return max;
+    }
+
+    /**
+     * Collects lower and upper bounds on one numeric property and keeps only the tightest of each.
+     */
+    private static final class Range {
+
+        private long lower = Long.MIN_VALUE;
+        private boolean lowerStrict;
+        private boolean hasLower;
+        private long upper = Long.MAX_VALUE;
+        private boolean upperStrict;
+        private boolean hasUpper;
+
+        /**
+         * Adds a bound, returning false for comparisons that are not bounds, such as NE.
+         */
+        boolean add(int comparison, long value) {
+            switch (comparison) {
+                case ComparisonTerm.GT -> addLower(value, true);
+                case ComparisonTerm.GE -> addLower(value, false);
+                case ComparisonTerm.LT -> addUpper(value, true);
+                case ComparisonTerm.LE -> addUpper(value, false);
+                case ComparisonTerm.EQ -> {
+                    addLower(value, false);
+                    addUpper(value, false);
+                }
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void addLower(long value, boolean strict) {
+            if (!hasLower || value > lower || value == lower && strict) {
+                lower = value;
+                lowerStrict = strict;
+                hasLower = true;
+            }
+        }
+
+        private void addUpper(long value, boolean strict) {
+            if (!hasUpper || value < upper || value == upper && strict) {
+                upper = value;
+                upperStrict = strict;
+                hasUpper = true;
+            }
+        }
+
+        /**
+         * Checks whether no value satisfies both bounds. Sizes and dates in milliseconds are
+         * whole numbers, so a strict bound is one step tighter than the inclusive one.
+         */
+        boolean isEmpty() {
+            if (!hasLower || !hasUpper) {
+                return false;
+            }
+            long lowest = lowerStrict ? lower + 1 : lower;
+            long highest = upperStrict ? upper - 1 : upper;
+            return lowest > highest;
+        }
+
+        void addTerms(List<SearchTerm> terms, BoundTerm factory) {
+            if (hasLower && hasUpper && lower == upper) {
+                terms.add(factory.create(ComparisonTerm.EQ, lower));
+                return;
+            }
+            if (hasLower) {
+                terms.add(factory.create(lowerStrict ? ComparisonTerm.GT : ComparisonTerm.GE, lower));
+            }
+            if (hasUpper) {
+                terms.add(factory.create(upperStrict ? ComparisonTerm.LT : ComparisonTerm.LE, upper));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface BoundTerm {
+        SearchTerm create(int comparison, long bound);
+    }
+}
@@ -0,0 +1,183 @@
+package info.jab.email;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Paces outbound emails to {@link SendRateLimits} and adapts to how the server responds.
+ *
+ * <p>Messages and recipients are paced by token buckets, and a concurrency limit caps how many
+ * emails are in flight at once. Both follow AIMD: a transient 4xx reply from the server, such as
+ * 421 or 451, halves the rate and the concurrency limit, and every second of successful sending
+ * after that adds back a tenth of the configured rate and one connection, until the configured
+ * limits are reached again. Back-offs are at most once per second, so the replies to emails that
+ * were already in flight on other connections do not halve the rate again. Without a configured
+ * rate only the concurrency limit adapts. Thread-safe; one limiter is meant to be shared by every
+ * path that sends through the same account.
+ */
+public final class SendRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SendRateLimiter.class);
+
+    static final double MIN_RATE_FACTOR = 0.05;
+    static final double RATE_INCREASE_STEP = 0.1;
+    static final long ADJUST_INTERVAL_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final SendRateLimits limits;
+    private final LongSupplier nanoClock;
+    private final TokenBucket messageBucket;
+    private final TokenBucket recipientBucket;
+    private double rateFactor = 1;
+    private int concurrencyLimit;
+    private int inFlight;
+    private long lastIncrease;
+    private long lastBackoff;
+
+    /**
+     * Creates a limiter that starts at the configured limits.
+     *
+     * @param limits the limits to send within
+     */
+    public SendRateLimiter(SendRateLimits limits) {
+        this(limits, System::nanoTime);
+    }
+
+    SendRateLimiter(SendRateLimits limits, LongSupplier nanoClock) {
+        this.limits = limits;
+        this.nanoClock = nanoClock;
+        this.messageBucket = limits.messagesPerSecond() > 0
+                ? new TokenBucket(limits.messagesPerSecond(), Math.max(1, limits.messagesPerSecond()), nanoClock)
+                : null;
+        this.recipientBucket = limits.recipientsPerMinute() > 0
+                ? new TokenBucket(limits.recipientsPerMinute() / 60d, limits.recipientsPerMinute(), nanoClock)
+                : null;
+        this.concurrencyLimit = limits.maxConnections();
+        this.lastIncrease = nanoClock.getAsLong();
+        this.lastBackoff = lastIncrease - ADJUST_INTERVAL_NANOS;
+    }
+
+    /**
+     * Creates a limiter without limits, which still adapts the number of emails in flight when the server pushes back.
+     *
+     * @return a new limiter
+     */
+    public static SendRateLimiter unlimited() {
+        return new SendRateLimiter(SendRateLimits.UNLIMITED);
+    }
+
+    /**
+     * Gets the configured limits.
+     *
+     * @return the limits this limiter never exceeds
+     */
+    public SendRateLimits limits() {
+        return limits;
+    }
+
+    /**
+     * Gets the messages rate currently allowed, which is lower than the configured one after a back-off.
+     *
+     * @return the messages per second, or 0 if messages are not rate limited
+     */
+    public synchronized double messagesPerSecond() {
+        return limits.messagesPerSecond() * rateFactor;
+    }
+
+    /**
+     * Gets how many emails may currently be in flight at the same time.
+     *
+     * @return the concurrency limit
+     */
+    public synchronized int concurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * Waits until an email may be sent: a slot under the concurrency limit is taken and the rate
+     * allows its recipients. The slot must be given back with {@link #release()}.
+     *
+     * @param recipients the number of recipients of the email
+     * @throws InterruptedException if interrupted while waiting; no slot is held then
+     */
+    void acquire(int recipients) throws InterruptedException {
+        synchronized (this) {
+            while (inFlight >= concurrencyLimit) {
+                wait();
+            }
+            inFlight++;
+        }
+        try {
+            long waitNanos = 0;
+            if (messageBucket != null) {
+                waitNanos = messageBucket.reserve(1);
+            }
+            if (recipientBucket != null) {
+                waitNanos = Math.max(waitNanos, recipientBucket.reserve(Math.max(1, recipients)));
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        } catch (InterruptedException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gives back the slot taken by {@link #acquire(int)}.
+     */
+    synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * Records that the server accepted an email, ramping the limits back up once per interval.
+     */
+    synchronized void onSuccess() {
+        long now = nanoClock.getAsLong();
+        if (now - lastIncrease < ADJUST_INTERVAL_NANOS || now - lastBackoff < ADJUST_INTERVAL_NANOS
+                || (rateFactor >= 1 && concurrencyLimit >= limits.maxConnections())) {
+            return;
+        }
+        lastIncrease = now;
+        setRateFactor(Math.min(1, rateFactor + RATE_INCREASE_STEP));
+        if (concurrencyLimit < limits.maxConnections()) {
+            concurrencyLimit++;
+            notifyAll();
+        }
+        if (rateFactor >= 1 && concurrencyLimit >= limits.maxConnections()) {
+            logger.info("Send rate recovered to the configured limits");
+        }
+    }
+
+    /**
+     * Records a transient rejection by the server, halving the limits unless they were halved within the last interval.
+     */
+    synchronized void onThrottled() {
+        long now = nanoClock.getAsLong();
+        if (now - lastBackoff < ADJUST_INTERVAL_NANOS) {
+            return;
+        }
+        lastBackoff = now;
+        setRateFactor(Math.max(MIN_RATE_FACTOR, rateFactor / 2));
+        // An unbounded limit is halved from the number of emails actually in flight
+        concurrencyLimit = Math.max(1, Math.min(concurrencyLimit, Math.max(inFlight, 1)) / 2);
+        logger.warn("SMTP server is throttling, backing off to {} messages/s over {} connections",
+                limits.messagesPerSecond() > 0 ? String.format("%.2f", messagesPerSecond()) : "unlimited",
+                concurrencyLimit);
+    }
+
+    private void setRateFactor(double factor) {
+        rateFactor = factor;
+        if (messageBucket != null) {
+            messageBucket.setRate(limits.messagesPerSecond() * factor);
+        }
+        if (recipientBucket != null) {
+            recipientBucket.setRate(limits.recipientsPerMinute() / 60d * factor);
+        }
+    }
+}
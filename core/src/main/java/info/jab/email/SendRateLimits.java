@@ -0,0 +1,37 @@
+package info.jab.email;
+
+/**
+ * Limits on how fast emails are sent, usually set to the limits of the mail provider.
+ *
+ * @param messagesPerSecond the sustained number of messages per second, or 0 for no limit
+ * @param recipientsPerMinute the number of recipients per minute over all messages, or 0 for no limit
+ * @param maxConnections the most SMTP connections sending at the same time
+ */
+public record SendRateLimits(double messagesPerSecond, int recipientsPerMinute, int maxConnections) {
+
+    /**
+     * No rate limits and no cap on connections.
+     */
+    public static final SendRateLimits UNLIMITED = new SendRateLimits(0, 0, Integer.MAX_VALUE);
+
+    public SendRateLimits {
+        if (!(messagesPerSecond >= 0) || Double.isInfinite(messagesPerSecond)) {
+            throw new IllegalArgumentException("Messages per second must be 0 or positive, but got: " + messagesPerSecond);
+        }
+        if (recipientsPerMinute < 0) {
+            throw new IllegalArgumentException("Recipients per minute must be 0 or positive, but got: " + recipientsPerMinute);
+        }
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("Max connections must be at least 1, but got: " + maxConnections);
+        }
+    }
+
+    /**
+     * Checks whether messages or recipients are limited per unit of time.
+     *
+     * @return true if there is a messages or recipients rate
+     */
+    public boolean isRateLimited() {
+        return messagesPerSecond > 0 || recipientsPerMinute > 0;
+    }
+}
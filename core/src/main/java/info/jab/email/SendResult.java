@@ -0,0 +1,51 @@
+package info.jab.email;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The outcome of sending one email as part of a bulk send.
+ *
+ * @param email the email
+ * @param error why the email was not sent, or null if it was sent
+ * @param latency how long the SMTP transaction of the email took, including a reconnect if one was needed
+ */
+public record SendResult(EmailMessage email, String error, Duration latency) {
+
+    public SendResult {
+        Objects.requireNonNull(email, "email");
+        Objects.requireNonNull(latency, "latency");
+    }
+
+    /**
+     * Creates the result of an email that was accepted by the server.
+     *
+     * @param email the email
+     * @param latency how long the SMTP transaction took
+     * @return the result
+     */
+    public static SendResult sent(EmailMessage email, Duration latency) {
+        return new SendResult(email, null, latency);
+    }
+
+    /**
+     * Creates the result of an email that was not sent.
+     *
+     * @param email the email
+     * @param error why the email was not sent
+     * @param latency how long the failed attempt took, or zero if no attempt was made
+     * @return the result
+     */
+    public static SendResult failed(EmailMessage email, String error, Duration latency) {
+        return new SendResult(email, Objects.requireNonNull(error, "error"), latency);
+    }
+
+    /**
+     * Checks whether the email was accepted by the server.
+     *
+     * @return true if the email was sent
+     */
+    public boolean isSent() {
+        return error == null;
+    }
+}
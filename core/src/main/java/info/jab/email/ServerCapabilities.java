@@ -0,0 +1,77 @@
+package info.jab.email;
+
+import com.sun.mail.imap.IMAPStore;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Store;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The IMAP extensions a server supports, as discovered at a point in time.
+ *
+ * @param supported the supported extensions
+ * @param discoveredAt when the server was asked
+ */
+public record ServerCapabilities(Set<ImapCapability> supported, Instant discoveredAt) {
+
+    /**
+     * Capabilities of a store without IMAP extensions, such as POP3, where every operation takes its fallback path.
+     */
+    public static final ServerCapabilities NONE = new ServerCapabilities(Set.of(), Instant.EPOCH);
+
+    public ServerCapabilities {
+        EnumSet<ImapCapability> capabilities = EnumSet.noneOf(ImapCapability.class);
+        if (supported != null) {
+            capabilities.addAll(supported);
+        }
+        supported = Collections.unmodifiableSet(capabilities);
+        if (discoveredAt == null) {
+            discoveredAt = Instant.EPOCH;
+        }
+    }
+
+    /**
+     * Reads the capabilities of a connected store. IMAP stores remember the CAPABILITY response
+     * of the connection, so this does not cost a round trip.
+     *
+     * @param store the connected store
+     * @return the capabilities, or {@link #NONE} for stores other than IMAP
+     * @throws MessagingException if the capabilities cannot be read
+     */
+    static ServerCapabilities of(Store store) throws MessagingException {
+        if (!(store instanceof IMAPStore imapStore)) {
+            return NONE;
+        }
+        EnumSet<ImapCapability> supported = EnumSet.noneOf(ImapCapability.class);
+        for (ImapCapability capability : ImapCapability.values()) {
+            if (imapStore.hasCapability(capability.atom())) {
+                supported.add(capability);
+            }
+        }
+        return new ServerCapabilities(supported, Instant.now());
+    }
+
+    /**
+     * Checks whether the server supports an extension.
+     *
+     * @param capability the extension
+     * @return true if it is supported
+     */
+    public boolean has(ImapCapability capability) {
+        return supported.contains(capability);
+    }
+
+    /**
+     * Checks whether these capabilities are too old to be trusted.
+     *
+     * @param ttl how long discovered capabilities stay valid
+     * @param now the current time
+     * @return true if they were discovered longer than the TTL ago
+     */
+    public boolean isExpired(Duration ttl, Instant now) {
+        return discoveredAt.plus(ttl).isBefore(now);
+    }
+}
@@ -1,32 +1,155 @@
 package info.jab.email;
 
+import com.sun.mail.util.MailSSLSocketFactory;
 import jakarta.mail.Authenticator;
 import jakarta.mail.PasswordAuthentication;
 import jakarta.mail.Session;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.net.ssl.SSLSocketFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * Creates JavaMail sessions for store and SMTP connections.
+ *
+ * <p>The {@code create} methods build a new session on every call. The {@link #storeSession} and
+ * {@link #smtpSession} methods keep a registry of sessions keyed by endpoint, protocol settings
+ * and credentials, so high-frequency callers reuse the properties, the provider lookups the
+ * session caches, and one SSL socket factory instead of a new SSL context per connection.
+ * Sessions of changed credentials get a new key; {@link #invalidate} drops the old ones.
+ */
 public class SessionFactory {
 
+    private static final Logger logger = LoggerFactory.getLogger(SessionFactory.class);
+
+    private record SessionKey(Protocol protocol, String hostname, int port, String user, String credentialDigest,
+                              Duration timeout) { }
+
+    private static final Map<SessionKey, Session> SESSIONS = new ConcurrentHashMap<>();
+
     public static Session createStoreSession(String hostname, int imapPort, String user, String password, ProtocolConfiguration protocolConfig) {
         Properties properties = protocolConfig.toJavaMailProperties(hostname, imapPort);
 
-        return Session.getInstance(properties, new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(user, password);
-            }
-        });
+        return Session.getInstance(properties, authenticator(user, password));
     }
 
     public static Session createSmtpSession(String hostname, int smtpPort, String user, String password) {
         ProtocolConfiguration protocolConfig = ProtocolConfiguration.fromSmtpPort(smtpPort);
         Properties smtpProperties = protocolConfig.toSmtpJavaMailProperties(hostname, smtpPort);
 
-        return Session.getInstance(smtpProperties, new Authenticator() {
+        return Session.getInstance(smtpProperties, authenticator(user, password));
+    }
+
+    /**
+     * Gets the shared store session of an endpoint and credentials, creating it on first use.
+     *
+     * @param hostname the hostname of the email server
+     * @param port the store port
+     * @param user the username for authentication
+     * @param password the password for authentication
+     * @param protocolConfig the protocol configuration for the port
+     * @return the session, shared by every caller with the same endpoint, settings and credentials
+     */
+    public static Session storeSession(String hostname, int port, String user, String password,
+                                       ProtocolConfiguration protocolConfig) {
+        SessionKey key = new SessionKey(protocolConfig.getProtocol(), hostname, port, user,
+                credentialDigest(user, password), protocolConfig.getTimeout());
+        return SESSIONS.computeIfAbsent(key, k -> {
+            Properties properties = protocolConfig.toJavaMailProperties(hostname, port);
+            if (protocolConfig.isUseSSL()) {
+                // Replaces ssl.trust=*, which makes the provider build a new SSL context for every connection
+                properties.put("mail." + protocolConfig.getProtocol().getValue() + ".ssl.socketFactory",
+                        TrustAllSocketFactory.INSTANCE);
+            }
+            logger.debug("Created {} session for {}@{}:{}", protocolConfig.getProtocol().name(), user, hostname, port);
+            return Session.getInstance(properties, authenticator(user, password));
+        });
+    }
+
+    /**
+     * Gets the shared SMTP session of an endpoint and credentials, creating it on first use.
+     *
+     * @param hostname the SMTP server hostname
+     * @param smtpPort the SMTP port
+     * @param user the username for authentication
+     * @param password the password for authentication
+     * @return the session, shared by every caller with the same endpoint and credentials
+     */
+    public static Session smtpSession(String hostname, int smtpPort, String user, String password) {
+        SessionKey key = new SessionKey(Protocol.SMTP, hostname, smtpPort, user, credentialDigest(user, password), null);
+        return SESSIONS.computeIfAbsent(key, k -> createSmtpSession(hostname, smtpPort, user, password));
+    }
+
+    /**
+     * Drops the shared sessions of a user at an endpoint, whatever their credentials, for example
+     * after a password rotation. Connections already open keep working with the old session.
+     *
+     * @param hostname the hostname of the server
+     * @param port the store or SMTP port
+     * @param user the username
+     * @return the number of sessions dropped
+     */
+    public static int invalidate(String hostname, int port, String user) {
+        int before = SESSIONS.size();
+        SESSIONS.keySet().removeIf(key -> key.hostname().equals(hostname) && key.port() == port && key.user().equals(user));
+        return before - SESSIONS.size();
+    }
+
+    /**
+     * Drops all shared sessions.
+     */
+    public static void invalidateAll() {
+        SESSIONS.clear();
+    }
+
+    private static Authenticator authenticator(String user, String password) {
+        return new Authenticator() {
             @Override
             protected PasswordAuthentication getPasswordAuthentication() {
                 return new PasswordAuthentication(user, password);
             }
-        });
+        };
+    }
+
+    /**
+     * Hashes the credentials, so the registry tells rotated credentials apart without keeping
+     * the password in its keys.
+     */
+    private static String credentialDigest(String user, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(user.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(password.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The SSL socket factory shared by all SSL store sessions, trusting every host like ssl.trust=*.
+     */
+    private static final class TrustAllSocketFactory {
+
+        static final SSLSocketFactory INSTANCE = create();
+
+        private static SSLSocketFactory create() {
+            try {
+                MailSSLSocketFactory factory = new MailSSLSocketFactory();
+                factory.setTrustAllHosts(true);
+                return factory;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot create SSL socket factory: " + e.getMessage(), e);
+            }
+        }
     }
 }
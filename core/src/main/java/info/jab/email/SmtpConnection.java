@@ -0,0 +1,171 @@
+package info.jab.email;
+
+import com.sun.mail.smtp.SMTPAddressFailedException;
+import com.sun.mail.smtp.SMTPSendFailedException;
+import com.sun.mail.smtp.SMTPSenderFailedException;
+import com.sun.mail.smtp.SMTPTransport;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One authenticated SMTP connection that is kept open across messages.
+ *
+ * <p>Each message after the first starts with {@code RSET}, which clears any state a previous
+ * transaction left behind and finds out cheaply whether the server dropped the connection. A
+ * message that fails because a reused connection was dropped is retried once on a new connection.
+ * Instances are not thread-safe.
+ */
+final class SmtpConnection implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpConnection.class);
+
+    // Reply codes lead the server response, or follow "response:" in a bad greeting
+    private static final Pattern REPLY_CODE = Pattern.compile("(?:^|response: )([2-5]\\d\\d)(?:[ -]|$)");
+
+    private final Session session;
+    private Transport transport;
+    private int transactions;
+
+    /**
+     * Creates a connection that is opened on first use.
+     *
+     * @param session the SMTP session carrying host, port and credentials
+     */
+    SmtpConnection(Session session) {
+        this.session = session;
+    }
+
+    /**
+     * Checks whether the connection was opened and not closed since. It may still have been dropped by the server.
+     */
+    boolean isOpen() {
+        return transport != null;
+    }
+
+    /**
+     * Connects and authenticates, closing any previous connection first.
+     *
+     * @throws MessagingException if the server cannot be reached or rejects the credentials
+     */
+    void open() throws MessagingException {
+        close();
+        Transport newTransport = session.getTransport("smtp");
+        newTransport.connect();
+        transport = newTransport;
+        transactions = 0;
+    }
+
+    /**
+     * Checks whether the server advertised an ESMTP extension in its EHLO reply. Only the Jakarta
+     * Mail SMTP provider exposes the reply, so other providers report no extensions.
+     *
+     * @param extension the extension keyword, such as PIPELINING
+     * @return true if the connection is open and the server advertised the extension
+     */
+    boolean supportsExtension(String extension) {
+        return transport instanceof SMTPTransport smtpTransport && smtpTransport.supportsExtension(extension);
+    }
+
+    /**
+     * Sends a message, opening the connection if needed and reconnecting once if the server dropped it.
+     *
+     * @param message the message, with its headers already updated by {@link MimeMessage#saveChanges()}
+     * @throws MessagingException if the message is rejected or the connection fails
+     */
+    void send(MimeMessage message) throws MessagingException {
+        if (!isOpen()) {
+            open();
+        }
+        boolean reused = transactions > 0;
+        transactions++;
+        try {
+            if (reused) {
+                reset();
+            }
+            transport.sendMessage(message, message.getAllRecipients());
+        } catch (MessagingException e) {
+            if (!reused || transport.isConnected()) {
+                throw e;
+            }
+            logger.info("SMTP connection was dropped after {} messages, reconnecting: {}", transactions - 1, e.getMessage());
+            open();
+            transactions++;
+            transport.sendMessage(message, message.getAllRecipients());
+        }
+    }
+
+    /**
+     * Sends {@code RSET}: with {@code mail.smtp.userset} the connection check of the transport
+     * uses RSET instead of NOOP, so it clears the previous transaction in the same round trip.
+     */
+    private void reset() throws MessagingException {
+        if (!transport.isConnected()) {
+            throw new MessagingException("SMTP connection was closed by the server");
+        }
+    }
+
+    /**
+     * Checks whether a failure was a transient 4xx reply, such as 421 or 451, meaning the server
+     * may accept the email later, usually because the sender is going too fast.
+     *
+     * @param e the failure of a connect or send
+     * @return true if the server replied with a 4xx code
+     */
+    static boolean isTransientFailure(MessagingException e) {
+        int code = replyCode(e);
+        return code >= 400 && code < 500;
+    }
+
+    /**
+     * Finds the SMTP reply code of a failure. The Jakarta Mail SMTP provider exposes the code;
+     * for other providers it is read from the start of the server response in the message.
+     *
+     * @param e the failure of a connect or send
+     * @return the reply code, or -1 if the failure carries none
+     */
+    static int replyCode(MessagingException e) {
+        for (Exception cause = e; cause != null;
+             cause = cause instanceof MessagingException messagingException ? messagingException.getNextException() : null) {
+            int code = switch (cause) {
+                case SMTPSendFailedException sendFailed -> sendFailed.getReturnCode();
+                case SMTPAddressFailedException addressFailed -> addressFailed.getReturnCode();
+                case SMTPSenderFailedException senderFailed -> senderFailed.getReturnCode();
+                default -> parseReplyCode(cause.getMessage());
+            };
+            if (code > 0) {
+                return code;
+            }
+        }
+        return -1;
+    }
+
+    private static int parseReplyCode(String message) {
+        if (message == null) {
+            return -1;
+        }
+        Matcher matcher = REPLY_CODE.matcher(message.strip());
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    /**
+     * Closes the connection with {@code QUIT}, ignoring failures of a connection that is already gone.
+     */
+    @Override
+    public void close() {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            logger.debug("Error closing SMTP connection: {}", e.getMessage());
+        }
+        transport = null;
+    }
+}
@@ -0,0 +1,43 @@
+package info.jab.email;
+
+import com.sun.mail.imap.SortTerm;
+
+/**
+ * Keys emails can be sorted by, mirroring the sort criteria of the IMAP SORT extension (RFC 5256).
+ */
+public enum SortKey {
+    /**
+     * The Date header, falling back to the arrival time when it is missing.
+     */
+    DATE(SortTerm.DATE),
+
+    /**
+     * The time the server received the email, which is the order of message sequence numbers.
+     */
+    ARRIVAL(SortTerm.ARRIVAL),
+
+    /**
+     * The mailbox of the first sender, the part of its address before the {@code @}.
+     */
+    FROM(SortTerm.FROM),
+
+    /**
+     * The subject without {@code Re:} and {@code Fwd:} prefixes, ignoring case.
+     */
+    SUBJECT(SortTerm.SUBJECT),
+
+    /**
+     * The size of the email in bytes.
+     */
+    SIZE(SortTerm.SIZE);
+
+    private final SortTerm sortTerm;
+
+    SortKey(SortTerm sortTerm) {
+        this.sortTerm = sortTerm;
+    }
+
+    SortTerm sortTerm() {
+        return sortTerm;
+    }
+}
@@ -0,0 +1,25 @@
+package info.jab.email;
+
+/**
+ * How a folder synchronization found its changes, from cheapest to most expensive.
+ */
+public enum SyncMode {
+    /**
+     * QRESYNC (RFC 7162): changed flags and vanished UIDs are reported by the server when the folder is opened.
+     */
+    QRESYNC,
+    /**
+     * CONDSTORE (RFC 7162): changed flags are fetched with CHANGEDSINCE; vanished UIDs are only
+     * searched for when the message count shows that messages were expunged.
+     */
+    CONDSTORE,
+    /**
+     * No change tracking on the server: the flags and UIDs of all messages are fetched and diffed
+     * against the previous state.
+     */
+    UID_DIFF,
+    /**
+     * No usable previous state (first sync or UIDVALIDITY changed): all envelopes are fetched.
+     */
+    FULL
+}
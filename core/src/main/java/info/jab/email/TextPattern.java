@@ -0,0 +1,116 @@
+package info.jab.email;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Case-insensitive substring pattern, matching the same text as a Jakarta Mail {@code StringTerm}.
+ *
+ * <p>ASCII patterns are also matched directly against UTF-8 bytes, so cached envelopes can be
+ * searched without decoding them into strings. Non-ASCII patterns decode the text first.
+ */
+public final class TextPattern {
+
+    private final String pattern;
+    private final byte[] asciiLowerCase;
+
+    private TextPattern(String pattern) {
+        this.pattern = Objects.requireNonNull(pattern, "pattern");
+        this.asciiLowerCase = isAscii(pattern) ? pattern.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII) : null;
+    }
+
+    /**
+     * Creates a pattern.
+     *
+     * @param pattern the text to look for
+     * @return the pattern
+     */
+    public static TextPattern of(String pattern) {
+        return new TextPattern(pattern);
+    }
+
+    /**
+     * Gets the text this pattern looks for.
+     *
+     * @return the pattern text
+     */
+    public String pattern() {
+        return pattern;
+    }
+
+    /**
+     * Checks whether the text contains the pattern, ignoring case.
+     *
+     * @param text the text to search, may be null
+     * @return true if the pattern occurs in the text
+     */
+    public boolean matches(String text) {
+        if (text == null) {
+            return false;
+        }
+        int last = text.length() - pattern.length();
+        for (int i = 0; i <= last; i++) {
+            if (text.regionMatches(true, i, pattern, 0, pattern.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether UTF-8 encoded text contains the pattern, ignoring case.
+     *
+     * @param buffer the buffer holding the text
+     * @param offset the absolute offset of the text in the buffer
+     * @param length the length of the text in bytes
+     * @return true if the pattern occurs in the text
+     */
+    boolean matches(ByteBuffer buffer, int offset, int length) {
+        if (asciiLowerCase == null) {
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            return matches(new String(bytes, StandardCharsets.UTF_8));
+        }
+        int last = length - asciiLowerCase.length;
+        for (int i = 0; i <= last; i++) {
+            int j = 0;
+            while (j < asciiLowerCase.length && toLowerAscii(buffer.get(offset + i + j)) == asciiLowerCase[j]) {
+                j++;
+            }
+            if (j == asciiLowerCase.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte toLowerAscii(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TextPattern other && pattern.equals(other.pattern);
+    }
+
+    @Override
+    public int hashCode() {
+        return pattern.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
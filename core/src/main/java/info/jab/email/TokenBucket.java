@@ -0,0 +1,77 @@
+package info.jab.email;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket that refills continuously at a rate that can be changed while in use.
+ *
+ * <p>Permits are reserved rather than taken: a reservation larger than the tokens available drives
+ * the bucket into debt and returns how long the caller has to wait, so a request for more permits
+ * than the bucket holds is delayed instead of blocked forever. Thread-safe.
+ */
+final class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final double capacity;
+    private final LongSupplier nanoClock;
+    private double ratePerSecond;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param ratePerSecond how many tokens are added per second
+     * @param capacity how many tokens the bucket holds at most, which is the largest burst it allows
+     * @param nanoClock the source of {@link System#nanoTime()}-like timestamps
+     */
+    TokenBucket(double ratePerSecond, double capacity, LongSupplier nanoClock) {
+        if (!(ratePerSecond > 0)) {
+            throw new IllegalArgumentException("Rate must be positive, but got: " + ratePerSecond);
+        }
+        if (!(capacity >= 1)) {
+            throw new IllegalArgumentException("Capacity must be at least 1, but got: " + capacity);
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.capacity = capacity;
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    /**
+     * Reserves permits, returning how long to wait before using them.
+     *
+     * @param permits the number of permits, at least 1
+     * @return the wait in nanoseconds, or 0 if the permits are available now
+     */
+    synchronized long reserve(int permits) {
+        refill();
+        tokens -= permits;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / ratePerSecond * NANOS_PER_SECOND);
+    }
+
+    /**
+     * Changes the refill rate. Tokens accrued at the previous rate are kept.
+     *
+     * @param ratePerSecond the new number of tokens added per second
+     */
+    synchronized void setRate(double ratePerSecond) {
+        if (!(ratePerSecond > 0)) {
+            throw new IllegalArgumentException("Rate must be positive, but got: " + ratePerSecond);
+        }
+        refill();
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    synchronized double rate() {
+        return ratePerSecond;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) / NANOS_PER_SECOND * ratePerSecond);
+        lastRefill = now;
+    }
+}
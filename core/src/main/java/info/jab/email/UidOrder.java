@@ -0,0 +1,16 @@
+package info.jab.email;
+
+/**
+ * Direction in which emails are paged through by UID.
+ */
+public enum UidOrder {
+    /**
+     * Oldest first: pages move towards higher UIDs.
+     */
+    ASCENDING,
+
+    /**
+     * Newest first: pages move towards lower UIDs.
+     */
+    DESCENDING
+}
@@ -0,0 +1,69 @@
+package info.jab.email;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for BulkSendReport.
+ */
+class BulkSendReportTest {
+
+    private static final EmailMessage EMAIL = new EmailMessage("to@example.com", "Subject", "Body");
+
+    @Test
+    void shouldCountSentAndFailedEmails() {
+        // Given
+        BulkSendReport report = new BulkSendReport(List.of(
+                SendResult.sent(EMAIL, Duration.ofMillis(10)),
+                SendResult.failed(EMAIL, "550 Mailbox unavailable", Duration.ofMillis(5)),
+                SendResult.sent(EMAIL, Duration.ofMillis(20))), Duration.ofSeconds(1), 2);
+
+        // When & Then
+        assertThat(report.sentCount()).isEqualTo(2);
+        assertThat(report.failedCount()).isEqualTo(1);
+        assertThat(report.throughputPerSecond()).isEqualTo(2.0);
+    }
+
+    @Test
+    void shouldComputeLatencyPercentilesOverSentEmailsOnly() {
+        // Given
+        List<SendResult> results = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            results.add(SendResult.sent(EMAIL, Duration.ofMillis(i)));
+        }
+        results.add(SendResult.failed(EMAIL, "Timeout", Duration.ofSeconds(30)));
+        BulkSendReport report = new BulkSendReport(results, Duration.ofSeconds(1), 4);
+
+        // When & Then
+        assertThat(report.latencyPercentile(50)).isEqualTo(Duration.ofMillis(50));
+        assertThat(report.latencyPercentile(95)).isEqualTo(Duration.ofMillis(95));
+        assertThat(report.latencyPercentile(100)).isEqualTo(Duration.ofMillis(100));
+    }
+
+    @Test
+    void shouldReportZeroWhenNothingWasSent() {
+        // Given
+        BulkSendReport report = new BulkSendReport(List.of(), Duration.ZERO, 1);
+
+        // When & Then
+        assertThat(report.throughputPerSecond()).isZero();
+        assertThat(report.latencyPercentile(99)).isEqualTo(Duration.ZERO);
+        assertThat(report.summary()).startsWith("Sent 0 of 0 emails over 1 connections");
+    }
+
+    @Test
+    void shouldRejectPercentileOutOfRange() {
+        // Given
+        BulkSendReport report = new BulkSendReport(List.of(), Duration.ZERO, 1);
+
+        // When & Then
+        assertThatThrownBy(() -> report.latencyPercentile(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> report.latencyPercentile(101)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,91 @@
+package info.jab.email;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for CapabilityCache and ServerCapabilities.
+ */
+class CapabilityCacheTest {
+
+    private static final String ACCOUNT = "alice@mail.example.com:993";
+    private static final Instant DISCOVERED_AT = Instant.parse("2026-01-01T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldKeepCapabilitiesAcrossRestarts() {
+        // Given
+        ServerCapabilities capabilities = new ServerCapabilities(
+                Set.of(ImapCapability.SORT, ImapCapability.UIDPLUS, ImapCapability.STATUS_SIZE), DISCOVERED_AT);
+        cache(DISCOVERED_AT).put(ACCOUNT, capabilities);
+
+        // When
+        ServerCapabilities cached = cache(DISCOVERED_AT.plusSeconds(60)).get(ACCOUNT);
+
+        // Then
+        assertThat(cached).isEqualTo(capabilities);
+        assertThat(cached.has(ImapCapability.SORT)).isTrue();
+        assertThat(cached.has(ImapCapability.MOVE)).isFalse();
+        assertThat(cache(DISCOVERED_AT).get("bob@mail.example.com:993")).isNull();
+    }
+
+    @Test
+    void shouldDiscoverAgainAfterTtl() {
+        // Given
+        cache(DISCOVERED_AT).put(ACCOUNT, new ServerCapabilities(Set.of(ImapCapability.ESEARCH), DISCOVERED_AT));
+
+        // When
+        ServerCapabilities cached = cache(DISCOVERED_AT.plus(Duration.ofHours(25))).get(ACCOUNT);
+
+        // Then
+        assertThat(cached).isNull();
+    }
+
+    @Test
+    void shouldForgetInvalidatedCapabilities() {
+        // Given
+        CapabilityCache cache = cache(DISCOVERED_AT);
+        cache.put(ACCOUNT, new ServerCapabilities(Set.of(ImapCapability.MOVE), DISCOVERED_AT));
+
+        // When
+        cache.invalidate(ACCOUNT);
+
+        // Then
+        assertThat(cache.get(ACCOUNT)).isNull();
+        assertThat(cache(DISCOVERED_AT).get(ACCOUNT)).isNull();
+    }
+
+    @Test
+    void shouldKeepCapabilitiesInMemoryWithoutDirectory() {
+        // Given
+        CapabilityCache cache = new CapabilityCache(Duration.ofMinutes(5));
+
+        // When
+        cache.put(ACCOUNT, new ServerCapabilities(Set.of(ImapCapability.IDLE), Instant.now()));
+
+        // Then
+        assertThat(cache.get(ACCOUNT).has(ImapCapability.IDLE)).isTrue();
+        assertThat(cache.getDirectory()).isNull();
+    }
+
+    @Test
+    void shouldRejectNegativeTtl() {
+        assertThatThrownBy(() -> new CapabilityCache(Duration.ofSeconds(-1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private CapabilityCache cache(Instant now) {
+        return new CapabilityCache(directory, CapabilityCache.DEFAULT_TTL, Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,60 @@
+package info.jab.email;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for ConcurrentEmailSender.
+ */
+class ConcurrentEmailSenderTest {
+
+    private final EmailSender unreachable = new EmailSender("localhost", 1, "user@example.com", "password");
+
+    @Test
+    void shouldFailAllEmailsInOrderWhenNoConnectionCanBeOpened() {
+        // Given
+        List<EmailMessage> emails = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            emails.add(new EmailMessage("to" + i + "@example.com", "Subject " + i, "Body"));
+        }
+        ConcurrentEmailSender sender = new ConcurrentEmailSender(unreachable, 3, 2);
+
+        // When
+        BulkSendReport report = sender.sendAll(emails);
+
+        // Then
+        assertThat(report.results()).extracting(SendResult::email).containsExactlyElementsOf(emails);
+        assertThat(report.failedCount()).isEqualTo(25);
+        assertThat(report.connections()).isEqualTo(3);
+        assertThat(report.results()).extracting(SendResult::error)
+                .allMatch(error -> error.startsWith("Cannot connect to SMTP server"));
+    }
+
+    @Test
+    void shouldReturnEmptyReportWhenThereIsNothingToSend() {
+        // Given
+        ConcurrentEmailSender sender = new ConcurrentEmailSender(unreachable, 2);
+
+        // When
+        BulkSendReport report = sender.sendAll(List.of());
+
+        // Then
+        assertThat(report.results()).isEmpty();
+    }
+
+    @Test
+    void shouldRejectInvalidPoolSizes() {
+        // When & Then
+        assertThatThrownBy(() -> new ConcurrentEmailSender(unreachable, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Connections");
+        assertThatThrownBy(() -> new ConcurrentEmailSender(unreachable, 2, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Queue capacity");
+    }
+}
@@ -1,5 +1,6 @@
 package info.jab.email;
 
+import java.time.Duration;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -156,4 +157,85 @@ class EmailClientBuilderTest {
         EmailClient client = builder.build();
         assertThat(client).isNotNull();
     }
+
+    @Test
+    void shouldBuildEmailClientWithPoolOptions() {
+        // When
+        EmailClient client = EmailClientBuilder.builder()
+                .hostname("mail.example.com")
+                .imapPort(143)
+                .smtpPort(587)
+                .user("test@example.com")
+                .password("password123")
+                .poolSize(8)
+                .poolIdleTtl(Duration.ofMinutes(1))
+                .poolWaitTimeout(Duration.ofSeconds(5))
+                .build();
+
+        // Then
+        assertThat(client).isNotNull();
+        client.close();
+    }
+
+    @Test
+    void shouldThrowExceptionWhenPoolSizeIsNotPositive() {
+        // When/Then
+        assertThatThrownBy(() -> EmailClientBuilder.builder()
+                .hostname("mail.example.com")
+                .imapPort(143)
+                .smtpPort(587)
+                .user("test@example.com")
+                .password("password123")
+                .poolSize(0)
+                .build())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Pool size must be at least 1");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenPoolIdleTtlIsZero() {
+        // When/Then
+        assertThatThrownBy(() -> EmailClientBuilder.builder()
+                .hostname("mail.example.com")
+                .imapPort(143)
+                .smtpPort(587)
+                .user("test@example.com")
+                .password("password123")
+                .poolIdleTtl(Duration.ZERO)
+                .build())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Pool idle TTL must be positive");
+    }
+
+    @Test
+    void shouldBuildEmailClientWithSendRateLimits() {
+        // When
+        EmailClient client = EmailClientBuilder.builder()
+                .hostname("mail.example.com")
+                .imapPort(143)
+                .smtpPort(587)
+                .user("test@example.com")
+                .password("password123")
+                .sendRateLimits(new SendRateLimits(5, 100, 2))
+                .build();
+
+        // Then
+        assertThat(client).isNotNull();
+        client.close();
+    }
+
+    @Test
+    void shouldThrowExceptionWhenSendRateLimitsAreNull() {
+        // When/Then
+        assertThatThrownBy(() -> EmailClientBuilder.builder()
+                .hostname("mail.example.com")
+                .imapPort(143)
+                .smtpPort(587)
+                .user("test@example.com")
+                .password("password123")
+                .sendRateLimits(null)
+                .build())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Send rate limits are required");
+    }
 }
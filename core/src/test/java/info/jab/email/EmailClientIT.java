@@ -8,6 +8,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -21,11 +22,26 @@ import jakarta.mail.Session;
 import jakarta.mail.Store;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.search.ComparisonTerm;
+import jakarta.mail.search.SizeTerm;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Integration tests for EmailClient using Testcontainers and GreenMail.
@@ -645,6 +661,446 @@ class EmailClientIT {
             assertThat(readMessages).isNotNull();
             assertThat(readMessages).hasSize(1);
         }
+
+        @Test
+        @DisplayName("Should match non-ASCII sender names and every sender the same way locally and on the server")
+        void should_matchSendersLocallyLikeServer_when_nameIsNonAscii() throws Exception {
+            // Given: An email from two senders, the first with a MIME-encoded non-ASCII name
+            Session session = greenMail.getImap().createSession();
+            MimeMessage message = createTestMessage(session, "other@example.com", TEST_USER, "Greetings", "Body");
+            message.setFrom(new InternetAddress("joerg@example.com", "Jörg Müller", "UTF-8"));
+            message.addFrom(new InternetAddress[] {new InternetAddress("assistant@example.com")});
+            greenMail.getUserManager().getUser(TEST_USER).deliver(message);
+            EmailSummary summary = emailClient.listEmails(INBOX_FOLDER, null, EmailSort.by(SortKey.ARRIVAL), 10).get(0);
+
+            // When & Then: Each search matches locally exactly when it matches on GreenMail
+            assertThat(summary.from()).isEqualTo("Jörg Müller <joerg@example.com>, assistant@example.com");
+            for (String text : List.of("Jörg", "müller", "assistant@example.com", "=?UTF-8?", "nobody")) {
+                EmailSearch search = EmailSearch.from(text);
+                boolean onServer = emailClient.count(INBOX_FOLDER, search.build()) > 0;
+                assertThat(EnvelopePredicate.compile(search.build()).test(summary))
+                        .as("local match of %s", text)
+                        .isEqualTo(onServer);
+            }
+            assertThat(emailClient.count(INBOX_FOLDER, EmailSearch.from("Jörg").build())).isEqualTo(1);
+            assertThat(emailClient.count(INBOX_FOLDER, EmailSearch.from("assistant@example.com").build())).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("streamEmails() tests")
+    class StreamEmailsTests {
+
+        @Test
+        @DisplayName("Should stream all emails across several chunks")
+        void should_streamAllEmails_when_folderSpansSeveralChunks() throws MessagingException {
+            // Given: Add more emails than fit in one chunk
+            Session session = greenMail.getImap().createSession();
+            for (int i = 1; i <= 7; i++) {
+                MimeMessage message = createTestMessage(session, "sender" + i + "@example.com", TEST_USER, "Subject " + i, "Body " + i);
+                greenMail.getUserManager().getUser(TEST_USER).deliver(message);
+            }
+
+            // When: Stream with a chunk size of 3
+            List<EmailSummary> summaries;
+            try (Stream<EmailSummary> stream = emailClient.streamEmails(INBOX_FOLDER, null, 3)) {
+                summaries = stream.toList();
+            }
+
+            // Then: All emails are returned in order with their UIDs
+            assertThat(summaries).hasSize(7);
+            assertThat(summaries).extracting(EmailSummary::subject)
+                    .containsExactly("Subject 1", "Subject 2", "Subject 3", "Subject 4", "Subject 5", "Subject 6", "Subject 7");
+            assertThat(summaries).allMatch(summary -> summary.uid() > 0);
+        }
+
+        @Test
+        @DisplayName("Should stream only emails matching the search term")
+        void should_streamMatchingEmails_when_searchTermIsGiven() throws MessagingException {
+            // Given: Add emails from two senders
+            Session session = greenMail.getImap().createSession();
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "boss@example.com", TEST_USER, "Report", "Body"));
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "other@example.com", TEST_USER, "Lunch", "Body"));
+
+            // When: Stream emails from one sender
+            List<EmailSummary> summaries;
+            try (Stream<EmailSummary> stream = emailClient.streamEmails(INBOX_FOLDER, EmailSearch.from("boss@example.com").build())) {
+                summaries = stream.toList();
+            }
+
+            // Then: Only the matching email is returned
+            assertThat(summaries).hasSize(1);
+            assertThat(summaries.get(0).from()).contains("boss@example.com");
+        }
+
+        @Test
+        @DisplayName("Should throw EmailException when streaming from a non-existent folder")
+        void should_throwEmailException_when_folderDoesNotExist() {
+            // When/Then: Opening the stream fails
+            assertThatThrownBy(() -> emailClient.streamEmails("NON_EXISTENT_FOLDER", null))
+                    .isInstanceOf(EmailException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("listEmails() paging tests")
+    class ListEmailsPagingTests {
+
+        @Test
+        @DisplayName("Should read all emails page by page following the cursor")
+        void should_readAllPages_when_followingNextCursor() throws MessagingException {
+            // Given: Add five emails
+            deliverNumberedEmails(5);
+
+            // When: Read pages of two emails
+            EmailPage first = emailClient.listEmails(INBOX_FOLDER, null, PageRequest.first(2, UidOrder.ASCENDING));
+            EmailPage second = emailClient.listEmails(INBOX_FOLDER, null, PageRequest.after(2, first.nextCursor(), UidOrder.ASCENDING));
+            EmailPage third = emailClient.listEmails(INBOX_FOLDER, null, PageRequest.after(2, second.nextCursor(), UidOrder.ASCENDING));
+
+            // Then: Pages follow each other and the last one has no next cursor
+            assertThat(first.emails()).extracting(EmailSummary::subject).containsExactly("Subject 1", "Subject 2");
+            assertThat(second.emails()).extracting(EmailSummary::subject).containsExactly("Subject 3", "Subject 4");
+            assertThat(third.emails()).extracting(EmailSummary::subject).containsExactly("Subject 5");
+            assertThat(first.hasNext()).isTrue();
+            assertThat(third.hasNext()).isFalse();
+            assertThat(third.uidValidity()).isEqualTo(first.uidValidity());
+        }
+
+        @Test
+        @DisplayName("Should return newest emails first when order is descending")
+        void should_returnNewestFirst_when_orderIsDescending() throws MessagingException {
+            // Given: Add four emails
+            deliverNumberedEmails(4);
+
+            // When: Read the two newest emails and then the rest
+            EmailPage first = emailClient.listEmails(INBOX_FOLDER, null, PageRequest.first(2, UidOrder.DESCENDING));
+            EmailPage second = emailClient.listEmails(INBOX_FOLDER, null, PageRequest.after(2, first.nextCursor(), UidOrder.DESCENDING));
+
+            // Then: Emails come in descending UID order
+            assertThat(first.emails()).extracting(EmailSummary::subject).containsExactly("Subject 4", "Subject 3");
+            assertThat(second.emails()).extracting(EmailSummary::subject).containsExactly("Subject 2", "Subject 1");
+            assertThat(second.hasNext()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should page only over emails matching the search term")
+        void should_pageMatchingEmails_when_searchTermIsGiven() throws MessagingException {
+            // Given: Add emails from two senders
+            Session session = greenMail.getImap().createSession();
+            for (int i = 1; i <= 3; i++) {
+                greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "boss@example.com", TEST_USER, "Report " + i, "Body"));
+                greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "other@example.com", TEST_USER, "Lunch " + i, "Body"));
+            }
+
+            // When: Read a page of matching emails
+            EmailPage page = emailClient.listEmails(INBOX_FOLDER, EmailSearch.from("boss@example.com").build(),
+                    PageRequest.first(10, UidOrder.ASCENDING));
+
+            // Then: Only matching emails are returned
+            assertThat(page.emails()).extracting(EmailSummary::subject).containsExactly("Report 1", "Report 2", "Report 3");
+            assertThat(page.hasNext()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should throw EmailException when paging a non-existent folder")
+        void should_throwEmailException_when_folderDoesNotExist() {
+            // When/Then: Reading the page fails
+            assertThatThrownBy(() -> emailClient.listEmails("NON_EXISTENT_FOLDER", null, PageRequest.first(10, UidOrder.ASCENDING)))
+                    .isInstanceOf(EmailException.class);
+        }
+
+        private void deliverNumberedEmails(int count) throws MessagingException {
+            Session session = greenMail.getImap().createSession();
+            for (int i = 1; i <= count; i++) {
+                greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "sender@example.com", TEST_USER, "Subject " + i, "Body " + i));
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("listEmails() envelope cache tests")
+    class EnvelopeCacheTests {
+
+        @TempDir
+        Path cacheDirectory;
+
+        @Test
+        @DisplayName("Should serve cached envelopes with current flags on the next listing")
+        void should_serveCachedEnvelopesWithCurrentFlags_when_listingTwice() throws MessagingException {
+            // Given: A client with an envelope cache and two emails
+            Session session = greenMail.getImap().createSession();
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "sender@example.com", TEST_USER, "First", "Body"));
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "sender@example.com", TEST_USER, "Second", "Body"));
+            try (EmailClient cachingClient = cachingClient()) {
+                EmailPage first = cachingClient.listEmails(INBOX_FOLDER, null, PageRequest.first(10, UidOrder.ASCENDING));
+                markMessageAsRead(null);
+
+                // When: List the folder again
+                EmailPage second = cachingClient.listEmails(INBOX_FOLDER, null, PageRequest.first(10, UidOrder.ASCENDING));
+
+                // Then: The same envelopes are returned with the flags from the server
+                assertThat(second.emails()).extracting(EmailSummary::subject).containsExactly("First", "Second");
+                assertThat(second.emails()).extracting(EmailSummary::uid)
+                        .containsExactlyElementsOf(first.emails().stream().map(EmailSummary::uid).toList());
+                assertThat(second.emails().get(0).hasFlag(EmailFlag.SEEN)).isTrue();
+                assertThat(second.emails().get(0).messageNumber()).isEqualTo(1);
+            }
+            assertThat(cacheDirectory).isNotEmptyDirectory();
+        }
+
+        @Test
+        @DisplayName("Should fetch only the envelopes missing from the cache")
+        void should_fetchNewEnvelopes_when_folderGrewSinceLastListing() throws MessagingException {
+            // Given: A cached listing of one email
+            Session session = greenMail.getImap().createSession();
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "sender@example.com", TEST_USER, "First", "Body"));
+            try (EmailClient cachingClient = cachingClient()) {
+                cachingClient.listEmails(INBOX_FOLDER, null, PageRequest.first(10, UidOrder.ASCENDING));
+            }
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "sender@example.com", TEST_USER, "Second", "Body"));
+
+            // When: A new client lists the folder again
+            EmailPage page;
+            try (EmailClient cachingClient = cachingClient()) {
+                page = cachingClient.listEmails(INBOX_FOLDER, null, PageRequest.first(10, UidOrder.ASCENDING));
+            }
+
+            // Then: Cached and new envelopes are combined in UID order
+            assertThat(page.emails()).extracting(EmailSummary::subject).containsExactly("First", "Second");
+        }
+
+        @Test
+        @DisplayName("Should search a synced folder locally with flags from the sync state")
+        void should_searchCachedEnvelopes_when_folderWasPolled() throws MessagingException {
+            // Given: A polled folder with a read and an unread invoice
+            Session session = greenMail.getImap().createSession();
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "billing@example.com", TEST_USER, "Invoice March", "Body"));
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "friend@example.com", TEST_USER, "Hello", "Body"));
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "billing@example.com", TEST_USER, "Invoice April", "Body"));
+            try (EmailClient cachingClient = cachingClient()) {
+                FolderSyncEngine engine = new FolderSyncEngine(cachingClient);
+                engine.poll(INBOX_FOLDER);
+                markMessageAsRead(null);
+                engine.poll(INBOX_FOLDER);
+
+                // When: Search for unread invoices locally
+                List<EmailSummary> unreadInvoices = engine.search(INBOX_FOLDER,
+                        EmailSearch.from("BILLING@").and(EmailSearch.unread()));
+
+                // Then: Only the unread invoice matches
+                assertThat(unreadInvoices).extracting(EmailSummary::subject).containsExactly("Invoice April");
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject searches that need more than the envelope")
+        void should_throwException_when_searchingBodyLocally() {
+            // Given: A client with an envelope cache
+            try (EmailClient cachingClient = cachingClient()) {
+                FolderSyncEngine engine = new FolderSyncEngine(cachingClient);
+
+                // When & Then: A body search cannot be evaluated locally
+                assertThatThrownBy(() -> engine.search(INBOX_FOLDER, EmailSearch.bodyContains("invoice")))
+                        .isInstanceOf(EmailException.class)
+                        .hasMessageContaining("cannot be evaluated locally");
+            }
+        }
+
+        private EmailClient cachingClient() {
+            return EmailClientBuilder.builder()
+                    .hostname(TEST_HOST)
+                    .imapPort(imapPort)
+                    .smtpPort(smtpPort)
+                    .user(TEST_USER)
+                    .password(TEST_PASSWORD)
+                    .envelopeCacheDirectory(cacheDirectory)
+                    .build();
+        }
+    }
+
+    @Nested
+    @DisplayName("searchFolders() tests")
+    class SearchFoldersTests {
+
+        @Test
+        @DisplayName("Should search all folders and merge the results by date")
+        void should_mergeResultsByDate_when_searchingAllFolders() throws MessagingException {
+            // Given: Matching emails in INBOX and in an Archive folder
+            Session session = greenMail.getImap().createSession();
+            MimeMessage archived = createTestMessage(session, "boss@example.com", TEST_USER, "Old report", "Body");
+            archived.setSentDate(Date.from(Instant.parse("2024-01-01T00:00:00Z")));
+            appendToFolder("Archive", archived);
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "boss@example.com", TEST_USER, "New report", "Body"));
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "other@example.com", TEST_USER, "Other", "Body"));
+
+            // When: Search all folders for mail from the boss
+            MultiFolderResult result = emailClient.searchFolders("*", EmailSearch.from("boss@example.com").build());
+
+            // Then: Both emails are found, oldest first, with their folders
+            assertThat(result.isComplete()).isTrue();
+            assertThat(result.emails()).extracting(FolderEmail::folder).containsExactly("Archive", INBOX_FOLDER);
+            assertThat(result.emails()).extracting(folderEmail -> folderEmail.email().subject())
+                    .containsExactly("Old report", "New report");
+        }
+
+        @Test
+        @DisplayName("Should report folders that cannot be searched without failing the others")
+        void should_reportFailure_when_folderDoesNotExist() throws MessagingException {
+            // Given: One email in INBOX
+            Session session = greenMail.getImap().createSession();
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "sender@example.com", TEST_USER, "Hello", "Body"));
+
+            // When: Search INBOX and a folder that does not exist
+            MultiFolderResult result = emailClient.searchFolders(List.of(INBOX_FOLDER, "NON_EXISTENT_FOLDER"), null);
+
+            // Then: INBOX results are returned and the missing folder is reported
+            assertThat(result.emails()).extracting(FolderEmail::folder).containsExactly(INBOX_FOLDER);
+            assertThat(result.isComplete()).isFalse();
+            assertThat(result.failures()).containsOnlyKeys("NON_EXISTENT_FOLDER");
+        }
+
+        private void appendToFolder(String folderName, MimeMessage message) throws MessagingException {
+            Session session = greenMail.getImap().createSession();
+            try (Store store = session.getStore("imap")) {
+                store.connect(TEST_HOST, IMAP_PORT, TEST_USER, TEST_PASSWORD);
+                Folder folder = store.getFolder(folderName);
+                if (!folder.exists()) {
+                    folder.create(Folder.HOLDS_MESSAGES);
+                }
+                folder.appendMessages(new Message[] {message});
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("folderStatuses() tests")
+    class FolderStatusesTests {
+
+        @Test
+        @DisplayName("Should read message and unseen counts of every folder")
+        void should_returnCounts_when_readingFolderStatuses() throws MessagingException {
+            // Given: Two emails in INBOX, one of them read
+            Session session = greenMail.getImap().createSession();
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "sender@example.com", TEST_USER, "First", "Body"));
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "sender@example.com", TEST_USER, "Second", "Body"));
+            markMessageAsRead(null);
+
+            // When: Read the status of all folders
+            List<FolderStatus> statuses = emailClient.folderStatuses("*");
+
+            // Then: INBOX reports its counts
+            assertThat(statuses).extracting(FolderStatus::folder).contains(INBOX_FOLDER);
+            FolderStatus inbox = statuses.stream().filter(status -> status.folder().equals(INBOX_FOLDER)).findFirst().orElseThrow();
+            assertThat(inbox.messages()).isEqualTo(2);
+            assertThat(inbox.unseen()).isEqualTo(1);
+            assertThat(inbox.uidNext()).isGreaterThan(0);
+        }
+    }
+
+    @Nested
+    @DisplayName("syncFolder() tests")
+    class SyncFolderTests {
+
+        @Test
+        @DisplayName("Should return all envelopes on the first sync")
+        void should_returnAllEnvelopes_when_syncingForTheFirstTime() throws MessagingException {
+            // Given: Add two emails
+            Session session = greenMail.getImap().createSession();
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "sender@example.com", TEST_USER, "First", "Body"));
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "sender@example.com", TEST_USER, "Second", "Body"));
+
+            // When: Sync without a previous state
+            FolderChanges changes = emailClient.syncFolder(INBOX_FOLDER, null);
+
+            // Then: Everything is reported as added
+            assertThat(changes.mode()).isEqualTo(SyncMode.FULL);
+            assertThat(changes.added()).extracting(EmailSummary::subject).containsExactly("First", "Second");
+            assertThat(changes.state().messageCount()).isEqualTo(2);
+            assertThat(changes.state().uidNext()).isGreaterThan(changes.added().get(1).uid());
+        }
+
+        @Test
+        @DisplayName("Should report nothing when the folder did not change")
+        void should_reportNoChanges_when_folderIsUnchanged() throws MessagingException {
+            // Given: A synced folder
+            Session session = greenMail.getImap().createSession();
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "sender@example.com", TEST_USER, "First", "Body"));
+            FolderSyncState state = emailClient.syncFolder(INBOX_FOLDER, null).state();
+
+            // When: Sync again
+            FolderChanges changes = emailClient.syncFolder(INBOX_FOLDER, state);
+
+            // Then: No changes are found
+            assertThat(changes.mode()).isNotEqualTo(SyncMode.FULL);
+            assertThat(changes.isEmpty()).isTrue();
+            assertThat(changes.state().messageCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should report new, changed and expunged messages since the previous sync")
+        void should_reportOnlyChanges_when_folderChangedSincePreviousSync() throws MessagingException {
+            // Given: A synced folder with three emails
+            Session session = greenMail.getImap().createSession();
+            for (String subject : List.of("First", "Second", "Third")) {
+                greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "sender@example.com", TEST_USER, subject, "Body"));
+            }
+            FolderChanges initial = emailClient.syncFolder(INBOX_FOLDER, null);
+            long firstUid = initial.added().get(0).uid();
+            long secondUid = initial.added().get(1).uid();
+
+            // And: The first email is read, the second is expunged and a new one arrives
+            markMessageAsRead(null);
+            expungeMessage(2);
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "sender@example.com", TEST_USER, "Fourth", "Body"));
+
+            // When: Sync with the previous state
+            FolderChanges changes = emailClient.syncFolder(INBOX_FOLDER, initial.state());
+
+            // Then: Only the changes are reported
+            assertThat(changes.added()).extracting(EmailSummary::subject).containsExactly("Fourth");
+            assertThat(changes.flagUpdates()).containsExactly(new FlagUpdate(firstUid, Set.of(EmailFlag.SEEN)));
+            assertThat(changes.vanished()).containsExactly(secondUid);
+            assertThat(changes.state().messageCount()).isEqualTo(3);
+            assertThat(changes.state().flags(firstUid)).containsExactly(EmailFlag.SEEN);
+        }
+
+        @Test
+        @DisplayName("Should remember the state between polls")
+        void should_fetchOnlyNewEmails_when_pollingTwiceWithEngine() throws MessagingException {
+            // Given: An engine that polled once
+            Session session = greenMail.getImap().createSession();
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "sender@example.com", TEST_USER, "First", "Body"));
+            FolderSyncEngine engine = new FolderSyncEngine(emailClient);
+            engine.poll(INBOX_FOLDER);
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "sender@example.com", TEST_USER, "Second", "Body"));
+
+            // When: Poll again
+            FolderChanges changes = engine.poll(INBOX_FOLDER);
+
+            // Then: Only the new email is returned
+            assertThat(changes.added()).extracting(EmailSummary::subject).containsExactly("Second");
+            assertThat(engine.state(INBOX_FOLDER)).contains(changes.state());
+        }
+
+        @Test
+        @DisplayName("Should throw EmailException when syncing a non-existent folder")
+        void should_throwEmailException_when_folderDoesNotExist() {
+            // When/Then: Syncing fails
+            assertThatThrownBy(() -> emailClient.syncFolder("NON_EXISTENT_FOLDER", null))
+                    .isInstanceOf(EmailException.class);
+        }
+
+        private void expungeMessage(int messageNumber) throws MessagingException {
+            Session session = greenMail.getImap().createSession();
+            try (Store store = session.getStore("imap")) {
+                store.connect(TEST_HOST, IMAP_PORT, TEST_USER, TEST_PASSWORD);
+                try (Folder inbox = store.getFolder(INBOX_FOLDER)) {
+                    inbox.open(Folder.READ_WRITE);
+                    inbox.getMessage(messageNumber).setFlag(Flags.Flag.DELETED, true);
+                    inbox.expunge();
+                }
+            }
+        }
     }
 
     @Nested
@@ -766,6 +1222,488 @@ class EmailClientIT {
         }
     }
 
+    @Nested
+    @DisplayName("sendAll() tests")
+    class SendAllTests {
+
+        @Test
+        @DisplayName("Should send all emails over one connection")
+        void should_sendAllEmails_when_serverAcceptsThem() {
+            // Given: Several emails
+            List<EmailMessage> emails = List.of(
+                    new EmailMessage("first@example.com", "First", "Body 1"),
+                    new EmailMessage("second@example.com", "Second", "Body 2"),
+                    new EmailMessage("third@example.com", "Third", "Body 3"));
+
+            // When: Send them in bulk
+            List<SendResult> results = emailClient.sendAll(emails);
+
+            // Then: Every email is reported as sent, in order
+            assertThat(results).extracting(SendResult::email).containsExactlyElementsOf(emails);
+            assertThat(results).allMatch(SendResult::isSent);
+        }
+
+        @Test
+        @DisplayName("Should send all emails over a pool of connections and report throughput")
+        void should_sendAllEmails_when_usingSeveralConnections() {
+            // Given: More emails than connections
+            List<EmailMessage> emails = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                emails.add(new EmailMessage("recipient" + i + "@example.com", "Notification " + i, "Body " + i));
+            }
+
+            // When: Send them over three connections
+            BulkSendReport report = emailClient.sendAll(emails, 3);
+
+            // Then: Every email is sent and reported in order
+            assertThat(report.results()).extracting(SendResult::email).containsExactlyElementsOf(emails);
+            assertThat(report.sentCount()).isEqualTo(12);
+            assertThat(report.throughputPerSecond()).isPositive();
+            assertThat(report.latencyPercentile(100)).isPositive();
+        }
+
+        @Test
+        @DisplayName("Should report every email as failed when the SMTP server cannot be reached")
+        void should_failAllEmails_when_smtpPortIsIncorrect() {
+            // Given: EmailClient with incorrect SMTP port
+            EmailClient invalidClient = EmailClientBuilder.builder()
+                    .hostname(TEST_HOST)
+                    .imapPort(imapPort)
+                    .smtpPort(9999)
+                    .user(TEST_USER)
+                    .password(TEST_PASSWORD)
+                    .build();
+
+            // When: Send two emails in bulk
+            List<SendResult> results = invalidClient.sendAll(List.of(
+                    new EmailMessage("first@example.com", "First", "Body"),
+                    new EmailMessage("second@example.com", "Second", "Body")));
+
+            // Then: Both are reported as failed
+            assertThat(results).hasSize(2).noneMatch(SendResult::isSent);
+        }
+    }
+
+    @Nested
+    @DisplayName("EmailOutbox tests")
+    class EmailOutboxTests {
+
+        @TempDir
+        Path outboxDirectory;
+
+        @Test
+        @DisplayName("Should deliver enqueued emails in the background and not resend them after a restart")
+        void should_deliverEnqueuedEmails_when_serverAcceptsThem() throws InterruptedException {
+            // Given: An outbox sending through the test SMTP server
+            EmailSender sender = new EmailSender(TEST_HOST, smtpPort, TEST_USER, TEST_PASSWORD);
+
+            // When: Enqueue three emails and wait for their delivery
+            try (EmailOutbox outbox = EmailOutbox.open(outboxDirectory, sender)) {
+                for (int i = 1; i <= 3; i++) {
+                    outbox.enqueue(new EmailMessage("recipient" + i + "@example.com", "Queued " + i, "Body " + i));
+                }
+                boolean delivered = outbox.awaitDelivery(Duration.ofSeconds(30));
+
+                // Then: All three were sent
+                assertThat(delivered).isTrue();
+                assertThat(outbox.sentCount()).isEqualTo(3);
+            }
+            try (EmailOutbox reopened = EmailOutbox.open(outboxDirectory, sender)) {
+                assertThat(reopened.pendingCount()).isZero();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("watchFolder() tests")
+    class WatchFolderTests {
+
+        private final BlockingQueue<FolderEvent> events = new LinkedBlockingQueue<>();
+
+        @Test
+        @DisplayName("Should report an email that arrives while watching with its envelope")
+        void should_reportNewMessage_when_emailArrivesWhileWatching() throws Exception {
+            // Given: A watcher on INBOX that has taken its current content
+            try (FolderWatcher watcher = emailClient.watchFolder(INBOX_FOLDER, events::add)) {
+                awaitWatching(watcher);
+
+                // When: An email arrives
+                Session session = greenMail.getImap().createSession();
+                greenMail.getUserManager().getUser(TEST_USER)
+                        .deliver(createTestMessage(session, "boss@example.com", TEST_USER, "Pushed", "Body"));
+
+                // Then: It is reported within seconds
+                FolderEvent event = events.poll(10, TimeUnit.SECONDS);
+                assertThat(event).isNotNull();
+                assertThat(event.type()).isEqualTo(FolderEvent.Type.NEW_MESSAGE);
+                assertThat(event.folder()).isEqualTo(INBOX_FOLDER);
+                assertThat(event.email().subject()).isEqualTo("Pushed");
+                assertThat(event.uid()).isEqualTo(event.email().uid());
+            }
+        }
+
+        @Test
+        @DisplayName("Should report the UID of an email that is expunged while watching")
+        void should_reportExpunge_when_emailIsDeletedWhileWatching() throws Exception {
+            // Given: Two emails in INBOX and a watcher on it
+            Session session = greenMail.getImap().createSession();
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "boss@example.com", TEST_USER, "Report", "Body"));
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "colleague@example.com", TEST_USER, "Meeting", "Body"));
+            long reportUid = emailClient.listEmails(INBOX_FOLDER, null, PageRequest.first(1, UidOrder.ASCENDING)).emails().get(0).uid();
+            try (FolderWatcher watcher = emailClient.watchFolder(INBOX_FOLDER, events::add)) {
+                awaitWatching(watcher);
+
+                // When: The email from the boss is deleted by another connection
+                emailClient.deleteEmails(INBOX_FOLDER, EmailSearch.from("boss@example.com").build());
+
+                // Then: Its UID is reported as expunged, without an envelope the watcher never read
+                FolderEvent event = events.poll(10, TimeUnit.SECONDS);
+                assertThat(event).isNotNull();
+                assertThat(event.type()).isEqualTo(FolderEvent.Type.EXPUNGED);
+                assertThat(event.uid()).isEqualTo(reportUid);
+                assertThat(event.email()).isNull();
+                assertThat(events.poll(1, TimeUnit.SECONDS)).isNull();
+            }
+        }
+
+        @Test
+        @DisplayName("Should stop promptly when closed")
+        void should_stop_when_closed() throws Exception {
+            // Given: A running watcher
+            FolderWatcher watcher = emailClient.watchFolder(INBOX_FOLDER, events::add);
+            awaitWatching(watcher);
+
+            // When: It is closed
+            watcher.close();
+
+            // Then: It has stopped without an error
+            assertThat(watcher.awaitTermination(Duration.ofSeconds(5))).isTrue();
+            assertThat(watcher.isRunning()).isFalse();
+            assertThat(watcher.failure()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should stop and report the error when the folder does not exist")
+        void should_stopWithError_when_folderDoesNotExist() throws Exception {
+            // Given: A listener recording errors
+            List<EmailException> errors = new CopyOnWriteArrayList<>();
+            FolderEventListener listener = new FolderEventListener() {
+                @Override
+                public void onEvent(FolderEvent event) {
+                    events.add(event);
+                }
+
+                @Override
+                public void onError(EmailException error) {
+                    errors.add(error);
+                }
+            };
+
+            // When: A missing folder is watched
+            try (FolderWatcher watcher = emailClient.watchFolder("NON_EXISTENT_FOLDER", listener)) {
+
+                // Then: The watcher stops with the error instead of reconnecting
+                assertThat(watcher.awaitTermination(Duration.ofSeconds(10))).isTrue();
+                assertThat(watcher.failure()).hasMessageContaining("NON_EXISTENT_FOLDER");
+                assertThat(errors).containsExactly(watcher.failure());
+            }
+        }
+
+        private void awaitWatching(FolderWatcher watcher) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!watcher.isWatching()) {
+                assertThat(System.nanoTime()).as("watcher connected in time").isLessThan(deadline);
+                Thread.sleep(50);
+            }
+            // GreenMail misses changes made while it is still setting up the IDLE command
+            Thread.sleep(500);
+        }
+    }
+
+    @Nested
+    @DisplayName("listEmails() with sort tests")
+    class SortedListEmailsTests {
+
+        @Test
+        @DisplayName("Should return only the newest emails by arrival")
+        void should_returnNewestEmails_when_sortingByArrivalInReverse() throws MessagingException {
+            // Given: Five emails delivered in order
+            Session session = greenMail.getImap().createSession();
+            for (int i = 1; i <= 5; i++) {
+                greenMail.getUserManager().getUser(TEST_USER)
+                        .deliver(createTestMessage(session, "sender@example.com", TEST_USER, "Email " + i, "Body"));
+            }
+
+            // When: List the two newest
+            List<EmailSummary> emails = emailClient.listEmails(INBOX_FOLDER, null, EmailSort.newestFirst(), 2);
+
+            // Then: The last two delivered come back, newest first
+            assertThat(emails).extracting(EmailSummary::subject).containsExactly("Email 5", "Email 4");
+        }
+
+        @Test
+        @DisplayName("Should sort matching emails by subject")
+        void should_sortMatchingEmails_when_sortingBySubject() throws MessagingException {
+            // Given: Three emails from the boss and one from a colleague
+            Session session = greenMail.getImap().createSession();
+            for (String subject : List.of("Charlie", "Alpha", "Bravo")) {
+                greenMail.getUserManager().getUser(TEST_USER)
+                        .deliver(createTestMessage(session, "boss@example.com", TEST_USER, subject, "Body"));
+            }
+            greenMail.getUserManager().getUser(TEST_USER)
+                    .deliver(createTestMessage(session, "colleague@example.com", TEST_USER, "Aardvark", "Body"));
+
+            // When: List the emails from the boss by subject
+            List<EmailSummary> emails = emailClient.listEmails(INBOX_FOLDER, EmailSearch.from("boss@example.com").build(),
+                    EmailSort.by(SortKey.SUBJECT), 10);
+
+            // Then: Only the boss's emails come back, in subject order
+            assertThat(emails).extracting(EmailSummary::subject).containsExactly("Alpha", "Bravo", "Charlie");
+        }
+    }
+
+    @Nested
+    @DisplayName("count() tests")
+    class CountTests {
+
+        @Test
+        @DisplayName("Should count all, unread and matching emails without listing them")
+        void should_countEmails_when_filteredOrNot() throws MessagingException {
+            // Given: Two emails from the boss and one from a colleague, the first one read
+            Session session = greenMail.getImap().createSession();
+            MimeMessage first = createTestMessage(session, "boss@example.com", TEST_USER, "Report 1", "Body");
+            greenMail.getUserManager().getUser(TEST_USER).deliver(first);
+            greenMail.getUserManager().getUser(TEST_USER)
+                    .deliver(createTestMessage(session, "boss@example.com", TEST_USER, "Report 2", "Body"));
+            greenMail.getUserManager().getUser(TEST_USER)
+                    .deliver(createTestMessage(session, "colleague@example.com", TEST_USER, "Meeting", "Body"));
+            markMessageAsRead(first);
+
+            // When & Then: Each count matches the emails of the folder
+            assertThat(emailClient.count(INBOX_FOLDER, null)).isEqualTo(3);
+            assertThat(emailClient.count(INBOX_FOLDER, EmailSearch.unread().build())).isEqualTo(2);
+            assertThat(emailClient.count(INBOX_FOLDER, EmailSearch.from("boss@example.com").build())).isEqualTo(2);
+            assertThat(emailClient.count(INBOX_FOLDER, EmailSearch.from("nobody@example.com").build())).isZero();
+            assertThat(emailClient.count(INBOX_FOLDER, EmailSearch.none().build())).isZero();
+            // SearchSequence rejects SIZE >=, so it is matched on the client
+            assertThat(emailClient.count(INBOX_FOLDER, new SizeTerm(ComparisonTerm.GE, 1))).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should fail when the folder does not exist")
+        void should_throwException_when_folderDoesNotExist() {
+            assertThatThrownBy(() -> emailClient.count("NON_EXISTENT_FOLDER", null))
+                    .isInstanceOf(EmailException.class)
+                    .hasMessageContaining("NON_EXISTENT_FOLDER");
+        }
+    }
+
+    @Nested
+    @DisplayName("explain() tests")
+    class ExplainTests {
+
+        @Test
+        @DisplayName("Should plan a search from the folder status without running it")
+        void should_explainSearch_when_folderExists() throws MessagingException {
+            // Given: Two emails in the inbox
+            Session session = greenMail.getImap().createSession();
+            greenMail.getUserManager().getUser(TEST_USER)
+                    .deliver(createTestMessage(session, "boss@example.com", TEST_USER, "Report", "Body"));
+            greenMail.getUserManager().getUser(TEST_USER)
+                    .deliver(createTestMessage(session, "colleague@example.com", TEST_USER, "Meeting", "Body"));
+
+            // When: Explaining a search for the boss's unread emails
+            SearchPlan plan = emailClient.explain(INBOX_FOLDER,
+                    EmailSearch.unread().and(EmailSearch.from("boss@example.com")).build());
+
+            // Then: The whole search runs on the server over both emails
+            assertThat(plan.execution()).isEqualTo(SearchPlan.Execution.SERVER);
+            assertThat(plan.imapSearch()).isEqualTo("SEARCH UNSEEN FROM \"boss@example.com\"");
+            assertThat(plan.messages()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should fail when the folder does not exist")
+        void should_throwException_when_folderDoesNotExist() {
+            assertThatThrownBy(() -> emailClient.explain("NON_EXISTENT_FOLDER", null))
+                    .isInstanceOf(EmailException.class)
+                    .hasMessageContaining("NON_EXISTENT_FOLDER");
+        }
+    }
+
+    @Nested
+    @DisplayName("capability cache tests")
+    class CapabilityCacheTests {
+
+        @TempDir
+        Path cacheDirectory;
+
+        @Test
+        @DisplayName("Should rediscover capabilities and count again when the server rejects ESEARCH")
+        void should_replaceCachedCapabilities_when_serverRejectsEsearch() throws MessagingException {
+            // Given: Cached capabilities promising extensions GreenMail lacks, and two emails from the boss
+            ServerCapabilities actual = emailClient.capabilities();
+            assertThat(actual.has(ImapCapability.ESEARCH)).isFalse();
+            ServerCapabilities stale = seedStaleCapabilities(actual);
+            deliverFrom("boss@example.com", "Report 1", "Report 2");
+            deliverFrom("colleague@example.com", "Meeting");
+
+            try (EmailClient cachingClient = cachingClient()) {
+                assertThat(cachingClient.capabilities()).isEqualTo(stale);
+
+                // When: Counting with a search, which the stale capabilities send as SEARCH RETURN (COUNT)
+                int count = cachingClient.count(INBOX_FOLDER, EmailSearch.from("boss@example.com").build());
+
+                // Then: The count falls back to a plain search and the cache entry is replaced, on disk too
+                assertThat(count).isEqualTo(2);
+                assertThat(cachingClient.capabilities().supported()).isEqualTo(actual.supported());
+            }
+            assertThat(new CapabilityCache(cacheDirectory, CapabilityCache.DEFAULT_TTL).get(account()).supported())
+                    .isEqualTo(actual.supported());
+        }
+
+        @Test
+        @DisplayName("Should list sorted emails when the cached capabilities promise more than the server has")
+        void should_listSortedEmails_when_cachedCapabilitiesAreStale() throws MessagingException {
+            // Given: Cached capabilities promising SORT and ESEARCH, and three emails
+            ServerCapabilities actual = emailClient.capabilities();
+            seedStaleCapabilities(actual);
+            deliverFrom("boss@example.com", "Charlie", "Alpha", "Bravo");
+
+            try (EmailClient cachingClient = cachingClient()) {
+                // When: Listing the emails by subject
+                List<EmailSummary> emails = cachingClient.listEmails(INBOX_FOLDER, null, EmailSort.by(SortKey.SUBJECT), 10);
+
+                // Then: They are sorted either way and the cache only keeps SORT if the server has it
+                assertThat(emails).extracting(EmailSummary::subject).containsExactly("Alpha", "Bravo", "Charlie");
+                assertThat(cachingClient.capabilities().has(ImapCapability.SORT)).isEqualTo(actual.has(ImapCapability.SORT));
+            }
+        }
+
+        private ServerCapabilities seedStaleCapabilities(ServerCapabilities actual) {
+            Set<ImapCapability> promised = EnumSet.of(ImapCapability.ESEARCH, ImapCapability.SORT);
+            promised.addAll(actual.supported());
+            ServerCapabilities stale = new ServerCapabilities(promised, Instant.now());
+            new CapabilityCache(cacheDirectory, CapabilityCache.DEFAULT_TTL).put(account(), stale);
+            return stale;
+        }
+
+        private void deliverFrom(String sender, String... subjects) throws MessagingException {
+            Session session = greenMail.getImap().createSession();
+            for (String subject : subjects) {
+                greenMail.getUserManager().getUser(TEST_USER)
+                        .deliver(createTestMessage(session, sender, TEST_USER, subject, "Body"));
+            }
+        }
+
+        private String account() {
+            return TEST_USER + "@" + TEST_HOST + ":" + imapPort;
+        }
+
+        private EmailClient cachingClient() {
+            return EmailClientBuilder.builder()
+                    .hostname(TEST_HOST)
+                    .imapPort(imapPort)
+                    .smtpPort(smtpPort)
+                    .user(TEST_USER)
+                    .password(TEST_PASSWORD)
+                    .capabilityCacheDirectory(cacheDirectory)
+                    .build();
+        }
+    }
+
+    @Nested
+    @DisplayName("moveEmails() and copyEmails() tests")
+    class MoveAndCopyEmailsTests {
+
+        @Test
+        @DisplayName("Should move matching emails to the target folder in chunks")
+        void should_moveMatchingEmails_when_targetFolderExists() throws MessagingException {
+            // Given: Three emails from the boss and one from a colleague, and an Archive folder
+            Session session = greenMail.getImap().createSession();
+            for (int i = 1; i <= 3; i++) {
+                greenMail.getUserManager().getUser(TEST_USER)
+                        .deliver(createTestMessage(session, "boss@example.com", TEST_USER, "Report " + i, "Body " + i));
+            }
+            greenMail.getUserManager().getUser(TEST_USER)
+                    .deliver(createTestMessage(session, "colleague@example.com", TEST_USER, "Meeting", "Body"));
+            createFolder("Archive");
+            List<String> progress = new ArrayList<>();
+
+            // When: Move the emails from the boss two at a time
+            int moved = emailClient.moveEmails(INBOX_FOLDER, EmailSearch.from("boss@example.com").build(), "Archive", 2,
+                    (processed, total) -> progress.add(processed + "/" + total));
+
+            // Then: The emails are in Archive and only the colleague's email is left in INBOX
+            assertThat(moved).isEqualTo(3);
+            assertThat(progress).containsExactly("2/3", "3/3");
+            assertThat(emailClient.listEmails("Archive", null)).extracting(Message::getSubject)
+                    .containsExactlyInAnyOrder("Report 1", "Report 2", "Report 3");
+            assertThat(emailClient.listEmails(INBOX_FOLDER, null)).extracting(Message::getSubject)
+                    .containsExactly("Meeting");
+        }
+
+        @Test
+        @DisplayName("Should copy matching emails and keep them in the source folder")
+        void should_keepSourceEmails_when_copying() throws MessagingException {
+            // Given: Two emails in INBOX and an Archive folder
+            Session session = greenMail.getImap().createSession();
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "boss@example.com", TEST_USER, "Report", "Body"));
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "colleague@example.com", TEST_USER, "Meeting", "Body"));
+            createFolder("Archive");
+
+            // When: Copy the email from the boss
+            int copied = emailClient.copyEmails(INBOX_FOLDER, EmailSearch.from("boss@example.com").build(), "Archive");
+
+            // Then: Archive has the copy and INBOX still has both emails
+            assertThat(copied).isEqualTo(1);
+            assertThat(emailClient.listEmails("Archive", null)).extracting(Message::getSubject).containsExactly("Report");
+            assertThat(getEmailCountFromGreenMail()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should move emails matching a term that IMAP SEARCH cannot express")
+        void should_moveEmailsMatchedOnClient_when_termCannotBeSentToServer() throws MessagingException {
+            // Given: A large and a small email, and an Archive folder
+            Session session = greenMail.getImap().createSession();
+            greenMail.getUserManager().getUser(TEST_USER)
+                    .deliver(createTestMessage(session, "boss@example.com", TEST_USER, "Large", "x".repeat(5000)));
+            greenMail.getUserManager().getUser(TEST_USER)
+                    .deliver(createTestMessage(session, "boss@example.com", TEST_USER, "Small", "Body"));
+            createFolder("Archive");
+
+            // When: Move the emails of at most 1000 bytes, which SearchSequence rejects
+            int moved = emailClient.moveEmails(INBOX_FOLDER, new SizeTerm(ComparisonTerm.LE, 1000), "Archive");
+
+            // Then: Only the small email is moved
+            assertThat(moved).isEqualTo(1);
+            assertThat(emailClient.listEmails("Archive", null)).extracting(Message::getSubject).containsExactly("Small");
+            assertThat(emailClient.listEmails(INBOX_FOLDER, null)).extracting(Message::getSubject).containsExactly("Large");
+        }
+
+        @Test
+        @DisplayName("Should fail without touching the source folder when the target folder does not exist")
+        void should_throwException_when_targetFolderDoesNotExist() throws MessagingException {
+            // Given: One email in INBOX
+            Session session = greenMail.getImap().createSession();
+            greenMail.getUserManager().getUser(TEST_USER).deliver(createTestMessage(session, "boss@example.com", TEST_USER, "Report", "Body"));
+
+            // When & Then: Moving to a missing folder fails and the email stays in INBOX
+            assertThatThrownBy(() -> emailClient.moveEmails(INBOX_FOLDER, null, "NON_EXISTENT_FOLDER"))
+                    .isInstanceOf(EmailException.class)
+                    .hasMessageContaining("NON_EXISTENT_FOLDER");
+            assertThat(getEmailCountFromGreenMail()).isEqualTo(1);
+        }
+
+        private void createFolder(String folderName) throws MessagingException {
+            Session session = greenMail.getImap().createSession();
+            try (Store store = session.getStore("imap")) {
+                store.connect(TEST_HOST, IMAP_PORT, TEST_USER, TEST_PASSWORD);
+                store.getFolder(folderName).create(Folder.HOLDS_MESSAGES);
+            }
+        }
+    }
+
     @Nested
     @DisplayName("deleteEmails() with SearchTerm tests")
     class DeleteEmailsWithSearchTermTests {
@@ -800,6 +1738,31 @@ class EmailClientIT {
             assertThat(remainingMessages.get(0).getFrom()[0].toString()).contains("colleague@example.com");
         }
 
+        @Test
+        @DisplayName("Should delete matching emails in chunks and report progress")
+        void should_deleteMatchingEmailsInChunks_when_chunkSizeIsSmallerThanMatches() throws MessagingException {
+            // Given: Five emails from the boss and one from a colleague
+            Session session = greenMail.getImap().createSession();
+            for (int i = 1; i <= 5; i++) {
+                greenMail.getUserManager().getUser(TEST_USER)
+                        .deliver(createTestMessage(session, "boss@example.com", TEST_USER, "Report " + i, "Body " + i));
+            }
+            greenMail.getUserManager().getUser(TEST_USER)
+                    .deliver(createTestMessage(session, "colleague@example.com", TEST_USER, "Meeting", "Body"));
+            List<String> progress = new ArrayList<>();
+
+            // When: Delete emails from boss two at a time
+            int deleted = emailClient.deleteEmails(INBOX_FOLDER, EmailSearch.from("boss@example.com").toSearchTerm(), 2,
+                    (processed, total) -> progress.add(processed + "/" + total));
+
+            // Then: All five are deleted in three chunks and the colleague's email is kept
+            assertThat(deleted).isEqualTo(5);
+            assertThat(progress).containsExactly("2/5", "4/5", "5/5");
+            List<Message> remainingMessages = emailClient.listEmails(INBOX_FOLDER, null);
+            assertThat(remainingMessages).hasSize(1);
+            assertThat(remainingMessages.get(0).getFrom()[0].toString()).contains("colleague@example.com");
+        }
+
         @Test
         @DisplayName("Should delete all unread emails successfully")
         void should_deleteAllUnreadEmailsSuccessfully() throws MessagingException {
@@ -863,6 +1826,25 @@ class EmailClientIT {
             assertThat(remainingMessages.get(0).getSubject()).isEqualTo("Meeting Notes");
         }
 
+        @Test
+        @DisplayName("Should delete emails matching a term that IMAP SEARCH cannot express")
+        void should_deleteEmailsMatchedOnClient_when_termCannotBeSentToServer() throws MessagingException {
+            // Given: A large and a small email
+            Session session = greenMail.getImap().createSession();
+            greenMail.getUserManager().getUser(TEST_USER)
+                    .deliver(createTestMessage(session, "sender1@example.com", TEST_USER, "Large", "x".repeat(5000)));
+            greenMail.getUserManager().getUser(TEST_USER)
+                    .deliver(createTestMessage(session, "sender2@example.com", TEST_USER, "Small", "Body"));
+
+            // When: Delete the emails of at least 4000 bytes, which SearchSequence rejects
+            int deleted = emailClient.deleteEmails(INBOX_FOLDER, new SizeTerm(ComparisonTerm.GE, 4000), 10,
+                    BatchProgressListener.NONE);
+
+            // Then: Only the large email is deleted
+            assertThat(deleted).isEqualTo(1);
+            assertThat(emailClient.listEmails(INBOX_FOLDER, null)).extracting(Message::getSubject).containsExactly("Small");
+        }
+
         @Test
         @DisplayName("Should return false when no emails match search term")
         void should_returnFalse_when_noEmailsMatchSearchTerm() throws MessagingException {
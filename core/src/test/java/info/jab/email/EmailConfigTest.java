@@ -1,5 +1,6 @@
 package info.jab.email;
 
+import java.nio.file.Path;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -51,5 +52,14 @@ class EmailConfigTest {
         assertThat(config3.getImapPort()).isEqualTo(110);
         assertThat(config3.getSmtpPort()).isEqualTo(465);
     }
-}
 
+    @Test
+    void shouldResolveCacheDirectory() {
+        // When/Then
+        assertThat(EmailConfig.cacheDirectory("/tmp/email-cache")).isEqualTo(Path.of("/tmp/email-cache"));
+        assertThat(EmailConfig.cacheDirectory("OFF")).isNull();
+        assertThat(EmailConfig.cacheDirectory(null)).isNull();
+        assertThat(EmailConfig.cacheDirectory(" ")).isNull();
+        assertThat(EmailConfig.forTesting("mail.example.com", 143, 25, "user@example.com", "password").getCacheDirectory()).isNull();
+    }
+}
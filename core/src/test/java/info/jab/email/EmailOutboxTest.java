@@ -0,0 +1,264 @@
+package info.jab.email;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for EmailOutbox and its journal format. Delivery to a live server is covered by EmailClientIT.
+ */
+class EmailOutboxTest {
+
+    private static final OutboxSettings NO_RETRY_SOON =
+            new OutboxSettings(Duration.ofMillis(10), 100, Duration.ofHours(1), Duration.ofHours(1));
+
+    private final EmailSender unreachable = new EmailSender("localhost", 1, "user@example.com", "password");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReplayPendingEmailsInEnqueueOrder() throws IOException {
+        // Given
+        Path path = directory.resolve("outbox.journal");
+        try (OutboxJournal journal = OutboxJournal.open(path, new LinkedHashMap<>())) {
+            journal.appendEnqueued(entry("<1@example.com>", "first@example.com"));
+            journal.appendEnqueued(entry("<2@example.com>", "second@example.com"));
+            journal.appendEnqueued(entry("<3@example.com>", "third@example.com"));
+            journal.appendSent("<2@example.com>");
+        }
+
+        // When
+        Map<String, OutboxJournal.Entry> pending = new LinkedHashMap<>();
+        try (OutboxJournal journal = OutboxJournal.open(path, pending)) {
+
+            // Then
+            assertThat(pending).containsOnlyKeys("<1@example.com>", "<3@example.com>");
+            assertThat(pending.values()).extracting(entry -> entry.email().to())
+                    .containsExactly("first@example.com", "third@example.com");
+            assertThat(journal.doneOnOpen()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void shouldCutOffRecordTornByCrash() throws IOException {
+        // Given
+        Path path = directory.resolve("outbox.journal");
+        try (OutboxJournal journal = OutboxJournal.open(path, new LinkedHashMap<>())) {
+            journal.appendEnqueued(entry("<1@example.com>", "first@example.com"));
+            journal.appendEnqueued(entry("<2@example.com>", "second@example.com"));
+        }
+        long intactSize;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            intactSize = channel.size();
+            channel.truncate(intactSize - 3);
+        }
+
+        // When
+        Map<String, OutboxJournal.Entry> pending = new LinkedHashMap<>();
+        try (OutboxJournal journal = OutboxJournal.open(path, pending)) {
+            journal.appendEnqueued(entry("<3@example.com>", "third@example.com"));
+        }
+
+        // Then
+        assertThat(pending).containsOnlyKeys("<1@example.com>");
+        Map<String, OutboxJournal.Entry> reopened = new LinkedHashMap<>();
+        try (OutboxJournal journal = OutboxJournal.open(path, reopened)) {
+            assertThat(reopened).containsOnlyKeys("<1@example.com>", "<3@example.com>");
+        }
+    }
+
+    @Test
+    void shouldCompactJournalToPendingEmails() throws IOException {
+        // Given
+        Path path = directory.resolve("outbox.journal");
+        Map<String, OutboxJournal.Entry> pending = new LinkedHashMap<>();
+        try (OutboxJournal journal = OutboxJournal.open(path, pending)) {
+            for (int i = 0; i < 10; i++) {
+                journal.appendEnqueued(entry("<" + i + "@example.com>", "to" + i + "@example.com"));
+                journal.appendSent("<" + i + "@example.com>");
+            }
+            journal.appendEnqueued(entry("<pending@example.com>", "pending@example.com"));
+            long before = journal.size();
+
+            // When
+            journal.compact(List.of(entry("<pending@example.com>", "pending@example.com")));
+
+            // Then
+            assertThat(journal.size()).isLessThan(before);
+        }
+        Map<String, OutboxJournal.Entry> reopened = new LinkedHashMap<>();
+        try (OutboxJournal journal = OutboxJournal.open(path, reopened)) {
+            assertThat(reopened).containsOnlyKeys("<pending@example.com>");
+            assertThat(journal.doneOnOpen()).isZero();
+        }
+    }
+
+    @Test
+    void shouldKeepJournalUsableWhenCompactionFails() throws IOException {
+        // Given
+        Path path = directory.resolve("outbox.journal");
+        Files.createDirectories(directory.resolve("outbox.journal.compact").resolve("blocked"));
+        try (OutboxJournal journal = OutboxJournal.open(path, new LinkedHashMap<>())) {
+            journal.appendEnqueued(entry("<1@example.com>", "first@example.com"));
+            journal.appendSent("<1@example.com>");
+            journal.appendEnqueued(entry("<2@example.com>", "second@example.com"));
+
+            // When
+            assertThatThrownBy(() -> journal.compact(List.of(entry("<2@example.com>", "second@example.com"))))
+                    .isInstanceOf(IOException.class);
+            journal.appendEnqueued(entry("<3@example.com>", "third@example.com"));
+        }
+
+        // Then
+        Map<String, OutboxJournal.Entry> reopened = new LinkedHashMap<>();
+        try (OutboxJournal journal = OutboxJournal.open(path, reopened)) {
+            assertThat(reopened).containsOnlyKeys("<2@example.com>", "<3@example.com>");
+        }
+    }
+
+    @Test
+    void shouldRejectJournalThatIsAlreadyOpen() throws IOException {
+        // Given
+        Path path = directory.resolve("outbox.journal");
+        try (OutboxJournal journal = OutboxJournal.open(path, new LinkedHashMap<>())) {
+
+            // When & Then
+            assertThatThrownBy(() -> OutboxJournal.open(path, new LinkedHashMap<>()))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("is already open");
+        }
+        try (FileChannel lockChannel = FileChannel.open(directory.resolve("outbox.journal.lock"), StandardOpenOption.WRITE);
+             FileLock _ = lockChannel.lock()) {
+            assertThatThrownBy(() -> OutboxJournal.open(path, new LinkedHashMap<>()))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("is in use by another process");
+        }
+        try (OutboxJournal journal = OutboxJournal.open(path, new LinkedHashMap<>())) {
+            assertThat(journal.doneOnOpen()).isZero();
+        }
+    }
+
+    @Test
+    void shouldRejectFileThatIsNotAJournal() throws IOException {
+        // Given
+        Path path = directory.resolve("outbox.journal");
+        Files.writeString(path, "not a journal");
+
+        // When & Then
+        assertThatThrownBy(() -> OutboxJournal.open(path, new LinkedHashMap<>()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("is not an outbox journal");
+    }
+
+    @Test
+    void shouldKeepEmailsPendingAcrossRestartsWhileServerIsUnreachable() {
+        // Given
+        String messageId;
+        try (EmailOutbox outbox = EmailOutbox.open(directory, unreachable, NO_RETRY_SOON)) {
+            messageId = outbox.enqueue(new EmailMessage("first@example.com", "First", "Body"));
+            outbox.enqueue(new EmailMessage("second@example.com", "Second", "Body"));
+        }
+
+        // When
+        try (EmailOutbox outbox = EmailOutbox.open(directory, unreachable, NO_RETRY_SOON)) {
+
+            // Then
+            assertThat(messageId).matches("<[0-9a-f-]+@example\\.com>");
+            assertThat(outbox.pendingCount()).isEqualTo(2);
+            assertThat(outbox.sentCount()).isZero();
+        }
+    }
+
+    @Test
+    void shouldGiveUpAfterMaxAttemptsAndNotRetryAfterRestart() throws InterruptedException {
+        // Given
+        OutboxSettings settings = new OutboxSettings(Duration.ofMillis(10), 2, Duration.ofMillis(10), Duration.ofMillis(10));
+        try (EmailOutbox outbox = EmailOutbox.open(directory, unreachable, settings)) {
+            outbox.enqueue(new EmailMessage("to@example.com", "Subject", "Body"));
+
+            // When
+            boolean delivered = outbox.awaitDelivery(Duration.ofSeconds(10));
+
+            // Then
+            assertThat(delivered).isTrue();
+            assertThat(outbox.failedCount()).isEqualTo(1);
+        }
+        try (EmailOutbox outbox = EmailOutbox.open(directory, unreachable, settings)) {
+            assertThat(outbox.pendingCount()).isZero();
+        }
+    }
+
+    @Test
+    void shouldKeepEmailPendingWhenItsOutcomeCannotBeJournaled() throws IOException, InterruptedException {
+        // Given
+        Path path = directory.resolve("outbox.journal");
+        try (OutboxJournal journal = OutboxJournal.open(path, new LinkedHashMap<>())) {
+            journal.appendEnqueued(entry("<1@example.com>", "to@example.com"));
+        }
+        Map<String, OutboxJournal.Entry> pending = new LinkedHashMap<>();
+        OutboxJournal journal = OutboxJournal.open(path, pending);
+        // A closed journal fails every append, like a full or vanished disk
+        journal.close();
+        OutboxSettings giveUpAtOnce = new OutboxSettings(Duration.ofMillis(10), 1, Duration.ofMillis(10), Duration.ofMillis(10));
+
+        // When
+        try (EmailOutbox outbox = new EmailOutbox(unreachable, giveUpAtOnce, journal, pending)) {
+            boolean delivered = outbox.awaitDelivery(Duration.ofSeconds(2));
+
+            // Then
+            assertThat(delivered).isFalse();
+            assertThat(outbox.pendingCount()).isEqualTo(1);
+            assertThat(outbox.failedCount()).isZero();
+            assertThatThrownBy(() -> outbox.enqueue(new EmailMessage("to@example.com", "Subject", "Body")))
+                    .isInstanceOf(EmailException.class)
+                    .hasMessageStartingWith("Error writing outbox journal");
+        }
+        Map<String, OutboxJournal.Entry> reopened = new LinkedHashMap<>();
+        try (OutboxJournal _ = OutboxJournal.open(path, reopened)) {
+            assertThat(reopened).containsOnlyKeys("<1@example.com>");
+        }
+    }
+
+    @Test
+    void shouldRejectEnqueueAfterClose() {
+        // Given
+        EmailOutbox outbox = EmailOutbox.open(directory, unreachable, NO_RETRY_SOON);
+        outbox.close();
+
+        // When & Then
+        assertThatThrownBy(() -> outbox.enqueue(new EmailMessage("to@example.com", "Subject", "Body")))
+                .isInstanceOf(EmailException.class)
+                .hasMessage("Outbox is closed");
+    }
+
+    @Test
+    void shouldDoubleRetryDelayUpToMaximum() {
+        // Given
+        OutboxSettings settings = new OutboxSettings(Duration.ofMillis(10), 10, Duration.ofSeconds(1), Duration.ofSeconds(5));
+
+        // When & Then
+        assertThat(settings.retryDelay(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(settings.retryDelay(2)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(settings.retryDelay(3)).isEqualTo(Duration.ofSeconds(4));
+        assertThat(settings.retryDelay(4)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(settings.retryDelay(40)).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    private static OutboxJournal.Entry entry(String messageId, String to) {
+        return new OutboxJournal.Entry(messageId, new EmailMessage(to, "Subject", "Grüße"), Instant.ofEpochMilli(1_700_000_000_000L));
+    }
+}
@@ -2,6 +2,8 @@ package info.jab.email;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -43,5 +45,34 @@ class EmailSenderTest {
         assertThat(senderWithSsl).isNotNull();
         assertThat(senderPlain).isNotNull();
     }
-}
 
+    @Test
+    void shouldFailAllEmailsWithoutFurtherAttemptsWhenServerIsUnreachable() {
+        // Given
+        EmailSender sender = new EmailSender("localhost", 1, "user@example.com", "password");
+        List<EmailMessage> emails = List.of(
+                new EmailMessage("first@example.com", "First", "Body"),
+                new EmailMessage("second@example.com", "Second", "Body"));
+
+        // When
+        List<SendResult> results = sender.sendAll(emails);
+
+        // Then
+        assertThat(results).extracting(SendResult::email).containsExactlyElementsOf(emails);
+        assertThat(results).noneMatch(SendResult::isSent);
+        assertThat(results).extracting(SendResult::error)
+                .allMatch(error -> error.startsWith("Cannot connect to SMTP server"));
+    }
+
+    @Test
+    void shouldReturnNoResultsWhenThereIsNothingToSend() {
+        // Given
+        EmailSender sender = new EmailSender("localhost", 1, "user@example.com", "password");
+
+        // When
+        List<SendResult> results = sender.sendAll(List.of());
+
+        // Then
+        assertThat(results).isEmpty();
+    }
+}
@@ -0,0 +1,76 @@
+package info.jab.email;
+
+import com.sun.mail.imap.SortTerm;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for EmailSort.
+ */
+class EmailSortTest {
+
+    @Test
+    void shouldPutReverseBeforeTheSortKey() {
+        assertThat(EmailSort.by(SortKey.SIZE).toSortTerms()).containsExactly(SortTerm.SIZE);
+        assertThat(EmailSort.newestFirst().toSortTerms()).containsExactly(SortTerm.REVERSE, SortTerm.ARRIVAL);
+    }
+
+    @Test
+    void shouldSortByBaseSubjectIgnoringReplyPrefixesAndCase() {
+        // Given
+        List<EmailSummary> emails = new ArrayList<>(List.of(
+                email(1, "b@example.com", "Re: zebra", "2025-01-03T00:00:00Z", 10),
+                email(2, "a@example.com", "apple", "2025-01-02T00:00:00Z", 30),
+                email(3, "C@example.com", "FWD: Mango", "2025-01-01T00:00:00Z", 20)));
+
+        // When
+        emails.sort(EmailSort.by(SortKey.SUBJECT).comparator());
+
+        // Then
+        assertThat(emails).extracting(EmailSummary::messageNumber).containsExactly(2, 3, 1);
+    }
+
+    @Test
+    void shouldSortByMailboxOfFirstSenderIgnoringDisplayName() {
+        // Given
+        List<EmailSummary> emails = new ArrayList<>(List.of(
+                email(1, "Alice <Carol@example.com>", "One", "2025-01-01T00:00:00Z", 10),
+                email(2, "bob@example.com", "Two", "2025-01-01T00:00:00Z", 10),
+                email(3, "Zed <alice@example.org>, bob@example.com", "Three", "2025-01-01T00:00:00Z", 10),
+                email(4, null, "Four", "2025-01-01T00:00:00Z", 10)));
+
+        // When
+        emails.sort(EmailSort.by(SortKey.FROM).comparator());
+
+        // Then
+        assertThat(emails).extracting(EmailSummary::messageNumber).containsExactly(4, 3, 2, 1);
+    }
+
+    @Test
+    void shouldSortByDateAndSizeInReverseWithArrivalAsTieBreak() {
+        // Given
+        List<EmailSummary> emails = new ArrayList<>(List.of(
+                email(1, "b@example.com", "One", "2025-01-01T00:00:00Z", 20),
+                email(2, "a@example.com", "Two", "2025-01-03T00:00:00Z", 20),
+                email(3, "c@example.com", "Three", null, 10)));
+
+        // When
+        List<EmailSummary> byDate = new ArrayList<>(emails);
+        byDate.sort(EmailSort.by(SortKey.DATE).reversed().comparator());
+        List<EmailSummary> bySize = new ArrayList<>(emails);
+        bySize.sort(new EmailSort(SortKey.SIZE, true).comparator());
+
+        // Then
+        assertThat(byDate).extracting(EmailSummary::messageNumber).containsExactly(2, 1, 3);
+        assertThat(bySize).extracting(EmailSummary::messageNumber).containsExactly(1, 2, 3);
+    }
+
+    private static EmailSummary email(int messageNumber, String from, String subject, String sentDate, long size) {
+        return new EmailSummary(messageNumber, messageNumber, null, from, List.of(), List.of(), subject,
+                sentDate != null ? Instant.parse(sentDate) : null, null, size, null);
+    }
+}
@@ -0,0 +1,247 @@
+package info.jab.email;
+
+import jakarta.mail.Folder;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Store;
+import jakarta.mail.URLName;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for EmailStoreConnectionPool using in-memory stores instead of a live server.
+ */
+class EmailStoreConnectionPoolTest {
+
+    private static final ProtocolConfiguration IMAP = ProtocolConfiguration.fromPort(143);
+
+    private final AtomicBoolean alive = new AtomicBoolean(true);
+    private final AtomicInteger connects = new AtomicInteger();
+
+    private EmailStoreConnectionPool pool(int maxConnections, Duration idleTtl, Duration waitTimeout) {
+        return new EmailStoreConnectionPool(maxConnections, idleTtl, waitTimeout, (host, port, user, password, config) -> {
+            connects.incrementAndGet();
+            return new EmailStoreConnection(connectedStore(alive));
+        });
+    }
+
+    @Test
+    void shouldReuseReturnedConnection() throws Exception {
+        // Given
+        try (EmailStoreConnectionPool pool = pool(2, Duration.ofMinutes(1), Duration.ofSeconds(1))) {
+            EmailStoreConnection first;
+            try (EmailStoreConnectionPool.Lease lease = pool.borrow("localhost", 143, "user", "password", IMAP)) {
+                first = lease.connection();
+            }
+
+            // When
+            try (EmailStoreConnectionPool.Lease lease = pool.borrow("localhost", 143, "user", "password", IMAP)) {
+                // Then
+                assertThat(lease.connection()).isSameAs(first);
+            }
+            assertThat(connects).hasValue(1);
+        }
+    }
+
+    @Test
+    void shouldKeepSeparateConnectionsPerUser() throws Exception {
+        // Given
+        try (EmailStoreConnectionPool pool = pool(2, Duration.ofMinutes(1), Duration.ofSeconds(1))) {
+            try (EmailStoreConnectionPool.Lease lease = pool.borrow("localhost", 143, "alice", "password", IMAP)) {
+                assertThat(lease.connection()).isNotNull();
+            }
+
+            // When
+            try (EmailStoreConnectionPool.Lease lease = pool.borrow("localhost", 143, "bob", "password", IMAP)) {
+                assertThat(lease.connection()).isNotNull();
+            }
+
+            // Then
+            assertThat(connects).hasValue(2);
+            assertThat(pool.idleCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void shouldCloseInvalidatedConnectionInsteadOfReturningIt() throws Exception {
+        // Given
+        try (EmailStoreConnectionPool pool = pool(1, Duration.ofMinutes(1), Duration.ofSeconds(1))) {
+            EmailStoreConnection invalidated;
+            try (EmailStoreConnectionPool.Lease lease = pool.borrow("localhost", 143, "user", "password", IMAP)) {
+                invalidated = lease.connection();
+                lease.invalidate();
+            }
+
+            // When
+            try (EmailStoreConnectionPool.Lease lease = pool.borrow("localhost", 143, "user", "password", IMAP)) {
+                // Then
+                assertThat(lease.connection()).isNotSameAs(invalidated);
+            }
+            assertThat(invalidated.isAlive()).isFalse();
+            assertThat(connects).hasValue(2);
+        }
+    }
+
+    @Test
+    void shouldDiscardIdleConnectionThatFailsHealthCheck() throws Exception {
+        // Given
+        try (EmailStoreConnectionPool pool = pool(1, Duration.ofMinutes(1), Duration.ofSeconds(1))) {
+            try (EmailStoreConnectionPool.Lease lease = pool.borrow("localhost", 143, "user", "password", IMAP)) {
+                assertThat(lease.connection()).isNotNull();
+            }
+            alive.set(false);
+
+            // When
+            try (EmailStoreConnectionPool.Lease lease = pool.borrow("localhost", 143, "user", "password", IMAP)) {
+                // Then
+                assertThat(lease.connection()).isNotNull();
+            }
+            assertThat(connects).hasValue(2);
+        }
+    }
+
+    @Test
+    void shouldDiscardIdleConnectionThatIsNoLongerConnected() throws Exception {
+        // Given
+        try (EmailStoreConnectionPool pool = pool(1, Duration.ofMinutes(1), Duration.ofSeconds(1))) {
+            EmailStoreConnection first;
+            try (EmailStoreConnectionPool.Lease lease = pool.borrow("localhost", 143, "user", "password", IMAP)) {
+                first = lease.connection();
+            }
+            first.close();
+
+            // When
+            try (EmailStoreConnectionPool.Lease lease = pool.borrow("localhost", 143, "user", "password", IMAP)) {
+                // Then
+                assertThat(lease.connection()).isNotSameAs(first);
+                assertThat(lease.connection().isAlive()).isTrue();
+            }
+            assertThat(connects).hasValue(2);
+        }
+    }
+
+    @Test
+    void shouldTimeOutWhenPoolIsExhausted() throws Exception {
+        // Given
+        try (EmailStoreConnectionPool pool = pool(1, Duration.ofMinutes(1), Duration.ofMillis(50));
+             EmailStoreConnectionPool.Lease held = pool.borrow("localhost", 143, "user", "password", IMAP)) {
+            assertThat(held.connection()).isNotNull();
+
+            // When/Then
+            assertThatThrownBy(() -> pool.borrow("localhost", 143, "user", "password", IMAP))
+                    .isInstanceOf(MessagingException.class)
+                    .hasMessageContaining("Timed out");
+        }
+    }
+
+    @Test
+    void shouldHandConnectionToWaitingBorrower() throws Exception {
+        // Given
+        try (EmailStoreConnectionPool pool = pool(1, Duration.ofMinutes(1), Duration.ofSeconds(5))) {
+            EmailStoreConnectionPool.Lease held = pool.borrow("localhost", 143, "user", "password", IMAP);
+            CompletableFuture<EmailStoreConnection> waiter = CompletableFuture.supplyAsync(() -> {
+                try (EmailStoreConnectionPool.Lease lease = pool.borrow("localhost", 143, "user", "password", IMAP)) {
+                    return lease.connection();
+                } catch (MessagingException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            // When
+            Thread.sleep(50);
+            held.close();
+
+            // Then
+            assertThat(waiter.get(5, TimeUnit.SECONDS)).isSameAs(held.connection());
+            assertThat(connects).hasValue(1);
+        }
+    }
+
+    @Test
+    void shouldEvictConnectionsIdleLongerThanTtl() throws Exception {
+        // Given
+        try (EmailStoreConnectionPool pool = pool(2, Duration.ofMillis(10), Duration.ofSeconds(1))) {
+            EmailStoreConnection connection;
+            try (EmailStoreConnectionPool.Lease lease = pool.borrow("localhost", 143, "user", "password", IMAP)) {
+                connection = lease.connection();
+            }
+
+            // When
+            Thread.sleep(30);
+            pool.evictIdle();
+
+            // Then
+            assertThat(pool.idleCount()).isZero();
+            assertThat(connection.isAlive()).isFalse();
+        }
+    }
+
+    @Test
+    void shouldCloseIdleConnectionsOnClose() throws Exception {
+        // Given
+        EmailStoreConnectionPool pool = pool(2, Duration.ofMinutes(1), Duration.ofSeconds(1));
+        EmailStoreConnection connection;
+        try (EmailStoreConnectionPool.Lease lease = pool.borrow("localhost", 143, "user", "password", IMAP)) {
+            connection = lease.connection();
+        }
+
+        // When
+        pool.close();
+
+        // Then
+        assertThat(connection.isAlive()).isFalse();
+        assertThatThrownBy(() -> pool.borrow("localhost", 143, "user", "password", IMAP))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldRejectInvalidPoolSize() {
+        // When/Then
+        assertThatThrownBy(() -> new EmailStoreConnectionPool(0, Duration.ofMinutes(1), Duration.ofSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Max connections");
+    }
+
+    private static Store connectedStore(AtomicBoolean alive) {
+        Store store = new Store(Session.getInstance(new Properties()), null) {
+            @Override
+            protected boolean protocolConnect(String host, int port, String user, String password) {
+                return true;
+            }
+
+            @Override
+            public synchronized boolean isConnected() {
+                return alive.get() && super.isConnected();
+            }
+
+            @Override
+            public Folder getDefaultFolder() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Folder getFolder(String name) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Folder getFolder(URLName url) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        try {
+            store.connect("localhost", 143, "user", "password");
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+        return store;
+    }
+}
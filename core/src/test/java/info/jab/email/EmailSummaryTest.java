@@ -0,0 +1,107 @@
+package info.jab.email;
+
+import jakarta.mail.Flags;
+import jakarta.mail.Message;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Properties;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for EmailSummary.
+ */
+class EmailSummaryTest {
+
+    @Test
+    void shouldReadEnvelopeFromMessage() throws Exception {
+        // Given
+        MimeMessage message = new MimeMessage(Session.getInstance(new Properties()));
+        message.setFrom(new InternetAddress("sender@example.com"));
+        message.setRecipients(Message.RecipientType.TO, "a@example.com, b@example.com");
+        message.setRecipients(Message.RecipientType.CC, "c@example.com");
+        message.setSubject("Hello");
+        message.setSentDate(Date.from(Instant.parse("2025-01-02T03:04:05Z")));
+        message.setHeader("Message-ID", "<id-1@example.com>");
+        message.setFlag(Flags.Flag.SEEN, true);
+
+        // When
+        EmailSummary summary = EmailSummary.from(message, 42);
+
+        // Then
+        assertThat(summary.uid()).isEqualTo(42);
+        assertThat(summary.messageId()).isEqualTo("<id-1@example.com>");
+        assertThat(summary.from()).isEqualTo("sender@example.com");
+        assertThat(summary.to()).containsExactly("a@example.com", "b@example.com");
+        assertThat(summary.cc()).containsExactly("c@example.com");
+        assertThat(summary.subject()).isEqualTo("Hello");
+        assertThat(summary.sentDate()).isEqualTo(Instant.parse("2025-01-02T03:04:05Z"));
+        assertThat(summary.hasFlag(EmailFlag.SEEN)).isTrue();
+        assertThat(summary.hasFlag(EmailFlag.FLAGGED)).isFalse();
+    }
+
+    @Test
+    void shouldKeepEverySenderWithDecodedNames() throws Exception {
+        // Given
+        MimeMessage message = new MimeMessage(Session.getInstance(new Properties()));
+        message.setFrom(new InternetAddress("joerg@example.com", "Jörg Müller", "UTF-8"));
+        message.addFrom(new InternetAddress[] {new InternetAddress("assistant@example.com")});
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress("zoe@example.com", "Zoë", "UTF-8"));
+
+        // When
+        EmailSummary summary = EmailSummary.from(message, 7);
+
+        // Then
+        assertThat(message.getHeader("From", null)).contains("=?UTF-8?");
+        assertThat(summary.from()).isEqualTo("Jörg Müller <joerg@example.com>, assistant@example.com");
+        assertThat(summary.to()).containsExactly("Zoë <zoe@example.com>");
+    }
+
+    @Test
+    void shouldHandleMissingHeaders() throws Exception {
+        // Given
+        MimeMessage message = new MimeMessage(Session.getInstance(new Properties()));
+
+        // When
+        EmailSummary summary = EmailSummary.from(message, -1);
+
+        // Then
+        assertThat(summary.from()).isNull();
+        assertThat(summary.to()).isEmpty();
+        assertThat(summary.cc()).isEmpty();
+        assertThat(summary.subject()).isNull();
+        assertThat(summary.sentDate()).isNull();
+        assertThat(summary.flags()).isEmpty();
+    }
+
+    @Test
+    void shouldDefaultNullCollectionsToEmpty() {
+        // When
+        EmailSummary summary = new EmailSummary(1, 1, null, null, null, null, null, null, null, -1, null);
+
+        // Then
+        assertThat(summary.to()).isEmpty();
+        assertThat(summary.cc()).isEmpty();
+        assertThat(summary.flags()).isEmpty();
+    }
+
+    @Test
+    void shouldConvertFlags() {
+        // Given
+        Flags flags = new Flags(Flags.Flag.SEEN);
+        flags.add(Flags.Flag.ANSWERED);
+        flags.add("custom");
+
+        // When
+        Set<EmailFlag> result = EmailFlag.fromFlags(flags);
+
+        // Then
+        assertThat(result).containsExactlyInAnyOrder(EmailFlag.SEEN, EmailFlag.ANSWERED);
+        assertThat(EmailFlag.of(Flags.Flag.DELETED)).isEqualTo(EmailFlag.DELETED);
+    }
+}
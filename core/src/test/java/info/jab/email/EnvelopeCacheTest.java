@@ -0,0 +1,193 @@
+package info.jab.email;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for EnvelopeCache and its file format.
+ */
+class EnvelopeCacheTest {
+
+    private static final String ACCOUNT = "user@example.com@mail.example.com:993";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRoundTripEnvelope() throws IOException {
+        // Given
+        EmailSummary summary = summary(42, "Grüße");
+
+        // When
+        try (EnvelopeCache cache = new EnvelopeCache(directory)) {
+            EnvelopeCacheFile file = cache.folder(ACCOUNT, "INBOX", 7);
+            file.append(List.of(summary));
+
+            // Then
+            assertThat(file.get(42)).isEqualTo(withoutMessageNumber(summary));
+            assertThat(file.get(43)).isNull();
+        }
+    }
+
+    @Test
+    void shouldKeepEnvelopesAcrossRestarts() throws IOException {
+        // Given
+        try (EnvelopeCache cache = new EnvelopeCache(directory)) {
+            cache.folder(ACCOUNT, "INBOX", 7).append(List.of(summary(3, "Three"), summary(1, "One")));
+            cache.folder(ACCOUNT, "INBOX", 7).append(List.of(summary(2, "Two")));
+        }
+
+        // When
+        try (EnvelopeCache cache = new EnvelopeCache(directory)) {
+            EnvelopeCacheFile file = cache.folder(ACCOUNT, "INBOX", 7);
+
+            // Then
+            assertThat(file.size()).isEqualTo(3);
+            assertThat(file.get(1).subject()).isEqualTo("One");
+            assertThat(file.get(2).subject()).isEqualTo("Two");
+            assertThat(file.get(3).subject()).isEqualTo("Three");
+        }
+    }
+
+    @Test
+    void shouldPreferLaterRecordOfSameUid() throws IOException {
+        // Given
+        try (EnvelopeCache cache = new EnvelopeCache(directory)) {
+            EnvelopeCacheFile file = cache.folder(ACCOUNT, "INBOX", 7);
+
+            // When
+            file.append(List.of(summary(5, "Old")));
+            file.append(List.of(summary(5, "New")));
+
+            // Then
+            assertThat(file.size()).isEqualTo(1);
+            assertThat(file.get(5).subject()).isEqualTo("New");
+        }
+    }
+
+    @Test
+    void shouldIndexUidsAboveSignedIntRange() throws IOException {
+        // Given
+        long highUid = 4_294_967_295L;
+        try (EnvelopeCache cache = new EnvelopeCache(directory)) {
+            EnvelopeCacheFile file = cache.folder(ACCOUNT, "INBOX", 7);
+
+            // When
+            file.append(List.of(summary(highUid, "High"), summary(10, "Low")));
+
+            // Then
+            assertThat(file.get(highUid).subject()).isEqualTo("High");
+            assertThat(file.get(10).subject()).isEqualTo("Low");
+        }
+    }
+
+    @Test
+    void shouldDiscardEnvelopesWhenUidValidityChanges() throws IOException {
+        // Given
+        try (EnvelopeCache cache = new EnvelopeCache(directory)) {
+            cache.folder(ACCOUNT, "INBOX", 7).append(List.of(summary(1, "One")));
+        }
+
+        // When
+        try (EnvelopeCache cache = new EnvelopeCache(directory)) {
+            EnvelopeCacheFile file = cache.folder(ACCOUNT, "INBOX", 8);
+
+            // Then
+            assertThat(file.size()).isZero();
+            assertThat(file.uidValidity()).isEqualTo(8);
+        }
+    }
+
+    @Test
+    void shouldDiscardEnvelopesWhenUidValidityChangesWhileOpen() throws IOException {
+        // Given
+        try (EnvelopeCache cache = new EnvelopeCache(directory)) {
+            cache.folder(ACCOUNT, "INBOX", 7).append(List.of(summary(1, "One")));
+
+            // When
+            EnvelopeCacheFile file = cache.folder(ACCOUNT, "INBOX", 8);
+
+            // Then
+            assertThat(file.contains(1)).isFalse();
+        }
+    }
+
+    @Test
+    void shouldKeepFoldersAndAccountsApart() throws IOException {
+        // Given
+        try (EnvelopeCache cache = new EnvelopeCache(directory)) {
+            cache.folder(ACCOUNT, "INBOX", 7).append(List.of(summary(1, "Inbox")));
+
+            // When
+            EnvelopeCacheFile sent = cache.folder(ACCOUNT, "Sent", 7);
+            EnvelopeCacheFile otherAccount = cache.folder("other@mail.example.com:993", "INBOX", 7);
+
+            // Then
+            assertThat(sent.contains(1)).isFalse();
+            assertThat(otherAccount.contains(1)).isFalse();
+        }
+    }
+
+    @Test
+    void shouldDropTornRecordOnOpen() throws IOException {
+        // Given
+        try (EnvelopeCache cache = new EnvelopeCache(directory)) {
+            cache.folder(ACCOUNT, "INBOX", 7).append(List.of(summary(1, "One"), summary(2, "Two")));
+        }
+        Path file = Files.list(directory).findFirst().orElseThrow();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        // When
+        try (EnvelopeCache cache = new EnvelopeCache(directory)) {
+            EnvelopeCacheFile cacheFile = cache.folder(ACCOUNT, "INBOX", 7);
+            cacheFile.append(List.of(summary(3, "Three")));
+
+            // Then
+            assertThat(cacheFile.get(1).subject()).isEqualTo("One");
+            assertThat(cacheFile.contains(2)).isFalse();
+            assertThat(cacheFile.get(3).subject()).isEqualTo("Three");
+        }
+    }
+
+    @Test
+    void shouldSearchCachedEnvelopesWithFlagsFromSyncState() throws IOException {
+        // Given
+        FolderSyncState state = new FolderSyncState("INBOX", 7, 5, 0,
+                new long[] {1, 2, 3, 4}, new byte[] {0, (byte) EmailFlag.SEEN.bit(), 0, 0});
+        try (EnvelopeCache cache = new EnvelopeCache(directory)) {
+            EnvelopeCacheFile file = cache.folder(ACCOUNT, "INBOX", 7);
+            file.append(List.of(summary(1, "Invoice 1"), summary(2, "Invoice 2"), summary(3, "Hello")));
+
+            // When
+            EnvelopeCacheFile.LocalMatches matches = file.search(
+                    EmailSearch.subjectContains("INVOICE").and(EmailSearch.unread()).toPredicate(), state);
+
+            // Then
+            assertThat(matches.matches()).containsExactly(1);
+            assertThat(matches.missing()).containsExactly(4);
+        }
+    }
+
+    private static EmailSummary summary(long uid, String subject) {
+        return new EmailSummary(uid, 9, "<" + uid + "@example.com>", "Sender <sender@example.com>",
+                List.of("a@example.com", "b@example.com"), List.of(), subject,
+                Instant.parse("2025-01-02T03:04:05Z"), null, 1234, Set.of(EmailFlag.SEEN));
+    }
+
+    private static EmailSummary withoutMessageNumber(EmailSummary summary) {
+        return new EmailSummary(summary.uid(), 0, summary.messageId(), summary.from(), summary.to(), summary.cc(),
+                summary.subject(), summary.sentDate(), summary.receivedDate(), summary.size(), summary.flags());
+    }
+}
@@ -0,0 +1,108 @@
+package info.jab.email;
+
+import jakarta.mail.search.ComparisonTerm;
+import jakarta.mail.search.SizeTerm;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for EnvelopePredicate and its compilation from search terms.
+ */
+class EnvelopePredicateTest {
+
+    private static final EmailSummary UNREAD_REPORT = new EmailSummary(1, 1, "<1@example.com>",
+            "Alice <alice@example.com>", List.of("team@example.com"), List.of("boss@example.com"),
+            "Weekly Report", Instant.parse("2025-03-10T09:00:00Z"), Instant.parse("2025-03-10T09:01:00Z"),
+            2048, Set.of());
+
+    private static final EmailSummary READ_NEWSLETTER = new EmailSummary(2, 2, "<2@example.com>",
+            "News <news@example.org>", List.of("me@example.com"), List.of(),
+            "Newsletter", Instant.parse("2025-01-05T12:00:00Z"), Instant.parse("2025-01-05T12:00:30Z"),
+            10_000, Set.of(EmailFlag.SEEN));
+
+    @Test
+    void shouldMatchFlags() {
+        // Given
+        EnvelopePredicate unread = EmailSearch.unread().toPredicate();
+        EnvelopePredicate read = EmailSearch.read().toPredicate();
+
+        // When & Then
+        assertThat(unread.test(UNREAD_REPORT)).isTrue();
+        assertThat(unread.test(READ_NEWSLETTER)).isFalse();
+        assertThat(read.test(READ_NEWSLETTER)).isTrue();
+    }
+
+    @Test
+    void shouldMatchTextCaseInsensitively() {
+        // Given
+        EnvelopePredicate from = EmailSearch.from("ALICE@example").toPredicate();
+        EnvelopePredicate subject = EmailSearch.subjectContains("report").toPredicate();
+        EnvelopePredicate cc = EmailSearch.cc("boss").toPredicate();
+
+        // When & Then
+        assertThat(from.test(UNREAD_REPORT)).isTrue();
+        assertThat(from.test(READ_NEWSLETTER)).isFalse();
+        assertThat(subject.test(UNREAD_REPORT)).isTrue();
+        assertThat(cc.test(UNREAD_REPORT)).isTrue();
+        assertThat(cc.test(READ_NEWSLETTER)).isFalse();
+    }
+
+    @Test
+    void shouldCombineTerms() {
+        // Given
+        EnvelopePredicate predicate = EmailSearch.unread().and(EmailSearch.to("team"))
+                .or(EmailSearch.subjectContains("news").not())
+                .toPredicate();
+
+        // When & Then
+        assertThat(predicate.test(UNREAD_REPORT)).isTrue();
+        assertThat(predicate.test(READ_NEWSLETTER)).isFalse();
+    }
+
+    @Test
+    void shouldMatchDatesAndSizeLikeSearchTerms() {
+        // Given
+        EmailSearch after = EmailSearch.receivedAfter(LocalDate.of(2025, 2, 1));
+        EmailSearch large = () -> new SizeTerm(ComparisonTerm.GT, 4096);
+
+        // When & Then
+        for (EmailSummary summary : List.of(UNREAD_REPORT, READ_NEWSLETTER)) {
+            assertThat(after.toPredicate().test(summary)).isEqualTo(summary.receivedDate().isAfter(Instant.parse("2025-02-01T00:00:00Z")));
+            assertThat(large.toPredicate().test(summary)).isEqualTo(summary.size() > 4096);
+        }
+    }
+
+    @Test
+    void shouldRejectTermsOutsideTheEnvelope() {
+        // Given
+        EmailSearch body = EmailSearch.bodyContains("invoice");
+        EmailSearch bcc = EmailSearch.unread().and(EmailSearch.bcc("audit@example.com"));
+
+        // When & Then
+        assertThat(EnvelopePredicate.isLocal(body.build())).isFalse();
+        assertThat(EnvelopePredicate.isLocal(bcc.build())).isFalse();
+        assertThat(EnvelopePredicate.isLocal(EmailSearch.from("alice").not().build())).isTrue();
+        assertThatThrownBy(body::toPredicate).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldMatchEncodedTextWithoutDecoding() {
+        // Given
+        ByteBuffer buffer = ByteBuffer.wrap("xxWeekly Réport".getBytes(StandardCharsets.UTF_8));
+        int length = buffer.capacity() - 2;
+
+        // When & Then
+        assertThat(TextPattern.of("weekly").matches(buffer, 2, length)).isTrue();
+        assertThat(TextPattern.of("RÉPORT").matches(buffer, 2, length)).isTrue();
+        assertThat(TextPattern.of("xx").matches(buffer, 2, length)).isFalse();
+        assertThat(TextPattern.of("monthly").matches(buffer, 2, length)).isFalse();
+    }
+}
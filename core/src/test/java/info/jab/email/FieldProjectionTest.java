@@ -0,0 +1,81 @@
+package info.jab.email;
+
+import jakarta.mail.FetchProfile;
+import jakarta.mail.Flags;
+import jakarta.mail.Session;
+import jakarta.mail.UIDFolder;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import java.util.Properties;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for FieldProjection.
+ */
+class FieldProjectionTest {
+
+    @Test
+    void shouldParseFieldsAndHeadersInOrder() {
+        // When
+        FieldProjection projection = FieldProjection.parse("size, FLAGS,header:List-Id,uid");
+
+        // Then
+        assertThat(projection.fields()).containsExactly(EmailField.SIZE, EmailField.FLAGS, EmailField.UID);
+        assertThat(projection.headers()).containsExactly("List-Id");
+    }
+
+    @Test
+    void shouldRejectUnknownOrEmptyFieldLists() {
+        assertThatThrownBy(() -> FieldProjection.parse("from,body"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("body");
+        assertThatThrownBy(() -> FieldProjection.parse(" , "))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FieldProjection.parse("header:"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldFetchOnlyFlagsSizeAndHeaderWithoutEnvelope() {
+        // When
+        FetchProfile fetchProfile = FieldProjection.parse("flags,size,header:List-Id").fetchProfile();
+
+        // Then
+        assertThat(fetchProfile.getItems()).containsExactlyInAnyOrder(FetchProfile.Item.FLAGS, FetchProfile.Item.SIZE);
+        assertThat(fetchProfile.getHeaderNames()).containsExactly("List-Id");
+    }
+
+    @Test
+    void shouldFetchOneEnvelopeForSeveralEnvelopeFields() {
+        // When
+        FetchProfile fetchProfile = FieldProjection.parse("from,subject,date,uid").fetchProfile();
+
+        // Then
+        assertThat(fetchProfile.getItems()).containsExactlyInAnyOrder(FetchProfile.Item.ENVELOPE, UIDFolder.FetchProfileItem.UID);
+        assertThat(fetchProfile.getHeaderNames()).isEmpty();
+    }
+
+    @Test
+    void shouldReadOnlySelectedFields() throws Exception {
+        // Given
+        MimeMessage message = new MimeMessage(Session.getInstance(new Properties()));
+        message.setFrom(new InternetAddress("sender@example.com"));
+        message.setSubject("Hello");
+        message.setHeader("List-Id", "<news.example.com>");
+        message.setFlag(Flags.Flag.SEEN, true);
+
+        // When
+        ProjectedEmail email = FieldProjection.parse("subject,flags,header:List-Id,header:X-Missing").read(null, message);
+
+        // Then
+        assertThat(email.summary().subject()).isEqualTo("Hello");
+        assertThat(email.summary().flags()).containsExactly(EmailFlag.SEEN);
+        assertThat(email.summary().from()).isNull();
+        assertThat(email.summary().size()).isEqualTo(-1);
+        assertThat(email.header("List-Id")).isEqualTo("<news.example.com>");
+        assertThat(email.headers()).containsEntry("X-Missing", null);
+    }
+}
@@ -0,0 +1,69 @@
+package info.jab.email;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for FolderSyncState.
+ */
+class FolderSyncStateTest {
+
+    private static final FolderSyncState STATE = new FolderSyncState("INBOX", 7, 4, 100,
+            new long[] {1, 2, 3}, new byte[] {0, (byte) EmailFlag.SEEN.bit(), 0});
+
+    @Test
+    void shouldLookUpFlagsByUid() {
+        // When/Then
+        assertThat(STATE.contains(2)).isTrue();
+        assertThat(STATE.contains(4)).isFalse();
+        assertThat(STATE.flags(2)).containsExactly(EmailFlag.SEEN);
+        assertThat(STATE.flags(4)).isEmpty();
+        assertThat(STATE.messageCount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldApplyAddedChangedAndVanishedMessages() {
+        // Given
+        EmailSummary added = new EmailSummary(5, 3, null, null, List.of(), List.of(), "New", null, null, 10,
+                Set.of(EmailFlag.FLAGGED));
+
+        // When
+        FolderSyncState next = STATE.apply(6, 120, List.of(added), Map.of(3L, EmailFlag.ANSWERED.bit()), List.of(1L, 1L, 99L));
+
+        // Then
+        assertThat(next.uids()).containsExactly(2, 3, 5);
+        assertThat(next.flags(2)).containsExactly(EmailFlag.SEEN);
+        assertThat(next.flags(3)).containsExactly(EmailFlag.ANSWERED);
+        assertThat(next.flags(5)).containsExactly(EmailFlag.FLAGGED);
+        assertThat(next.uidValidity()).isEqualTo(7);
+        assertThat(next.uidNext()).isEqualTo(6);
+        assertThat(next.highestModSeq()).isEqualTo(120);
+    }
+
+    @Test
+    void shouldNotModifyPreviousStateWhenApplyingChanges() {
+        // When
+        STATE.apply(4, 100, List.of(), Map.of(1L, EmailFlag.SEEN.bit()), List.of(2L));
+
+        // Then
+        assertThat(STATE.uids()).containsExactly(1, 2, 3);
+        assertThat(STATE.flags(1)).isEmpty();
+    }
+
+    @Test
+    void shouldRoundTripFlagBits() {
+        // Given
+        Set<EmailFlag> flags = Set.of(EmailFlag.SEEN, EmailFlag.DELETED, EmailFlag.DRAFT);
+
+        // When
+        int bits = EmailFlag.toBits(flags);
+
+        // Then
+        assertThat(EmailFlag.fromBits(bits)).containsExactlyInAnyOrderElementsOf(flags);
+        assertThat(bits).isLessThan(1 << 8);
+    }
+}
@@ -0,0 +1,42 @@
+package info.jab.email;
+
+import com.sun.mail.imap.protocol.IMAPResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the response parsing of ImapCommands.
+ */
+class ImapCommandsTest {
+
+    @Test
+    void shouldReadCountOfEsearchResponse() throws Exception {
+        // Given
+        IMAPResponse response = new IMAPResponse("* ESEARCH (TAG \"A1\") UID COUNT 5");
+
+        // When/Then
+        assertThat(response.keyEquals("ESEARCH")).isTrue();
+        assertThat(ImapCommands.readEsearchCount(response)).isEqualTo(5);
+    }
+
+    @Test
+    void shouldSkipOtherReturnDataBeforeCount() throws Exception {
+        // Given
+        IMAPResponse response = new IMAPResponse("* ESEARCH (TAG \"A2\") UID MIN 3 MAX 42 COUNT 7");
+
+        // When/Then
+        assertThat(ImapCommands.readEsearchCount(response)).isEqualTo(7);
+    }
+
+    @Test
+    void shouldReadZeroWhenCountIsAbsent() throws Exception {
+        // Given
+        IMAPResponse noReturnData = new IMAPResponse("* ESEARCH (TAG \"A3\") UID");
+        IMAPResponse noCount = new IMAPResponse("* ESEARCH (TAG \"A4\") MIN 3 MAX 42");
+
+        // When/Then
+        assertThat(ImapCommands.readEsearchCount(noReturnData)).isZero();
+        assertThat(ImapCommands.readEsearchCount(noCount)).isZero();
+    }
+}
@@ -2,6 +2,7 @@ package info.jab.email;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.Properties;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -146,6 +147,22 @@ class ProtocolConfigurationTest {
         assertThat(properties.getProperty("mail.imap.ssl.enable")).isEqualTo("false");
     }
 
+    @Test
+    void shouldGenerateTimeoutPropertiesOnlyWhenTimeoutIsSet() {
+        // Given
+        ProtocolConfiguration config = ProtocolConfiguration.fromPort(143);
+
+        // When
+        Properties withoutTimeout = config.toJavaMailProperties("mail.example.com", 143);
+        Properties withTimeout = config.withTimeout(Duration.ofSeconds(20)).toJavaMailProperties("mail.example.com", 143);
+
+        // Then
+        assertThat(withoutTimeout.getProperty("mail.imap.timeout")).isNull();
+        assertThat(withTimeout.getProperty("mail.imap.connectiontimeout")).isEqualTo("20000");
+        assertThat(withTimeout.getProperty("mail.imap.timeout")).isEqualTo("20000");
+        assertThat(withTimeout.getProperty("mail.imap.ssl.enable")).isEqualTo("false");
+    }
+
     @Test
     void shouldGenerateJavaMailPropertiesForImapSsl() {
         // Given
@@ -212,6 +229,7 @@ class ProtocolConfigurationTest {
         assertThat(properties.getProperty("mail.smtp.auth")).isEqualTo("true");
         assertThat(properties.getProperty("mail.smtp.ssl.enable")).isEqualTo("false");
         assertThat(properties.getProperty("mail.smtp.starttls.enable")).isNull();
+        assertThat(properties.getProperty("mail.smtp.userset")).isEqualTo("true");
     }
 
     @Test
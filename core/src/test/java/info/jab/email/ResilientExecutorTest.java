@@ -0,0 +1,206 @@
+package info.jab.email;
+
+import jakarta.mail.FolderNotFoundException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.StoreClosedException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for ResilientExecutor with its RetryPolicy and CircuitBreaker.
+ */
+class ResilientExecutorTest {
+
+    private static final RetryPolicy RETRY_THREE_TIMES =
+            new RetryPolicy(3, Duration.ofMillis(100), Duration.ofSeconds(1), 0, Duration.ofSeconds(10));
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Duration> sleeps = new ArrayList<>();
+
+    private ResilientExecutor executor(RetryPolicy policy, CircuitBreaker circuitBreaker) {
+        return new ResilientExecutor(policy, circuitBreaker, clock::get, () -> 0.5, duration -> {
+            sleeps.add(duration);
+            clock.addAndGet(duration.toNanos());
+        });
+    }
+
+    private CircuitBreaker breaker(int threshold) {
+        return new CircuitBreaker(threshold, Duration.ofSeconds(30), clock::get);
+    }
+
+    private static MessagingException connectionRefused() {
+        return new MessagingException("Couldn't connect to host", new ConnectException("Connection refused"));
+    }
+
+    @Test
+    void shouldRetryConnectionFailuresWithExponentialBackoff() throws MessagingException {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+        ResilientExecutor executor = executor(RETRY_THREE_TIMES, breaker(10));
+
+        // When
+        String result = executor.execute("listing folders", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw connectionRefused();
+            }
+            return "INBOX";
+        });
+
+        // Then
+        assertThat(result).isEqualTo("INBOX");
+        assertThat(attempts).hasValue(3);
+        assertThat(sleeps).containsExactly(Duration.ofMillis(100), Duration.ofMillis(200));
+    }
+
+    @Test
+    void shouldThrowLastFailureWhenAttemptsRunOut() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+        ResilientExecutor executor = executor(RETRY_THREE_TIMES, breaker(10));
+
+        // When & Then
+        assertThatThrownBy(() -> executor.execute("listing folders", () -> {
+            attempts.incrementAndGet();
+            throw new StoreClosedException(null, "Connection dropped");
+        })).isInstanceOf(StoreClosedException.class).hasMessage("Connection dropped");
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void shouldNotRetryErrorsTheServerAnswered() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+        CircuitBreaker circuitBreaker = breaker(1);
+        ResilientExecutor executor = executor(RETRY_THREE_TIMES, circuitBreaker);
+
+        // When & Then
+        assertThatThrownBy(() -> executor.execute("listing emails", () -> {
+            attempts.incrementAndGet();
+            throw new FolderNotFoundException(null, "Missing not found");
+        })).isInstanceOf(FolderNotFoundException.class);
+        assertThat(attempts).hasValue(1);
+        assertThat(sleeps).isEmpty();
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldGiveUpWhenBackoffWouldPassDeadline() {
+        // Given
+        RetryPolicy policy = new RetryPolicy(10, Duration.ofSeconds(1), Duration.ofSeconds(8), 0, Duration.ofSeconds(5));
+        ResilientExecutor executor = executor(policy, breaker(100));
+
+        // When & Then
+        assertThatThrownBy(() -> executor.execute("listing folders", () -> {
+            throw connectionRefused();
+        })).isInstanceOf(MessagingException.class)
+                .hasMessageContaining("Deadline of 5000 ms exceeded listing folders after 3 attempts")
+                .hasCauseInstanceOf(MessagingException.class);
+        assertThat(sleeps).containsExactly(Duration.ofSeconds(1), Duration.ofSeconds(2));
+    }
+
+    @Test
+    void shouldFailFastWhileCircuitBreakerIsOpen() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+        ResilientExecutor executor = executor(RetryPolicy.NONE, breaker(2));
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> executor.execute("listing folders", () -> {
+                attempts.incrementAndGet();
+                throw connectionRefused();
+            })).isInstanceOf(MessagingException.class);
+        }
+
+        // When & Then
+        assertThatThrownBy(() -> executor.execute("listing folders", () -> {
+            attempts.incrementAndGet();
+            return "INBOX";
+        })).isInstanceOf(MessagingException.class).hasMessageContaining("circuit breaker is open");
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    void shouldLetOneTrialThroughAfterOpenDurationAndCloseOnSuccess() throws MessagingException {
+        // Given
+        CircuitBreaker circuitBreaker = breaker(1);
+        ResilientExecutor executor = executor(RetryPolicy.NONE, circuitBreaker);
+        assertThatThrownBy(() -> executor.execute("listing folders", () -> {
+            throw connectionRefused();
+        })).isInstanceOf(MessagingException.class);
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // When
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        String result = executor.execute("listing folders", () -> "INBOX");
+
+        // Then
+        assertThat(result).isEqualTo("INBOX");
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldReopenWhenTrialFails() {
+        // Given
+        CircuitBreaker circuitBreaker = breaker(3);
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.onFailure();
+        }
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        // When
+        boolean trial = circuitBreaker.tryAcquire();
+        boolean concurrent = circuitBreaker.tryAcquire();
+        circuitBreaker.onFailure();
+
+        // Then
+        assertThat(trial).isTrue();
+        assertThat(concurrent).isFalse();
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.remainingOpen()).isEqualTo(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void shouldRandomizeJitterFractionOfBackoff() {
+        // Given
+        RetryPolicy policy = new RetryPolicy(5, Duration.ofSeconds(1), Duration.ofSeconds(3), 0.5, Duration.ofMinutes(1));
+
+        // When & Then
+        assertThat(policy.backoff(1, 0)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(policy.backoff(1, 0.5)).isEqualTo(Duration.ofMillis(750));
+        assertThat(policy.backoff(2, 0)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(policy.backoff(3, 0)).isEqualTo(Duration.ofSeconds(3));
+        assertThat(policy.backoff(3, 0.999)).isGreaterThan(Duration.ofMillis(1500));
+    }
+
+    @Test
+    void shouldTellEmptyResultsApartFromFailedOnes() {
+        // When
+        EmailResult<String> found = EmailResult.of(List.of("INBOX"));
+        EmailResult<String> empty = EmailResult.of(List.of());
+        EmailResult<String> failed = EmailResult.failed(new EmailException("Connection refused"));
+
+        // Then
+        assertThat(found.status()).isEqualTo(EmailResult.Status.OK);
+        assertThat(empty.status()).isEqualTo(EmailResult.Status.EMPTY);
+        assertThat(empty.orElseThrow()).isEmpty();
+        assertThat(failed.isFailed()).isTrue();
+        assertThat(failed.items()).isEmpty();
+        assertThatThrownBy(failed::orElseThrow).isInstanceOf(EmailException.class).hasMessage("Connection refused");
+    }
+
+    @Test
+    void shouldRecognizeConnectionFailures() {
+        // When & Then
+        assertThat(ResilientExecutor.isConnectionFailure(connectionRefused())).isTrue();
+        assertThat(ResilientExecutor.isConnectionFailure(new StoreClosedException(null, "BYE"))).isTrue();
+        assertThat(ResilientExecutor.isConnectionFailure(new MessagingException("Timed out waiting for a free connection"))).isFalse();
+        assertThat(ResilientExecutor.isConnectionFailure(new FolderNotFoundException(null, "Missing"))).isFalse();
+    }
+}
@@ -0,0 +1,137 @@
+package info.jab.email;
+
+import com.sun.mail.imap.YoungerTerm;
+import jakarta.mail.Flags;
+import jakarta.mail.search.ComparisonTerm;
+import jakarta.mail.search.FlagTerm;
+import jakarta.mail.search.SizeTerm;
+import java.time.Instant;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for SearchPlan and the search rendering of SearchPlanner.
+ */
+class SearchPlanTest {
+
+    private static final ServerCapabilities NO_EXTENSIONS = ServerCapabilities.NONE;
+
+    @Test
+    void shouldRunExpressibleSearchOnServer() {
+        // When
+        SearchPlan plan = EmailSearch.unread().and(EmailSearch.from("boss@example.com")).explain(NO_EXTENSIONS);
+
+        // Then
+        assertThat(plan.execution()).isEqualTo(SearchPlan.Execution.SERVER);
+        assertThat(plan.imapSearch()).isEqualTo("SEARCH UNSEEN FROM \"boss@example.com\"");
+        assertThat(plan.serverCriteria()).containsExactly("UNSEEN", "FROM \"boss@example.com\"");
+        assertThat(plan.localCriteria()).isEmpty();
+        assertThat(plan.estimatedRoundTrips()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRenderOrAndNotLikeSearchSequence() {
+        // When
+        SearchPlan plan = EmailSearch.from("a@example.com").or(EmailSearch.from("b@example.com"))
+                .or(EmailSearch.from("c@example.com"))
+                .and(EmailSearch.read().not())
+                .explain(NO_EXTENSIONS);
+
+        // Then
+        assertThat(plan.imapSearch())
+                .isEqualTo("SEARCH OR OR FROM \"a@example.com\" FROM \"b@example.com\" FROM \"c@example.com\" NOT (SEEN)");
+    }
+
+    @Test
+    void shouldRenderUnsetRecentAsOldAndSkipUserFlag() {
+        // Given
+        Flags flags = new Flags(Flags.Flag.RECENT);
+        flags.add(Flags.Flag.USER);
+
+        // When
+        SearchPlan plan = SearchPlanner.plan(new FlagTerm(flags, false), NO_EXTENSIONS, true, -1, -1);
+
+        // Then
+        assertThat(plan.execution()).isEqualTo(SearchPlan.Execution.SERVER);
+        assertThat(plan.imapSearch()).isEqualTo("SEARCH OLD");
+        assertThat(plan.localCriteria()).isEmpty();
+    }
+
+    @Test
+    void shouldRejectFlagTermWithoutFlagsLikeSearchSequence() {
+        // When
+        SearchPlan plan = SearchPlanner.plan(new FlagTerm(new Flags(), true), NO_EXTENSIONS, true, -1, -1);
+
+        // Then
+        assertThat(plan.execution()).isEqualTo(SearchPlan.Execution.CLIENT);
+        assertThat(plan.imapSearch()).isNull();
+        assertThat(plan.localCriteria()).singleElement().asString().contains("invalid FlagTerm");
+    }
+
+    @Test
+    void shouldDeclareCharsetForNonAsciiStrings() {
+        // When
+        SearchPlan plan = EmailSearch.subjectContains("Grüße").explain(NO_EXTENSIONS);
+
+        // Then
+        assertThat(plan.imapSearch()).isEqualTo("SEARCH CHARSET UTF-8 SUBJECT \"Grüße\"");
+    }
+
+    @Test
+    void shouldFallBackToClientForInexpressibleTerm() {
+        // Given
+        EmailSearch search = EmailSearch.from("a@example.com").and(() -> new SizeTerm(ComparisonTerm.GE, 1000));
+
+        // When
+        SearchPlan plan = SearchPlanner.plan(search.build(), NO_EXTENSIONS, true, 100, -1);
+
+        // Then
+        assertThat(plan.execution()).isEqualTo(SearchPlan.Execution.CLIENT);
+        assertThat(plan.imapSearch()).isNull();
+        assertThat(plan.serverCriteria()).isEmpty();
+        assertThat(plan.localCriteria()).singleElement().asString().startsWith("SIZE >= 1000");
+        assertThat(plan.estimatedRoundTrips()).isEqualTo(101);
+        assertThat(plan.costEstimate()).contains("the client fetches the headers of 100 messages");
+    }
+
+    @Test
+    void shouldUseCapabilityOnlyWhenServerHasIt() {
+        // Given
+        EmailSearch search = () -> new YoungerTerm(3600);
+        ServerCapabilities within = new ServerCapabilities(Set.of(ImapCapability.WITHIN), Instant.now());
+
+        // When
+        SearchPlan withExtension = search.explain(within);
+        SearchPlan withoutExtension = search.explain(NO_EXTENSIONS);
+
+        // Then
+        assertThat(withExtension.imapSearch()).isEqualTo("SEARCH YOUNGER 3600");
+        assertThat(withExtension.capabilities()).containsExactly(ImapCapability.WITHIN);
+        assertThat(withoutExtension.execution()).isEqualTo(SearchPlan.Execution.CLIENT);
+    }
+
+    @Test
+    void shouldNotSearchForNoFilterOrContradiction() {
+        // When
+        SearchPlan all = SearchPlan.of(null, NO_EXTENSIONS);
+        SearchPlan none = EmailSearch.read().and(EmailSearch.unread()).optimize().explain(NO_EXTENSIONS);
+
+        // Then
+        assertThat(all.execution()).isEqualTo(SearchPlan.Execution.ALL);
+        assertThat(none.execution()).isEqualTo(SearchPlan.Execution.NO_MATCH);
+        assertThat(none.estimatedRoundTrips()).isZero();
+    }
+
+    @Test
+    void shouldMatchEverythingOnClientForStoresWithoutSearch() {
+        // When
+        SearchPlan plan = SearchPlanner.plan(EmailSearch.bodyContains("invoice").build(), NO_EXTENSIONS, false, 10, 5000);
+
+        // Then
+        assertThat(plan.execution()).isEqualTo(SearchPlan.Execution.CLIENT);
+        assertThat(plan.readsBodies()).isTrue();
+        assertThat(plan.costEstimate()).contains("headers and bodies of 10 messages (about 5000 bytes)");
+    }
+}
@@ -0,0 +1,173 @@
+package info.jab.email;
+
+import jakarta.mail.Flags;
+import jakarta.mail.search.AndTerm;
+import jakarta.mail.search.BodyTerm;
+import jakarta.mail.search.ComparisonTerm;
+import jakarta.mail.search.FlagTerm;
+import jakarta.mail.search.FromStringTerm;
+import jakarta.mail.search.OrTerm;
+import jakarta.mail.search.ReceivedDateTerm;
+import jakarta.mail.search.SearchTerm;
+import jakarta.mail.search.SizeTerm;
+import jakarta.mail.search.SubjectTerm;
+import java.time.LocalDate;
+import java.util.Date;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for SearchTermOptimizer.
+ */
+class SearchTermOptimizerTest {
+
+    @Test
+    void shouldFlattenNestedAndTerms() {
+        // Given
+        EmailSearch search = EmailSearch.from("alice").and(EmailSearch.subjectContains("report")).and(EmailSearch.to("team"));
+
+        // When
+        SearchTerm optimized = search.optimize().build();
+
+        // Then
+        assertThat(optimized).isInstanceOf(AndTerm.class);
+        assertThat(((AndTerm) optimized).getTerms()).hasSize(3).noneMatch(term -> term instanceof AndTerm);
+    }
+
+    @Test
+    void shouldFlattenNestedOrTermsAndRemoveDuplicates() {
+        // Given
+        EmailSearch search = EmailSearch.from("alice").or(EmailSearch.from("bob")).or(EmailSearch.from("alice"));
+
+        // When
+        SearchTerm optimized = search.optimize().build();
+
+        // Then
+        assertThat(optimized).isInstanceOf(OrTerm.class);
+        assertThat(((OrTerm) optimized).getTerms()).containsExactly(new FromStringTerm("alice"), new FromStringTerm("bob"));
+    }
+
+    @Test
+    void shouldCollapseDuplicateOperandsToSingleTerm() {
+        // Given
+        EmailSearch search = EmailSearch.unread().and(EmailSearch.unread());
+
+        // When
+        SearchTerm optimized = search.optimize().build();
+
+        // Then
+        assertThat(optimized).isEqualTo(new FlagTerm(new Flags(Flags.Flag.SEEN), false));
+    }
+
+    @Test
+    void shouldDetectContradictoryFlags() {
+        // Given
+        EmailSearch search = EmailSearch.read().and(EmailSearch.from("alice")).and(EmailSearch.unread());
+
+        // When
+        EmailSearch optimized = search.optimize();
+
+        // Then
+        assertThat(optimized.matchesNothing()).isTrue();
+        assertThat(optimized.toPredicate()).isSameAs(EnvelopePredicate.NONE);
+    }
+
+    @Test
+    void shouldDetectTermAndItsNegation() {
+        // Given
+        EmailSearch search = EmailSearch.subjectContains("x").and(EmailSearch.subjectContains("x").not());
+
+        // When & Then
+        assertThat(search.optimize().matchesNothing()).isTrue();
+    }
+
+    @Test
+    void shouldRemoveDoubleNegation() {
+        // Given
+        EmailSearch search = EmailSearch.from("alice").not().not();
+
+        // When & Then
+        assertThat(search.optimize().build()).isEqualTo(new FromStringTerm("alice"));
+    }
+
+    @Test
+    void shouldMergeDateBoundsIntoOneRange() {
+        // Given
+        EmailSearch search = EmailSearch.receivedAfter(LocalDate.of(2025, 1, 1))
+                .and(EmailSearch.receivedAfter(LocalDate.of(2025, 3, 1)))
+                .and(EmailSearch.receivedBefore(LocalDate.of(2025, 6, 30)))
+                .and(EmailSearch.receivedBefore(LocalDate.of(2025, 12, 31)));
+
+        // When
+        SearchTerm optimized = search.optimize().build();
+
+        // Then
+        assertThat(optimized).isEqualTo(new AndTerm(
+                EmailSearch.receivedAfter(LocalDate.of(2025, 3, 1)).build(),
+                EmailSearch.receivedBefore(LocalDate.of(2025, 6, 30)).build()));
+    }
+
+    @Test
+    void shouldDetectEmptyDateRange() {
+        // Given
+        EmailSearch search = EmailSearch.sentAfter(LocalDate.of(2025, 3, 2)).and(EmailSearch.sentBefore(LocalDate.of(2025, 3, 1)));
+
+        // When & Then
+        assertThat(search.optimize().matchesNothing()).isTrue();
+        assertThat(EmailSearch.sentAfter(LocalDate.of(2025, 3, 1)).and(EmailSearch.sentBefore(LocalDate.of(2025, 3, 1)))
+                .optimize().matchesNothing()).isFalse();
+    }
+
+    @Test
+    void shouldDetectEmptySizeRange() {
+        // Given
+        EmailSearch search = ((EmailSearch) () -> new SizeTerm(ComparisonTerm.GT, 1000))
+                .and(() -> new SizeTerm(ComparisonTerm.LT, 1001));
+
+        // When & Then
+        assertThat(search.optimize().matchesNothing()).isTrue();
+    }
+
+    @Test
+    void shouldOrderCheapTermsFirst() {
+        // Given
+        EmailSearch search = EmailSearch.bodyContains("invoice")
+                .and(EmailSearch.subjectContains("march"))
+                .and(EmailSearch.receivedAfter(LocalDate.of(2025, 1, 1)))
+                .and(EmailSearch.unread());
+
+        // When
+        SearchTerm[] terms = ((AndTerm) search.optimize().build()).getTerms();
+
+        // Then
+        assertThat(terms[0]).isInstanceOf(FlagTerm.class);
+        assertThat(terms[1]).isInstanceOf(ReceivedDateTerm.class);
+        assertThat(terms[2]).isInstanceOf(SubjectTerm.class);
+        assertThat(terms[3]).isInstanceOf(BodyTerm.class);
+    }
+
+    @Test
+    void shouldDropImpossibleAlternatives() {
+        // Given
+        EmailSearch search = EmailSearch.read().and(EmailSearch.unread()).or(EmailSearch.from("alice"));
+
+        // When & Then
+        assertThat(search.optimize().build()).isEqualTo(new FromStringTerm("alice"));
+    }
+
+    @Test
+    void shouldKeepMatchingSameMessages() {
+        // Given
+        Date day = new Date(1_700_000_000_000L);
+        SearchTerm term = new AndTerm(new ReceivedDateTerm(ComparisonTerm.GE, day),
+                new AndTerm(new ReceivedDateTerm(ComparisonTerm.LE, day), new FlagTerm(new Flags(Flags.Flag.FLAGGED), true)));
+
+        // When
+        SearchTerm optimized = SearchTermOptimizer.optimize(term);
+
+        // Then
+        assertThat(optimized).isEqualTo(new AndTerm(new FlagTerm(new Flags(Flags.Flag.FLAGGED), true),
+                new ReceivedDateTerm(ComparisonTerm.EQ, day)));
+    }
+}
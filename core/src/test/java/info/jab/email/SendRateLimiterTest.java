@@ -0,0 +1,219 @@
+package info.jab.email;
+
+import com.sun.mail.smtp.SMTPSendFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for SendRateLimiter, its TokenBucket and the SMTP reply codes that drive it.
+ */
+class SendRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void shouldAllowBurstUpToCapacityAndThenSpaceReservations() {
+        // Given
+        TokenBucket bucket = new TokenBucket(2, 2, clock::get);
+
+        // When
+        long first = bucket.reserve(1);
+        long second = bucket.reserve(1);
+        long third = bucket.reserve(1);
+        long fourth = bucket.reserve(1);
+
+        // Then
+        assertThat(first).isZero();
+        assertThat(second).isZero();
+        assertThat(third).isEqualTo(Duration.ofMillis(500).toNanos());
+        assertThat(fourth).isEqualTo(Duration.ofSeconds(1).toNanos());
+    }
+
+    @Test
+    void shouldRefillOverTimeWithoutExceedingCapacity() {
+        // Given
+        TokenBucket bucket = new TokenBucket(10, 5, clock::get);
+        bucket.reserve(5);
+
+        // When
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        // Then
+        assertThat(bucket.reserve(5)).isZero();
+        assertThat(bucket.reserve(1)).isEqualTo(Duration.ofMillis(100).toNanos());
+    }
+
+    @Test
+    void shouldDelayReservationLargerThanCapacityInsteadOfBlockingForever() {
+        // Given
+        TokenBucket bucket = new TokenBucket(1, 1, clock::get);
+
+        // When
+        long wait = bucket.reserve(3);
+
+        // Then
+        assertThat(wait).isEqualTo(Duration.ofSeconds(2).toNanos());
+    }
+
+    @Test
+    void shouldHalveRateAndConcurrencyWhenThrottled() {
+        // Given
+        SendRateLimiter limiter = new SendRateLimiter(new SendRateLimits(10, 600, 4), clock::get);
+
+        // When
+        limiter.onThrottled();
+
+        // Then
+        assertThat(limiter.messagesPerSecond()).isEqualTo(5);
+        assertThat(limiter.concurrencyLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldBackOffOnlyOncePerIntervalForRepliesAlreadyInFlight() throws InterruptedException {
+        // Given
+        SendRateLimiter limiter = new SendRateLimiter(new SendRateLimits(8, 0, 4), clock::get);
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire(1);
+        }
+
+        // When
+        limiter.onThrottled();
+        limiter.onThrottled();
+        clock.addAndGet(SendRateLimiter.ADJUST_INTERVAL_NANOS);
+        limiter.onThrottled();
+
+        // Then
+        assertThat(limiter.messagesPerSecond()).isEqualTo(2);
+        assertThat(limiter.concurrencyLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRampBackUpAdditivelyOncePerIntervalOfSuccess() {
+        // Given
+        SendRateLimiter limiter = new SendRateLimiter(new SendRateLimits(10, 0, 2), clock::get);
+        limiter.onThrottled();
+
+        // When
+        limiter.onSuccess();
+        double beforeInterval = limiter.messagesPerSecond();
+        clock.addAndGet(SendRateLimiter.ADJUST_INTERVAL_NANOS);
+        limiter.onSuccess();
+        limiter.onSuccess();
+
+        // Then
+        assertThat(beforeInterval).isEqualTo(5);
+        assertThat(limiter.messagesPerSecond()).isEqualTo(6);
+        assertThat(limiter.concurrencyLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotRampAboveConfiguredLimits() {
+        // Given
+        SendRateLimiter limiter = new SendRateLimiter(new SendRateLimits(10, 0, 2), clock::get);
+        limiter.onThrottled();
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            clock.addAndGet(SendRateLimiter.ADJUST_INTERVAL_NANOS);
+            limiter.onSuccess();
+        }
+
+        // Then
+        assertThat(limiter.messagesPerSecond()).isEqualTo(10);
+        assertThat(limiter.concurrencyLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotDropRateBelowMinimumFactor() {
+        // Given
+        SendRateLimiter limiter = new SendRateLimiter(new SendRateLimits(100, 0, 1), clock::get);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            clock.addAndGet(SendRateLimiter.ADJUST_INTERVAL_NANOS);
+            limiter.onThrottled();
+        }
+
+        // Then
+        assertThat(limiter.messagesPerSecond()).isEqualTo(100 * SendRateLimiter.MIN_RATE_FACTOR);
+    }
+
+    @Test
+    void shouldHalveUnboundedConcurrencyFromEmailsInFlight() throws InterruptedException {
+        // Given
+        SendRateLimiter limiter = new SendRateLimiter(SendRateLimits.UNLIMITED, clock::get);
+        for (int i = 0; i < 6; i++) {
+            limiter.acquire(1);
+        }
+
+        // When
+        limiter.onThrottled();
+
+        // Then
+        assertThat(limiter.concurrencyLimit()).isEqualTo(3);
+        assertThat(limiter.messagesPerSecond()).isZero();
+    }
+
+    @Test
+    void shouldBlockAcquireWhileConcurrencyLimitIsReached() throws InterruptedException {
+        // Given
+        SendRateLimiter limiter = new SendRateLimiter(new SendRateLimits(0, 0, 1));
+        limiter.acquire(1);
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                limiter.acquire(1);
+                limiter.release();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // When
+        waiter.join(Duration.ofMillis(200));
+        boolean blocked = waiter.isAlive();
+        limiter.release();
+        waiter.join(Duration.ofSeconds(5));
+
+        // Then
+        assertThat(blocked).isTrue();
+        assertThat(waiter.isAlive()).isFalse();
+    }
+
+    @Test
+    void shouldRejectInvalidLimits() {
+        // When & Then
+        assertThatThrownBy(() -> new SendRateLimits(-1, 0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SendRateLimits(1, -1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SendRateLimits(1, 1, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SendRateLimits(Double.NaN, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRecognizeTransientReplyCodes() {
+        // Given
+        MessagingException tooFast = new SMTPSendFailedException("MAIL", 421, "421 4.7.0 Try again later", null, null, null, null);
+        MessagingException greylisted = new MessagingException("451 4.7.1 Greylisted, please retry");
+        MessagingException badGreeting = new MessagingException(
+                "Got bad greeting from SMTP host: mail.example.com, port: 25, response: 421 Too many connections");
+        SendFailedException nested = new SendFailedException("Invalid Addresses");
+        nested.setNextException(new MessagingException("452 4.5.3 Too many recipients"));
+        MessagingException rejected = new MessagingException("550 5.1.1 User unknown");
+        MessagingException noCode = new MessagingException("Connection reset");
+
+        // When & Then
+        assertThat(SmtpConnection.replyCode(tooFast)).isEqualTo(421);
+        assertThat(SmtpConnection.isTransientFailure(tooFast)).isTrue();
+        assertThat(SmtpConnection.isTransientFailure(greylisted)).isTrue();
+        assertThat(SmtpConnection.isTransientFailure(badGreeting)).isTrue();
+        assertThat(SmtpConnection.isTransientFailure(nested)).isTrue();
+        assertThat(SmtpConnection.replyCode(rejected)).isEqualTo(550);
+        assertThat(SmtpConnection.isTransientFailure(rejected)).isFalse();
+        assertThat(SmtpConnection.replyCode(noCode)).isEqualTo(-1);
+    }
+}
@@ -1,6 +1,9 @@
 package info.jab.email;
 
 import jakarta.mail.Session;
+import java.time.Duration;
+import javax.net.ssl.SSLSocketFactory;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -10,6 +13,11 @@ import static org.assertj.core.api.Assertions.assertThat;
  */
 class SessionFactoryTest {
 
+    @AfterEach
+    void tearDown() {
+        SessionFactory.invalidateAll();
+    }
+
     @Test
     void shouldCreateStoreSessionForImap() {
         // When
@@ -89,5 +97,66 @@ class SessionFactoryTest {
         assertThat(session.getProperties().getProperty("mail.smtp.host")).isEqualTo("mail.example.com");
         assertThat(session.getProperties().getProperty("mail.smtp.port")).isEqualTo("1025");
     }
-}
 
+    @Test
+    void shouldReuseStoreSessionForSameEndpointAndCredentials() {
+        // Given
+        ProtocolConfiguration protocolConfig = ProtocolConfiguration.fromPort(143);
+
+        // When
+        Session first = SessionFactory.storeSession("mail.example.com", 143, "user@example.com", "password", protocolConfig);
+        Session second = SessionFactory.storeSession("mail.example.com", 143, "user@example.com", "password",
+                ProtocolConfiguration.fromPort(143));
+
+        // Then
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void shouldCreateNewSessionWhenCredentialsOrTimeoutChange() {
+        // Given
+        ProtocolConfiguration protocolConfig = ProtocolConfiguration.fromPort(143);
+        Session original = SessionFactory.storeSession("mail.example.com", 143, "user@example.com", "password", protocolConfig);
+
+        // When
+        Session rotated = SessionFactory.storeSession("mail.example.com", 143, "user@example.com", "rotated", protocolConfig);
+        Session withTimeout = SessionFactory.storeSession("mail.example.com", 143, "user@example.com", "password",
+                protocolConfig.withTimeout(Duration.ofSeconds(10)));
+
+        // Then
+        assertThat(rotated).isNotSameAs(original);
+        assertThat(withTimeout).isNotSameAs(original);
+        assertThat(withTimeout.getProperties().getProperty("mail.imap.timeout")).isEqualTo("10000");
+    }
+
+    @Test
+    void shouldDropSessionsOfUserWhenInvalidated() {
+        // Given
+        Session smtp = SessionFactory.smtpSession("mail.example.com", 587, "user@example.com", "password");
+        Session other = SessionFactory.smtpSession("mail.example.com", 587, "other@example.com", "password");
+
+        // When
+        int dropped = SessionFactory.invalidate("mail.example.com", 587, "user@example.com");
+
+        // Then
+        assertThat(dropped).isEqualTo(1);
+        assertThat(SessionFactory.smtpSession("mail.example.com", 587, "user@example.com", "password")).isNotSameAs(smtp);
+        assertThat(SessionFactory.smtpSession("mail.example.com", 587, "other@example.com", "password")).isSameAs(other);
+    }
+
+    @Test
+    void shouldShareOneSslSocketFactoryAcrossSslStoreSessions() {
+        // Given
+        ProtocolConfiguration protocolConfig = ProtocolConfiguration.fromPort(993);
+
+        // When
+        Session first = SessionFactory.storeSession("mail.example.com", 993, "user@example.com", "password", protocolConfig);
+        Session second = SessionFactory.storeSession("other.example.com", 993, "user@example.com", "password", protocolConfig);
+
+        // Then
+        Object factory = first.getProperties().get("mail.imap.ssl.socketFactory");
+        assertThat(factory).isInstanceOf(SSLSocketFactory.class);
+        assertThat(second.getProperties().get("mail.imap.ssl.socketFactory")).isSameAs(factory);
+        assertThat(first.getProperties().getProperty("mail.imap.ssl.enable")).isEqualTo("true");
+    }
+}